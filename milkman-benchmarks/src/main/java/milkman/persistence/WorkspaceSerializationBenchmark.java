@@ -0,0 +1,99 @@
+package milkman.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import milkman.domain.Collection;
+import milkman.domain.Environment;
+import milkman.domain.RequestContainer;
+import milkman.domain.Workspace;
+import milkman.ui.plugin.rest.domain.HeaderEntry;
+import milkman.ui.plugin.rest.domain.RestBodyAspect;
+import milkman.ui.plugin.rest.domain.RestHeaderAspect;
+import milkman.ui.plugin.rest.domain.RestRequestContainer;
+import org.dizitart.no2.mapper.JacksonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (de)serialization of a large workspace with the same object mapper setup as {@link PersistenceManager}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkspaceSerializationBenchmark {
+
+	@Param({"10", "100"})
+	private int collections;
+
+	@Param({"50"})
+	private int requestsPerCollection;
+
+	private ObjectMapper mapper;
+	private Workspace workspace;
+	private byte[] serializedWorkspace;
+
+	@Setup
+	public void setup() throws Exception {
+		mapper = new JacksonMapper().getObjectMapper();
+		mapper.addHandler(new UnknownPluginHandler());
+
+		workspace = new Workspace();
+		workspace.setId(1);
+		workspace.setWorkspaceId(UUID.randomUUID().toString());
+		workspace.setName("benchmark");
+		workspace.setOpenRequests(new LinkedList<>());
+		workspace.setCollections(new LinkedList<>());
+		for (int c = 0; c < collections; c++) {
+			List<RequestContainer> requests = new LinkedList<>();
+			for (int r = 0; r < requestsPerCollection; r++) {
+				requests.add(newRequest(c, r));
+			}
+			workspace.getCollections().add(new Collection(UUID.randomUUID().toString(), "collection " + c, false, requests, new LinkedList<>()));
+		}
+		Environment environment = new Environment("environment");
+		for (int i = 0; i < 100; i++) {
+			environment.setOrAdd("var" + i, "value-" + i);
+		}
+		workspace.getEnvironments().add(environment);
+
+		serializedWorkspace = mapper.writeValueAsBytes(workspace);
+	}
+
+	private RestRequestContainer newRequest(int collection, int request) {
+		var container = new RestRequestContainer("request " + collection + "/" + request, "https://{{host}}/api/items/" + request, "POST");
+		var headers = new RestHeaderAspect();
+		headers.getEntries().add(new HeaderEntry(UUID.randomUUID().toString(), "Content-Type", "application/json", true));
+		headers.getEntries().add(new HeaderEntry(UUID.randomUUID().toString(), "Authorization", "Bearer {{token}}", true));
+		container.addAspect(headers);
+		var body = new RestBodyAspect();
+		body.setBody("{\"id\": " + request + ", \"name\": \"item " + request + "\", \"tags\": [\"a\", \"b\", \"c\"]}");
+		container.addAspect(body);
+		return container;
+	}
+
+	@Benchmark
+	public byte[] serialize() throws Exception {
+		return mapper.writeValueAsBytes(workspace);
+	}
+
+	@Benchmark
+	public Workspace deserialize() throws Exception {
+		return mapper.readValue(serializedWorkspace, Workspace.class);
+	}
+}
@@ -0,0 +1,78 @@
+package milkman.templater;
+
+import milkman.domain.Environment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tag replacement as done for every templated field of a request before it is executed.
+ * A new templater is created per invocation, same as per request execution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentTemplaterBenchmark {
+
+	@Param({"10", "1000"})
+	private int variables;
+
+	private Environment environment;
+	private Environment globalEnvironment;
+
+	private String plainInput;
+	private String templatedInput;
+	private String nestedInput;
+
+	@Setup
+	public void setup() {
+		environment = new Environment("active");
+		for (int i = 0; i < variables; i++) {
+			environment.setOrAdd("var" + i, "value-" + i);
+		}
+		environment.setOrAdd("host", "localhost:8080");
+		environment.setOrAdd("nested", "{{host}}/{{var0}}");
+
+		globalEnvironment = new Environment("global");
+		globalEnvironment.setGlobal(true);
+		globalEnvironment.setOrAdd("token", "secret");
+
+		plainInput = "{\"id\": 1, \"name\": \"a request body without any tags, which is the most common case\"}";
+		templatedInput = "https://{{host}}/api/{{var0}}/items/{{var1}}?token={{token}}&unknown={{unknown}}";
+		nestedInput = "https://{{nested}}/{{nested}}";
+	}
+
+	@Benchmark
+	public String replacePlain() {
+		return newTemplater().replaceTags(plainInput);
+	}
+
+	@Benchmark
+	public String replaceTemplated() {
+		return newTemplater().replaceTags(templatedInput);
+	}
+
+	@Benchmark
+	public String replaceNested() {
+		return newTemplater().replaceTags(nestedInput);
+	}
+
+	private EnvironmentTemplater newTemplater() {
+		return new EnvironmentTemplater(Optional.of(environment), List.of(globalEnvironment), null);
+	}
+}
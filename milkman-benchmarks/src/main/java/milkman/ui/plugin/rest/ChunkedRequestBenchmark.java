@@ -0,0 +1,111 @@
+package milkman.ui.plugin.rest;
+
+import com.sun.net.httpserver.HttpServer;
+import milkman.domain.RequestTiming;
+import milkman.utils.Event0;
+import milkman.utils.ResponseBodyStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * receiving response bodies via {@link ChunkedRequest}, against an embedded http server on the loopback interface,
+ * so results do not depend on any network or remote system.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkedRequestBenchmark {
+
+	private static final int WRITE_CHUNK_SIZE = 16 * 1024;
+
+	@Param({"16384", "1048576", "16777216"})
+	private int bodySize;
+
+	private HttpServer server;
+	private HttpClient client;
+	private HttpRequest request;
+	private List<ByteBuffer> receivedBuffers;
+	//the method is private, it is called via a method handle instead of widening its visibility for the benchmark
+	private MethodHandle toBytes;
+
+	@Setup
+	public void setup() throws Exception {
+		byte[] body = new byte[bodySize];
+		Arrays.fill(body, (byte) 'x');
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(4));
+		server.createContext("/body", exchange -> {
+			//length 0 means chunked transfer encoding, like most streaming servers
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream out = exchange.getResponseBody()) {
+				for (int offset = 0; offset < body.length; offset += WRITE_CHUNK_SIZE) {
+					out.write(body, offset, Math.min(WRITE_CHUNK_SIZE, body.length - offset));
+				}
+			}
+		});
+		server.start();
+
+		client = HttpClient.newHttpClient();
+		request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/body")).GET().build();
+
+		toBytes = MethodHandles.privateLookupIn(ChunkedRequest.class, MethodHandles.lookup())
+				.findStatic(ChunkedRequest.class, "toBytes", MethodType.methodType(byte[].class, List.class));
+
+		receivedBuffers = new ArrayList<>();
+		for (int offset = 0; offset < bodySize; offset += WRITE_CHUNK_SIZE) {
+			receivedBuffers.add(ByteBuffer.wrap(body, offset, Math.min(WRITE_CHUNK_SIZE, bodySize - offset)).slice());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Benchmark
+	public long receiveBody() throws Exception {
+		var chunkedRequest = new ChunkedRequest(client, request, ResponseBodyStore.DEFAULT_MEMORY_THRESHOLD, new RequestTiming());
+		chunkedRequest.executeRequest(new Event0());
+		chunkedRequest.getRequestDone().get(30, TimeUnit.SECONDS);
+		long size = chunkedRequest.getBodyStore().size();
+		chunkedRequest.getBodyStore().dispose();
+		return size;
+	}
+
+	@Benchmark
+	public byte[] aggregateChunks() throws Throwable {
+		//the buffers are consumed by aggregation
+		receivedBuffers.forEach(ByteBuffer::rewind);
+		return (byte[]) toBytes.invokeExact(receivedBuffers);
+	}
+}
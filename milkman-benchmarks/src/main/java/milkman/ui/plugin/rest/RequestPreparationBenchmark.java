@@ -0,0 +1,81 @@
+package milkman.ui.plugin.rest;
+
+import milkman.domain.Environment;
+import milkman.templater.EnvironmentTemplater;
+import milkman.ui.plugin.Templater;
+import milkman.ui.plugin.rest.domain.HeaderEntry;
+import milkman.ui.plugin.rest.domain.RestBodyAspect;
+import milkman.ui.plugin.rest.domain.RestHeaderAspect;
+import milkman.ui.plugin.rest.domain.RestRequestContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * preparation of an http request from a request container, as done before every execution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestPreparationBenchmark {
+
+	private JavaRequestProcessor processor;
+	//the method is private, it is called via a method handle instead of widening its visibility for the benchmark
+	private MethodHandle toHttpRequest;
+	private Templater templater;
+	private RestRequestContainer request;
+
+	@Setup
+	public void setup() throws Exception {
+		processor = new JavaRequestProcessor();
+		toHttpRequest = MethodHandles.privateLookupIn(JavaRequestProcessor.class, MethodHandles.lookup())
+				.findVirtual(JavaRequestProcessor.class, "toHttpRequest",
+						MethodType.methodType(HttpRequest.class, RestRequestContainer.class, Templater.class));
+
+		Environment environment = new Environment("benchmark");
+		environment.setOrAdd("host", "localhost:8080");
+		environment.setOrAdd("token", "secret");
+		environment.setOrAdd("query", "a value with spaces & special characters");
+		templater = new EnvironmentTemplater(Optional.of(environment), List.of(), null);
+
+		request = new RestRequestContainer("benchmark", "http://{{host}}/api/items/{{token}}?q={{query}}&page=1&size=20", "POST");
+		var headers = new RestHeaderAspect();
+		for (int i = 0; i < 10; i++) {
+			headers.getEntries().add(new HeaderEntry(UUID.randomUUID().toString(), "X-Header-" + i, "value {{token}}", true));
+		}
+		headers.getEntries().add(new HeaderEntry(UUID.randomUUID().toString(), "Content-Type", "application/json", true));
+		request.addAspect(headers);
+		var body = new RestBodyAspect();
+		body.setBody("{\"token\": \"{{token}}\", \"items\": [1, 2, 3, 4, 5]}");
+		request.addAspect(body);
+	}
+
+	@Benchmark
+	public String escapeUrl() throws Exception {
+		return HttpUtil.escapeUrl(request, templater);
+	}
+
+	@Benchmark
+	public HttpRequest toHttpRequest() throws Throwable {
+		return (HttpRequest) toHttpRequest.invokeExact(processor, request, templater);
+	}
+}
@@ -0,0 +1,55 @@
+package milkman.ui.plugin.rest.contenttype;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * pretty-printing of json response bodies, as done on every response if auto-formatting is enabled
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonFormattingBenchmark {
+
+	@Param({"10", "10000"})
+	private int items;
+
+	private JsonContentType contentType;
+	private String compactJson;
+
+	@Setup
+	public void setup() {
+		contentType = new JsonContentType();
+		StringBuilder json = new StringBuilder("{\"items\":[");
+		for (int i = 0; i < items; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"id\":").append(i)
+					.append(",\"name\":\"item ").append(i)
+					.append("\",\"active\":").append(i % 2 == 0)
+					.append(",\"tags\":[\"a\",\"b\"],\"nested\":{\"value\":").append(i * 1.5).append("}}");
+		}
+		json.append("]}");
+		compactJson = json.toString();
+	}
+
+	@Benchmark
+	public String formatContent() {
+		return contentType.formatContent(compactJson);
+	}
+}
@@ -11,6 +11,10 @@ public class CassandraOptionsProvider implements OptionPageProvider<CassandraOpt
 	@Data
 	public static class CassandraOptions implements OptionsObject {
 		private int maxRowFetchLimit = 500;
+		private int pageSize = 100;
+		private int sessionCacheSize = 4;
+		private int sessionIdleTimeoutSeconds = 600;
+		private int preparedStatementCacheSize = 100;
 	} 
 
 	private static CassandraOptions currentOptions = new CassandraOptions();
@@ -32,7 +36,14 @@ public class CassandraOptionsProvider implements OptionPageProvider<CassandraOpt
 	public OptionDialogPane getOptionsDialog(OptionDialogBuilder builder) {
 		return builder.page("Cassandra", getOptions())
 				.section("Cassandra Fetch")
-					.numberInput("Row Fetch limit", CassandraOptions::getMaxRowFetchLimit, CassandraOptions::setMaxRowFetchLimit)
+					.numberInput("Row Fetch limit (rows per page)", CassandraOptions::getMaxRowFetchLimit, CassandraOptions::setMaxRowFetchLimit)
+					.numberInput("Page size (rows per roundtrip)", CassandraOptions::getPageSize, CassandraOptions::setPageSize)
+				.endSection()
+				.section("Sessions")
+					.numberInput("Max cached sessions", CassandraOptions::getSessionCacheSize, CassandraOptions::setSessionCacheSize)
+					.numberInput("Close idle sessions after (s)", CassandraOptions::getSessionIdleTimeoutSeconds, CassandraOptions::setSessionIdleTimeoutSeconds)
+					.numberInput("Cached prepared statements per session", CassandraOptions::getPreparedStatementCacheSize, CassandraOptions::setPreparedStatementCacheSize)
+					.button("Close cached sessions", () -> CqlSessionCache.sessions().closeAll())
 				.endSection()
 				.build();
 	}
@@ -1,52 +1,56 @@
 package milkman.plugin.cassandra;
 
 import com.datastax.oss.driver.api.core.CqlSession;
-import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
-import com.datastax.oss.driver.api.core.config.OptionsMap;
-import com.datastax.oss.driver.api.core.config.TypedDriverOption;
-import com.datastax.oss.driver.api.core.cql.ResultSet;
-import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
 import com.datastax.oss.driver.shaded.guava.common.collect.Streams;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import milkman.domain.RequestContainer;
 import milkman.domain.ResponseContainer;
-import milkman.domain.ResponseContainer.StyledText;
+import milkman.plugin.cassandra.CqlSessionCache.CachedSession;
+import milkman.plugin.cassandra.CqlSessionCache.SessionLease;
 import milkman.plugin.cassandra.domain.CassandraRequestContainer;
-import milkman.plugin.cassandra.proxy.SocksProxyAwareSessionBuilder;
+import milkman.plugin.jdbc.ParameterizedSql;
 import milkman.plugin.jdbc.domain.JdbcSqlAspect;
 import milkman.plugin.jdbc.domain.RowSetResponseAspect;
 import milkman.plugin.jdbc.domain.TableResponseContainer;
 import milkman.ui.plugin.Templater;
-import org.apache.commons.lang3.StringUtils;
+import milkman.utils.AsyncResponseControl;
+import milkman.utils.AsyncResponseControl.AsyncControl;
 
-import java.net.InetSocketAddress;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+import static milkman.plugin.cassandra.CassandraOptionsProvider.options;
+import static milkman.plugin.cassandra.CqlSessionCache.sessions;
+
 @Slf4j
 public class CassandraQueryProcessor {
 
-
-	private static final Map<CassandraConnectionProperties, CqlSession> connectionCache = new HashMap<>();
-
-	static {
-		Runtime.getRuntime().addShutdownHook(new Thread(() -> connectionCache.forEach((prop, con) -> {
-			try {
-				con.closeAsync().toCompletableFuture().get(2, TimeUnit.SECONDS);
-			} catch (Exception e) {
-				log.warn("Failed to properly close cassandra connection");
-			}
-		})));
+	/**
+	 * executes the query and waits until the first rows are fetched
+	 */
+	public ResponseContainer executeRequest(RequestContainer request, Templater templater) {
+		var responseControl = new AsyncResponseControl();
+		var response = executeRequest(request, templater, responseControl.getCancellationControl());
+		CompletableFuture.anyOf(responseControl.onRequestSucceeded, responseControl.onRequestFailed).join();
+		return response;
 	}
 
+	/**
+	 * executes the query and returns as soon as the first page of the result arrived. Further pages
+	 * are fetched in the background up to the row fetch limit, more rows can be fetched via the pager of the result.
+	 */
 	@SneakyThrows
-	public ResponseContainer executeRequest(RequestContainer request, Templater templater) {
+	public ResponseContainer executeRequest(RequestContainer request, Templater templater, AsyncControl asyncControl) {
 
 		if (!(request instanceof CassandraRequestContainer)) {
 			throw new IllegalArgumentException("Unsupported request container: " + request.getType());
@@ -54,86 +58,107 @@ public class CassandraQueryProcessor {
 
 		JdbcSqlAspect jdbcSqlAspect = request.getAspect(JdbcSqlAspect.class)
 				.orElseThrow(() -> new IllegalArgumentException("Missing Sql Aspect"));
-		String finalCql = templater.replaceTags(jdbcSqlAspect.getSql());
 
 
 		CassandraRequestContainer jdbcRequest = (CassandraRequestContainer)request;
 		String cassandraUrl = templater.replaceTags(jdbcRequest.getCassandraUrl());
-		log.info("Executing Cql: " + finalCql);
-
 
 		var url = new URI(cassandraUrl);
 		var conProps = CassandraConnectionProperties.fromUri(url);
-		return executeCql(finalCql, conProps);
-	}
 
-	private TableResponseContainer executeCql(String finalCql, CassandraConnectionProperties conProps) {
 		TableResponseContainer response = new TableResponseContainer();
+		asyncControl.triggerReqeuestStarted();
+		SessionLease lease = null;
+		try {
+			lease = sessions().lease(conProps);
+			CachedSession cachedSession = lease.getCachedSession();
+
+			Statement<?> statement;
+			if (jdbcSqlAspect.isBindParameters()) {
+				var parameterizedCql = ParameterizedSql.parse(jdbcSqlAspect.getSql());
+				String finalCql = templater.replaceTags(parameterizedCql.getSql());
+				log.info("Executing prepared Cql: " + finalCql);
+				List<String> values = parameterizedCql.getParameterTags().stream()
+						.map(templater::replaceTags)
+						.collect(Collectors.toList());
+				statement = bind(cachedSession, finalCql, values);
+			} else {
+				String finalCql = templater.replaceTags(jdbcSqlAspect.getSql());
+				log.info("Executing Cql: " + finalCql);
+				statement = SimpleStatement.newInstance(finalCql);
+			}
+			executeCql(statement.setPageSize(Math.max(1, options().getPageSize())), lease, response, asyncControl);
+			return response;
+		} catch (Exception e) {
+			if (lease != null) {
+				lease.close();
+			}
+			response.getStatusInformations().complete();
+			asyncControl.triggerRequestFailed(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * binds the templated values to a (cached) prepared statement. Values are parsed as cql literals
+	 * of the type of the bind marker, text values are bound as they are.
+	 */
+	private Statement<?> bind(CachedSession cachedSession, String cql, List<String> values) {
+		PreparedStatement prepared = cachedSession.prepare(cql);
+		var variables = prepared.getVariableDefinitions();
+		var codecs = cachedSession.getSession().getContext().getCodecRegistry();
+		Object[] boundValues = new Object[values.size()];
+		for (int i = 0; i < values.size() && i < variables.size(); ++i) {
+			DataType type = variables.get(i).getType();
+			String value = values.get(i);
+			boundValues[i] = DataTypes.TEXT.equals(type) || DataTypes.ASCII.equals(type)
+					? value
+					: codecs.codecFor(type).parse(value);
+		}
+		return prepared.bind(boundValues);
+	}
+
+	@SneakyThrows
+	private void executeCql(Statement<?> statement, SessionLease lease, TableResponseContainer response, AsyncControl asyncControl) {
 		RowSetResponseAspect rowSetAspect = new RowSetResponseAspect();
+		response.getAspects().add(rowSetAspect);
 
-		long requestTimeInMs = 0;
-		CqlSession session = openCqlSession(conProps);
+		CqlSession session = lease.getSession();
 		long startTime = System.currentTimeMillis();
-		ResultSet rs = session.execute(finalCql);
-		requestTimeInMs = System.currentTimeMillis() - startTime;
+		CompletableFuture<AsyncResultSet> firstPage = session.executeAsync(statement).toCompletableFuture();
+		asyncControl.onCancellationRequested.add(() -> firstPage.cancel(true));
+		AsyncResultSet rs;
+		try {
+			rs = firstPage.get();
+		} catch (ExecutionException e) {
+			throw e.getCause();
+		}
+		long requestTimeInMs = System.currentTimeMillis() - startTime;
 
 		var columnNames = Streams.stream(rs.getColumnDefinitions())
 				.map(cd -> cd.getName().asCql(true))
 				.collect(Collectors.toList());
-
-		var rows = new LinkedList<List<String>>();
-		for (Row row : rs) {
-			List<String> rowValues = new LinkedList<>();
-			for(int c = 0; c < columnNames.size(); ++c){
-				var value = row.getObject(c);
-				rowValues.add(value != null ? value.toString() : "NULL");
-			}
-			rows.add(rowValues);
-		}
-
 		rowSetAspect.setColumnNames(columnNames);
-		rowSetAspect.setRows(rows);
-
 
-		response.getAspects().add(rowSetAspect);
-		response.getStatusInformations().complete(Map.of(
-				"Rows", new StyledText(""+ rowSetAspect.getRows().size()),
-				"Time", new StyledText(requestTimeInMs + "ms")));
-
-
-		return response;
-	}
+		//the pager releases the lease once the rows are fetched
+		var pager = new CqlResultPager(rowSetAspect.getRowSet(), rs, lease);
+		rowSetAspect.setPager(pager);
+		asyncControl.onCancellationRequested.add(pager::cancel);
 
-	private CqlSession openCqlSession(CassandraConnectionProperties conProps) {
-		if (connectionCache.containsKey(conProps)){
-			CqlSession cachedSession = connectionCache.get(conProps);
-			if (!cachedSession.isClosed()) {
-				return cachedSession;
+		response.getStatusInformations().add("Time", requestTimeInMs + "ms");
+		pager.fetchNextPage().whenComplete((r, e) -> {
+			response.getStatusInformations().add("Rows", rowSetAspect.getRowCount() + (pager.hasMoreRows() ? "+" : ""));
+			if (pager.isCancelled()) {
+				response.getStatusInformations().add("Fetch", "cancelled");
+			}
+			response.getStatusInformations().add("Cassandra", lease.getStatistics());
+			response.getStatusInformations().complete();
+			if (e != null) {
+				asyncControl.triggerRequestFailed(e);
 			} else {
-				connectionCache.remove(conProps);
+				asyncControl.triggerRequestSucceeded();
 			}
-		}
-
-		var builder = new SocksProxyAwareSessionBuilder()
-				.withLocalDatacenter(conProps.getDatacenter())
-				.addContactPoint(InetSocketAddress.createUnresolved(conProps.getHost(), conProps.getPort()));
-
-		if (StringUtils.isNotBlank(conProps.getKeyspace())) {
-			builder = builder.withKeyspace("\"" + conProps.getKeyspace() + "\"");
-		}
-
-		if (StringUtils.isNotBlank(conProps.getUser())) {
-			builder = builder.withAuthCredentials(conProps.getUser(), conProps.getPassword() == null ? "" : conProps.getPassword());
-		}
-
-		var map = OptionsMap.driverDefaults();
-		map.put(TypedDriverOption.NETTY_DAEMON, true);
-		builder.withConfigLoader(DriverConfigLoader.fromMap(map));
-
-		var cqlSession = builder.build();
-		connectionCache.put(conProps, cqlSession);
-
-		return cqlSession;
+		});
 	}
 
 
@@ -7,6 +7,7 @@ import milkman.plugin.cassandra.domain.CassandraRequestContainer;
 import milkman.plugin.cassandra.editor.CassandraRequestEditor;
 import milkman.plugin.jdbc.domain.JdbcSqlAspect;
 import milkman.ui.plugin.*;
+import milkman.utils.AsyncResponseControl.AsyncControl;
 
 import java.util.Collections;
 import java.util.List;
@@ -30,6 +31,11 @@ public class CassandraRequestPlugin implements RequestTypePlugin, RequestAspects
 		return processor.executeRequest(request, templater);
 	}
 
+	@Override
+	public ResponseContainer executeRequestAsync(RequestContainer request, Templater templater, AsyncControl asyncControl) {
+		return processor.executeRequest(request, templater, asyncControl);
+	}
+
 	@Override
 	public List<RequestAspectEditor> getRequestTabs() {
 		return Collections.emptyList(); // we reuse sqlEditor from jdbc plugin
@@ -0,0 +1,186 @@
+package milkman.plugin.cassandra;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import lombok.extern.slf4j.Slf4j;
+import milkman.domain.rowset.RowSet;
+import milkman.domain.rowset.RowSetPager;
+import milkman.plugin.cassandra.CqlSessionCache.CachedSession;
+import milkman.plugin.cassandra.CqlSessionCache.SessionLease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static milkman.plugin.cassandra.CassandraOptionsProvider.options;
+
+/**
+ * fetches the result of a cql query page-wise. Each page requested by the driver is appended to the row set
+ * as soon as it arrives, until the row fetch limit is reached. Further rows are only requested on demand,
+ * using the paging state of the last page.
+ *
+ * The cluster does not keep any state for paged queries. The session is only leased while pages are fetched,
+ * so a pager that is not used anymore does not keep the session open. If the session was closed in the meantime,
+ * no further rows can be fetched.
+ */
+@Slf4j
+public class CqlResultPager implements RowSetPager {
+
+	private final RowSet rowSet;
+	private final CachedSession session;
+	//held while fetching
+	private SessionLease lease;
+
+	//the first page is already fetched when the pager is created
+	private AsyncResultSet unconsumedPage;
+	private AsyncResultSet lastPage;
+	private CompletableFuture<AsyncResultSet> inFlightPage;
+
+	private CompletableFuture<Void> currentFetch;
+	private boolean fetching = false;
+	private boolean closed = false;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * the pager takes over the given lease of the session the first page was fetched with
+	 */
+	public CqlResultPager(RowSet rowSet, AsyncResultSet firstPage, SessionLease lease) {
+		this.rowSet = rowSet;
+		this.unconsumedPage = firstPage;
+		this.session = lease.getCachedSession();
+		this.lease = lease;
+	}
+
+	@Override
+	public synchronized boolean hasMoreRows() {
+		return !closed && (unconsumedPage != null || lastPage == null || lastPage.hasMorePages());
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * fetches rows up to the row fetch limit. If rows are being fetched already, that fetch is returned.
+	 */
+	@Override
+	public synchronized CompletableFuture<Void> fetchNextPage() {
+		if (fetching) {
+			return currentFetch;
+		}
+		if (!hasMoreRows()) {
+			return CompletableFuture.failedFuture(new IllegalStateException("No more rows available"));
+		}
+		if (lease == null) {
+			lease = session.tryLease(true);
+			if (lease == null) {
+				close();
+				return CompletableFuture.failedFuture(new IllegalStateException("Cassandra session was closed, execute the query again to fetch more rows"));
+			}
+		}
+		fetching = true;
+		currentFetch = new CompletableFuture<>();
+		requestPage(0);
+		return currentFetch;
+	}
+
+	/**
+	 * stops fetching further pages, rows fetched so far are kept
+	 */
+	public void cancel() {
+		cancelled = true;
+		CompletableFuture<AsyncResultSet> page;
+		synchronized (this) {
+			page = inFlightPage;
+			if (!fetching) {
+				close();
+			}
+		}
+		if (page != null) {
+			page.cancel(true);
+		}
+	}
+
+	@Override
+	public void close() {
+		SessionLease released = null;
+		synchronized (this) {
+			closed = true;
+			unconsumedPage = null;
+			if (!fetching) {
+				released = lease;
+				lease = null;
+			}
+		}
+		if (released != null) {
+			released.close();
+		}
+	}
+
+	private void requestPage(int fetchedRows) {
+		CompletionStage<AsyncResultSet> page;
+		synchronized (this) {
+			if (unconsumedPage != null) {
+				page = CompletableFuture.completedFuture(unconsumedPage);
+				unconsumedPage = null;
+			} else {
+				page = lastPage.fetchNextPage();
+			}
+			inFlightPage = page.toCompletableFuture();
+		}
+		page.whenComplete((resultSet, error) -> onPage(resultSet, error, fetchedRows));
+	}
+
+	/**
+	 * called on a driver thread, so nothing must block here
+	 */
+	private void onPage(AsyncResultSet resultSet, Throwable error, int fetchedRows) {
+		if (error != null) {
+			finishFetch(cancelled ? new IllegalStateException("Query was cancelled", error) : error);
+			return;
+		}
+		int columnCount = resultSet.getColumnDefinitions().size();
+		List<Object[]> rows = new ArrayList<>(resultSet.remaining());
+		for (Row row : resultSet.currentPage()) {
+			Object[] values = new Object[columnCount];
+			for (int c = 0; c < columnCount; ++c) {
+				values[c] = row.getObject(c);
+			}
+			rows.add(values);
+		}
+		rowSet.addRows(rows);
+
+		synchronized (this) {
+			lastPage = resultSet;
+			inFlightPage = null;
+		}
+		int totalRows = fetchedRows + rows.size();
+		if (!cancelled && resultSet.hasMorePages() && totalRows < Math.max(1, options().getMaxRowFetchLimit())) {
+			requestPage(totalRows);
+		} else {
+			finishFetch(null);
+		}
+	}
+
+	private void finishFetch(Throwable error) {
+		CompletableFuture<Void> fetch;
+		SessionLease released;
+		synchronized (this) {
+			fetching = false;
+			inFlightPage = null;
+			fetch = currentFetch;
+			released = lease;
+			lease = null;
+			if (error != null || cancelled) {
+				close();
+			}
+		}
+		released.close();
+		if (error != null) {
+			fetch.completeExceptionally(error);
+		} else {
+			fetch.complete(null);
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package milkman.plugin.cassandra;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.datastax.oss.driver.api.core.config.TypedDriverOption;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metrics.DefaultNodeMetric;
+import com.datastax.oss.driver.api.core.metrics.DefaultSessionMetric;
+import com.datastax.oss.driver.api.core.metrics.Metrics;
+import com.datastax.oss.driver.api.core.metrics.NodeMetric;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import milkman.plugin.cassandra.proxy.SocksProxyAwareSessionBuilder;
+import org.apache.commons.lang3.StringUtils;
+
+import java.net.InetSocketAddress;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static milkman.plugin.cassandra.CassandraOptionsProvider.options;
+
+/**
+ * keeps opened cql sessions per connection, so subsequent requests do not have to connect to the cluster again.
+ *
+ * Sessions are leased while a query or a fetch of further pages is running and are never closed while leased.
+ * The number of sessions is limited, the least recently used session that is not leased is closed if the limit is exceeded.
+ * Sessions that were not used for a configurable time are closed as well.
+ * An evicted session that is still leased is closed as soon as the last lease is released.
+ * Each session keeps an lru cache of prepared statements.
+ */
+@Slf4j
+public class CqlSessionCache {
+
+	private static final long EVICTION_INTERVAL_SECONDS = 30;
+	private static final long CLOSE_TIMEOUT_SECONDS = 2;
+
+	private static final CqlSessionCache cache = new CqlSessionCache();
+
+	public static CqlSessionCache sessions() {
+		return cache;
+	}
+
+	private final Map<CassandraConnectionProperties, CachedSession> sessions = new ConcurrentHashMap<>();
+
+	private CqlSessionCache() {
+		ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "cql-session-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		evictor.scheduleWithFixedDelay(this::evictIdleSessions, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::closeAll));
+	}
+
+	/**
+	 * leases the session for the given connection, opening a new one if none is cached.
+	 * The session is not closed before the lease is released.
+	 */
+	public SessionLease lease(CassandraConnectionProperties conProps) {
+		while (true) {
+			CachedSession cached = sessions.get(conProps);
+			boolean reused = cached != null;
+			if (cached == null) {
+				//connecting takes a while, so it is not done within a map operation
+				CachedSession created = new CachedSession(openCqlSession(conProps));
+				cached = sessions.putIfAbsent(conProps, created);
+				if (cached == null) {
+					cached = created;
+				} else {
+					//another request connected in the meantime
+					created.close();
+					reused = true;
+				}
+			}
+			SessionLease lease = cached.tryLease(reused);
+			if (lease != null) {
+				if (!reused) {
+					evictExceedingSessions();
+				}
+				return lease;
+			}
+			//the session was evicted or closed in the meantime
+			evict(conProps, cached);
+		}
+	}
+
+	/**
+	 * closes all sessions. Sessions that are leased are closed as soon as they are released.
+	 */
+	public void closeAll() {
+		List<CompletableFuture<Void>> closed = sessions.entrySet().stream()
+				.map(e -> evict(e.getKey(), e.getValue()))
+				.collect(Collectors.toList());
+		try {
+			CompletableFuture.allOf(closed.toArray(CompletableFuture[]::new)).get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			log.warn("Failed to properly close cassandra connections", e);
+		}
+	}
+
+	private CompletableFuture<Void> evict(CassandraConnectionProperties conProps, CachedSession cached) {
+		sessions.remove(conProps, cached);
+		return cached.evict();
+	}
+
+	private void evictExceedingSessions() {
+		int maxSessions = Math.max(1, options().getSessionCacheSize());
+		while (sessions.size() > maxSessions) {
+			var leastRecentlyUsed = sessions.entrySet().stream()
+					.filter(e -> e.getValue().isUnused())
+					.min(Comparator.comparingLong(e -> e.getValue().lastUsed));
+			if (leastRecentlyUsed.isEmpty()) {
+				//all sessions are in use, they are evicted once released
+				return;
+			}
+			evict(leastRecentlyUsed.get().getKey(), leastRecentlyUsed.get().getValue());
+		}
+	}
+
+	private void evictIdleSessions() {
+		try {
+			long idleTimeout = TimeUnit.SECONDS.toNanos(options().getSessionIdleTimeoutSeconds());
+			long now = System.nanoTime();
+			sessions.entrySet().stream()
+					.filter(e -> e.getValue().isUnused() && now - e.getValue().lastUsed > idleTimeout)
+					.collect(Collectors.toList())
+					.forEach(e -> evict(e.getKey(), e.getValue()));
+			evictExceedingSessions();
+		} catch (Exception e) {
+			log.warn("Failed to evict idle cql sessions", e);
+		}
+	}
+
+	private static CqlSession openCqlSession(CassandraConnectionProperties conProps) {
+		var builder = new SocksProxyAwareSessionBuilder()
+				.withLocalDatacenter(conProps.getDatacenter())
+				.addContactPoint(InetSocketAddress.createUnresolved(conProps.getHost(), conProps.getPort()));
+
+		if (StringUtils.isNotBlank(conProps.getKeyspace())) {
+			builder = builder.withKeyspace("\"" + conProps.getKeyspace() + "\"");
+		}
+
+		if (StringUtils.isNotBlank(conProps.getUser())) {
+			builder = builder.withAuthCredentials(conProps.getUser(), conProps.getPassword() == null ? "" : conProps.getPassword());
+		}
+
+		var map = OptionsMap.driverDefaults();
+		map.put(TypedDriverOption.NETTY_DAEMON, true);
+		map.put(TypedDriverOption.METRICS_SESSION_ENABLED, List.of(
+				DefaultSessionMetric.CQL_REQUESTS.getPath(),
+				DefaultSessionMetric.CONNECTED_NODES.getPath()));
+		map.put(TypedDriverOption.METRICS_NODE_ENABLED, List.of(
+				DefaultNodeMetric.OPEN_CONNECTIONS.getPath(),
+				DefaultNodeMetric.IN_FLIGHT.getPath(),
+				DefaultNodeMetric.AVAILABLE_STREAMS.getPath()));
+		builder.withConfigLoader(DriverConfigLoader.fromMap(map));
+
+		return builder.build();
+	}
+
+
+	/**
+	 * a leased session, closing the lease releases the session (without closing it)
+	 */
+	public static class SessionLease implements AutoCloseable {
+		@Getter
+		private final CachedSession cachedSession;
+		//whether the session was opened for this lease or was cached already
+		@Getter
+		private final boolean reused;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		SessionLease(CachedSession cachedSession, boolean reused) {
+			this.cachedSession = cachedSession;
+			this.reused = reused;
+		}
+
+		public CqlSession getSession() {
+			return cachedSession.getSession();
+		}
+
+		/**
+		 * driver metrics of the session, formatted for display
+		 */
+		public Map<String, String> getStatistics() {
+			return cachedSession.getStatistics(reused);
+		}
+
+		@Override
+		public void close() {
+			if (released.compareAndSet(false, true)) {
+				cachedSession.release();
+			}
+		}
+	}
+
+	/**
+	 * a cached session with its prepared statements. Leases and eviction are guarded by the instance.
+	 */
+	public static class CachedSession {
+		@Getter
+		private final CqlSession session;
+		private final Map<String, PreparedStatement> preparedStatements = new LinkedHashMap<>(16, 0.75f, true);
+		private volatile long lastUsed = System.nanoTime();
+		private int leases = 0;
+		private boolean evicted = false;
+
+		private long preparedHits = 0;
+		private long preparedMisses = 0;
+
+		CachedSession(CqlSession session) {
+			this.session = session;
+		}
+
+		/**
+		 * leases this session, if it was neither evicted nor closed yet
+		 */
+		SessionLease tryLease(boolean reused) {
+			synchronized (this) {
+				if (evicted || session.isClosed()) {
+					return null;
+				}
+				leases++;
+				lastUsed = System.nanoTime();
+			}
+			return new SessionLease(this, reused);
+		}
+
+		private void release() {
+			boolean close;
+			synchronized (this) {
+				leases--;
+				lastUsed = System.nanoTime();
+				close = evicted && leases == 0;
+			}
+			if (close) {
+				close();
+			}
+		}
+
+		/**
+		 * closes the session right away if it is not leased, otherwise as soon as the last lease is released
+		 */
+		private CompletableFuture<Void> evict() {
+			synchronized (this) {
+				if (evicted) {
+					return CompletableFuture.completedFuture(null);
+				}
+				evicted = true;
+				if (leases > 0) {
+					return CompletableFuture.completedFuture(null);
+				}
+			}
+			return close();
+		}
+
+		private synchronized boolean isUnused() {
+			return leases == 0;
+		}
+
+		/**
+		 * closes the session without blocking, as leases might be released on a driver thread
+		 */
+		private CompletableFuture<Void> close() {
+			return session.closeAsync().toCompletableFuture().whenComplete((r, e) -> {
+				if (e != null) {
+					log.warn("Failed to properly close cassandra connection", e);
+				}
+			});
+		}
+
+		/**
+		 * returns a prepared statement for the given cql, preparing it on the cluster only if it is not cached yet
+		 */
+		public PreparedStatement prepare(String cql) {
+			synchronized (preparedStatements) {
+				PreparedStatement prepared = preparedStatements.get(cql);
+				if (prepared != null) {
+					preparedHits++;
+					return prepared;
+				}
+			}
+			//preparing is a roundtrip to the cluster, so it is done outside of the lock
+			PreparedStatement prepared = session.prepare(cql);
+			synchronized (preparedStatements) {
+				preparedMisses++;
+				preparedStatements.put(cql, prepared);
+				int maxSize = Math.max(0, options().getPreparedStatementCacheSize());
+				var eldest = preparedStatements.keySet().iterator();
+				while (preparedStatements.size() > maxSize && eldest.hasNext()) {
+					eldest.next();
+					eldest.remove();
+				}
+			}
+			return prepared;
+		}
+
+		private Map<String, String> getStatistics(boolean reused) {
+			Map<String, String> result = new LinkedHashMap<>();
+			result.put("Session", reused ? "reused" : "new");
+			synchronized (preparedStatements) {
+				result.put("Prepared statements", preparedStatements.size() + " cached, " + preparedHits + " hits, " + preparedMisses + " misses");
+			}
+			session.getMetrics().ifPresent(metrics -> addDriverMetrics(metrics, result));
+			return result;
+		}
+
+		private void addDriverMetrics(Metrics metrics, Map<String, String> result) {
+			metrics.<Timer>getSessionMetric(DefaultSessionMetric.CQL_REQUESTS).ifPresent(timer -> {
+				Snapshot snapshot = timer.getSnapshot();
+				result.put("Requests", "" + timer.getCount());
+				result.put("Mean latency", formatNanos(snapshot.getMean()));
+				result.put("99th percentile latency", formatNanos(snapshot.get99thPercentile()));
+			});
+			metrics.<Gauge<?>>getSessionMetric(DefaultSessionMetric.CONNECTED_NODES)
+					.ifPresent(gauge -> result.put("Connected nodes", "" + gauge.getValue()));
+
+			long inFlight = 0, openConnections = 0, availableStreams = 0;
+			for (Node node : session.getMetadata().getNodes().values()) {
+				inFlight += gaugeValue(metrics, node, DefaultNodeMetric.IN_FLIGHT);
+				openConnections += gaugeValue(metrics, node, DefaultNodeMetric.OPEN_CONNECTIONS);
+				availableStreams += gaugeValue(metrics, node, DefaultNodeMetric.AVAILABLE_STREAMS);
+			}
+			result.put("In-flight requests", "" + inFlight);
+			result.put("Open connections", "" + openConnections);
+			result.put("Available streams", "" + availableStreams);
+		}
+
+		private static long gaugeValue(Metrics metrics, Node node, NodeMetric metric) {
+			return metrics.<Gauge<?>>getNodeMetric(node, metric)
+					.map(gauge -> (Object) gauge.getValue())
+					.filter(Number.class::isInstance)
+					.map(v -> ((Number) v).longValue())
+					.orElse(0L);
+		}
+
+		private static String formatNanos(double nanos) {
+			return String.format("%.2fms", nanos / 1_000_000.0);
+		}
+	}
+}
@@ -61,6 +61,7 @@ public class EditRequestAspect extends TerminalCommand {
 					.findAny().orElseThrow();
 		
 		editAspect(req, aspect, aspectEditor);
+		aspect.markChanged();
 		
 		context.findWorkspaceOfRequestIdish(reqName).ifPresent(persistence::persistWorkspace);
 		
@@ -0,0 +1,48 @@
+package milkman.plugin.graphql;
+
+import lombok.Data;
+import milkman.plugin.graphql.schema.GraphqlSchemaCache;
+import milkman.ui.main.options.OptionDialogBuilder;
+import milkman.ui.main.options.OptionDialogPane;
+import milkman.ui.plugin.OptionPageProvider;
+import milkman.ui.plugin.OptionsObject;
+
+public class GraphqlOptionsProvider implements OptionPageProvider<GraphqlOptionsProvider.GraphqlOptions> {
+
+	@Data
+	public static class GraphqlOptions implements OptionsObject {
+		private boolean validateQueries = true;
+		private int schemaCacheTtlMinutes = 60;
+	}
+
+	private static GraphqlOptions currentOptions = new GraphqlOptions();
+	public static GraphqlOptions options() {
+		return currentOptions;
+	}
+
+	@Override
+	public GraphqlOptions getOptions() {
+		return currentOptions;
+	}
+
+	@Override
+	public void setOptions(GraphqlOptions options) {
+		currentOptions = options;
+	}
+
+	@Override
+	public OptionDialogPane getOptionsDialog(OptionDialogBuilder builder) {
+		return builder.page("GraphQL", getOptions())
+				.section("Schema")
+					.toggle("Validate queries against the schema before sending", GraphqlOptions::isValidateQueries, GraphqlOptions::setValidateQueries)
+					.numberInput("Introspect schema again after (min)", GraphqlOptions::getSchemaCacheTtlMinutes, GraphqlOptions::setSchemaCacheTtlMinutes)
+					.button("Clear schema cache", () -> GraphqlSchemaCache.schemas().clear())
+				.endSection()
+				.build();
+	}
+
+	@Override
+	public int getOrder() {
+		return 540;
+	}
+}
@@ -11,6 +11,7 @@ import milkman.plugin.graphql.domain.GraphqlAspect;
 import milkman.plugin.graphql.domain.GraphqlRequestContainer;
 import milkman.plugin.graphql.editor.GraphqlAspectEditor;
 import milkman.plugin.graphql.editor.GraphqlRequestEditor;
+import milkman.ui.plugin.CustomCommand;
 import milkman.ui.plugin.RequestAspectEditor;
 import milkman.ui.plugin.RequestAspectsPlugin;
 import milkman.ui.plugin.RequestTypeEditor;
@@ -23,6 +24,8 @@ import milkman.utils.AsyncResponseControl.AsyncControl;
 
 public class GraphqlPlugin implements RequestAspectsPlugin, RequestTypePlugin {
 
+	private static final String RELOAD_SCHEMA_COMMAND = "RELOAD_SCHEMA";
+
 	GraphqlProcessor requestProcessor = new GraphqlProcessor();
 	
 	@Override
@@ -83,6 +86,19 @@ public class GraphqlPlugin implements RequestAspectsPlugin, RequestTypePlugin {
 
 	}
 	
+	@Override
+	public List<CustomCommand> getCustomCommands() {
+		return List.of(new CustomCommand(RELOAD_SCHEMA_COMMAND, "Reload Schema"));
+	}
+
+	@Override
+	public ResponseContainer executeCustomCommand(String commandId, RequestContainer request, Templater templater) {
+		if (!RELOAD_SCHEMA_COMMAND.equals(commandId)) {
+			throw new IllegalArgumentException("Unsupported custom command: " + commandId);
+		}
+		return requestProcessor.reloadSchema((GraphqlRequestContainer) request, templater);
+	}
+
 	@Override
 	public String getRequestType() {
 		return "GraphQl";
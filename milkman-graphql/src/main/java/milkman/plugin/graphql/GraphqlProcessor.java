@@ -2,20 +2,39 @@ package milkman.plugin.graphql;
 
 import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.introspection.IntrospectionQuery;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaPrinter;
 import lombok.SneakyThrows;
 import lombok.Value;
 import milkman.plugin.graphql.domain.GraphqlAspect;
 import milkman.plugin.graphql.domain.GraphqlRequestContainer;
+import milkman.plugin.graphql.schema.GraphqlQueryValidator;
 import milkman.ui.plugin.Templater;
 import milkman.ui.plugin.rest.JavaRequestProcessor;
 import milkman.ui.plugin.rest.RequestProcessor;
 import milkman.ui.plugin.rest.domain.RestBodyAspect;
 import milkman.ui.plugin.rest.domain.RestHeaderAspect;
 import milkman.ui.plugin.rest.domain.RestRequestContainer;
+import milkman.ui.plugin.rest.domain.RestResponseBodyAspect;
 import milkman.ui.plugin.rest.domain.RestResponseContainer;
+import milkman.utils.AsyncResponseControl;
 import milkman.utils.AsyncResponseControl.AsyncControl;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static milkman.plugin.graphql.GraphqlOptionsProvider.options;
+import static milkman.plugin.graphql.schema.GraphqlSchemaCache.schemas;
 
 public class GraphqlProcessor {
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final Duration INTROSPECTION_TIMEOUT = Duration.ofSeconds(30);
+
 	RequestProcessor requestProcessor = new JavaRequestProcessor();
 	
 	
@@ -28,6 +47,9 @@ public class GraphqlProcessor {
 	}
 	
 	public RestResponseContainer executeRequest(GraphqlRequestContainer request, Templater templater, AsyncControl asyncControl) {
+		if (options().isValidateQueries()) {
+			validateQuery(request, templater, asyncControl);
+		}
 
 		RestRequestContainer restContainer = toRestRequest(request);
 
@@ -57,11 +79,79 @@ public class GraphqlProcessor {
 	}
 
 
-	@SneakyThrows
 	protected static String serializeGqlQuery(GraphqlAspect gqlAspect) {
-		var mapper = new ObjectMapper();
-		String bodyStr = mapper.writeValueAsString(new GraphqlBody(gqlAspect.getQuery(), gqlAspect.getVariables()));
-		return bodyStr;
+		return serializeGqlQuery(gqlAspect.getQuery(), gqlAspect.getVariables());
+	}
+
+	@SneakyThrows
+	private static String serializeGqlQuery(String query, String variables) {
+		return mapper.writeValueAsString(new GraphqlBody(query, variables));
+	}
+
+	/**
+	 * introspects the schema of the endpoint again and shows it
+	 */
+	public RestResponseContainer reloadSchema(GraphqlRequestContainer request, Templater templater) {
+		String endpoint = templater.replaceTags(request.getUrl());
+		schemas().invalidate(endpoint);
+		String result = getSchema(request, templater, null)
+				.map(schema -> new SchemaPrinter().print(schema))
+				.orElse("Failed to introspect the schema of " + endpoint);
+
+		var response = new RestResponseContainer(endpoint);
+		response.getAspects().add(new RestResponseBodyAspect(Flux.just(result.getBytes(StandardCharsets.UTF_8))));
+		return response;
+	}
+
+	/**
+	 * fails if the query is invalid according to the schema of the endpoint. Queries are not validated, if the schema is unknown.
+	 */
+	private void validateQuery(GraphqlRequestContainer request, Templater templater, AsyncControl asyncControl) {
+		GraphqlAspect gqlAspect = request.getAspect(GraphqlAspect.class).orElseThrow(() -> new IllegalArgumentException("Graphql Aspect not found"));
+		List<String> errors = getSchema(request, templater, asyncControl)
+				.map(schema -> GraphqlQueryValidator.validate(schema, templater.replaceTags(gqlAspect.getQuery())))
+				.orElse(List.of());
+		if (!errors.isEmpty()) {
+			throw new IllegalArgumentException("Invalid query: " + String.join("\n", errors));
+		}
+	}
+
+	/**
+	 * @param asyncControl the control of the request that needs the schema, if its cancellation should cancel the introspection, too
+	 */
+	private Optional<GraphQLSchema> getSchema(GraphqlRequestContainer request, Templater templater, AsyncControl asyncControl) {
+		Duration ttl = Duration.ofMinutes(options().getSchemaCacheTtlMinutes());
+		return schemas().getSchema(templater.replaceTags(request.getUrl()), ttl, () -> fetchIntrospectionResult(request, templater, asyncControl));
+	}
+
+	private String fetchIntrospectionResult(GraphqlRequestContainer request, Templater templater, AsyncControl asyncControl) {
+		RestRequestContainer restContainer = new RestRequestContainer(request.getUrl(), "POST");
+		request.getAspect(RestHeaderAspect.class).ifPresent(restContainer::addAspect);
+		var body = new RestBodyAspect();
+		body.setBody(serializeGqlQuery(IntrospectionQuery.INTROSPECTION_QUERY, null));
+		restContainer.addAspect(body);
+
+		var control = new AsyncResponseControl();
+		if (asyncControl != null) {
+			//a no-op once the introspection finished
+			asyncControl.onCancellationRequested.add(control::cancleRequest);
+		}
+		try {
+			RestResponseContainer response = requestProcessor.executeRequest(restContainer, templater, control.getCancellationControl());
+			control.setResponse(response);
+			byte[] result = response.getAspect(RestResponseBodyAspect.class)
+					.map(RestResponseBodyAspect::getBody)
+					.orElseThrow(() -> new IllegalStateException("Introspection returned no response"))
+					.reduce(new ByteArrayOutputStream(), (out, chunk) -> {
+						out.writeBytes(chunk);
+						return out;
+					})
+					.map(ByteArrayOutputStream::toByteArray)
+					.block(INTROSPECTION_TIMEOUT);
+			return result != null ? new String(result, StandardCharsets.UTF_8) : "";
+		} finally {
+			control.dispose();
+		}
 	}
 	
 }
@@ -1,37 +1,158 @@
 package milkman.plugin.graphql.editor;
 
+import static milkman.plugin.graphql.schema.GraphqlSchemaCache.schemas;
 import static milkman.utils.FunctionalUtils.run;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.wellbehaved.event.EventPattern;
+import org.fxmisc.wellbehaved.event.InputMap;
+import org.fxmisc.wellbehaved.event.Nodes;
+
+import javafx.application.Platform;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.Tab;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import lombok.extern.slf4j.Slf4j;
 import milkman.domain.RequestContainer;
 import milkman.plugin.graphql.GraphqlContentType;
 import milkman.plugin.graphql.domain.GraphqlAspect;
+import milkman.plugin.graphql.domain.GraphqlRequestContainer;
+import milkman.plugin.graphql.schema.GraphqlCompletion;
+import milkman.plugin.graphql.schema.GraphqlQueryValidator;
 import milkman.ui.components.ContentEditor;
 import milkman.ui.plugin.RequestAspectEditor;
+import milkman.ui.plugin.Templater;
+import milkman.ui.plugin.TemplaterAware;
+
+/**
+ * editor for the query. If the schema of the endpoint is cached, the query is validated while typing
+ * and fields can be completed via ctrl+space. Validation and completion run in the background, including templating
+ * and reading the schema from disk, so large schemas or environments do not block the ui.
+ *
+ * Url and query are templated beforehand, the same way as when the request is sent.
+ */
+@Slf4j
+public class GraphqlAspectEditor implements RequestAspectEditor, TemplaterAware {
+
+	private static final int MAX_SHOWN_ERRORS = 5;
+	private static final int MAX_SUGGESTIONS = 30;
 
-public class GraphqlAspectEditor implements RequestAspectEditor {
+	private final AtomicLong validationRun = new AtomicLong();
+	private Templater templater = input -> input;
 
 	@Override
-	public Tab getRoot(RequestContainer request) {
+	public Tab getRoot(RequestContainer requestContainer) {
+		GraphqlRequestContainer request = (GraphqlRequestContainer) requestContainer;
 		GraphqlAspect gqlAspect = request.getAspect(GraphqlAspect.class).get();
 		Tab tab = new Tab("Graphql");
-		
+
 		ContentEditor editor = new ContentEditor();
 		editor.setHeaderVisibility(false);
 		editor.setEditable(true);
 		editor.setContentTypePlugins(Arrays.asList(new GraphqlContentType()));
 		editor.setContentType("application/graphql");
 		editor.setContent(gqlAspect::getQuery, run(gqlAspect::setQuery).andThen(() -> gqlAspect.setDirty(true)));
-		
-		tab.setContent(editor);
+		VBox.setVgrow(editor, Priority.ALWAYS);
+
+		Label validationLabel = new Label();
+		validationLabel.setWrapText(true);
+
+		CodeArea codeArea = editor.getCodeArea();
+		codeArea.multiPlainChanges()
+				.successionEnds(Duration.ofMillis(500))
+				.subscribe(changes -> validate(request, gqlAspect.getQuery(), validationLabel));
+		validate(request, gqlAspect.getQuery(), validationLabel);
+
+		Nodes.addInputMap(codeArea, InputMap.consume(
+				EventPattern.keyPressed(KeyCode.SPACE, KeyCombination.CONTROL_DOWN),
+				e -> showSuggestions(request, codeArea)
+		));
+
+		tab.setContent(new VBox(editor, validationLabel));
 		return tab;
 	}
 
+	private void validate(GraphqlRequestContainer request, String query, Label validationLabel) {
+		long run = validationRun.incrementAndGet();
+		String url = request.getUrl();
+		CompletableFuture.supplyAsync(() -> schemas().getCachedSchema(templater.replaceTags(url))
+						.map(schema -> GraphqlQueryValidator.validate(schema, templater.replaceTags(query))))
+				.thenAccept(errors -> Platform.runLater(() -> {
+					//results of outdated validations are dropped
+					if (run == validationRun.get()) {
+						showValidationResult(errors, validationLabel);
+					}
+				}))
+				.exceptionally(e -> {
+					log.warn("Failed to validate graphql query", e);
+					return null;
+				});
+	}
+
+	private void showValidationResult(Optional<List<String>> errors, Label validationLabel) {
+		if (errors.isEmpty()) {
+			validationLabel.setText("Schema unknown, it is introspected on the first request");
+		} else if (errors.get().isEmpty()) {
+			validationLabel.setText("Query is valid");
+		} else {
+			List<String> messages = errors.get();
+			String text = String.join("\n", messages.subList(0, Math.min(messages.size(), MAX_SHOWN_ERRORS)));
+			if (messages.size() > MAX_SHOWN_ERRORS) {
+				text += "\n... and " + (messages.size() - MAX_SHOWN_ERRORS) + " more";
+			}
+			validationLabel.setText(text);
+		}
+	}
+
+	private void showSuggestions(GraphqlRequestContainer request, CodeArea codeArea) {
+		int caret = codeArea.getCaretPosition();
+		String url = request.getUrl();
+		String textBeforeCaret = codeArea.getText(0, caret);
+		CompletableFuture.supplyAsync(() -> schemas().getCachedSchema(templater.replaceTags(url))
+						.map(schema -> GraphqlCompletion.suggest(schema, textBeforeCaret)))
+				.thenAccept(suggestions -> Platform.runLater(() -> {
+					//suggestions are dropped, if the user continued typing in the meantime
+					if (suggestions.isPresent() && !suggestions.get().getNames().isEmpty()
+							&& codeArea.getCaretPosition() == caret && codeArea.getText(0, caret).equals(textBeforeCaret)) {
+						openSuggestionMenu(suggestions.get(), codeArea, caret);
+					}
+				}))
+				.exceptionally(e -> {
+					log.warn("Failed to complete graphql query", e);
+					return null;
+				});
+	}
+
+	private void openSuggestionMenu(GraphqlCompletion.Suggestions suggestions, CodeArea codeArea, int caret) {
+		ContextMenu menu = new ContextMenu();
+		suggestions.getNames().stream().limit(MAX_SUGGESTIONS).forEach(name -> {
+			MenuItem item = new MenuItem(name);
+			item.setOnAction(e -> codeArea.replaceText(caret - suggestions.getPrefix().length(), caret, name));
+			menu.getItems().add(item);
+		});
+		codeArea.getCaretBounds().ifPresent(bounds -> menu.show(codeArea, bounds.getMinX(), bounds.getMaxY()));
+	}
+
 	@Override
 	public boolean canHandleAspect(RequestContainer request) {
-		return request.getAspect(GraphqlAspect.class).isPresent();
+		return request instanceof GraphqlRequestContainer && request.getAspect(GraphqlAspect.class).isPresent();
+	}
+
+	@Override
+	public void setTemplater(Templater templater) {
+		this.templater = templater;
 	}
 
 }
@@ -0,0 +1,212 @@
+package milkman.plugin.graphql.schema;
+
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import graphql.schema.GraphQLUnionType;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * suggests the fields that can be selected at the caret.
+ *
+ * The query in front of the caret is scanned for selection sets, so the type of the innermost selection set is known
+ * even if the query is incomplete and can not be parsed. Arguments, strings and comments are skipped.
+ */
+public class GraphqlCompletion {
+
+	private static final List<String> KEYWORDS = List.of("query", "mutation", "subscription", "fragment");
+
+	@Value
+	public static class Suggestions {
+		//the partial name in front of the caret, that is replaced by a suggestion
+		String prefix;
+		List<String> names;
+	}
+
+	public static Suggestions suggest(GraphQLSchema schema, String textBeforeCaret) {
+		String prefix = trailingName(textBeforeCaret);
+		List<GraphQLType> selectionTypes = new ArrayList<>();
+		String operation = null;
+		String lastName = null;
+		boolean afterOn = false;
+		boolean typeCondition = false;
+
+		int length = textBeforeCaret.length();
+		int i = 0;
+		while (i < length) {
+			char c = textBeforeCaret.charAt(i);
+			if (c == '#') {
+				int lineEnd = textBeforeCaret.indexOf('\n', i);
+				if (lineEnd < 0) {
+					return none(prefix);
+				}
+				i = lineEnd + 1;
+			} else if (c == '"' || c == '(') {
+				int end = c == '"' ? skipString(textBeforeCaret, i) : skipArguments(textBeforeCaret, i);
+				if (end < 0) {
+					return none(prefix);
+				}
+				i = end;
+			} else if (c == '@') {
+				//directive names are no fields
+				i = skipName(textBeforeCaret, i + 1);
+			} else if (isNameStart(c)) {
+				int end = skipName(textBeforeCaret, i);
+				String name = textBeforeCaret.substring(i, end);
+				if (selectionTypes.isEmpty() && operation == null) {
+					operation = name;
+				}
+				if (name.equals("on")) {
+					afterOn = true;
+				} else {
+					lastName = name;
+					typeCondition = afterOn;
+					afterOn = false;
+				}
+				i = end;
+			} else {
+				if (c == '{') {
+					selectionTypes.add(selectionType(schema, selectionTypes, operation, lastName, typeCondition));
+					lastName = null;
+					typeCondition = false;
+					afterOn = false;
+				} else if (c == '}' && !selectionTypes.isEmpty()) {
+					selectionTypes.remove(selectionTypes.size() - 1);
+					if (selectionTypes.isEmpty()) {
+						operation = null;
+					}
+					lastName = null;
+				}
+				i++;
+			}
+		}
+
+		if (selectionTypes.isEmpty()) {
+			return filter(prefix, KEYWORDS.stream());
+		}
+		return filter(prefix, namesOf(selectionTypes.get(selectionTypes.size() - 1)));
+	}
+
+	private static GraphQLType selectionType(GraphQLSchema schema, List<GraphQLType> selectionTypes, String operation, String lastName, boolean typeCondition) {
+		if (typeCondition) {
+			return lastName != null ? schema.getType(lastName) : null;
+		}
+		if (selectionTypes.isEmpty()) {
+			if ("mutation".equals(operation)) {
+				return schema.getMutationType();
+			}
+			if ("subscription".equals(operation)) {
+				return schema.getSubscriptionType();
+			}
+			return schema.getQueryType();
+		}
+		GraphQLType parent = selectionTypes.get(selectionTypes.size() - 1);
+		if (parent instanceof GraphQLFieldsContainer && lastName != null) {
+			GraphQLFieldDefinition field = ((GraphQLFieldsContainer) parent).getFieldDefinition(lastName);
+			if (field != null) {
+				return GraphQLTypeUtil.unwrapAll(field.getType());
+			}
+		}
+		return null;
+	}
+
+	private static Stream<String> namesOf(GraphQLType type) {
+		if (type instanceof GraphQLFieldsContainer) {
+			return Stream.concat(((GraphQLFieldsContainer) type).getFieldDefinitions().stream().map(GraphQLFieldDefinition::getName), Stream.of("__typename"));
+		}
+		if (type instanceof GraphQLUnionType) {
+			return ((GraphQLUnionType) type).getTypes().stream().map(GraphQLNamedType::getName).map(name -> "... on " + name);
+		}
+		return Stream.empty();
+	}
+
+	private static Suggestions filter(String prefix, Stream<String> names) {
+		String lowerPrefix = prefix.toLowerCase();
+		return new Suggestions(prefix, names
+				.filter(name -> name.toLowerCase().startsWith(lowerPrefix))
+				.sorted()
+				.collect(Collectors.toList()));
+	}
+
+	private static Suggestions none(String prefix) {
+		return new Suggestions(prefix, List.of());
+	}
+
+	private static String trailingName(String text) {
+		int start = text.length();
+		while (start > 0 && isNamePart(text.charAt(start - 1))) {
+			start--;
+		}
+		return text.substring(start);
+	}
+
+	/**
+	 * returns the index after the closing quote, or -1 if the string is not closed
+	 */
+	private static int skipString(String text, int start) {
+		if (text.startsWith("\"\"\"", start)) {
+			int end = text.indexOf("\"\"\"", start + 3);
+			return end < 0 ? -1 : end + 3;
+		}
+		for (int i = start + 1; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (c == '"') {
+				return i + 1;
+			} else if (c == '\n') {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * returns the index after the closing parenthesis, or -1 if the arguments are not closed
+	 */
+	private static int skipArguments(String text, int start) {
+		int depth = 0;
+		int i = start;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			if (c == '"') {
+				i = skipString(text, i);
+				if (i < 0) {
+					return -1;
+				}
+				continue;
+			}
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return i + 1;
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	private static int skipName(String text, int start) {
+		int end = start;
+		while (end < text.length() && isNamePart(text.charAt(end))) {
+			end++;
+		}
+		return end;
+	}
+
+	private static boolean isNameStart(char c) {
+		return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isNamePart(char c) {
+		return isNameStart(c) || (c >= '0' && c <= '9');
+	}
+}
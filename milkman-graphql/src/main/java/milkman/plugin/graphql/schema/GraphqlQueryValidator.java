@@ -0,0 +1,38 @@
+package milkman.plugin.graphql.schema;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.ParseAndValidate;
+import graphql.language.SourceLocation;
+import graphql.schema.GraphQLSchema;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * checks queries against a schema locally, the same way the server would before executing them.
+ */
+public class GraphqlQueryValidator {
+
+	/**
+	 * returns the syntax and validation errors of the query, prefixed with their location
+	 */
+	public static List<String> validate(GraphQLSchema schema, String query) {
+		if (StringUtils.isBlank(query)) {
+			return List.of();
+		}
+		ExecutionInput input = ExecutionInput.newExecutionInput(query).build();
+		return ParseAndValidate.parseAndValidate(schema, input).getErrors().stream()
+				.map(GraphqlQueryValidator::format)
+				.collect(Collectors.toList());
+	}
+
+	private static String format(GraphQLError error) {
+		if (error.getLocations() == null || error.getLocations().isEmpty()) {
+			return error.getMessage();
+		}
+		SourceLocation location = error.getLocations().get(0);
+		return "line " + location.getLine() + ":" + location.getColumn() + " " + error.getMessage();
+	}
+}
@@ -0,0 +1,273 @@
+package milkman.plugin.graphql.schema;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import graphql.introspection.IntrospectionResultToSchema;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.UnExecutableSchemaGenerator;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import milkman.PlatformUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * caches the schemas of graphql endpoints, so queries can be validated and completed without asking the server.
+ *
+ * The introspection result of an endpoint is kept in memory and persisted to disk, so it survives restarts.
+ * Schemas older than the ttl are introspected again. If that fails (e.g. because introspection is disabled on the
+ * server), the outdated schema is used further on and the endpoint is not asked again before the ttl expired.
+ * If there is no schema at all, the introspection is retried after a short time already, so a server that was
+ * not reachable on the first request does not leave the endpoint without a schema for the whole ttl.
+ *
+ * Endpoints are the templated urls, so requests using different environments do not share a schema.
+ * Only the most recently used files are kept on disk.
+ */
+@Slf4j
+public class GraphqlSchemaCache {
+
+	private static final int MAX_ENTRIES = 50;
+	private static final int MAX_FILES = 200;
+	private static final Duration FAILURE_RETRY_INTERVAL = Duration.ofMinutes(1);
+	private static final String FILE_SUFFIX = ".json";
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final GraphqlSchemaCache cache = new GraphqlSchemaCache(Path.of(PlatformUtil.getWritableLocationForFile("graphql-schemas")));
+
+	public static GraphqlSchemaCache schemas() {
+		return cache;
+	}
+
+	@FunctionalInterface
+	public interface IntrospectionLoader {
+		String load() throws Exception;
+	}
+
+	@Value
+	private static class Entry {
+		//null, if the introspection failed and there was no schema before
+		GraphQLSchema schema;
+		Instant loadedAt;
+
+		boolean isOlderThan(Duration ttl) {
+			return !loadedAt.plus(ttl).isAfter(Instant.now());
+		}
+	}
+
+	private final Path directory;
+	private final Duration failureRetryInterval;
+	private final int maxFiles;
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	GraphqlSchemaCache(Path directory) {
+		this(directory, FAILURE_RETRY_INTERVAL);
+	}
+
+	GraphqlSchemaCache(Path directory, Duration failureRetryInterval) {
+		this(directory, failureRetryInterval, MAX_FILES);
+	}
+
+	GraphqlSchemaCache(Path directory, Duration failureRetryInterval, int maxFiles) {
+		this.directory = directory;
+		this.failureRetryInterval = failureRetryInterval;
+		this.maxFiles = maxFiles;
+	}
+
+	/**
+	 * returns the schema of the endpoint. It is only introspected if it is not cached or the cached schema is older than the ttl.
+	 */
+	public Optional<GraphQLSchema> getSchema(String endpoint, Duration ttl, IntrospectionLoader loader) {
+		Entry cached = getCachedEntry(endpoint);
+		if (cached != null && !cached.isOlderThan(cached.getSchema() != null ? ttl : min(ttl, failureRetryInterval))) {
+			return Optional.ofNullable(cached.getSchema());
+		}
+
+		GraphQLSchema outdated = cached != null ? cached.getSchema() : null;
+		try {
+			JsonNode introspectionResult = mapper.readTree(loader.load());
+			GraphQLSchema schema = toSchema(introspectionResult);
+			Entry entry = new Entry(schema, Instant.now());
+			put(endpoint, entry);
+			persist(endpoint, introspectionResult, entry.getLoadedAt());
+			return Optional.of(schema);
+		} catch (Exception e) {
+			log.info("Introspection of {} failed", endpoint, e);
+			put(endpoint, new Entry(outdated, Instant.now()));
+			return Optional.ofNullable(outdated);
+		}
+	}
+
+	/**
+	 * returns the cached schema of the endpoint regardless of its age, the endpoint itself is never asked
+	 */
+	public Optional<GraphQLSchema> getCachedSchema(String endpoint) {
+		return Optional.ofNullable(getCachedEntry(endpoint)).map(Entry::getSchema);
+	}
+
+	/**
+	 * removes the schema from memory and disk, so it is introspected again on next access
+	 */
+	public void invalidate(String endpoint) {
+		synchronized (this) {
+			entries.remove(endpoint);
+		}
+		deleteQuietly(fileOf(endpoint));
+	}
+
+	public void clear() {
+		synchronized (this) {
+			entries.clear();
+		}
+		if (Files.isDirectory(directory)) {
+			try (Stream<Path> files = Files.list(directory)) {
+				files.filter(f -> f.getFileName().toString().endsWith(FILE_SUFFIX)).forEach(this::deleteQuietly);
+			} catch (IOException e) {
+				log.warn("Failed to clear graphql schema cache", e);
+			}
+		}
+	}
+
+	/**
+	 * builds a schema from the result of an introspection query, that is either the complete response or only its data
+	 */
+	static GraphQLSchema toSchema(String introspectionResult) throws IOException {
+		return toSchema(mapper.readTree(introspectionResult));
+	}
+
+	private static GraphQLSchema toSchema(JsonNode response) {
+		JsonNode data = response.has("data") ? response.get("data") : response;
+		if (data == null || !data.has("__schema")) {
+			throw new IllegalArgumentException("Response contains no schema: " + response.path("errors"));
+		}
+		Map<String, Object> schemaDefinition = mapper.convertValue(data, new TypeReference<>() {});
+		Document document = new IntrospectionResultToSchema().createSchemaDefinition(schemaDefinition);
+		return UnExecutableSchemaGenerator.makeUnExecutableSchema(new SchemaParser().buildRegistry(document));
+	}
+
+	private static Duration min(Duration a, Duration b) {
+		return a.compareTo(b) <= 0 ? a : b;
+	}
+
+	private Entry getCachedEntry(String endpoint) {
+		synchronized (this) {
+			Entry entry = entries.get(endpoint);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		Path file = fileOf(endpoint);
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try {
+			JsonNode content = mapper.readTree(file.toFile());
+			//files written before the introspection time was persisted contain only the introspection result
+			Entry entry = content.has("introspection")
+					? new Entry(toSchema(content.get("introspection")), Instant.parse(content.path("loadedAt").asText()))
+					: new Entry(toSchema(content), Files.getLastModifiedTime(file).toInstant());
+			//the modification time marks recently used files, which are kept on eviction
+			Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+			put(endpoint, entry);
+			return entry;
+		} catch (Exception e) {
+			log.warn("Failed to read cached graphql schema {}", file, e);
+			deleteQuietly(file);
+			return null;
+		}
+	}
+
+	private synchronized void put(String endpoint, Entry entry) {
+		entries.put(endpoint, entry);
+	}
+
+	private void persist(String endpoint, JsonNode introspectionResult, Instant loadedAt) {
+		try {
+			Files.createDirectories(directory);
+			//the modification time tracks the last use, so the introspection time is stored in the file
+			ObjectNode content = mapper.createObjectNode();
+			content.put("loadedAt", loadedAt.toString());
+			content.set("introspection", introspectionResult);
+			//written to a temporary file first, so a concurrent reader never sees a partial file
+			Path tempFile = Files.createTempFile(directory, "schema", ".tmp");
+			mapper.writeValue(tempFile.toFile(), content);
+			Files.move(tempFile, fileOf(endpoint), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.warn("Failed to persist graphql schema of {}", endpoint, e);
+		}
+		evictOldFiles();
+	}
+
+	/**
+	 * deletes the least recently used files, if there are more than the max number of files
+	 */
+	private void evictOldFiles() {
+		List<Path> files;
+		try (Stream<Path> listed = Files.list(directory)) {
+			files = listed.filter(f -> f.getFileName().toString().endsWith(FILE_SUFFIX)).collect(Collectors.toList());
+		} catch (IOException e) {
+			log.warn("Failed to list graphql schema cache", e);
+			return;
+		}
+		if (files.size() <= maxFiles) {
+			return;
+		}
+		Map<Path, FileTime> modificationTimes = new HashMap<>();
+		files.forEach(f -> modificationTimes.put(f, lastModifiedTime(f)));
+		files.sort(Comparator.comparing(modificationTimes::get));
+		files.subList(0, files.size() - maxFiles).forEach(this::deleteQuietly);
+	}
+
+	private static FileTime lastModifiedTime(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			//a file that can not be read is evicted first
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	private Path fileOf(String endpoint) {
+		return directory.resolve(sha256(endpoint) + FILE_SUFFIX);
+	}
+
+	private void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Failed to delete cached graphql schema {}", file, e);
+		}
+	}
+
+	@SneakyThrows
+	private static String sha256(String content) {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,60 @@
+package milkman.plugin.graphql.schema;
+
+import graphql.schema.GraphQLSchema;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphqlCompletionTest {
+
+    private final GraphQLSchema schema = TestSchemas.schema();
+
+    @Test
+    void shouldSuggestKeywordsOutsideOfSelectionSets() {
+        var suggestions = GraphqlCompletion.suggest(schema, "mu");
+
+        assertThat(suggestions.getPrefix()).isEqualTo("mu");
+        assertThat(suggestions.getNames()).containsExactly("mutation");
+    }
+
+    @Test
+    void shouldSuggestFieldsOfRootTypes() {
+        assertThat(GraphqlCompletion.suggest(schema, "{ u").getNames()).containsExactly("user", "users");
+        assertThat(GraphqlCompletion.suggest(schema, "query Named { U").getNames()).containsExactly("user", "users");
+        assertThat(GraphqlCompletion.suggest(schema, "mutation { ").getNames()).containsExactly("__typename", "createUser");
+    }
+
+    @Test
+    void shouldSuggestFieldsOfNestedSelectionSets() {
+        var suggestions = GraphqlCompletion.suggest(schema, "query { user(id: \"1\") { address { ");
+
+        assertThat(suggestions.getPrefix()).isEmpty();
+        assertThat(suggestions.getNames()).containsExactly("__typename", "city", "street");
+    }
+
+    @Test
+    void shouldContinueAfterClosedSelectionSets() {
+        assertThat(GraphqlCompletion.suggest(schema, "{ user(id: 1) { name } us").getNames()).containsExactly("user", "users");
+    }
+
+    @Test
+    void shouldSkipArgumentsStringsAndComments() {
+        var suggestions = GraphqlCompletion.suggest(schema, "{ user(id: \"{ (\") {\n # friends {\n na");
+
+        assertThat(suggestions.getNames()).containsExactly("name");
+    }
+
+    @Test
+    void shouldSuggestTypeConditionsOfUnionsAndFieldsOfInlineFragments() {
+        assertThat(GraphqlCompletion.suggest(schema, "{ search(term: \"a\") { ").getNames())
+                .containsExactly("... on Address", "... on User");
+        assertThat(GraphqlCompletion.suggest(schema, "{ search { ... on User { fr").getNames())
+                .containsExactly("friends");
+    }
+
+    @Test
+    void shouldSuggestNothingForUnknownFieldsOrUnclosedStrings() {
+        assertThat(GraphqlCompletion.suggest(schema, "{ unknown { ").getNames()).isEmpty();
+        assertThat(GraphqlCompletion.suggest(schema, "{ user(id: \"1").getNames()).isEmpty();
+    }
+}
@@ -0,0 +1,36 @@
+package milkman.plugin.graphql.schema;
+
+import graphql.schema.GraphQLSchema;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphqlQueryValidatorTest {
+
+    private final GraphQLSchema schema = TestSchemas.schema();
+
+    @Test
+    void shouldAcceptValidQueries() {
+        assertThat(GraphqlQueryValidator.validate(schema, "query { user(id: \"1\") { name friends { id } } }")).isEmpty();
+        assertThat(GraphqlQueryValidator.validate(schema, "mutation { createUser(name: \"a\") { id } }")).isEmpty();
+    }
+
+    @Test
+    void shouldNotValidateBlankQueries() {
+        assertThat(GraphqlQueryValidator.validate(schema, "  \n")).isEmpty();
+    }
+
+    @Test
+    void shouldReportUnknownFieldsWithLocation() {
+        var errors = GraphqlQueryValidator.validate(schema, "{\n  user(id: \"1\") { nam }\n}");
+
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0)).startsWith("line 2:").contains("nam");
+    }
+
+    @Test
+    void shouldReportMissingArgumentsAndSyntaxErrors() {
+        assertThat(GraphqlQueryValidator.validate(schema, "{ user { name } }")).isNotEmpty();
+        assertThat(GraphqlQueryValidator.validate(schema, "{ user(id: \"1\") { name }")).isNotEmpty();
+    }
+}
@@ -0,0 +1,172 @@
+package milkman.plugin.graphql.schema;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphqlSchemaCacheTest {
+
+    private static final String ENDPOINT = "http://localhost/graphql";
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private static String introspectionResult;
+
+    @TempDir
+    Path cacheDir;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeAll
+    static void introspect() throws Exception {
+        introspectionResult = TestSchemas.introspectionResult();
+    }
+
+    @Test
+    void shouldIntrospectOnlyOnceWithinTtl() {
+        var sut = new GraphqlSchemaCache(cacheDir);
+
+        var first = sut.getSchema(ENDPOINT, TTL, this::load);
+        var second = sut.getSchema(ENDPOINT, TTL, this::load);
+
+        assertThat(first).isPresent();
+        assertThat(first.get().getObjectType("User")).isNotNull();
+        assertThat(second).containsSame(first.get());
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldKeepSchemasPerEndpoint() {
+        var sut = new GraphqlSchemaCache(cacheDir);
+
+        sut.getSchema(ENDPOINT, TTL, this::load);
+
+        assertThat(sut.getCachedSchema(ENDPOINT)).isPresent();
+        assertThat(sut.getCachedSchema("http://other/graphql")).isEmpty();
+    }
+
+    @Test
+    void shouldReadPersistedSchemasAfterRestart() {
+        new GraphqlSchemaCache(cacheDir).getSchema(ENDPOINT, TTL, this::load);
+
+        var sut = new GraphqlSchemaCache(cacheDir);
+
+        assertThat(sut.getCachedSchema(ENDPOINT)).isPresent();
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::load)).isPresent();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldKeepOutdatedSchemaIfIntrospectionFails() {
+        var sut = new GraphqlSchemaCache(cacheDir);
+        var outdated = sut.getSchema(ENDPOINT, Duration.ZERO, this::load);
+
+        var result = sut.getSchema(ENDPOINT, Duration.ZERO, this::fail);
+
+        assertThat(result).containsSame(outdated.get());
+        //the failed introspection counts as refresh
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::load)).containsSame(outdated.get());
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldRetryFailedIntrospectionWithoutSchemaAfterShortTime() {
+        var sut = new GraphqlSchemaCache(cacheDir, Duration.ZERO);
+
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::fail)).isEmpty();
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::load)).isPresent();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldNotRetryFailedIntrospectionWithinRetryInterval() {
+        var sut = new GraphqlSchemaCache(cacheDir, Duration.ofMinutes(1));
+
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::fail)).isEmpty();
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::load)).isEmpty();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldIntrospectAgainAfterInvalidation() throws IOException {
+        var sut = new GraphqlSchemaCache(cacheDir);
+        sut.getSchema(ENDPOINT, TTL, this::load);
+
+        sut.invalidate(ENDPOINT);
+
+        assertThat(sut.getCachedSchema(ENDPOINT)).isEmpty();
+        try (var files = Files.list(cacheDir)) {
+            assertThat(files).isEmpty();
+        }
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::load)).isPresent();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldKeepOnlyRecentlyUsedFiles() throws IOException {
+        var sut = new GraphqlSchemaCache(cacheDir, Duration.ofMinutes(1), 2);
+        sut.getSchema("http://first/graphql", TTL, this::load);
+        Path first;
+        try (var files = Files.list(cacheDir)) {
+            first = files.findFirst().orElseThrow();
+        }
+        sut.getSchema("http://second/graphql", TTL, this::load);
+        Files.setLastModifiedTime(first, FileTime.from(Instant.now().minusSeconds(60)));
+
+        sut.getSchema("http://third/graphql", TTL, this::load);
+
+        var restarted = new GraphqlSchemaCache(cacheDir);
+        assertThat(restarted.getCachedSchema("http://first/graphql")).isEmpty();
+        assertThat(restarted.getCachedSchema("http://second/graphql")).isPresent();
+        assertThat(restarted.getCachedSchema("http://third/graphql")).isPresent();
+    }
+
+    @Test
+    void shouldKeepIntrospectionTimeOfPersistedSchemasWhenReadingThem() throws IOException {
+        //files of older versions contain only the introspection result, the modification time is the introspection time
+        new GraphqlSchemaCache(cacheDir).getSchema(ENDPOINT, TTL, this::load);
+        Path file;
+        try (var files = Files.list(cacheDir)) {
+            file = files.findFirst().orElseThrow();
+        }
+        Files.writeString(file, introspectionResult);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(TTL).minusSeconds(60)));
+
+        var sut = new GraphqlSchemaCache(cacheDir);
+        assertThat(sut.getCachedSchema(ENDPOINT)).isPresent();
+        assertThat(sut.getSchema(ENDPOINT, TTL, this::load)).isPresent();
+        assertThat(loads).hasValue(2);
+
+        //the introspection time is kept on reading, even though the read marks the file as recently used
+        var restarted = new GraphqlSchemaCache(cacheDir);
+        assertThat(restarted.getCachedSchema(ENDPOINT)).isPresent();
+        assertThat(restarted.getSchema(ENDPOINT, Duration.ofMinutes(1), this::load)).isPresent();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldAcceptIntrospectionDataWithoutResponseEnvelope() throws Exception {
+        String data = introspectionResult.substring("{\"data\":".length(), introspectionResult.length() - 1);
+
+        assertThat(GraphqlSchemaCache.toSchema(data).getQueryType().getName()).isEqualTo("Query");
+    }
+
+    private String load() {
+        loads.incrementAndGet();
+        return introspectionResult;
+    }
+
+    private String fail() {
+        loads.incrementAndGet();
+        throw new IllegalStateException("introspection disabled");
+    }
+}
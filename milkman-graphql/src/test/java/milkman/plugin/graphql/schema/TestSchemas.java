@@ -0,0 +1,29 @@
+package milkman.plugin.graphql.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.GraphQL;
+import graphql.introspection.IntrospectionQuery;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.UnExecutableSchemaGenerator;
+
+class TestSchemas {
+
+    static final String SDL = "type Query { user(id: ID!): User, users: [User!]!, search(term: String): [SearchResult] }\n"
+            + "type Mutation { createUser(name: String!): User }\n"
+            + "type User { id: ID!, name: String, friends: [User], address: Address }\n"
+            + "type Address { street: String, city: String }\n"
+            + "union SearchResult = User | Address\n";
+
+    static GraphQLSchema schema() {
+        return UnExecutableSchemaGenerator.makeUnExecutableSchema(new SchemaParser().parse(SDL));
+    }
+
+    /**
+     * the response of a server with the test schema to the introspection query
+     */
+    static String introspectionResult() throws Exception {
+        var result = GraphQL.newGraphQL(schema()).build().execute(IntrospectionQuery.INTROSPECTION_QUERY);
+        return new ObjectMapper().writeValueAsString(result.toSpecification());
+    }
+}
@@ -11,6 +11,7 @@ import io.grpc.Channel;
 import io.grpc.ClientCall;
 import io.grpc.MethodDescriptor.MethodType;
 import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 import me.dinowernli.grpc.polyglot.protobuf.DynamicMessageMarshaller;
 import org.slf4j.Logger;
@@ -65,6 +66,31 @@ public class DynamicGrpcClient {
     }
   }
 
+  /**
+   * Makes a client streaming or bidi streaming rpc whose requests are sent by {@code requestSender}
+   * while the call is open. The sender receives the request stream in
+   * {@link ClientResponseObserver#beforeStart} and is responsible for completing it.
+   */
+  public ListenableFuture<Void> callStreaming(
+      ClientResponseObserver<DynamicMessage, DynamicMessage> requestSender,
+      StreamObserver<DynamicMessage> responseObserver,
+      CallOptions callOptions) {
+    MethodType methodType = getMethodType();
+    Preconditions.checkArgument(
+        methodType == MethodType.CLIENT_STREAMING || methodType == MethodType.BIDI_STREAMING,
+        "Need a client streaming or bidi streaming method for streamed requests, but got: " + methodType);
+    logger.info("Making " + methodType + " call with streamed requests");
+    DoneObserver<DynamicMessage> doneObserver = new DoneObserver<>();
+    CompositeStreamObserver<DynamicMessage, DynamicMessage> observer =
+        CompositeStreamObserver.of(responseObserver, doneObserver, requestSender);
+    if (methodType == MethodType.CLIENT_STREAMING) {
+      ClientCalls.asyncClientStreamingCall(createCall(callOptions), observer);
+    } else {
+      ClientCalls.asyncBidiStreamingCall(createCall(callOptions), observer);
+    }
+    return doneObserver.getCompletionFuture();
+  }
+
   private ListenableFuture<Void> callBidiStreaming(
       ImmutableList<DynamicMessage> requests,
       StreamObserver<DynamicMessage> responseObserver,
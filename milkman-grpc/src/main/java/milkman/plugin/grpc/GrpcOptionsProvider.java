@@ -0,0 +1,58 @@
+package milkman.plugin.grpc;
+
+import lombok.Data;
+import milkman.plugin.grpc.processor.GrpcChannelPool;
+import milkman.plugin.grpc.processor.GrpcDescriptorCache;
+import milkman.ui.main.options.OptionDialogBuilder;
+import milkman.ui.main.options.OptionDialogPane;
+import milkman.ui.plugin.OptionPageProvider;
+import milkman.ui.plugin.OptionsObject;
+
+public class GrpcOptionsProvider implements OptionPageProvider<GrpcOptionsProvider.GrpcOptions> {
+
+	@Data
+	public static class GrpcOptions implements OptionsObject {
+		private int keepAliveTimeSeconds = 60;
+		private int keepAliveTimeoutSeconds = 20;
+		private int channelIdleTimeoutSeconds = 300;
+		private int responseBufferSize = 1000;
+	}
+
+	private static GrpcOptions currentOptions = new GrpcOptions();
+	public static GrpcOptions options() {
+		return currentOptions;
+	}
+
+	@Override
+	public GrpcOptions getOptions() {
+		return currentOptions;
+	}
+
+	@Override
+	public void setOptions(GrpcOptions options) {
+		currentOptions = options;
+	}
+
+	@Override
+	public OptionDialogPane getOptionsDialog(OptionDialogBuilder builder) {
+		return builder.page("gRPC", getOptions())
+				.section("Channels")
+					.numberInput("Keep-alive ping interval (s, 0 = disabled)", GrpcOptions::getKeepAliveTimeSeconds, GrpcOptions::setKeepAliveTimeSeconds)
+					.numberInput("Keep-alive timeout (s)", GrpcOptions::getKeepAliveTimeoutSeconds, GrpcOptions::setKeepAliveTimeoutSeconds)
+					.numberInput("Shut down idle channels after (s)", GrpcOptions::getChannelIdleTimeoutSeconds, GrpcOptions::setChannelIdleTimeoutSeconds)
+					.button("Close pooled channels", () -> GrpcChannelPool.channels().closeAll())
+				.endSection()
+				.section("Service Descriptors")
+					.button("Clear descriptor cache", () -> GrpcDescriptorCache.descriptors().clear())
+				.endSection()
+				.section("Streaming")
+					.numberInput("Keep last responses (messages)", GrpcOptions::getResponseBufferSize, GrpcOptions::setResponseBufferSize)
+				.endSection()
+				.build();
+	}
+
+	@Override
+	public int getOrder() {
+		return 550;
+	}
+}
@@ -85,7 +85,8 @@ public class GrpcPlugin implements RequestTypePlugin, RequestAspectsPlugin {
 	public List<CustomCommand> getCustomCommands() {
 		return List.of(
 				new CustomCommand("LIST_SERVICES", "List Services"),
-				new CustomCommand("SERVICE_DEFINITION", "Show Service Definition")
+				new CustomCommand("SERVICE_DEFINITION", "Show Service Definition"),
+				new CustomCommand("INVALIDATE_DESCRIPTOR", "Reload Service Descriptor")
 				);
 	}
 
@@ -100,6 +101,8 @@ public class GrpcPlugin implements RequestTypePlugin, RequestAspectsPlugin {
 			return metaProcessor.listServices((GrpcRequestContainer) request, templater);
 		case "SERVICE_DEFINITION":
 			return metaProcessor.showServiceDefinition((GrpcRequestContainer) request, templater);
+		case "INVALIDATE_DESCRIPTOR":
+			return metaProcessor.invalidateDescriptor((GrpcRequestContainer) request, templater);
 		default:
 			throw new IllegalArgumentException("Unsupported custom command: " + commandId);
 		}
@@ -8,6 +8,17 @@ public class GrpcPayloadAspect extends RequestAspect {
 
 	private String payload;
 
+	/**
+	 * for client-streaming and bidi calls: the request stream stays open after the payload was sent,
+	 * so further messages can be sent while the call is running
+	 */
+	private boolean keepStreamOpen;
+
+	/**
+	 * for client-streaming and bidi calls: a file with one json message per line that is streamed after the payload
+	 */
+	private String messageFile;
+
 	public GrpcPayloadAspect() {
 		super("payload");
 	}
@@ -0,0 +1,41 @@
+package milkman.plugin.grpc.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import milkman.domain.ResponseAspect;
+
+/**
+ * holds the open request stream of a client-streaming or bidi call, so further messages can be sent while the call is running
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GrpcRequestStreamAspect implements ResponseAspect {
+
+	public interface RequestStream {
+		/**
+		 * queues a json message, it is templated like the payload and sent as soon as the call is ready
+		 */
+		void send(String json);
+
+		/**
+		 * half-closes the request stream after all queued messages were sent
+		 */
+		void complete();
+
+		boolean isOpen();
+	}
+
+	@JsonIgnore
+	private RequestStream requestStream;
+
+	@JsonIgnore
+	private GrpcStreamStatistics statistics;
+
+	@Override
+	public String getName() {
+		return "requestStream";
+	}
+}
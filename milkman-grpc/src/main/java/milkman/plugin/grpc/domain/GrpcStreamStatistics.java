@@ -0,0 +1,60 @@
+package milkman.plugin.grpc.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * counts messages and bytes sent and received on a streaming call. Rates are calculated over the
+ * time since the call was started, until it ended.
+ */
+public class GrpcStreamStatistics {
+
+	private final long startTime = System.nanoTime();
+	private volatile long endTime = 0;
+
+	private final LongAdder sentMessages = new LongAdder();
+	private final LongAdder sentBytes = new LongAdder();
+	private final LongAdder receivedMessages = new LongAdder();
+	private final LongAdder receivedBytes = new LongAdder();
+
+	public void recordSent(long bytes) {
+		sentMessages.increment();
+		sentBytes.add(bytes);
+	}
+
+	public void recordReceived(long bytes) {
+		receivedMessages.increment();
+		receivedBytes.add(bytes);
+	}
+
+	public void stop() {
+		if (endTime == 0) {
+			endTime = System.nanoTime();
+		}
+	}
+
+	public long getSentMessages() {
+		return sentMessages.sum();
+	}
+
+	public long getReceivedMessages() {
+		return receivedMessages.sum();
+	}
+
+	/**
+	 * the counters formatted for display
+	 */
+	public Map<String, String> toMap() {
+		Map<String, String> result = new LinkedHashMap<>();
+		result.put("Sent", format(sentMessages.sum(), sentBytes.sum()));
+		result.put("Received", format(receivedMessages.sum(), receivedBytes.sum()));
+		return result;
+	}
+
+	private String format(long messages, long bytes) {
+		double seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis((endTime != 0 ? endTime : System.nanoTime()) - startTime)) / 1000.0;
+		return String.format("%d messages, %d bytes (%.1f msgs/s, %.0f bytes/s)", messages, bytes, messages / seconds, bytes / seconds);
+	}
+}
@@ -3,24 +3,64 @@ package milkman.plugin.grpc.editor;
 import static milkman.utils.FunctionalUtils.run;
 
 import java.util.List;
+import java.util.Optional;
 
+import com.jfoenix.controls.JFXButton;
+import com.jfoenix.controls.JFXCheckBox;
+import com.jfoenix.controls.JFXTextField;
+
+import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
+import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
 import javafx.scene.control.Tab;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 import lombok.SneakyThrows;
+import milkman.ctrl.ExecutionListenerManager;
 import milkman.domain.RequestContainer;
+import milkman.domain.ResponseContainer;
 import milkman.plugin.grpc.domain.GrpcPayloadAspect;
+import milkman.plugin.grpc.domain.GrpcRequestStreamAspect;
 import milkman.ui.components.ContentEditor;
 import milkman.ui.plugin.ContentTypeAwareEditor;
 import milkman.ui.plugin.ContentTypePlugin;
+import milkman.ui.plugin.ExecutionListenerAware;
 import milkman.ui.plugin.RequestAspectEditor;
+import milkman.utils.fxml.GenericBinding;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 
-public class GrpcPayloadAspectEditor implements RequestAspectEditor, ContentTypeAwareEditor{
+public class GrpcPayloadAspectEditor implements RequestAspectEditor, ContentTypeAwareEditor, ExecutionListenerAware {
 	private List<ContentTypePlugin> contentTypes;
+	private ExecutionListenerManager executionListenerManager;
+
+	private JFXButton sendBtn;
+	private JFXButton completeBtn;
+	private Label streamLabel;
+	private Timeline streamLabelRefresh;
 
 	@Override
-	@SneakyThrows
 	public Tab getRoot(RequestContainer request) {
+		return getRoot(request, Optional.empty());
+	}
+
+	@Override
+	@SneakyThrows
+	public Tab getRoot(RequestContainer request, Optional<ResponseContainer> existingResponse) {
 		GrpcPayloadAspect aspect = request.getAspect(GrpcPayloadAspect.class).get();
-		
+
 		ContentEditor root = new ContentEditor();
 		root.setEditable(true);
 		root.setContent(aspect::getPayload, run(aspect::setPayload).andThen(() -> aspect.setDirty(true)));
@@ -28,7 +68,118 @@ public class GrpcPayloadAspectEditor implements RequestAspectEditor, ContentType
 			root.setContentTypePlugins(contentTypes);
 		root.setContentType("application/json");
 		root.setHeaderVisibility(false);
-		return new Tab("Payload", root);
+
+		sendBtn = createStreamButton(FontAwesomeIcon.PAPER_PLANE, "Send payload as message on the open request stream");
+		StackPane.setMargin(sendBtn, new Insets(0, 20, 20, 0));
+		completeBtn = createStreamButton(FontAwesomeIcon.STOP, "Complete the request stream");
+		StackPane.setMargin(completeBtn, new Insets(0, 80, 20, 0));
+
+		existingResponse.ifPresent(response -> activateIfStreaming(aspect, response));
+		executionListenerManager.listenOnExecution(request, "grpc-request-stream-listener", new ExecutionListener() {
+			@Override
+			public void onRequestStarted(RequestContainer request, ResponseContainer response) {
+				Platform.runLater(() -> activateIfStreaming(aspect, response));
+			}
+
+			@Override
+			public void onRequestReady(RequestContainer request, ResponseContainer response) {
+			}
+
+			@Override
+			public void onRequestFinished(RequestContainer request, ResponseContainer response) {
+				Platform.runLater(() -> deactivate(response));
+			}
+		});
+
+		VBox.setVgrow(root, Priority.ALWAYS);
+		StackPane editorPane = new StackPane(root, completeBtn, sendBtn);
+		VBox.setVgrow(editorPane, Priority.ALWAYS);
+		return new Tab("Payload", new VBox(setupToolbar(aspect), editorPane));
+	}
+
+	private HBox setupToolbar(GrpcPayloadAspect aspect) {
+		CheckBox keepStreamOpen = new JFXCheckBox("Keep request stream open");
+		GenericBinding<GrpcPayloadAspect, Boolean> keepOpenBinding = GenericBinding.of(
+				GrpcPayloadAspect::isKeepStreamOpen,
+				run(GrpcPayloadAspect::setKeepStreamOpen)
+					.andThen(() -> aspect.setDirty(true)), //mark aspect as dirty propagates to the request itself and shows up in UI
+				aspect);
+		keepStreamOpen.selectedProperty().bindBidirectional(keepOpenBinding);
+		keepStreamOpen.setUserData(keepOpenBinding); //need to add a strong reference to keep the binding from being GC-collected.
+
+		TextField messageFile = new JFXTextField();
+		GenericBinding<GrpcPayloadAspect, String> fileBinding = GenericBinding.of(
+				GrpcPayloadAspect::getMessageFile,
+				run(GrpcPayloadAspect::setMessageFile)
+					.andThen(() -> aspect.setDirty(true)),
+				aspect);
+		messageFile.setPromptText("file with one json message per line");
+		messageFile.textProperty().bindBidirectional(fileBinding);
+		messageFile.setUserData(fileBinding);
+		HBox.setHgrow(messageFile, Priority.ALWAYS);
+
+		streamLabel = new Label();
+
+		HBox toolbar = new HBox(10, keepStreamOpen, new Label("Stream messages from:"), messageFile, streamLabel);
+		toolbar.setAlignment(Pos.CENTER_LEFT);
+		return toolbar;
+	}
+
+	private JFXButton createStreamButton(FontAwesomeIcon icon, String tooltip) {
+		var button = new JFXButton();
+		button.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+		button.setGraphic(new FontAwesomeIconView(icon, "1.5em"));
+		button.getStyleClass().add("btn-add-entry");
+		button.setTooltip(new Tooltip(tooltip));
+		StackPane.setAlignment(button, Pos.BOTTOM_RIGHT);
+		button.setDisable(true);
+		return button;
+	}
+
+	private void activateIfStreaming(GrpcPayloadAspect aspect, ResponseContainer response) {
+		response.getAspect(GrpcRequestStreamAspect.class)
+				.filter(stream -> stream.getRequestStream().isOpen())
+				.ifPresent(stream -> {
+					sendBtn.setDisable(false);
+					completeBtn.setDisable(false);
+					sendBtn.setOnAction(e -> {
+						try {
+							stream.getRequestStream().send(aspect.getPayload());
+						} catch (Exception ex) {
+							streamLabel.setText("Sending failed: " + ExceptionUtils.getRootCauseMessage(ex));
+						}
+					});
+					completeBtn.setOnAction(e -> {
+						stream.getRequestStream().complete();
+						sendBtn.setDisable(true);
+						completeBtn.setDisable(true);
+					});
+
+					stopStreamLabelRefresh();
+					streamLabelRefresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> updateStreamLabel(stream)));
+					streamLabelRefresh.setCycleCount(Animation.INDEFINITE);
+					streamLabelRefresh.play();
+					updateStreamLabel(stream);
+				});
+	}
+
+	private void deactivate(ResponseContainer response) {
+		sendBtn.setDisable(true);
+		completeBtn.setDisable(true);
+		stopStreamLabelRefresh();
+		response.getAspect(GrpcRequestStreamAspect.class).ifPresent(this::updateStreamLabel);
+	}
+
+	private void stopStreamLabelRefresh() {
+		if (streamLabelRefresh != null) {
+			streamLabelRefresh.stop();
+			streamLabelRefresh = null;
+		}
+	}
+
+	private void updateStreamLabel(GrpcRequestStreamAspect stream) {
+		var statistics = stream.getStatistics();
+		streamLabel.setText(statistics.getSentMessages() + " sent, " + statistics.getReceivedMessages() + " received");
 	}
 
 
@@ -41,4 +192,9 @@ public class GrpcPayloadAspectEditor implements RequestAspectEditor, ContentType
 	public void setContentTypePlugins(List<ContentTypePlugin> contentTypes) {
 		this.contentTypes = contentTypes;
 	}
+
+	@Override
+	public void setExecutionListenerManager(ExecutionListenerManager manager) {
+		executionListenerManager = manager;
+	}
 }
@@ -15,7 +15,14 @@ import milkman.ui.plugin.ContentTypePlugin;
 import milkman.ui.plugin.ResponseAspectEditor;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static milkman.plugin.grpc.GrpcOptionsProvider.options;
 
 public class GrpcResponsePayloadEditor implements ResponseAspectEditor, ContentTypeAwareEditor {
 
@@ -33,19 +40,10 @@ public class GrpcResponsePayloadEditor implements ResponseAspectEditor, ContentT
 			root.setContentTypePlugins(plugins);
 		root.setContentType("application/json");
 
+		var messages = new MessageWindow(root, Math.max(1, options().getResponseBufferSize()));
 		payload.getPayloads().subscribe(
-			value -> {
-				Platform.runLater(() -> {
-					root.addContent("\n");
-					root.addContent(new String(value, StandardCharsets.UTF_8));
-				});
-			},
-			throwable -> {
-				Platform.runLater(() -> {
-					root.addContent("\n");
-					root.addContent(ExceptionUtils.getRootCauseMessage(throwable));
-				});
-			}
+			value -> messages.add(new String(value, StandardCharsets.UTF_8)),
+			throwable -> messages.add(ExceptionUtils.getRootCauseMessage(throwable))
 		);
 		return new Tab("Response Payload", root);
 	}
@@ -60,4 +58,57 @@ public class GrpcResponsePayloadEditor implements ResponseAspectEditor, ContentT
 		this.plugins = plugins;
 	}
 
+	/**
+	 * shows only the latest messages of a stream, like the replayed responses (see "Keep last responses").
+	 * Messages are appended in batches, so a fast stream does not flood the fx thread.
+	 */
+	private static class MessageWindow {
+		private final ContentEditor editor;
+		private final int maxMessages;
+		private final Queue<String> incoming = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		//lengths of the shown messages, including the leading newline
+		private final Deque<Integer> shown = new ArrayDeque<>();
+
+		MessageWindow(ContentEditor editor, int maxMessages) {
+			this.editor = editor;
+			this.maxMessages = maxMessages;
+		}
+
+		void add(String message) {
+			incoming.add(message);
+			if (scheduled.compareAndSet(false, true)) {
+				Platform.runLater(this::showIncoming);
+			}
+		}
+
+		private void showIncoming() {
+			scheduled.set(false);
+			Deque<String> batch = new ArrayDeque<>();
+			String message;
+			while ((message = incoming.poll()) != null) {
+				batch.add(message);
+				if (batch.size() > maxMessages) {
+					batch.poll();
+				}
+			}
+
+			int removed = 0;
+			while (!shown.isEmpty() && shown.size() + batch.size() > maxMessages) {
+				removed += shown.poll();
+			}
+			if (removed > 0) {
+				editor.removeLeadingContent(removed);
+			}
+
+			var text = new StringBuilder();
+			for (String next : batch) {
+				text.append("\n").append(next);
+				shown.add(next.length() + 1);
+			}
+			if (text.length() > 0) {
+				editor.addContent(text.toString());
+			}
+		}
+	}
 }
@@ -2,21 +2,22 @@ package milkman.plugin.grpc.processor;
 
 import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
 import io.grpc.Channel;
-import io.grpc.ManagedChannel;
-import io.grpc.netty.GrpcSslContexts;
-import io.grpc.netty.NettyChannelBuilder;
 import io.grpc.stub.ClientCallStreamObserver;
 import io.grpc.stub.ClientResponseObserver;
-import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import me.dinowernli.grpc.polyglot.grpc.ServerReflectionClient;
+import me.dinowernli.grpc.polyglot.protobuf.ProtoMethodName;
+import milkman.plugin.grpc.domain.GrpcOperationAspect;
 import milkman.plugin.grpc.domain.GrpcRequestContainer;
+import milkman.plugin.grpc.processor.GrpcChannelPool.ChannelLease;
 import milkman.ui.plugin.Templater;
 import reactor.core.publisher.FluxSink;
 
 import java.net.InetSocketAddress;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static milkman.plugin.grpc.processor.GrpcChannelPool.channels;
 
 public class BaseGrpcProcessor {
 
@@ -25,24 +26,26 @@ public class BaseGrpcProcessor {
 		if (split.length != 2) {
 			throw new IllegalArgumentException("Unexpected endpoint format. should be 'host:port'");
 		}
-		InetSocketAddress addr = new InetSocketAddress(split[0], Integer.parseInt(split[1]));
+		//the host is resolved by the channel
+		InetSocketAddress addr = InetSocketAddress.createUnresolved(split[0], Integer.parseInt(split[1]));
 		return addr;
 	}
 
-	@SneakyThrows
-	protected ManagedChannel createChannel(GrpcRequestContainer request, Templater templater) {
+	/**
+	 * borrows a pooled channel for the endpoint of the request, the lease has to be released after the call
+	 */
+	protected ChannelLease borrowChannel(GrpcRequestContainer request, Templater templater) {
 		InetSocketAddress endpoint = parseEndpoint(templater.replaceTags(request.getEndpoint()));
+		return channels().borrow(endpoint.getHostString(), endpoint.getPort(), request.isUseTls());
+	}
 
-		var chanBuilder = NettyChannelBuilder.forAddress(endpoint.getHostName(), endpoint.getPort());
-		if (request.isUseTls()) {
-			chanBuilder.sslContext(GrpcSslContexts.forClient()
-					.trustManager(InsecureTrustManagerFactory.INSTANCE)
-					.build());
-		}else {
-			chanBuilder.usePlaintext();
-		}
-
-		return chanBuilder.build();
+	/**
+	 * key of the cached descriptor for the operation of the request
+	 */
+	protected String descriptorKey(GrpcRequestContainer request, GrpcOperationAspect operationAspect, ProtoMethodName protoMethod, Templater templater) {
+		return operationAspect.isUseReflection()
+				? GrpcDescriptorCache.reflectionKey(templater.replaceTags(request.getEndpoint()), protoMethod.getFullServiceName())
+				: GrpcDescriptorCache.schemaKey(operationAspect.getProtoSchema());
 	}
 
 	protected FileDescriptorSet fetchServiceDescriptionViaReflection(Channel channel, String fullServiceName) throws InterruptedException, ExecutionException {
@@ -52,12 +55,12 @@ public class BaseGrpcProcessor {
 	}
 
 	/**
-	 * bridges to a publisher and handles channel closing
+	 * bridges to a publisher and notifies about the end of the call, with the error if the call failed
 	 */
 	@RequiredArgsConstructor
 	class StreamObserverToPublisherBridge<ReqT, ResT> implements ClientResponseObserver<ReqT, ResT> {
 		private final FluxSink<ResT> publisher;
-		private final Runnable onClose;
+		private final Consumer<Throwable> onClose;
 		private ClientCallStreamObserver<ReqT> requestStream;
 
 		@Override
@@ -67,13 +70,13 @@ public class BaseGrpcProcessor {
 
 		@Override
 		public void onError(Throwable t) {
-			onClose.run();
+			onClose.accept(t);
 			publisher.error(t);
 		}
 
 		@Override
 		public void onCompleted() {
-			onClose.run();
+			onClose.accept(null);
 			publisher.complete();
 		}
 
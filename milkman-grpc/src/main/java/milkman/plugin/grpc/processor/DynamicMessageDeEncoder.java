@@ -6,6 +6,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
 import com.google.protobuf.Descriptors.MethodDescriptor;
 import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.util.JsonFormat;
 import com.google.protobuf.util.JsonFormat.TypeRegistry;
 
 import lombok.Getter;
@@ -35,6 +37,19 @@ public class DynamicMessageDeEncoder {
 		return reader.read();
 	}
 
+	/**
+	 * parses a single message, e.g. a line of a newline-delimited json file
+	 */
+	DynamicMessage deserializeMessageFromJson(String json) {
+		DynamicMessage.Builder message = DynamicMessage.newBuilder(methodDefinition.getInputType());
+		try {
+			JsonFormat.parser().usingTypeRegistry(registry).merge(json, message);
+		} catch (InvalidProtocolBufferException e) {
+			throw new IllegalArgumentException("Unable to read message: " + e.getMessage(), e);
+		}
+		return message.build();
+	}
+
 	String serializeToJson(DynamicMessage message) {
 		return writer.convertMessage(message);
 	}
@@ -0,0 +1,202 @@
+package milkman.plugin.grpc.processor;
+
+import io.grpc.ManagedChannel;
+import io.grpc.netty.GrpcSslContexts;
+import io.grpc.netty.NettyChannelBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static milkman.plugin.grpc.GrpcOptionsProvider.options;
+
+/**
+ * keeps grpc channels open between calls, so subsequent calls to the same endpoint reuse the http/2 connection
+ * instead of paying connection setup and tls handshake again.
+ *
+ * Channels are pooled per endpoint and tls setting. A channel multiplexes any number of concurrent calls,
+ * so there is one channel per key. Channels without running calls are shut down after a configurable idle time.
+ */
+@Slf4j
+public class GrpcChannelPool {
+
+	private static final long EVICTION_INTERVAL_SECONDS = 30;
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 2;
+
+	private static final GrpcChannelPool pool = new GrpcChannelPool();
+
+	public static GrpcChannelPool channels() {
+		return pool;
+	}
+
+	private final Map<ChannelKey, PooledChannel> channels = new ConcurrentHashMap<>();
+
+	private GrpcChannelPool() {
+		ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "grpc-channel-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		evictor.scheduleWithFixedDelay(this::shutdownIdleChannels, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::closeAll));
+	}
+
+	/**
+	 * borrows the channel for the given endpoint, creating it if necessary. The returned lease has to be released
+	 * after the call finished, the channel itself stays open.
+	 */
+	public ChannelLease borrow(String host, int port, boolean useTls) {
+		ChannelKey key = new ChannelKey(host, port, useTls);
+		boolean[] created = new boolean[1];
+		PooledChannel channel = channels.compute(key, (k, existing) -> {
+			PooledChannel entry = existing;
+			if (entry == null || entry.channel.isShutdown()) {
+				entry = new PooledChannel(createChannel(k));
+				created[0] = true;
+			}
+			entry.activeCalls.incrementAndGet();
+			entry.calls.incrementAndGet();
+			return entry;
+		});
+		return new ChannelLease(channel, !created[0]);
+	}
+
+	public void closeAll() {
+		channels.keySet().forEach(key -> {
+			PooledChannel removed = channels.remove(key);
+			if (removed != null) {
+				shutdown(removed);
+			}
+		});
+	}
+
+	private void shutdownIdleChannels() {
+		try {
+			long idleTimeout = TimeUnit.SECONDS.toNanos(options().getChannelIdleTimeoutSeconds());
+			long now = System.nanoTime();
+			channels.keySet().forEach(key -> {
+				PooledChannel[] evicted = new PooledChannel[1];
+				channels.computeIfPresent(key, (k, entry) -> {
+					if (entry.activeCalls.get() == 0 && now - entry.lastUsed > idleTimeout) {
+						evicted[0] = entry;
+						return null;
+					}
+					return entry;
+				});
+				if (evicted[0] != null) {
+					shutdown(evicted[0]);
+				}
+			});
+		} catch (Exception e) {
+			log.warn("Failed to shut down idle grpc channels", e);
+		}
+	}
+
+	private static void shutdown(PooledChannel pooled) {
+		try {
+			pooled.channel.shutdown();
+			if (!pooled.channel.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				pooled.channel.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			pooled.channel.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@SneakyThrows
+	private static ManagedChannel createChannel(ChannelKey key) {
+		var chanBuilder = NettyChannelBuilder.forAddress(key.getHost(), key.getPort());
+		if (key.isUseTls()) {
+			chanBuilder.sslContext(GrpcSslContexts.forClient()
+					.trustManager(InsecureTrustManagerFactory.INSTANCE)
+					.build());
+		} else {
+			chanBuilder.usePlaintext();
+		}
+
+		if (options().getKeepAliveTimeSeconds() > 0) {
+			chanBuilder.keepAliveTime(options().getKeepAliveTimeSeconds(), TimeUnit.SECONDS)
+					.keepAliveTimeout(Math.max(1, options().getKeepAliveTimeoutSeconds()), TimeUnit.SECONDS);
+		}
+		return chanBuilder.build();
+	}
+
+	@Value
+	private static class ChannelKey {
+		String host;
+		int port;
+		boolean useTls;
+	}
+
+	private static class PooledChannel {
+		private final ManagedChannel channel;
+		private final long createdAt = System.nanoTime();
+		private final AtomicInteger activeCalls = new AtomicInteger();
+		private final AtomicLong calls = new AtomicLong();
+		private final AtomicLong failedCalls = new AtomicLong();
+		private volatile long lastUsed = System.nanoTime();
+
+		PooledChannel(ManagedChannel channel) {
+			this.channel = channel;
+		}
+	}
+
+	/**
+	 * a borrowed channel, releasing the lease does not close the channel
+	 */
+	public static class ChannelLease {
+		private final PooledChannel pooled;
+		@Getter
+		private final boolean reused;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		ChannelLease(PooledChannel pooled, boolean reused) {
+			this.pooled = pooled;
+			this.reused = reused;
+		}
+
+		public ManagedChannel getChannel() {
+			return pooled.channel;
+		}
+
+		public void release() {
+			release(false);
+		}
+
+		public void release(boolean failed) {
+			if (released.compareAndSet(false, true)) {
+				if (failed) {
+					pooled.failedCalls.incrementAndGet();
+				}
+				pooled.lastUsed = System.nanoTime();
+				pooled.activeCalls.decrementAndGet();
+			}
+		}
+
+		/**
+		 * statistics of the channel, formatted for display
+		 */
+		public Map<String, String> getStatistics() {
+			Map<String, String> result = new LinkedHashMap<>();
+			result.put("Channel", reused ? "reused" : "new");
+			result.put("State", pooled.channel.getState(false).name());
+			result.put("Calls", "" + pooled.calls.get());
+			result.put("Active calls", "" + pooled.activeCalls.get());
+			result.put("Failed calls", "" + pooled.failedCalls.get());
+			result.put("Open since", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - pooled.createdAt) + "s");
+			return result;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package milkman.plugin.grpc.processor;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import me.dinowernli.grpc.polyglot.protobuf.ProtoMethodName;
+import milkman.PlatformUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * caches descriptors of grpc services, so repeated calls neither query server reflection nor invoke protoc.
+ *
+ * Descriptor sets are content-addressed: compiled schemas by the hash of the schema, reflected services by
+ * the hash of endpoint and service name. They are kept in memory and persisted to disk, so they survive restarts.
+ * As every change of a schema creates a new file, only the most recently used files are kept on disk.
+ * Resolved methods (the message de/encoder including the type registry) are kept in memory only.
+ *
+ * Reflected descriptors can get outdated if the service changes, so they can be invalidated explicitly.
+ * If a method can not be resolved from a cached descriptor set, the descriptor set is loaded again.
+ */
+@Slf4j
+public class GrpcDescriptorCache {
+
+	private static final int MAX_ENTRIES = 100;
+	private static final int MAX_FILES = 200;
+	private static final String FILE_SUFFIX = ".pb";
+
+	private static final GrpcDescriptorCache cache = new GrpcDescriptorCache(Path.of(PlatformUtil.getWritableLocationForFile("grpc-descriptors")));
+
+	public static GrpcDescriptorCache descriptors() {
+		return cache;
+	}
+
+	@FunctionalInterface
+	public interface DescriptorLoader {
+		FileDescriptorSet load() throws Exception;
+	}
+
+	private final Path directory;
+	private final int maxFiles;
+	private final Map<String, FileDescriptorSet> descriptorSets = lruMap();
+	private final Map<String, DynamicMessageDeEncoder> resolvedMethods = lruMap();
+
+	GrpcDescriptorCache(Path directory) {
+		this(directory, MAX_FILES);
+	}
+
+	GrpcDescriptorCache(Path directory, int maxFiles) {
+		this.directory = directory;
+		this.maxFiles = maxFiles;
+	}
+
+	public static String schemaKey(String protoSchema) {
+		return "schema-" + sha256(protoSchema);
+	}
+
+	public static String reflectionKey(String endpoint, String fullServiceName) {
+		return "reflection-" + sha256(endpoint + "/" + fullServiceName);
+	}
+
+	/**
+	 * returns the de/encoder for the given method. The descriptor set is only loaded if it is neither cached in memory nor on disk.
+	 */
+	@SneakyThrows
+	public DynamicMessageDeEncoder resolve(String key, ProtoMethodName protoMethod, DescriptorLoader loader) {
+		String methodKey = key + "#" + protoMethod.getFullServiceName() + "/" + protoMethod.getMethodName();
+		synchronized (this) {
+			DynamicMessageDeEncoder resolved = resolvedMethods.get(methodKey);
+			if (resolved != null) {
+				return resolved;
+			}
+		}
+
+		FileDescriptorSet cached = getCachedDescriptorSet(key);
+		DynamicMessageDeEncoder resolved = null;
+		if (cached != null) {
+			try {
+				resolved = new DynamicMessageDeEncoder(protoMethod, cached);
+			} catch (RuntimeException e) {
+				log.info("Cached descriptor of {} outdated, loading it again", methodKey, e);
+			}
+		}
+		if (resolved == null) {
+			FileDescriptorSet loaded = loader.load();
+			resolved = new DynamicMessageDeEncoder(protoMethod, loaded);
+			putDescriptorSet(key, loaded);
+		}
+
+		synchronized (this) {
+			resolvedMethods.put(methodKey, resolved);
+		}
+		return resolved;
+	}
+
+	/**
+	 * removes the descriptor set and all methods resolved from it, from memory and disk
+	 */
+	public void invalidate(String key) {
+		synchronized (this) {
+			descriptorSets.remove(key);
+			resolvedMethods.keySet().removeIf(methodKey -> methodKey.startsWith(key + "#"));
+		}
+		deleteQuietly(fileOf(key));
+	}
+
+	public void clear() {
+		synchronized (this) {
+			descriptorSets.clear();
+			resolvedMethods.clear();
+		}
+		if (Files.isDirectory(directory)) {
+			try (Stream<Path> files = Files.list(directory)) {
+				files.filter(f -> f.getFileName().toString().endsWith(FILE_SUFFIX)).forEach(this::deleteQuietly);
+			} catch (IOException e) {
+				log.warn("Failed to clear grpc descriptor cache", e);
+			}
+		}
+	}
+
+	private FileDescriptorSet getCachedDescriptorSet(String key) {
+		synchronized (this) {
+			FileDescriptorSet descriptorSet = descriptorSets.get(key);
+			if (descriptorSet != null) {
+				return descriptorSet;
+			}
+		}
+		Path file = fileOf(key);
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try {
+			FileDescriptorSet descriptorSet = FileDescriptorSet.parseFrom(Files.readAllBytes(file));
+			//the modification time marks recently used files, which are kept on eviction
+			Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+			synchronized (this) {
+				descriptorSets.put(key, descriptorSet);
+			}
+			return descriptorSet;
+		} catch (IOException e) {
+			log.warn("Failed to read cached grpc descriptor {}", file, e);
+			deleteQuietly(file);
+			return null;
+		}
+	}
+
+	private void putDescriptorSet(String key, FileDescriptorSet descriptorSet) {
+		synchronized (this) {
+			descriptorSets.put(key, descriptorSet);
+		}
+		try {
+			Files.createDirectories(directory);
+			//written to a temporary file first, so a concurrent reader never sees a partial file
+			Path tempFile = Files.createTempFile(directory, key, ".tmp");
+			Files.write(tempFile, descriptorSet.toByteArray());
+			Files.move(tempFile, fileOf(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.warn("Failed to persist grpc descriptor {}", key, e);
+		}
+		evictOldFiles();
+	}
+
+	/**
+	 * deletes the least recently used files, if there are more than the max number of files
+	 */
+	private void evictOldFiles() {
+		List<Path> files;
+		try (Stream<Path> listed = Files.list(directory)) {
+			files = listed.filter(f -> f.getFileName().toString().endsWith(FILE_SUFFIX)).collect(Collectors.toList());
+		} catch (IOException e) {
+			log.warn("Failed to list grpc descriptor cache", e);
+			return;
+		}
+		if (files.size() <= maxFiles) {
+			return;
+		}
+		Map<Path, FileTime> modificationTimes = new HashMap<>();
+		files.forEach(f -> modificationTimes.put(f, lastModifiedTime(f)));
+		files.sort(Comparator.comparing(modificationTimes::get));
+		files.subList(0, files.size() - maxFiles).forEach(this::deleteQuietly);
+	}
+
+	private static FileTime lastModifiedTime(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			//a file that can not be read is evicted first
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	private Path fileOf(String key) {
+		return directory.resolve(key + FILE_SUFFIX);
+	}
+
+	private void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Failed to delete cached grpc descriptor {}", file, e);
+		}
+	}
+
+	@SneakyThrows
+	private static String sha256(String content) {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static <V> Map<String, V> lruMap() {
+		return new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+}
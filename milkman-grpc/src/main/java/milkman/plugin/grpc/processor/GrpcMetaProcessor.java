@@ -5,11 +5,12 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
-import io.grpc.ManagedChannel;
 import java.nio.charset.StandardCharsets;
 import javafx.application.Platform;
 import lombok.SneakyThrows;
 import me.dinowernli.grpc.polyglot.grpc.ServerReflectionClient;
+import me.dinowernli.grpc.polyglot.protobuf.ProtoMethodName;
+import milkman.plugin.grpc.domain.GrpcOperationAspect;
 import milkman.plugin.grpc.domain.GrpcRequestContainer;
 import milkman.plugin.grpc.domain.GrpcResponseContainer;
 import milkman.plugin.grpc.domain.GrpcResponsePayloadAspect;
@@ -27,6 +28,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
+import static milkman.plugin.grpc.processor.GrpcDescriptorCache.descriptors;
+
 public class GrpcMetaProcessor extends BaseGrpcProcessor {
 
 	private ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).build());
@@ -57,6 +60,23 @@ public class GrpcMetaProcessor extends BaseGrpcProcessor {
 		return response;
 	}
 
+	/**
+	 * removes the cached descriptor of the operation, so it is loaded again on the next call
+	 */
+	public GrpcResponseContainer invalidateDescriptor(GrpcRequestContainer request, Templater templater) {
+		GrpcOperationAspect operationAspect = request.getAspect(GrpcOperationAspect.class).orElseThrow(() -> new IllegalArgumentException("Operation Aspect missing"));
+		if (StringUtils.isBlank(operationAspect.getOperation())) {
+			throw new IllegalArgumentException("No Grpc Operation provided");
+		}
+		var protoMethod = ProtoMethodName.parseFullGrpcMethodName(operationAspect.getOperation());
+		descriptors().invalidate(descriptorKey(request, operationAspect, protoMethod, templater));
+
+		var response = new GrpcResponseContainer(templater.replaceTags(request.getEndpoint()));
+		String message = "Cached descriptor of " + protoMethod.getFullServiceName() + " removed, it is loaded again on the next call.";
+		response.getAspects().add(new GrpcResponsePayloadAspect(Flux.just(message.getBytes())));
+		return response;
+	}
+
 	@SneakyThrows
 	private String queryServiceName(GrpcRequestContainer request, Templater templater) {
 		ReplayProcessor<byte[]> processor = ReplayProcessor.create();
@@ -86,8 +106,13 @@ public class GrpcMetaProcessor extends BaseGrpcProcessor {
 
 	@SneakyThrows
 	private void fetchServiceDefinition(FluxSink<byte[]> sink, GrpcRequestContainer request, String fullServiceName, Templater templater) {
-		ManagedChannel channel = createChannel(request, templater);
-		FileDescriptorSet descriptorSet = fetchServiceDescriptionViaReflection(channel, fullServiceName);
+		var channelLease = borrowChannel(request, templater);
+		FileDescriptorSet descriptorSet;
+		try {
+			descriptorSet = fetchServiceDescriptionViaReflection(channelLease.getChannel(), fullServiceName);
+		} finally {
+			channelLease.release();
+		}
 		String protoContent = toProto(descriptorSet);
 		sink.next(protoContent.getBytes());
 		sink.complete();
@@ -102,8 +127,8 @@ public class GrpcMetaProcessor extends BaseGrpcProcessor {
 	}
 
 	protected void fetchServiceList(FluxSink<byte[]> sink, GrpcRequestContainer request, Templater templater) {
-		ManagedChannel channel = createChannel(request, templater);
-	    var client = ServerReflectionClient.create(channel);
+		var channelLease = borrowChannel(request, templater);
+	    var client = ServerReflectionClient.create(channelLease.getChannel());
 
 	    
 	    Futures.addCallback(client.listServices(), new FutureCallback<>() {
@@ -111,14 +136,14 @@ public class GrpcMetaProcessor extends BaseGrpcProcessor {
 			@Override
 			public void onSuccess(ImmutableList<String> result) {
 				result.forEach(t -> sink.next(t.getBytes()));
-				channel.shutdown();
+				channelLease.release();
 				sink.complete();
 			}
 
 			@Override
 			public void onFailure(Throwable t) {
 				t.printStackTrace();
-				channel.shutdown();
+				channelLease.release(true);
 				sink.error(t);
 			}
 		}, executor);
@@ -13,8 +13,8 @@ import lombok.Value;
 import me.dinowernli.grpc.polyglot.grpc.DynamicGrpcClient;
 import me.dinowernli.grpc.polyglot.protobuf.ProtoMethodName;
 import me.dinowernli.grpc.polyglot.protobuf.ProtocInvoker;
-import milkman.domain.ResponseContainer.StyledText;
 import milkman.plugin.grpc.domain.*;
+import milkman.plugin.grpc.processor.GrpcChannelPool.ChannelLease;
 import milkman.ui.plugin.Templater;
 import milkman.utils.AsyncResponseControl.AsyncControl;
 import org.apache.commons.io.IOUtils;
@@ -22,12 +22,16 @@ import org.apache.commons.lang3.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.ReplayProcessor;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+import static milkman.plugin.grpc.GrpcOptionsProvider.options;
+import static milkman.plugin.grpc.processor.GrpcDescriptorCache.descriptors;
+
 public class GrpcRequestProcessor extends BaseGrpcProcessor {
 
 	@SneakyThrows
@@ -49,7 +53,20 @@ public class GrpcRequestProcessor extends BaseGrpcProcessor {
 		var responseHeaderAspect = new GrpcResponseHeaderAspect(responseData.getHeaderFuture().thenApply(this::convertToEntries));
 		response.getAspects().add(responseHeaderAspect);
 
-		responseData.getRequestTime().thenAccept(t -> response.getStatusInformations().complete(Map.of("Time", new StyledText(t + "ms"))));
+		var requestStream = responseData.getRequestStream();
+		if (requestStream != null) {
+			response.getAspects().add(new GrpcRequestStreamAspect(requestStream, requestStream.getStatistics()));
+		}
+
+		responseData.getRequestTime().thenAccept(t -> {
+			var statusInformations = response.getStatusInformations().add("Time", t + "ms");
+			if (requestStream != null) {
+				statusInformations.add("Stream", requestStream.getStatistics().toMap());
+			}
+			statusInformations
+				.add("Channel", responseData.getChannel().getStatistics())
+				.complete();
+		});
 		return response;
 	}
 
@@ -71,50 +88,73 @@ public class GrpcRequestProcessor extends BaseGrpcProcessor {
 											 AsyncControl asyncControl) throws InterruptedException, ExecutionException {
 	   
 		HeaderClientInterceptor clientInterceptor = createHeaderInterceptor(headerAspect, templater);
-	    var managedChannel = createChannel(request, templater);
-		Channel channel = ClientInterceptors.intercept(managedChannel, clientInterceptor);
-		
-		
-	    var protoMethod = ProtoMethodName.parseFullGrpcMethodName(operationAspect.getOperation());
-		FileDescriptorSet descriptorSet = operationAspect.isUseReflection() 
-						? fetchServiceDescriptionViaReflection(channel, protoMethod.getFullServiceName())
-						: compileProtoSchema(operationAspect.getProtoSchema(), protoMethod);
-						
-						
-		DynamicMessageDeEncoder deenc = new DynamicMessageDeEncoder(protoMethod, descriptorSet);
-
-
-		ReplayProcessor<DynamicMessage> publisher = ReplayProcessor.create();
-
-		var requestMessages = deenc.deserializeFromJson(templater.replaceTags(payloadAspect.getPayload()));
-	    var dynamicClient  = DynamicGrpcClient.create(deenc.getMethodDefinition(), channel);
-	    long startTime = System.currentTimeMillis();
-	    CompletableFuture<Long> requestTime = new CompletableFuture<>();
-	    asyncControl.triggerReqeuestStarted();
-	    var streamObserver = new StreamObserverToPublisherBridge<>(publisher.sink(), () -> managedChannel.shutdown());
-		var callFuture = dynamicClient.call(requestMessages, streamObserver, CallOptions.DEFAULT);
-	    
-	    asyncControl.onCancellationRequested.add(streamObserver::cancel);
-	    
-	    Futures.addCallback(callFuture, new FutureCallback<>() {
-			@Override
-			public void onSuccess(Void result) {
-				requestTime.complete(System.currentTimeMillis() - startTime);
-				asyncControl.triggerRequestSucceeded();
-			}
-
-			@Override
-			public void onFailure(Throwable t) {
-				requestTime.complete(System.currentTimeMillis() - startTime);
-				asyncControl.triggerRequestFailed(t);
-			}
-		}, MoreExecutors.directExecutor());
-	    
-	    
-    	var responseStream = publisher.map(deenc::serializeToJson).map(String::getBytes);
-		return new ResponseDataHolder(responseStream, clientInterceptor.getResponseHeaders(), requestTime);
+		var channelLease = borrowChannel(request, templater);
+		try {
+			Channel channel = ClientInterceptors.intercept(channelLease.getChannel(), clientInterceptor);
+
+
+			var protoMethod = ProtoMethodName.parseFullGrpcMethodName(operationAspect.getOperation());
+			DynamicMessageDeEncoder deenc = descriptors().resolve(descriptorKey(request, operationAspect, protoMethod, templater), protoMethod,
+					() -> operationAspect.isUseReflection()
+							? fetchServiceDescriptionViaReflection(channel, protoMethod.getFullServiceName())
+							: compileProtoSchema(operationAspect.getProtoSchema(), protoMethod));
+
+
+			//only the latest responses are kept, long-running streams would fill up the memory otherwise
+			ReplayProcessor<DynamicMessage> publisher = ReplayProcessor.create(Math.max(1, options().getResponseBufferSize()));
+
+			var requestMessages = deenc.deserializeFromJson(templater.replaceTags(StringUtils.defaultString(payloadAspect.getPayload())));
+			var requestStream = isStreamingRequest(deenc, payloadAspect)
+					? new StreamingRequestSender(deenc, templater, requestMessages, messageFile(payloadAspect, templater), payloadAspect.isKeepStreamOpen())
+					: null;
+			var dynamicClient  = DynamicGrpcClient.create(deenc.getMethodDefinition(), channel);
+			long startTime = System.currentTimeMillis();
+			CompletableFuture<Long> requestTime = new CompletableFuture<>();
+			asyncControl.triggerReqeuestStarted();
+			var streamObserver = new StreamObserverToPublisherBridge<>(publisher.sink(), error -> channelLease.release(error != null));
+			var callFuture = requestStream != null
+					? dynamicClient.callStreaming(requestStream, streamObserver, CallOptions.DEFAULT)
+					: dynamicClient.call(requestMessages, streamObserver, CallOptions.DEFAULT);
+
+			asyncControl.onCancellationRequested.add(streamObserver::cancel);
+
+			Futures.addCallback(callFuture, new FutureCallback<>() {
+				@Override
+				public void onSuccess(Void result) {
+					requestTime.complete(System.currentTimeMillis() - startTime);
+					asyncControl.triggerRequestSucceeded();
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					requestTime.complete(System.currentTimeMillis() - startTime);
+					asyncControl.triggerRequestFailed(t);
+				}
+			}, MoreExecutors.directExecutor());
+
+
+			var responseStream = publisher.map(deenc::serializeToJson).map(String::getBytes);
+			return new ResponseDataHolder(responseStream, clientInterceptor.getResponseHeaders(), requestTime, channelLease, requestStream);
+		} catch (Exception e) {
+			channelLease.release(true);
+			throw e;
+		}
 	}
 	
+	/**
+	 * client-streaming and bidi calls stream their requests if messages are read from a file or sent while the call is open
+	 */
+	private boolean isStreamingRequest(DynamicMessageDeEncoder deenc, GrpcPayloadAspect payloadAspect) {
+		return deenc.getMethodDefinition().toProto().getClientStreaming()
+				&& (payloadAspect.isKeepStreamOpen() || StringUtils.isNotBlank(payloadAspect.getMessageFile()));
+	}
+
+	private Path messageFile(GrpcPayloadAspect payloadAspect, Templater templater) {
+		return StringUtils.isNotBlank(payloadAspect.getMessageFile())
+				? Path.of(templater.replaceTags(payloadAspect.getMessageFile().trim()))
+				: null;
+	}
+
 	protected List<HeaderEntry> convertToEntries(Map<String, String> headers){
 		return headers.entrySet().stream().map(e -> new HeaderEntry("", e.getKey(), e.getValue(), true))
 			.collect(Collectors.toList());
@@ -139,6 +179,8 @@ public class GrpcRequestProcessor extends BaseGrpcProcessor {
 		Flux<byte[]> bodyStream;
 		CompletableFuture<Map<String, String>> headerFuture;
 		CompletableFuture<Long> requestTime;
+		ChannelLease channel;
+		StreamingRequestSender requestStream;
 	}
 	
 	
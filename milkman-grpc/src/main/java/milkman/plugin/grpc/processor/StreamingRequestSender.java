@@ -0,0 +1,157 @@
+package milkman.plugin.grpc.processor;
+
+import com.google.protobuf.DynamicMessage;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import milkman.plugin.grpc.domain.GrpcRequestStreamAspect.RequestStream;
+import milkman.plugin.grpc.domain.GrpcStreamStatistics;
+import milkman.ui.plugin.Templater;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * feeds the request stream of a client-streaming or bidi call while the call is open.
+ *
+ * Messages of the payload, of a newline-delimited json file and messages sent via {@link #send(String)} are queued and
+ * only written while the call is ready (see {@link ClientCallStreamObserver#isReady()}), so a slow server is not flooded
+ * and the file is read only as fast as the messages can be sent. Lines of the file and sent messages are templated
+ * with the templater of the execution, just like the payload.
+ *
+ * The request stream is half-closed once everything was sent, unless it should be kept open. In that case it is closed
+ * via {@link #complete()}.
+ */
+@Slf4j
+class StreamingRequestSender implements ClientResponseObserver<DynamicMessage, DynamicMessage>, RequestStream {
+
+	private final DynamicMessageDeEncoder deenc;
+	private final Templater templater;
+	private final boolean keepOpen;
+	@Getter
+	private final GrpcStreamStatistics statistics = new GrpcStreamStatistics();
+	private final Queue<DynamicMessage> pending = new ConcurrentLinkedQueue<>();
+
+	private BufferedReader messageFile;
+	private ClientCallStreamObserver<DynamicMessage> requestStream;
+	private volatile boolean completionRequested = false;
+	private volatile boolean closed = false;
+
+	StreamingRequestSender(DynamicMessageDeEncoder deenc, Templater templater, List<DynamicMessage> messages, Path messageFile, boolean keepOpen) {
+		this.deenc = deenc;
+		this.templater = templater;
+		this.keepOpen = keepOpen;
+		this.pending.addAll(messages);
+		if (messageFile != null) {
+			try {
+				this.messageFile = Files.newBufferedReader(messageFile);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Unable to read messages file: " + messageFile, e);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void beforeStart(ClientCallStreamObserver<DynamicMessage> requestStream) {
+		this.requestStream = requestStream;
+		//called by grpc whenever the call is able to take more messages
+		requestStream.setOnReadyHandler(this::drain);
+	}
+
+	@Override
+	public void send(String json) {
+		if (!isOpen()) {
+			throw new IllegalStateException("Request stream is closed already");
+		}
+		pending.add(deenc.deserializeMessageFromJson(templater.replaceTags(json)));
+		drain();
+	}
+
+	@Override
+	public void complete() {
+		completionRequested = true;
+		drain();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !closed && !completionRequested;
+	}
+
+	@Override
+	public void onNext(DynamicMessage value) {
+		statistics.recordReceived(value.getSerializedSize());
+	}
+
+	@Override
+	public void onError(Throwable t) {
+		onCallClosed();
+	}
+
+	@Override
+	public void onCompleted() {
+		onCallClosed();
+	}
+
+	private synchronized void onCallClosed() {
+		closed = true;
+		statistics.stop();
+		closeMessageFile();
+	}
+
+	private synchronized void drain() {
+		if (closed || requestStream == null) {
+			return;
+		}
+		try {
+			while (requestStream.isReady()) {
+				DynamicMessage message = nextMessage();
+				if (message == null) {
+					break;
+				}
+				requestStream.onNext(message);
+				statistics.recordSent(message.getSerializedSize());
+			}
+			if (pending.isEmpty() && messageFile == null && (completionRequested || !keepOpen)) {
+				closed = true;
+				requestStream.onCompleted();
+			}
+		} catch (Exception e) {
+			log.error("Failed to send request message", e);
+			closed = true;
+			closeMessageFile();
+			requestStream.cancel("Failed to send request message", e);
+		}
+	}
+
+	private DynamicMessage nextMessage() throws IOException {
+		DynamicMessage message = pending.poll();
+		while (message == null && messageFile != null) {
+			String line = messageFile.readLine();
+			if (line == null) {
+				closeMessageFile();
+			} else if (StringUtils.isNotBlank(line)) {
+				message = deenc.deserializeMessageFromJson(templater.replaceTags(line));
+			}
+		}
+		return message;
+	}
+
+	private void closeMessageFile() {
+		if (messageFile != null) {
+			try {
+				messageFile.close();
+			} catch (IOException e) {
+				log.debug("Failed to close messages file", e);
+			}
+			messageFile = null;
+		}
+	}
+}
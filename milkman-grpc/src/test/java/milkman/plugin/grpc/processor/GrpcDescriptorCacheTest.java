@@ -0,0 +1,98 @@
+package milkman.plugin.grpc.processor;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import me.dinowernli.grpc.polyglot.protobuf.ProtoMethodName;
+import me.dinowernli.grpc.polyglot.protobuf.ProtocInvoker;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GrpcDescriptorCacheTest {
+
+    private static final ProtoMethodName HELLO = ProtoMethodName.parseFullGrpcMethodName("com.example.demo.grpc.HelloService/hello");
+
+    private static String schema;
+    private static FileDescriptorSet descriptorSet;
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeAll
+    static void compileSchema() throws Exception {
+        schema = IOUtils.toString(GrpcDescriptorCacheTest.class.getResourceAsStream("/HelloService.proto"));
+        descriptorSet = new ProtocInvoker(IOUtils.toInputStream(schema)).invoke();
+    }
+
+    @Test
+    void shouldLoadDescriptorOnlyOnce() {
+        var sut = new GrpcDescriptorCache(cacheDir);
+        var loads = new AtomicInteger();
+        String key = GrpcDescriptorCache.schemaKey(schema);
+
+        var first = sut.resolve(key, HELLO, () -> countingLoad(loads));
+        var second = sut.resolve(key, HELLO, () -> countingLoad(loads));
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+        assertThat(first.getMethodDefinition().getName()).isEqualTo("hello");
+    }
+
+    @Test
+    void shouldReadPersistedDescriptorAfterRestart() {
+        var loads = new AtomicInteger();
+        String key = GrpcDescriptorCache.schemaKey(schema);
+        new GrpcDescriptorCache(cacheDir).resolve(key, HELLO, () -> countingLoad(loads));
+
+        var restarted = new GrpcDescriptorCache(cacheDir);
+        var resolved = restarted.resolve(key, HELLO, () -> countingLoad(loads));
+
+        assertThat(loads).hasValue(1);
+        assertThat(resolved.getMethodDefinition().getInputType().getName()).isEqualTo("HelloRequest");
+    }
+
+    @Test
+    void shouldLoadAgainAfterInvalidation() {
+        var sut = new GrpcDescriptorCache(cacheDir);
+        var loads = new AtomicInteger();
+        String key = GrpcDescriptorCache.reflectionKey("localhost:8080", HELLO.getFullServiceName());
+        sut.resolve(key, HELLO, () -> countingLoad(loads));
+
+        sut.invalidate(key);
+        sut.resolve(key, HELLO, () -> countingLoad(loads));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldKeepOnlyRecentlyUsedFiles() throws Exception {
+        var sut = new GrpcDescriptorCache(cacheDir, 2);
+        var loads = new AtomicInteger();
+        String first = GrpcDescriptorCache.schemaKey(schema + "// 1");
+        String second = GrpcDescriptorCache.schemaKey(schema + "// 2");
+        String third = GrpcDescriptorCache.schemaKey(schema + "// 3");
+        sut.resolve(first, HELLO, () -> countingLoad(loads));
+        sut.resolve(second, HELLO, () -> countingLoad(loads));
+        Files.setLastModifiedTime(cacheDir.resolve(first + ".pb"), FileTime.from(Instant.now().minusSeconds(60)));
+
+        sut.resolve(third, HELLO, () -> countingLoad(loads));
+
+        try (var files = Files.list(cacheDir)) {
+            assertThat(files.map(f -> f.getFileName().toString()))
+                    .containsExactlyInAnyOrder(second + ".pb", third + ".pb");
+        }
+    }
+
+    private FileDescriptorSet countingLoad(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return descriptorSet;
+    }
+}
@@ -1,5 +1,6 @@
 package milkman.plugin.jdbc;
 
+import milkman.domain.rowset.Column;
 import milkman.plugin.jdbc.domain.JdbcRequestContainer;
 import milkman.plugin.jdbc.domain.RowSetResponseAspect;
 import milkman.ui.main.options.CoreApplicationOptionsProvider;
@@ -42,38 +43,43 @@ public class AbstractJdbcProcessor {
 		}
 	}
 
-	protected void extractRows(ResultSet resultSet, RowSetResponseAspect rowSetAspect) throws SQLException {
-		ResultSetMetaData metaData = resultSet.getMetaData();		
-		
+	protected List<String> getColumnNames(ResultSetMetaData metaData) throws SQLException {
 		List<String> columnNames = new LinkedList<String>();
 		for(int i = 1; i <= metaData.getColumnCount(); ++i) { // column idx starts at 1
 			columnNames.add(metaData.getColumnName(i));
 		}
-		rowSetAspect.setColumnNames(columnNames);
+		return columnNames;
+	}
+
+	protected void extractRows(ResultSet resultSet, RowSetResponseAspect rowSetAspect) throws SQLException {
+		ResultSetMetaData metaData = resultSet.getMetaData();		
+		rowSetAspect.setColumnNames(getColumnNames(metaData));
 		
+		Object[] row = new Object[metaData.getColumnCount()];
 		while(resultSet.next() && !maxRowLimitReached(rowSetAspect)) {
-			List<String> row = new LinkedList<>();
-			for(int i = 1; i <= metaData.getColumnCount(); ++i) {// column idx starts at 1
-				var value = resultSet.getObject(i);
-				row.add(valueToString(value));
+			for(int i = 1; i <= row.length; ++i) {// column idx starts at 1
+				row[i - 1] = toStorableValue(resultSet.getObject(i));
 			}
 			rowSetAspect.addRow(row);
 		}
 	}
 
-	private String valueToString(Object value) {
+	/**
+	 * plain values are kept typed, driver specific values that depend on the open result set (e.g. blobs, clobs or arrays)
+	 * are converted eagerly
+	 */
+	static Object toStorableValue(Object value) {
 		if (value instanceof Blob) {
 			try {
-				value = IOUtils.toString(((Blob) value).getBinaryStream());
+				return IOUtils.toString(((Blob) value).getBinaryStream());
 			} catch (IOException | SQLException e) {
-				value = "BLOB";
+				return "BLOB";
 			}
 		}
-		String stringValue = value != null ? value.toString() : "NULL";
-		return stringValue;
+		return Column.toStorableValue(value);
 	}
 
 	private boolean maxRowLimitReached(RowSetResponseAspect rowSetAspect) {
-		return rowSetAspect.getRows().size() > JdbcOptionsProvider.options().getMaxRowFetchLimit();
+		return rowSetAspect.getRowCount() > JdbcOptionsProvider.options().getMaxRowFetchLimit();
 	}
 }
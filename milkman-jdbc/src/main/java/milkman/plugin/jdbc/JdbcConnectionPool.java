@@ -0,0 +1,371 @@
+package milkman.plugin.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import milkman.plugin.jdbc.JdbcOptionsProvider.JdbcOptions;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * keeps opened jdbc connections per (templated) jdbc url, so that subsequent requests against the same database
+ * reuse a connection instead of doing a full login every time.
+ *
+ * The number of connections per url is limited. Idle connections are closed after a configurable time
+ * and validated before they are handed out again.
+ *
+ * Every connection keeps a small lru cache of prepared statements, so that repeated executions of the
+ * same parameterized sql do not have to be parsed and planned by the database again.
+ */
+@Slf4j
+public class JdbcConnectionPool {
+
+	private static final long EVICTION_INTERVAL_SECONDS = 30;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	private static final JdbcConnectionPool pool = new JdbcConnectionPool();
+
+	public static JdbcConnectionPool connections() {
+		return pool;
+	}
+
+	private final Map<String, UrlPool> pools = new ConcurrentHashMap<>();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong reused = new AtomicLong();
+	private final AtomicLong evicted = new AtomicLong();
+	private final AtomicLong validationFailures = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	private JdbcConnectionPool() {
+		ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "jdbc-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		evictor.scheduleWithFixedDelay(this::evictIdleConnections, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * borrows a connection for the given url. Blocks until a connection is available, if the limit of connections
+	 * is reached. The returned lease has to be closed after use, which returns the connection to the pool.
+	 */
+	public PooledConnection borrow(String jdbcUrl) throws SQLException {
+		return pools.computeIfAbsent(jdbcUrl, UrlPool::new).borrow(JdbcOptionsProvider.options());
+	}
+
+	/**
+	 * closes all idle connections and cancels open result cursors. Borrowed connections are closed as soon as they are returned.
+	 */
+	public void closeAll() {
+		pools.values().forEach(UrlPool::closeAll);
+	}
+
+	public Map<String, String> getStatistics(PooledConnection lease) {
+		Map<String, String> result = new LinkedHashMap<>();
+		result.put("Connection", lease.isReused() ? "reused" : "new");
+		result.put("Open connections", "" + lease.pool.getOpenCount());
+		result.put("Idle connections", "" + lease.pool.getIdleCount());
+		result.put("Open cursors", "" + lease.pool.cursors.size());
+		result.put("Created", "" + created.get());
+		result.put("Reused", "" + reused.get());
+		result.put("Evicted", "" + evicted.get());
+		result.put("Validation failures", "" + validationFailures.get());
+		result.put("Statement cache hits", "" + statementCacheHits.get());
+		result.put("Statement cache misses", "" + statementCacheMisses.get());
+		return result;
+	}
+
+	private void evictIdleConnections() {
+		try {
+			long idleTimeout = TimeUnit.SECONDS.toNanos(JdbcOptionsProvider.options().getPoolIdleTimeoutSeconds());
+			pools.values().forEach(p -> p.evictIdle(idleTimeout));
+		} catch (Exception e) {
+			log.warn("Failed to evict idle jdbc connections", e);
+		}
+	}
+
+	private static void closeQuietly(AutoCloseable closeable) {
+		try {
+			closeable.close();
+		} catch (Exception e) {
+			log.debug("Failed to close jdbc resource", e);
+		}
+	}
+
+
+	/**
+	 * the connections of a single jdbc url
+	 */
+	@RequiredArgsConstructor
+	private class UrlPool {
+		private final String jdbcUrl;
+		//most recently returned connections are at the end
+		private final Deque<IdleConnection> idle = new LinkedList<>();
+		//idle and borrowed connections
+		private int open = 0;
+		//incremented on closeAll, connections of older generations are not pooled again
+		private int generation = 0;
+		private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+		//connections that are kept borrowed by an open result cursor, with the action that cancels the cursor
+		private final Map<PooledConnection, Runnable> cursors = new ConcurrentHashMap<>();
+
+		PooledConnection borrow(JdbcOptions options) throws SQLException {
+			long timeout = TimeUnit.SECONDS.toNanos(options.getPoolBorrowTimeoutSeconds());
+			long deadline = System.nanoTime() + timeout;
+			while (true) {
+				IdleConnection candidate;
+				int currentGeneration;
+				synchronized (this) {
+					while ((candidate = idle.pollLast()) == null && open >= Math.max(1, options.getPoolMaxSize())) {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							throw new SQLException("No connection available within " + options.getPoolBorrowTimeoutSeconds()
+									+ "s, all " + open + " connections to " + jdbcUrl + " are in use");
+						}
+						try {
+							TimeUnit.NANOSECONDS.timedWait(this, remaining);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new SQLException("Interrupted while waiting for a connection", e);
+						}
+					}
+					if (candidate == null) {
+						open++;
+					}
+					currentGeneration = generation;
+				}
+
+				if (candidate == null) {
+					return new PooledConnection(this, openConnection(), false, currentGeneration);
+				}
+				if (!options.isPoolValidateOnBorrow() || isValid(candidate.connection)) {
+					reused.incrementAndGet();
+					return new PooledConnection(this, candidate.connection, true, currentGeneration);
+				}
+				validationFailures.incrementAndGet();
+				discard(candidate.connection);
+			}
+		}
+
+		private Connection openConnection() throws SQLException {
+			try {
+				Connection connection = DriverManager.getConnection(jdbcUrl);
+				created.incrementAndGet();
+				return connection;
+			} catch (SQLException | RuntimeException e) {
+				synchronized (this) {
+					open--;
+					notifyAll();
+				}
+				throw e;
+			}
+		}
+
+		private boolean isValid(Connection connection) {
+			try {
+				return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		void giveBack(Connection connection, int connectionGeneration) {
+			boolean reusable;
+			try {
+				reusable = !connection.isClosed();
+				if (reusable && !connection.getAutoCommit()) {
+					//do not leak uncommitted changes into the next request
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				connection.clearWarnings();
+			} catch (SQLException e) {
+				reusable = false;
+			}
+
+			synchronized (this) {
+				if (reusable && connectionGeneration == generation) {
+					idle.addLast(new IdleConnection(connection, System.nanoTime()));
+					notifyAll();
+					return;
+				}
+			}
+			discard(connection);
+		}
+
+		StatementCache statementCache(Connection connection) {
+			return statementCaches.computeIfAbsent(connection, StatementCache::new);
+		}
+
+		void discard(Connection connection) {
+			statementCaches.remove(connection);
+			//closing the connection closes its statements as well
+			closeQuietly(connection);
+			synchronized (this) {
+				open--;
+				notifyAll();
+			}
+		}
+
+		void evictIdle(long idleTimeoutNanos) {
+			List<Connection> toClose = new LinkedList<>();
+			synchronized (this) {
+				long now = System.nanoTime();
+				idle.removeIf(c -> {
+					if (now - c.idleSince > idleTimeoutNanos) {
+						toClose.add(c.connection);
+						return true;
+					}
+					return false;
+				});
+			}
+			toClose.forEach(c -> {
+				evicted.incrementAndGet();
+				discard(c);
+			});
+		}
+
+		void closeAll() {
+			List<IdleConnection> toClose;
+			synchronized (this) {
+				toClose = new LinkedList<>(idle);
+				idle.clear();
+				generation++;
+			}
+			toClose.forEach(c -> discard(c.connection));
+			//connections of cancelled cursors are discarded when they are returned, because of the new generation
+			new LinkedList<>(cursors.values()).forEach(Runnable::run);
+		}
+
+		synchronized int getOpenCount() {
+			return open;
+		}
+
+		synchronized int getIdleCount() {
+			return idle.size();
+		}
+	}
+
+	/**
+	 * prepared statements of a single connection, least recently used statements are closed first
+	 */
+	@RequiredArgsConstructor
+	private class StatementCache {
+		private final Connection connection;
+		private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+		synchronized PreparedStatement prepare(String sql) throws SQLException {
+			PreparedStatement statement = statements.get(sql);
+			if (statement != null && !statement.isClosed()) {
+				statementCacheHits.incrementAndGet();
+				return statement;
+			}
+			statementCacheMisses.incrementAndGet();
+			statement = connection.prepareStatement(sql);
+			int maxSize = JdbcOptionsProvider.options().getStatementCacheSize();
+			if (maxSize > 0) {
+				statements.put(sql, statement);
+				evict(maxSize);
+			}
+			return statement;
+		}
+
+		synchronized boolean contains(Statement statement) {
+			return statements.containsValue(statement);
+		}
+
+		private void evict(int maxSize) {
+			Iterator<PreparedStatement> eldest = statements.values().iterator();
+			while (statements.size() > maxSize && eldest.hasNext()) {
+				PreparedStatement statement = eldest.next();
+				eldest.remove();
+				closeQuietly(statement);
+			}
+		}
+	}
+
+	@RequiredArgsConstructor
+	private static class IdleConnection {
+		private final Connection connection;
+		private final long idleSince;
+	}
+
+	/**
+	 * a borrowed connection. Closing it returns the connection to the pool.
+	 */
+	@RequiredArgsConstructor
+	public static class PooledConnection implements AutoCloseable {
+		private final UrlPool pool;
+		private final Connection connection;
+		private final boolean reused;
+		private final int generation;
+		private final AtomicBoolean returned = new AtomicBoolean(false);
+
+		public Connection getConnection() {
+			return connection;
+		}
+
+		public boolean isReused() {
+			return reused;
+		}
+
+		/**
+		 * returns a prepared statement for the given sql. Statements are cached per connection,
+		 * so they must be given back via {@link #release(Statement)} instead of being closed.
+		 */
+		public PreparedStatement prepareStatement(String sql) throws SQLException {
+			return pool.statementCache(connection).prepare(sql);
+		}
+
+		/**
+		 * releases a statement after use. Cached statements are reset and kept open, all others are closed.
+		 */
+		public void release(Statement statement) {
+			try {
+				if (statement instanceof PreparedStatement && pool.statementCache(connection).contains(statement)) {
+					PreparedStatement prepared = (PreparedStatement) statement;
+					prepared.clearParameters();
+					prepared.clearBatch();
+					prepared.clearWarnings();
+				} else {
+					statement.close();
+				}
+			} catch (SQLException e) {
+				log.debug("Failed to release statement", e);
+				closeQuietly(statement);
+			}
+		}
+
+		/**
+		 * marks the connection as held by an open result cursor, which is cancelled by {@link JdbcConnectionPool#closeAll()}.
+		 * The connection stays borrowed until the lease is closed.
+		 */
+		public void holdForCursor(Runnable cancelCursor) {
+			pool.cursors.put(this, cancelCursor);
+		}
+
+		@Override
+		public void close() {
+			if (returned.compareAndSet(false, true)) {
+				pool.cursors.remove(this);
+				pool.giveBack(connection, generation);
+			}
+		}
+	}
+}
@@ -5,19 +5,19 @@ import lombok.SneakyThrows;
 import milkman.domain.RequestContainer;
 import milkman.domain.ResponseContainer;
 import milkman.domain.ResponseContainer.StyledText;
+import milkman.plugin.jdbc.JdbcConnectionPool.PooledConnection;
 import milkman.plugin.jdbc.domain.JdbcRequestContainer;
 import milkman.plugin.jdbc.domain.RowSetResponseAspect;
 import milkman.plugin.jdbc.domain.TableResponseContainer;
 import milkman.ui.main.dialogs.StringInputDialog;
 import milkman.ui.plugin.Templater;
 
-import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
+import static milkman.plugin.jdbc.JdbcConnectionPool.connections;
+
 public class JdbcMetaProcessor extends AbstractJdbcProcessor {
 	@SneakyThrows
 	public ResponseContainer showAllTables(RequestContainer request, Templater templater) {
@@ -27,16 +27,14 @@ public class JdbcMetaProcessor extends AbstractJdbcProcessor {
 		JdbcRequestContainer jdbcRequest = (JdbcRequestContainer) request;
 		String jdbcUrl = getJdbcUrl(jdbcRequest, templater);
 
-		Connection connection = DriverManager.getConnection(jdbcUrl);
-	
-		DatabaseMetaData md = connection.getMetaData();
-		ResultSet rs = md.getTables(null, null, "%", null);
-		
 		TableResponseContainer response = new TableResponseContainer();
 		RowSetResponseAspect rowSetAspect = new RowSetResponseAspect();
-		extractRows(rs, rowSetAspect);
+		try (PooledConnection lease = connections().borrow(jdbcUrl);
+			 ResultSet rs = lease.getConnection().getMetaData().getTables(null, null, "%", null)) {
+			extractRows(rs, rowSetAspect);
+		}
 		response.getAspects().add(rowSetAspect);
-		response.getStatusInformations().complete(Map.of("Selected Rows", new StyledText(""+ rowSetAspect.getRows().size())));
+		response.getStatusInformations().complete(Map.of("Selected Rows", new StyledText(""+ rowSetAspect.getRowCount())));
 
 		
 		return response;
@@ -48,20 +46,18 @@ public class JdbcMetaProcessor extends AbstractJdbcProcessor {
 			throw new IllegalArgumentException("Unsupported request container: " + request.getType());
 		}
 		JdbcRequestContainer jdbcRequest = (JdbcRequestContainer) request;
-		String jdbcUrl = jdbcRequest.getJdbcUrl();
+		String jdbcUrl = getJdbcUrl(jdbcRequest, templater);
 		
 		var tableName = getTableName();
 
-		Connection connection = DriverManager.getConnection(templater.replaceTags(jdbcUrl));
-	
-		DatabaseMetaData md = connection.getMetaData();
-		ResultSet rs = md.getColumns(null, null, tableName, "%");
-		
 		TableResponseContainer response = new TableResponseContainer();
 		RowSetResponseAspect rowSetAspect = new RowSetResponseAspect();
-		extractRows(rs, rowSetAspect);
+		try (PooledConnection lease = connections().borrow(jdbcUrl);
+			 ResultSet rs = lease.getConnection().getMetaData().getColumns(null, null, tableName, "%")) {
+			extractRows(rs, rowSetAspect);
+		}
 		response.getAspects().add(rowSetAspect);
-		response.getStatusInformations().complete(Map.of("Selected Rows", new StyledText(""+ rowSetAspect.getRows().size())));
+		response.getStatusInformations().complete(Map.of("Selected Rows", new StyledText(""+ rowSetAspect.getRowCount())));
 
 		
 		return response;
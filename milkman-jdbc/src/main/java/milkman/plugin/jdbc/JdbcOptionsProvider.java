@@ -11,6 +11,14 @@ public class JdbcOptionsProvider implements OptionPageProvider<JdbcOptionsProvid
 	@Data
 	public static class JdbcOptions implements OptionsObject {
 		private int maxRowFetchLimit = 500;
+		private int fetchSize = 100;
+		//result cursors keep a connection borrowed, so they are closed earlier than idle connections
+		private int cursorIdleTimeoutSeconds = 60;
+		private int poolMaxSize = 4;
+		private int poolIdleTimeoutSeconds = 300;
+		private int poolBorrowTimeoutSeconds = 30;
+		private boolean poolValidateOnBorrow = true;
+		private int statementCacheSize = 20;
 	} 
 
 	private static JdbcOptions currentOptions = new JdbcOptions();
@@ -32,7 +40,17 @@ public class JdbcOptionsProvider implements OptionPageProvider<JdbcOptionsProvid
 	public OptionDialogPane getOptionsDialog(OptionDialogBuilder builder) {
 		return builder.page("Jdbc", getOptions())
 				.section("Jdbc Fetch")
-					.numberInput("Row Fetch limit", JdbcOptions::getMaxRowFetchLimit, JdbcOptions::setMaxRowFetchLimit)
+					.numberInput("Row Fetch limit (rows per page)", JdbcOptions::getMaxRowFetchLimit, JdbcOptions::setMaxRowFetchLimit)
+					.numberInput("Fetch size (rows per roundtrip)", JdbcOptions::getFetchSize, JdbcOptions::setFetchSize)
+					.numberInput("Close unfetched results after (s)", JdbcOptions::getCursorIdleTimeoutSeconds, JdbcOptions::setCursorIdleTimeoutSeconds)
+				.endSection()
+				.section("Connection Pool")
+					.numberInput("Max connections per url", JdbcOptions::getPoolMaxSize, JdbcOptions::setPoolMaxSize)
+					.numberInput("Close idle connections after (s)", JdbcOptions::getPoolIdleTimeoutSeconds, JdbcOptions::setPoolIdleTimeoutSeconds)
+					.numberInput("Wait for free connection (s)", JdbcOptions::getPoolBorrowTimeoutSeconds, JdbcOptions::setPoolBorrowTimeoutSeconds)
+					.toggle("Validate connections before use", JdbcOptions::isPoolValidateOnBorrow, JdbcOptions::setPoolValidateOnBorrow)
+					.numberInput("Cached prepared statements per connection", JdbcOptions::getStatementCacheSize, JdbcOptions::setStatementCacheSize)
+					.button("Close pooled connections", () -> JdbcConnectionPool.connections().closeAll())
 				.endSection()
 				.build();
 	}
@@ -4,23 +4,47 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import milkman.domain.RequestContainer;
 import milkman.domain.ResponseContainer;
-import milkman.domain.ResponseContainer.StyledText;
+import milkman.plugin.jdbc.JdbcConnectionPool.PooledConnection;
 import milkman.plugin.jdbc.domain.JdbcRequestContainer;
 import milkman.plugin.jdbc.domain.JdbcSqlAspect;
 import milkman.plugin.jdbc.domain.RowSetResponseAspect;
 import milkman.plugin.jdbc.domain.TableResponseContainer;
 import milkman.ui.plugin.Templater;
+import milkman.utils.AsyncResponseControl;
+import milkman.utils.AsyncResponseControl.AsyncControl;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Map;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static milkman.plugin.jdbc.JdbcConnectionPool.connections;
 
 @Slf4j
 public class JdbcQueryProcessor extends AbstractJdbcProcessor {
 
-	@SneakyThrows
+	/**
+	 * executes the query and waits until the first page of the result is fetched
+	 */
 	public ResponseContainer executeRequest(RequestContainer request, Templater templater) {
+		var responseControl = new AsyncResponseControl();
+		var response = executeRequest(request, templater, responseControl.getCancellationControl());
+		CompletableFuture.anyOf(responseControl.onRequestSucceeded, responseControl.onRequestFailed).join();
+		return response;
+	}
+
+	/**
+	 * executes the query and returns as soon as the query was executed. The rows of the first page
+	 * are fetched in the background, further pages can be fetched via the pager of the result.
+	 * On cancellation, the statement is cancelled on the server.
+	 */
+	@SneakyThrows
+	public ResponseContainer executeRequest(RequestContainer request, Templater templater, AsyncControl asyncControl) {
 		
 		if (!(request instanceof JdbcRequestContainer)) {
 			throw new IllegalArgumentException("Unsupported request container: " + request.getType());
@@ -28,34 +52,220 @@ public class JdbcQueryProcessor extends AbstractJdbcProcessor {
 		
 		JdbcSqlAspect jdbcSqlAspect = request.getAspect(JdbcSqlAspect.class)
 				.orElseThrow(() -> new IllegalArgumentException("Missing Sql Aspect"));
-		String finalSql = templater.replaceTags(jdbcSqlAspect.getSql());
 		
 		
 		JdbcRequestContainer jdbcRequest = (JdbcRequestContainer)request;
 		String jdbcUrl = getJdbcUrl(jdbcRequest, templater);
 
-		Connection connection = DriverManager.getConnection(jdbcUrl);
-		Statement statement = connection.createStatement();
-		long startTime = System.currentTimeMillis();
-		boolean isResultSet = statement.execute(finalSql);
-		long requestTimeInMs = System.currentTimeMillis() - startTime;
-		
 		TableResponseContainer response = new TableResponseContainer();
 		RowSetResponseAspect rowSetAspect = new RowSetResponseAspect();
-		
-		if (isResultSet) {
-			extractRows(statement.getResultSet(), rowSetAspect);
-			response.getStatusInformations().complete(Map.of("Selected Rows", new StyledText(""+ rowSetAspect.getRows().size())));
-		} else {
-			response.getStatusInformations().complete(Map.of("Affected Rows", new StyledText(""+ statement.getUpdateCount())));
+		response.getAspects().add(rowSetAspect);
+
+		asyncControl.triggerReqeuestStarted();
+		PooledConnection lease = null;
+		AtomicReference<Statement> runningStatement = new AtomicReference<>();
+		asyncControl.onCancellationRequested.add(() -> cancelQuietly(runningStatement.get()));
+		try {
+			lease = connections().borrow(jdbcUrl);
+
+			long startTime = System.currentTimeMillis();
+			boolean isResultSet;
+			if (jdbcSqlAspect.isBindParameters()) {
+				List<String> statements = ParameterizedSql.splitStatements(jdbcSqlAspect.getSql());
+				if (statements.size() > 1) {
+					executeStatements(lease, statements, templater, runningStatement, response, rowSetAspect);
+					response.getStatusInformations().add("Time", (System.currentTimeMillis() - startTime) + "ms");
+					response.getStatusInformations().add("Connection", connections().getStatistics(lease));
+					response.getStatusInformations().complete();
+					lease.close();
+					asyncControl.triggerRequestSucceeded();
+					return response;
+				}
+				var prepared = prepare(lease, ParameterizedSql.parse(statements.isEmpty() ? "" : statements.get(0)), templater);
+				runningStatement.set(prepared);
+				isResultSet = prepared.execute();
+			} else {
+				String finalSql = templater.replaceTags(jdbcSqlAspect.getSql());
+				var statement = lease.getConnection().createStatement();
+				runningStatement.set(statement);
+				statement.setFetchSize(Math.max(0, JdbcOptionsProvider.options().getFetchSize()));
+				isResultSet = statement.execute(finalSql);
+			}
+			long requestTimeInMs = System.currentTimeMillis() - startTime;
+			Statement statement = runningStatement.get();
+
+			response.getStatusInformations().add("Time", requestTimeInMs + "ms");
+			response.getStatusInformations().add("Connection", connections().getStatistics(lease));
+
+			if (!isResultSet) {
+				response.getStatusInformations().add("Affected Rows", "" + statement.getUpdateCount());
+				response.getStatusInformations().complete();
+				lease.release(statement);
+				lease.close();
+				asyncControl.triggerRequestSucceeded();
+				return response;
+			}
+
+			var resultSet = statement.getResultSet();
+			rowSetAspect.setColumnNames(getColumnNames(resultSet.getMetaData()));
+			var cursor = new JdbcResultCursor(lease, statement, resultSet, rowSetAspect.getRowSet());
+			rowSetAspect.setPager(cursor);
+			asyncControl.onCancellationRequested.add(cursor::cancel);
+
+			cursor.fetchNextPage().whenComplete((r, e) -> {
+				response.getStatusInformations().add("Selected Rows", rowSetAspect.getRowCount() + (cursor.hasMoreRows() ? "+" : ""));
+				if (cursor.isCancelled()) {
+					response.getStatusInformations().add("Fetch", "cancelled");
+				}
+				response.getStatusInformations().complete();
+				if (e != null) {
+					asyncControl.triggerRequestFailed(e);
+				} else {
+					asyncControl.triggerRequestSucceeded();
+				}
+			});
+			return response;
+		} catch (Exception e) {
+			if (lease != null) {
+				if (runningStatement.get() != null) {
+					lease.release(runningStatement.get());
+				}
+				lease.close();
+			}
+			response.getStatusInformations().complete();
+			asyncControl.triggerRequestFailed(e);
+			throw e;
 		}
-		response.getStatusInformations().complete(Map.of("Time", new StyledText(requestTimeInMs + "ms")));
+	}
 
-		response.getAspects().add(rowSetAspect);
-		
-		return response;
+	/**
+	 * executes several statements. Consecutive statements that do not return rows and only differ in their parameters
+	 * are added to the same prepared statement and executed as batch, e.g. a list of inserts into the same table.
+	 * All other statements are executed one by one, the rows of the last one that returned a result are shown.
+	 */
+	private void executeStatements(PooledConnection lease, List<String> statements, Templater templater,
+								   AtomicReference<Statement> runningStatement, TableResponseContainer response,
+								   RowSetResponseAspect rowSetAspect) throws SQLException {
+		long affectedRows = 0;
+		int batches = 0;
+		int singleStatements = 0;
+		String batchSql = null;
+		PreparedStatement batch = null;
+		for (String statement : statements) {
+			ParameterizedSql parameterizedSql = ParameterizedSql.parse(statement);
+			String finalSql = templater.replaceTags(parameterizedSql.getSql());
+			if (batch != null && !(parameterizedSql.isUpdate() && finalSql.equals(batchSql))) {
+				affectedRows += executeBatch(lease, batch);
+				batch = null;
+				batchSql = null;
+			}
+			if (!parameterizedSql.isUpdate()) {
+				affectedRows += executeSingle(lease, parameterizedSql, templater, runningStatement, rowSetAspect);
+				singleStatements++;
+				continue;
+			}
+			if (batch == null) {
+				batch = lease.prepareStatement(finalSql);
+				runningStatement.set(batch);
+				batchSql = finalSql;
+				batches++;
+			}
+			bindParameters(batch, parameterizedSql, templater);
+			batch.addBatch();
+		}
+		if (batch != null) {
+			affectedRows += executeBatch(lease, batch);
+		}
+
+		response.getStatusInformations().add("Affected Rows", "" + affectedRows);
+		response.getStatusInformations().add("Statements", statements.size() + " in " + batches + " batch" + (batches != 1 ? "es" : "")
+				+ (singleStatements > 0 ? " and " + singleStatements + " single execution" + (singleStatements != 1 ? "s" : "") : ""));
 	}
 
+	private long executeSingle(PooledConnection lease, ParameterizedSql parameterizedSql, Templater templater,
+							   AtomicReference<Statement> runningStatement, RowSetResponseAspect rowSetAspect) throws SQLException {
+		PreparedStatement statement = prepare(lease, parameterizedSql, templater);
+		runningStatement.set(statement);
+		try {
+			if (!statement.execute()) {
+				return Math.max(0, statement.getUpdateCount());
+			}
+			try (ResultSet resultSet = statement.getResultSet()) {
+				extractRows(resultSet, rowSetAspect);
+			}
+			return 0;
+		} finally {
+			lease.release(statement);
+		}
+	}
+
+	private long executeBatch(PooledConnection lease, PreparedStatement batch) throws SQLException {
+		long affectedRows = 0;
+		for (int count : batch.executeBatch()) {
+			//drivers might report SUCCESS_NO_INFO instead of a count
+			affectedRows += Math.max(0, count);
+		}
+		lease.release(batch);
+		return affectedRows;
+	}
+
+	private PreparedStatement prepare(PooledConnection lease, ParameterizedSql parameterizedSql, Templater templater) throws SQLException {
+		PreparedStatement statement = lease.prepareStatement(templater.replaceTags(parameterizedSql.getSql()));
+		statement.setFetchSize(Math.max(0, JdbcOptionsProvider.options().getFetchSize()));
+		bindParameters(statement, parameterizedSql, templater);
+		return statement;
+	}
+
+	/**
+	 * binds the templated values of all tags. Values are converted to the parameter type by the driver,
+	 * if the driver reports the type of a parameter.
+	 */
+	private void bindParameters(PreparedStatement statement, ParameterizedSql parameterizedSql, Templater templater) throws SQLException {
+		List<String> tags = parameterizedSql.getParameterTags();
+		if (tags.isEmpty()) {
+			return;
+		}
+		ParameterMetaData metaData = getParameterMetaData(statement);
+		for (int i = 1; i <= tags.size(); ++i) {
+			String value = templater.replaceTags(tags.get(i - 1));
+			int type = getParameterType(metaData, i);
+			if (type == Types.VARCHAR || type == Types.OTHER) {
+				statement.setString(i, value);
+			} else {
+				statement.setObject(i, value, type);
+			}
+		}
+	}
 
+	private ParameterMetaData getParameterMetaData(PreparedStatement statement) {
+		try {
+			return statement.getParameterMetaData();
+		} catch (SQLException e) {
+			log.debug("Parameter metadata not supported by driver", e);
+			return null;
+		}
+	}
+
+	private int getParameterType(ParameterMetaData metaData, int idx) {
+		if (metaData == null) {
+			return Types.VARCHAR;
+		}
+		try {
+			return metaData.getParameterType(idx);
+		} catch (SQLException e) {
+			return Types.VARCHAR;
+		}
+	}
+
+	private void cancelQuietly(Statement statement) {
+		if (statement == null) {
+			return;
+		}
+		try {
+			statement.cancel();
+		} catch (SQLException e) {
+			log.debug("Failed to cancel statement", e);
+		}
+	}
 
 }
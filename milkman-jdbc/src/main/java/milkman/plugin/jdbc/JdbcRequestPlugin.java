@@ -10,6 +10,7 @@ import milkman.plugin.jdbc.editor.JdbcRequestEditor;
 import milkman.plugin.jdbc.editor.JdbcResultSetAspectEditor;
 import milkman.plugin.jdbc.editor.SqlAspectEditor;
 import milkman.ui.plugin.*;
+import milkman.utils.AsyncResponseControl.AsyncControl;
 
 import java.util.Collections;
 import java.util.List;
@@ -35,6 +36,11 @@ public class JdbcRequestPlugin implements RequestTypePlugin, RequestAspectsPlugi
 		return processor.executeRequest(request, templater);
 	}
 
+	@Override
+	public ResponseContainer executeRequestAsync(RequestContainer request, Templater templater, AsyncControl asyncControl) {
+		return processor.executeRequest(request, templater, asyncControl);
+	}
+
 	@Override
 	public List<RequestAspectEditor> getRequestTabs() {
 		return Collections.singletonList(new SqlAspectEditor());
@@ -0,0 +1,179 @@
+package milkman.plugin.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import milkman.domain.rowset.RowSet;
+import milkman.domain.rowset.RowSetPager;
+import milkman.plugin.jdbc.JdbcConnectionPool.PooledConnection;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static milkman.plugin.jdbc.JdbcOptionsProvider.options;
+
+/**
+ * an open result set that is fetched page-wise in the background. Rows are appended to the row set
+ * once per fetch size, so the first rows can be shown while the rest of the page is still fetched.
+ *
+ * The cursor keeps its connection borrowed until the result is exhausted, the cursor is closed or cancelled, or it was
+ * idle for longer than the cursor idle timeout. The idle timeout is short, because the connection counts against the limit of the pool.
+ */
+@Slf4j
+public class JdbcResultCursor implements RowSetPager {
+
+	private static final ExecutorService fetchExecutor = Executors.newCachedThreadPool(daemonThreads("jdbc-fetch"));
+	private static final ScheduledExecutorService idleCloser = Executors.newSingleThreadScheduledExecutor(daemonThreads("jdbc-cursor-closer"));
+
+	private final PooledConnection lease;
+	private final Statement statement;
+	private final ResultSet resultSet;
+	private final RowSet rowSet;
+	private final int columnCount;
+
+	private CompletableFuture<Void> currentFetch;
+	private ScheduledFuture<?> idleClose;
+	private boolean fetching = false;
+	private boolean exhausted = false;
+	private boolean closed = false;
+	private volatile boolean cancelled = false;
+
+	public JdbcResultCursor(PooledConnection lease, Statement statement, ResultSet resultSet, RowSet rowSet) throws SQLException {
+		this.lease = lease;
+		this.statement = statement;
+		this.resultSet = resultSet;
+		this.rowSet = rowSet;
+		this.columnCount = resultSet.getMetaData().getColumnCount();
+		lease.holdForCursor(this::cancel);
+	}
+
+	@Override
+	public synchronized boolean hasMoreRows() {
+		return !exhausted && !closed;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * fetches the next page of rows in the background. If a page is being fetched already, that fetch is returned.
+	 */
+	@Override
+	public synchronized CompletableFuture<Void> fetchNextPage() {
+		if (fetching) {
+			return currentFetch;
+		}
+		if (!hasMoreRows()) {
+			return CompletableFuture.failedFuture(new IllegalStateException("No more rows available, the result cursor was closed"));
+		}
+		if (idleClose != null) {
+			idleClose.cancel(false);
+		}
+		fetching = true;
+		currentFetch = CompletableFuture.runAsync(this::fetchPage, fetchExecutor)
+				.whenComplete((r, e) -> afterFetch(e));
+		return currentFetch;
+	}
+
+	/**
+	 * cancels the statement on the server and releases the cursor. Rows fetched so far are kept.
+	 */
+	public void cancel() {
+		cancelled = true;
+		try {
+			statement.cancel();
+		} catch (SQLException e) {
+			log.debug("Failed to cancel statement", e);
+		}
+		synchronized (this) {
+			//a running fetch fails or stops and closes the cursor afterwards
+			if (!fetching) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * releases the cursor. A running fetch is stopped, the cursor is closed once it stopped.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		if (fetching) {
+			cancelled = true;
+			return;
+		}
+		closed = true;
+		if (idleClose != null) {
+			idleClose.cancel(false);
+		}
+		try {
+			resultSet.close();
+		} catch (SQLException e) {
+			log.debug("Failed to close result set", e);
+		}
+		lease.release(statement);
+		lease.close();
+	}
+
+	private void fetchPage() {
+		int pageSize = Math.max(1, options().getMaxRowFetchLimit());
+		int batchSize = Math.max(1, options().getFetchSize());
+		List<Object[]> batch = new ArrayList<>(batchSize);
+		try {
+			for (int fetched = 0; fetched < pageSize && !cancelled; fetched++) {
+				if (!resultSet.next()) {
+					markExhausted();
+					break;
+				}
+				Object[] row = new Object[columnCount];
+				for (int i = 1; i <= columnCount; ++i) {// column idx starts at 1
+					row[i - 1] = AbstractJdbcProcessor.toStorableValue(resultSet.getObject(i));
+				}
+				batch.add(row);
+				if (batch.size() >= batchSize) {
+					rowSet.addRows(batch);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+		} catch (SQLException e) {
+			throw new RuntimeException(cancelled ? "Query was cancelled" : "Failed to fetch rows: " + e.getMessage(), e);
+		} finally {
+			if (!batch.isEmpty()) {
+				rowSet.addRows(batch);
+			}
+		}
+	}
+
+	private synchronized void markExhausted() {
+		exhausted = true;
+	}
+
+	private synchronized void afterFetch(Throwable error) {
+		fetching = false;
+		if (error != null || exhausted || cancelled) {
+			close();
+		} else {
+			idleClose = idleCloser.schedule(this::close, Math.max(1, options().getCursorIdleTimeoutSeconds()), TimeUnit.SECONDS);
+		}
+	}
+
+	private static ThreadFactory daemonThreads(String name) {
+		return r -> {
+			Thread thread = new Thread(r, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,242 @@
+package milkman.plugin.jdbc;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * sql in which {{tags}} are replaced by jdbc bind parameters (?). The tags are kept in order of appearance,
+ * so their values can be bound to the parameters after templating them.
+ *
+ * Tags within quoted literals, quoted identifiers, dollar-quoted strings or comments are not turned into parameters,
+ * as a ? would not be a parameter there. Such tags stay in the sql and are replaced textually.
+ */
+@Value
+public class ParameterizedSql {
+
+	private static final Set<String> UPDATE_KEYWORDS = Set.of("INSERT", "UPDATE", "DELETE", "MERGE", "UPSERT", "REPLACE");
+
+	String sql;
+	List<String> parameterTags;
+	/**
+	 * true for statements that modify data without returning rows, which can be executed as batch
+	 */
+	boolean update;
+
+	public static ParameterizedSql parse(String sql) {
+		StringBuilder result = new StringBuilder(sql.length());
+		List<String> tags = new ArrayList<>();
+		String firstKeyword = null;
+		boolean returning = false;
+		Scanner scanner = new Scanner(sql);
+		while (scanner.hasNext()) {
+			if (scanner.atTag()) {
+				tags.add(scanner.readTag());
+				result.append('?');
+				continue;
+			}
+			String word = scanner.atWord();
+			if (word != null) {
+				firstKeyword = firstKeyword == null ? word.toUpperCase() : firstKeyword;
+				returning |= word.equalsIgnoreCase("RETURNING");
+			}
+			result.append(scanner.read());
+		}
+		boolean update = firstKeyword != null && UPDATE_KEYWORDS.contains(firstKeyword) && !returning;
+		return new ParameterizedSql(result.toString(), tags, update);
+	}
+
+	/**
+	 * splits a script into statements at semicolons that are not part of a literal or comment.
+	 * Statements that consist of comments only are dropped.
+	 */
+	public static List<String> splitStatements(String sql) {
+		List<String> statements = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean containsCode = false;
+		Scanner scanner = new Scanner(sql);
+		while (scanner.hasNext()) {
+			if (scanner.atStatementEnd()) {
+				scanner.read();
+				if (containsCode) {
+					statements.add(current.toString().trim());
+				}
+				current.setLength(0);
+				containsCode = false;
+			} else {
+				containsCode |= scanner.atCode();
+				current.append(scanner.read());
+			}
+		}
+		if (containsCode) {
+			statements.add(current.toString().trim());
+		}
+		return statements;
+	}
+
+	/**
+	 * walks through sql while keeping track of literals, quoted identifiers, dollar-quoted strings and comments
+	 */
+	private static class Scanner {
+		private enum State { CODE, LITERAL, IDENTIFIER, BACKTICK_IDENTIFIER, DOLLAR_QUOTED, LINE_COMMENT, BLOCK_COMMENT }
+
+		private final String sql;
+		private int pos = 0;
+		private State state = State.CODE;
+		//the delimiter of the current dollar-quoted string, e.g. $$ or $body$
+		private String dollarTag;
+
+		Scanner(String sql) {
+			this.sql = sql;
+		}
+
+		boolean hasNext() {
+			return pos < sql.length();
+		}
+
+		boolean atTag() {
+			return state == State.CODE && sql.startsWith("{{", pos) && sql.indexOf("}}", pos + 2) >= 0;
+		}
+
+		boolean atCode() {
+			return state == State.CODE && !Character.isWhitespace(sql.charAt(pos))
+					&& !sql.startsWith("--", pos) && !sql.startsWith("/*", pos);
+		}
+
+		boolean atStatementEnd() {
+			return state == State.CODE && sql.charAt(pos) == ';';
+		}
+
+		/**
+		 * returns the word (e.g. a keyword) starting at the current position, if there is one
+		 */
+		String atWord() {
+			if (state != State.CODE || !Character.isLetter(sql.charAt(pos)) || (pos > 0 && isWordPart(sql.charAt(pos - 1)))) {
+				return null;
+			}
+			int end = pos;
+			while (end < sql.length() && isWordPart(sql.charAt(end))) {
+				end++;
+			}
+			return sql.substring(pos, end);
+		}
+
+		/**
+		 * reads a (possibly nested) tag, e.g. {{ {{a}}{{b}} }}
+		 */
+		String readTag() {
+			int start = pos;
+			int depth = 0;
+			while (pos < sql.length()) {
+				if (sql.startsWith("{{", pos)) {
+					depth++;
+					pos += 2;
+				} else if (sql.startsWith("}}", pos)) {
+					depth--;
+					pos += 2;
+					if (depth == 0) {
+						break;
+					}
+				} else {
+					pos++;
+				}
+			}
+			return sql.substring(start, pos);
+		}
+
+		/**
+		 * reads the next token, i.e. a single character or a two-character comment delimiter
+		 */
+		String read() {
+			char c = sql.charAt(pos);
+			switch (state) {
+				case CODE:
+					if (sql.startsWith("--", pos)) {
+						state = State.LINE_COMMENT;
+						return advance(2);
+					} else if (sql.startsWith("/*", pos)) {
+						state = State.BLOCK_COMMENT;
+						return advance(2);
+					} else if (c == '\'') {
+						state = State.LITERAL;
+					} else if (c == '"') {
+						state = State.IDENTIFIER;
+					} else if (c == '`') {
+						state = State.BACKTICK_IDENTIFIER;
+					} else if (c == '$') {
+						String tag = dollarTagAt(pos);
+						if (tag != null) {
+							state = State.DOLLAR_QUOTED;
+							dollarTag = tag;
+							return advance(tag.length());
+						}
+					}
+					break;
+				case LITERAL:
+					//an escaped quote ('') leaves and re-enters the literal
+					if (c == '\'') {
+						state = State.CODE;
+					}
+					break;
+				case IDENTIFIER:
+					if (c == '"') {
+						state = State.CODE;
+					}
+					break;
+				case BACKTICK_IDENTIFIER:
+					if (c == '`') {
+						state = State.CODE;
+					}
+					break;
+				case DOLLAR_QUOTED:
+					if (sql.startsWith(dollarTag, pos)) {
+						state = State.CODE;
+						return advance(dollarTag.length());
+					}
+					break;
+				case LINE_COMMENT:
+					if (c == '\n') {
+						state = State.CODE;
+					}
+					break;
+				case BLOCK_COMMENT:
+					if (sql.startsWith("*/", pos)) {
+						state = State.CODE;
+						return advance(2);
+					}
+					break;
+			}
+			return advance(1);
+		}
+
+		/**
+		 * returns the opening delimiter of a dollar-quoted string ($$ or $tag$), if one starts at the given position.
+		 * Positional parameters ($1) and dollar signs within identifiers are no delimiters.
+		 */
+		private String dollarTagAt(int start) {
+			if (start > 0 && isWordPart(sql.charAt(start - 1))) {
+				return null;
+			}
+			int end = start + 1;
+			while (end < sql.length() && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+				end++;
+			}
+			if (end >= sql.length() || sql.charAt(end) != '$' || (end > start + 1 && Character.isDigit(sql.charAt(start + 1)))) {
+				return null;
+			}
+			return sql.substring(start, end + 1);
+		}
+
+		private static boolean isWordPart(char c) {
+			return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+		}
+
+		private String advance(int length) {
+			String token = sql.substring(pos, pos + length);
+			pos += length;
+			return token;
+		}
+	}
+}
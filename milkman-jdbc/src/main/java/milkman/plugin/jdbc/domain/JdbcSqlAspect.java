@@ -7,6 +7,12 @@ import milkman.domain.RequestAspect;
 public class JdbcSqlAspect extends RequestAspect {
 
 	String sql = "";
+
+	/**
+	 * if enabled, {{tags}} are bound as jdbc parameters of a prepared statement instead of being inlined
+	 * and several statements are executed as batch
+	 */
+	boolean bindParameters = false;
 	
 	public JdbcSqlAspect() {
 		super("sql");
@@ -1,6 +1,9 @@
 package milkman.plugin.jdbc.editor;
 
 import com.jfoenix.controls.JFXButton;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
 import javafx.scene.control.Tab;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
@@ -9,12 +12,15 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import milkman.domain.RequestContainer;
 import milkman.domain.ResponseContainer;
+import milkman.domain.rowset.RowSet;
 import milkman.plugin.jdbc.domain.RowSetResponseAspect;
 import milkman.ui.components.JfxTableEditor;
 import milkman.ui.plugin.ResponseAspectEditor;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 public class JdbcResultSetAspectEditor implements ResponseAspectEditor {
@@ -25,6 +31,15 @@ public class JdbcResultSetAspectEditor implements ResponseAspectEditor {
 
 	private RowSetResponseAspect transposedContent;
 
+	//rows of the (not transposed) result that are shown in the table
+	private int shownRows;
+
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+	private Label rowCountLabel;
+
+	private JFXButton fetchNextBtn;
+
 	@Override
 	public Tab getRoot(RequestContainer request, ResponseContainer response) {
 		editor = new JfxTableEditor<>("jdbc.result.list");
@@ -38,6 +53,10 @@ public class JdbcResultSetAspectEditor implements ResponseAspectEditor {
 		HBox tableToolbar = setupToolbar(rowSetAspect);
 		VBox vBox = new VBox(tableToolbar, editor);
 
+		//rows are still fetched in the background
+		rowSetAspect.getRowSet().onRowsAdded(count -> scheduleRefresh(rowSetAspect));
+		updatePagingState(rowSetAspect);
+
 		return new Tab("Result", vBox);
 	}
 
@@ -46,7 +65,52 @@ public class JdbcResultSetAspectEditor implements ResponseAspectEditor {
 		for(int i = 0; i < rowSetAspect.getColumnNames().size(); ++i) {
 			editor.addReadOnlyColumn(rowSetAspect.getColumnNames().get(i), getRowValue(i));	
 		}
-		editor.setItems(rowSetAspect.getRows());
+		List<List<String>> rows = rowSetAspect.getRows();
+		int rowCount = rows.size();
+		editor.setItems(new ArrayList<>(rows.subList(0, rowCount)));
+		if (rowSetAspect != transposedContent) {
+			shownRows = rowCount;
+		}
+	}
+
+	private void scheduleRefresh(RowSetResponseAspect rowSetAspect) {
+		if (refreshScheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				refreshScheduled.set(false);
+				showNewRows(rowSetAspect);
+			});
+		}
+	}
+
+	private void showNewRows(RowSetResponseAspect rowSetAspect) {
+		List<List<String>> rows = rowSetAspect.getRows();
+		int rowCount = rows.size();
+		//a transposed table is updated when it is transposed again
+		if (!contentIsTransposed && rowCount > shownRows) {
+			transposedContent = null;
+			editor.appendItems(new ArrayList<>(rows.subList(shownRows, rowCount)));
+			shownRows = rowCount;
+		}
+		updatePagingState(rowSetAspect);
+	}
+
+	private void updatePagingState(RowSetResponseAspect rowSetAspect) {
+		boolean hasMoreRows = rowSetAspect.hasMoreRows();
+		rowCountLabel.setText(rowSetAspect.getRowCount() + (hasMoreRows ? "+" : "") + " rows");
+		fetchNextBtn.setVisible(hasMoreRows);
+		fetchNextBtn.setManaged(hasMoreRows);
+	}
+
+	private void fetchNextPage(RowSetResponseAspect rowSetAspect) {
+		fetchNextBtn.setDisable(true);
+		rowSetAspect.getPager().fetchNextPage().whenComplete((r, e) -> Platform.runLater(() -> {
+			fetchNextBtn.setDisable(false);
+			if (e != null) {
+				rowCountLabel.setText("Fetching rows failed: " + ExceptionUtils.getRootCauseMessage(e));
+			} else {
+				showNewRows(rowSetAspect);
+			}
+		}));
 	}
 
 
@@ -58,7 +122,13 @@ public class JdbcResultSetAspectEditor implements ResponseAspectEditor {
 		transposeBtn.setOnAction(e -> transpose(rowSetAspect));
 		
 		
-		HBox tableToolbar = new HBox(copyResultBtn, transposeBtn);
+		fetchNextBtn = new JFXButton("Fetch next page");
+		fetchNextBtn.setOnAction(e -> fetchNextPage(rowSetAspect));
+
+		rowCountLabel = new Label();
+
+		HBox tableToolbar = new HBox(copyResultBtn, transposeBtn, fetchNextBtn, rowCountLabel);
+		tableToolbar.setAlignment(Pos.CENTER_LEFT);
 		tableToolbar.getStyleClass().add("response-header");
 		
 		return tableToolbar;
@@ -80,25 +150,24 @@ public class JdbcResultSetAspectEditor implements ResponseAspectEditor {
 
 
 	private RowSetResponseAspect createTransposedContent(RowSetResponseAspect rowSetAspect) {
-		List<String> columnNames = new LinkedList<>();
-		List<List<String>> rows = new LinkedList<>();
+		RowSet source = rowSetAspect.getRowSet();
+		List<String> columnNames = new ArrayList<>(source.getRowCount() + 1);
 		
 		columnNames.add("Key");
-		for(int idx = 1; idx <= rowSetAspect.getRows().size(); ++idx) {
+		for(int idx = 1; idx <= source.getRowCount(); ++idx) {
 			columnNames.add("item " + idx);
 		}
 		
-		for(int curRow = 0; curRow < rowSetAspect.getColumnNames().size(); ++curRow) {
-			LinkedList<String> curRowL = new LinkedList<>();
-			rows.add(curRowL);
-			curRowL.add(rowSetAspect.getColumnNames().get(curRow));
-			for(int curCol = 0; curCol < rowSetAspect.getRows().size(); ++curCol) {
-				curRowL.add(rowSetAspect.getRows().get(curCol).get(curRow));
-			}
-		}
 		RowSetResponseAspect result = new RowSetResponseAspect();
 		result.setColumnNames(columnNames);
-		result.setRows(rows);
+		for(int curRow = 0; curRow < source.getColumnCount(); ++curRow) {
+			Object[] curRowValues = new Object[columnNames.size()];
+			curRowValues[0] = source.getColumnNames().get(curRow);
+			for(int curCol = 0; curCol < source.getRowCount(); ++curCol) {
+				curRowValues[curCol + 1] = source.getValue(curCol, curRow);
+			}
+			result.addRow(curRowValues);
+		}
 		return result;
 	}
 
@@ -1,6 +1,9 @@
 package milkman.plugin.jdbc.editor;
 
+import com.jfoenix.controls.JFXCheckBox;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Tab;
+import javafx.scene.control.Tooltip;
 import lombok.SneakyThrows;
 import lombok.val;
 import milkman.domain.RequestContainer;
@@ -8,6 +11,7 @@ import milkman.plugin.jdbc.SqlContentType;
 import milkman.plugin.jdbc.domain.JdbcSqlAspect;
 import milkman.ui.components.ContentEditor;
 import milkman.ui.plugin.RequestAspectEditor;
+import milkman.utils.fxml.GenericBinding;
 
 import java.util.Collections;
 
@@ -27,6 +31,18 @@ public class SqlAspectEditor implements RequestAspectEditor {
 		root.setContent(sqlAspect::getSql, run(sqlAspect::setSql).andThen(() -> sqlAspect.setDirty(true)));
 		root.setContentTypePlugins(Collections.singletonList(new SqlContentType()));
 		root.setContentType("application/sql");
+
+		CheckBox bindParameters = new JFXCheckBox("Bind parameters");
+		bindParameters.setTooltip(new Tooltip("Bind {{variables}} as parameters of prepared statements, several statements are executed as batch"));
+		GenericBinding<JdbcSqlAspect, Boolean> bindParametersBinding = GenericBinding.of(
+				JdbcSqlAspect::isBindParameters,
+				run(JdbcSqlAspect::setBindParameters)
+					.andThen(() -> sqlAspect.setDirty(true)), //mark aspect as dirty propagates to the request itself and shows up in UI
+				sqlAspect);
+		bindParameters.selectedProperty().bindBidirectional(bindParametersBinding);
+		bindParameters.setUserData(bindParametersBinding); //need to add a strong reference to keep the binding from being GC-collected.
+		root.addExtraHeaderElement(bindParameters, true);
+
 		return new Tab("Body", root);
 	}
 
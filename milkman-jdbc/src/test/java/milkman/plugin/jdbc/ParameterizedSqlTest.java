@@ -0,0 +1,75 @@
+package milkman.plugin.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParameterizedSqlTest {
+
+    @Test
+    void shouldReplaceTagsByParameters() {
+        var sql = ParameterizedSql.parse("select * from users where id = {{id}} and name = {{name}}");
+
+        assertThat(sql.getSql()).isEqualTo("select * from users where id = ? and name = ?");
+        assertThat(sql.getParameterTags()).containsExactly("{{id}}", "{{name}}");
+    }
+
+    @Test
+    void shouldKeepTagsInLiteralsAndIdentifiers() {
+        var sql = ParameterizedSql.parse("select '{{a}}', 'it''s {{b}}', \"{{c}}\", `{{d}}` from t where x = {{e}}");
+
+        assertThat(sql.getSql()).isEqualTo("select '{{a}}', 'it''s {{b}}', \"{{c}}\", `{{d}}` from t where x = ?");
+        assertThat(sql.getParameterTags()).containsExactly("{{e}}");
+    }
+
+    @Test
+    void shouldKeepTagsInComments() {
+        var sql = ParameterizedSql.parse("select 1 -- {{a}}\n/* {{b}} */ from t where x = {{c}}");
+
+        assertThat(sql.getSql()).isEqualTo("select 1 -- {{a}}\n/* {{b}} */ from t where x = ?");
+        assertThat(sql.getParameterTags()).containsExactly("{{c}}");
+    }
+
+    @Test
+    void shouldKeepTagsInDollarQuotedStrings() {
+        var sql = ParameterizedSql.parse("select $$ {{a}} ' $$, $body$ {{b}} $$ $body$, $1, {{c}}");
+
+        assertThat(sql.getSql()).isEqualTo("select $$ {{a}} ' $$, $body$ {{b}} $$ $body$, $1, ?");
+        assertThat(sql.getParameterTags()).containsExactly("{{c}}");
+    }
+
+    @Test
+    void shouldReadNestedTagsAsOneParameter() {
+        var sql = ParameterizedSql.parse("select {{ {{prefix}}{{name}} }}, {{other}}");
+
+        assertThat(sql.getSql()).isEqualTo("select ?, ?");
+        assertThat(sql.getParameterTags()).containsExactly("{{ {{prefix}}{{name}} }}", "{{other}}");
+    }
+
+    @Test
+    void shouldSplitStatementsOutsideOfLiteralsAndComments() {
+        var statements = ParameterizedSql.splitStatements(
+                "insert into t values (';');\n"
+                + "-- only a comment;\n"
+                + "select `a;b` from t /* ; */;\n"
+                + "create function f() returns int as $$ select 1; $$ language sql;;\n"
+                + "update t set a = {{a}}");
+
+        assertThat(statements).containsExactly(
+                "insert into t values (';')",
+                "-- only a comment;\nselect `a;b` from t /* ; */",
+                "create function f() returns int as $$ select 1; $$ language sql",
+                "update t set a = {{a}}");
+    }
+
+    @Test
+    void shouldDetectStatementsThatCanBeBatched() {
+        assertThat(ParameterizedSql.parse("insert into t values ({{a}})").isUpdate()).isTrue();
+        assertThat(ParameterizedSql.parse("-- comment\n  Update t set a = 1").isUpdate()).isTrue();
+        assertThat(ParameterizedSql.parse("delete from t").isUpdate()).isTrue();
+        assertThat(ParameterizedSql.parse("select * from t").isUpdate()).isFalse();
+        assertThat(ParameterizedSql.parse("insert into t values (1) returning id").isUpdate()).isFalse();
+        assertThat(ParameterizedSql.parse("with x as (select 1) insert into t select * from x").isUpdate()).isFalse();
+        assertThat(ParameterizedSql.parse("'insert'").isUpdate()).isFalse();
+    }
+}
@@ -0,0 +1,27 @@
+package milkman.plugin.jdbc.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import milkman.domain.ResponseAspect;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowSetResponseAspectTest {
+
+    @Test
+    void shouldRestoreSerializedRows() throws Exception {
+        var aspect = new RowSetResponseAspect();
+        aspect.setColumnNames(List.of("id", "name"));
+        aspect.addRow(1, "first");
+        aspect.addRow(2, null);
+
+        var mapper = new ObjectMapper();
+        var json = mapper.writeValueAsString(aspect);
+        var restored = (RowSetResponseAspect) mapper.readValue(json, ResponseAspect.class);
+
+        assertThat(restored.getColumnNames()).containsExactly("id", "name");
+        assertThat(restored.getRows()).containsExactly(List.of("1", "first"), List.of("2", "NULL"));
+    }
+}
@@ -2,8 +2,8 @@ package milkman.plugin.nosql;
 
 import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import lombok.SneakyThrows;
+import milkman.domain.rowset.RowSet;
 import org.eclipse.jnosql.communication.Entry;
 import org.eclipse.jnosql.communication.Settings;
 import org.eclipse.jnosql.communication.column.Column;
@@ -12,6 +12,8 @@ import org.eclipse.jnosql.communication.document.Document;
 import org.eclipse.jnosql.communication.document.DocumentConfiguration;
 import org.eclipse.jnosql.communication.keyvalue.KeyValueConfiguration;
 
+import static milkman.plugin.nosql.ManagerFactoryCache.factories;
+
 @FunctionalInterface
 public interface JNoSqlQueryExecutor {
 
@@ -32,22 +34,25 @@ public interface JNoSqlQueryExecutor {
     throw new IllegalArgumentException("only document, keyvalue or column providers are supported for now. no valid jnosql provider found");
   }
 
-  Stream<Map<String, Object>> query(String database, String query);
+  /**
+   * executes the query and returns a cursor that appends the results to the given row set.
+   * The (cached) manager factory stays leased until the cursor is closed.
+   */
+  NosqlResultCursor query(String database, String query, RowSet rowSet);
 
   private static JNoSqlQueryExecutor createDocumentProvider(Map<String, Object> properties) throws ClassNotFoundException {
     String providerClass = properties.get("jnosql.document.provider").toString();
 
     DocumentConfiguration configuration = DocumentConfiguration.getConfiguration((Class<DocumentConfiguration>) Class.forName(providerClass));
 
-    return (database, query) -> {
-      try (var factory = configuration.apply(Settings.of(properties))) {
-        var manager = factory.apply(database);
-        return manager.query(query).map(document -> document.documents().stream().collect(Collectors.toMap(
+    return (database, query, rowSet) -> NosqlResultCursor.open(factories().lease(properties,
+        () -> configuration.apply(Settings.of(properties)),
+        (factory, db) -> factory.apply(db),
+        database),
+        manager -> manager.query(query).map(document -> document.documents().stream().collect(Collectors.toMap(
             Entry::name,
             Document::get
-        )));
-      }
-    };
+        ))), rowSet);
   }
 
   private static JNoSqlQueryExecutor createColumnProvider(Map<String, Object> properties) throws ClassNotFoundException {
@@ -55,15 +60,14 @@ public interface JNoSqlQueryExecutor {
 
     ColumnConfiguration configuration = ColumnConfiguration.getConfiguration((Class<ColumnConfiguration>) Class.forName(providerClass));
 
-    return (database, query) -> {
-      try (var factory = configuration.apply(Settings.of(properties))) {
-        var manager = factory.apply(database);
-        return manager.query(query).map(column -> column.columns().stream().collect(Collectors.toMap(
+    return (database, query, rowSet) -> NosqlResultCursor.open(factories().lease(properties,
+        () -> configuration.apply(Settings.of(properties)),
+        (factory, db) -> factory.apply(db),
+        database),
+        manager -> manager.query(query).map(column -> column.columns().stream().collect(Collectors.toMap(
             Entry::name,
             Column::get
-        )));
-      }
-    };
+        ))), rowSet);
   }
 
   private static JNoSqlQueryExecutor createKeyValueProvider(Map<String, Object> properties) throws ClassNotFoundException {
@@ -71,11 +75,10 @@ public interface JNoSqlQueryExecutor {
 
     KeyValueConfiguration configuration = KeyValueConfiguration.getConfiguration((Class<KeyValueConfiguration>) Class.forName(providerClass));
 
-    return (database, query) -> {
-      try (var factory = configuration.apply(Settings.of(properties))) {
-        var manager = factory.apply(database);
-        return manager.query(query).map(value -> Map.of("result", value.get()));
-      }
-    };
+    return (database, query, rowSet) -> NosqlResultCursor.open(factories().lease(properties,
+        () -> configuration.apply(Settings.of(properties)),
+        (factory, bucket) -> factory.apply(bucket),
+        database),
+        manager -> manager.query(query).map(value -> Map.of("result", value.get())), rowSet);
   }
 }
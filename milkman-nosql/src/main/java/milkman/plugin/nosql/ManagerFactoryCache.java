@@ -0,0 +1,203 @@
+package milkman.plugin.nosql;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import static milkman.plugin.nosql.NosqlOptionsProvider.options;
+
+/**
+ * keeps jnosql manager factories (and the managers created by them) open between requests,
+ * so the client of a provider is not bootstrapped again for every query.
+ *
+ * Factories are cached per settings, which include the provider class. Factories that were not used
+ * for a configurable time are closed, unless they are in use. Factories that are closed while in use
+ * (e.g. by an open cursor) are closed as soon as the last lease is released.
+ */
+@Slf4j
+public class ManagerFactoryCache {
+
+  private static final long EVICTION_INTERVAL_SECONDS = 30;
+
+  private static final ManagerFactoryCache cache = new ManagerFactoryCache();
+
+  public static ManagerFactoryCache factories() {
+    return cache;
+  }
+
+  private final Map<Map<String, Object>, CachedFactory> factories = new ConcurrentHashMap<>();
+
+  private ManagerFactoryCache() {
+    ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "jnosql-factory-evictor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    evictor.scheduleWithFixedDelay(this::evictIdleFactories, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    Runtime.getRuntime().addShutdownHook(new Thread(this::closeAll));
+  }
+
+  /**
+   * leases the manager for the given database. The factory is created if none is cached
+   * for the given settings and is not closed before the lease is released.
+   */
+  @SuppressWarnings("unchecked")
+  public <F extends AutoCloseable, M extends AutoCloseable> Lease<M> lease(Map<String, Object> settings,
+      Supplier<F> factoryCreator, BiFunction<F, String, M> managerCreator, String database) {
+    Map<String, Object> cacheKey = Map.copyOf(settings);
+    CachedFactory cached = leaseFactory(cacheKey, factoryCreator);
+    try {
+      M manager = (M) cached.managers.computeIfAbsent(database, db -> managerCreator.apply((F) cached.factory, db));
+      return new Lease<>(manager, cached::release);
+    } catch (RuntimeException e) {
+      cached.release();
+      throw e;
+    }
+  }
+
+  private CachedFactory leaseFactory(Map<String, Object> cacheKey, Supplier<? extends AutoCloseable> factoryCreator) {
+    while (true) {
+      CachedFactory cached = factories.get(cacheKey);
+      if (cached == null) {
+        //bootstrapping a client takes a while, so it is not done within a map operation
+        CachedFactory created = new CachedFactory(factoryCreator.get());
+        cached = factories.putIfAbsent(cacheKey, created);
+        if (cached == null) {
+          cached = created;
+        } else {
+          //another request created a factory in the meantime
+          created.close();
+        }
+      }
+      if (cached.tryLease()) {
+        return cached;
+      }
+      //the factory was closed in the meantime
+      factories.remove(cacheKey, cached);
+    }
+  }
+
+  /**
+   * closes all factories. Factories that are in use are closed as soon as they are released.
+   */
+  public void closeAll() {
+    factories.forEach((key, entry) -> {
+      factories.remove(key, entry);
+      entry.evict();
+    });
+  }
+
+  private void evictIdleFactories() {
+    try {
+      long idleTimeout = TimeUnit.SECONDS.toNanos(options().getFactoryIdleTimeoutSeconds());
+      long now = System.nanoTime();
+      factories.forEach((key, entry) -> {
+        if (entry.isIdle(now, idleTimeout)) {
+          factories.remove(key, entry);
+          entry.evict();
+        }
+      });
+    } catch (Exception e) {
+      log.warn("Failed to evict idle jnosql factories", e);
+    }
+  }
+
+  /**
+   * a leased manager, closing the lease releases the manager (without closing it)
+   */
+  public static class Lease<M> implements AutoCloseable {
+    @Getter
+    private final M manager;
+    private final Runnable release;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    Lease(M manager, Runnable release) {
+      this.manager = manager;
+      this.release = release;
+    }
+
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        release.run();
+      }
+    }
+  }
+
+  /**
+   * a factory with its managers per database. Leases and eviction are guarded by the instance.
+   */
+  private static class CachedFactory {
+    private final AutoCloseable factory;
+    private final Map<String, AutoCloseable> managers = new ConcurrentHashMap<>();
+    private int leases = 0;
+    private long lastUsed = System.nanoTime();
+    private boolean evicted = false;
+
+    CachedFactory(AutoCloseable factory) {
+      this.factory = factory;
+    }
+
+    synchronized boolean tryLease() {
+      if (evicted) {
+        return false;
+      }
+      leases++;
+      lastUsed = System.nanoTime();
+      return true;
+    }
+
+    void release() {
+      boolean close;
+      synchronized (this) {
+        leases--;
+        lastUsed = System.nanoTime();
+        close = evicted && leases == 0;
+      }
+      if (close) {
+        close();
+      }
+    }
+
+    /**
+     * closes the factory right away if it is not leased, otherwise as soon as the last lease is released
+     */
+    void evict() {
+      synchronized (this) {
+        if (evicted) {
+          return;
+        }
+        evicted = true;
+        if (leases > 0) {
+          return;
+        }
+      }
+      close();
+    }
+
+    synchronized boolean isIdle(long now, long idleTimeout) {
+      return leases == 0 && now - lastUsed > idleTimeout;
+    }
+
+    void close() {
+      managers.values().forEach(CachedFactory::closeQuietly);
+      managers.clear();
+      closeQuietly(factory);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+      try {
+        closeable.close();
+      } catch (Exception e) {
+        log.warn("Failed to close jnosql resource", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package milkman.plugin.nosql;
+
+import lombok.Data;
+import milkman.ui.main.options.OptionDialogBuilder;
+import milkman.ui.main.options.OptionDialogPane;
+import milkman.ui.plugin.OptionPageProvider;
+import milkman.ui.plugin.OptionsObject;
+
+public class NosqlOptionsProvider implements OptionPageProvider<NosqlOptionsProvider.NosqlOptions> {
+
+  @Data
+  public static class NosqlOptions implements OptionsObject {
+    private int maxRowFetchLimit = 500;
+    private int fetchSize = 100;
+    private int factoryIdleTimeoutSeconds = 600;
+  }
+
+  private static NosqlOptions currentOptions = new NosqlOptions();
+
+  public static NosqlOptions options() {
+    return currentOptions;
+  }
+
+  @Override
+  public NosqlOptions getOptions() {
+    return currentOptions;
+  }
+
+  @Override
+  public void setOptions(NosqlOptions options) {
+    currentOptions = options;
+  }
+
+  @Override
+  public OptionDialogPane getOptionsDialog(OptionDialogBuilder builder) {
+    return builder.page("NoSQL", getOptions())
+        .section("NoSQL Fetch")
+          .numberInput("Row Fetch limit (rows per page)", NosqlOptions::getMaxRowFetchLimit, NosqlOptions::setMaxRowFetchLimit)
+          .numberInput("Batch size (rows shown at once)", NosqlOptions::getFetchSize, NosqlOptions::setFetchSize)
+        .endSection()
+        .section("Connections")
+          .numberInput("Close idle connections after (s)", NosqlOptions::getFactoryIdleTimeoutSeconds, NosqlOptions::setFactoryIdleTimeoutSeconds)
+          .button("Close cached connections", () -> ManagerFactoryCache.factories().closeAll())
+        .endSection()
+        .build();
+  }
+
+  @Override
+  public int getOrder() {
+    return 510;
+  }
+}
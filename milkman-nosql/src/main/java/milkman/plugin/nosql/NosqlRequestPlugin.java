@@ -18,6 +18,7 @@ import milkman.ui.plugin.RequestTypeEditor;
 import milkman.ui.plugin.RequestTypePlugin;
 import milkman.ui.plugin.ResponseAspectEditor;
 import milkman.ui.plugin.Templater;
+import milkman.utils.AsyncResponseControl.AsyncControl;
 
 public class NosqlRequestPlugin implements RequestTypePlugin, RequestAspectsPlugin {
 
@@ -65,6 +66,11 @@ public class NosqlRequestPlugin implements RequestTypePlugin, RequestAspectsPlug
     return processor.executeRequest(request, templater);
   }
 
+  @Override
+  public ResponseContainer executeRequestAsync(RequestContainer request, Templater templater, AsyncControl asyncControl) {
+    return processor.executeRequest(request, templater, asyncControl);
+  }
+
   @Override
   public String getRequestType() {
     return "NoSql";
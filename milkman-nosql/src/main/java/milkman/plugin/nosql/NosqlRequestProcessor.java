@@ -1,28 +1,38 @@
 package milkman.plugin.nosql;
 
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import lombok.SneakyThrows;
 import milkman.domain.RequestContainer;
 import milkman.domain.ResponseContainer;
-import milkman.domain.ResponseContainer.StyledText;
 import milkman.plugin.nosql.domain.NosqlParameterAspect;
 import milkman.plugin.nosql.domain.NosqlQueryAspect;
 import milkman.plugin.nosql.domain.NosqlRequestContainer;
 import milkman.plugin.nosql.domain.NosqlResponseAspect;
 import milkman.plugin.nosql.domain.NosqlResponseContainer;
 import milkman.ui.plugin.Templater;
+import milkman.utils.AsyncResponseControl;
+import milkman.utils.AsyncResponseControl.AsyncControl;
 
 public class NosqlRequestProcessor {
 
-  @SneakyThrows
+  /**
+   * executes the query and waits until the first page of the result is read
+   */
   public ResponseContainer executeRequest(RequestContainer request, Templater templater) {
+    var responseControl = new AsyncResponseControl();
+    var response = executeRequest(request, templater, responseControl.getCancellationControl());
+    CompletableFuture.anyOf(responseControl.onRequestSucceeded, responseControl.onRequestFailed).join();
+    return response;
+  }
+
+  /**
+   * executes the query and returns immediately. The first page of the result is read in the background
+   * and shown as it arrives, further pages can be read via the pager of the result.
+   */
+  @SneakyThrows
+  public ResponseContainer executeRequest(RequestContainer request, Templater templater, AsyncControl asyncControl) {
     if (!(request instanceof NosqlRequestContainer)) {
       throw new IllegalArgumentException("No Nosql request");
     }
@@ -40,32 +50,38 @@ public class NosqlRequestProcessor {
         ));
 
     JNoSqlQueryExecutor queryExecutor = JNoSqlQueryExecutor.getQueryExecutorFromProperties(params);
-    long requestTimeInMs;
-
-    long startTime = System.currentTimeMillis();
-    Stream<Map<String, Object>> resultStream = queryExecutor.query(database, query.getQuery());
-    requestTimeInMs = System.currentTimeMillis() - startTime;
-
-    Set<String> keys = new LinkedHashSet<>();
-
-    List<List<String>> resultRows = resultStream.map(document -> {
-      keys.addAll(document.keySet());
-      return keys.stream()
-          .map(k -> Optional.ofNullable(document.get(k)).map(Object::toString).orElse(null))
-          .toList();
-    }).collect(Collectors.toList());
 
     NosqlResponseAspect responseAspect = new NosqlResponseAspect();
-    responseAspect.setColumnNames(new LinkedList<>(keys));
-    responseAspect.setRows(resultRows);
-
     NosqlResponseContainer response = new NosqlResponseContainer();
-    response.getStatusInformations().complete(Map.of(
-        "Rows", new StyledText(String.valueOf(resultRows.size())),
-        "Time", new StyledText(requestTimeInMs + "ms")
-    ));
-
     response.getAspects().add(responseAspect);
+
+    asyncControl.triggerReqeuestStarted();
+    NosqlResultCursor cursor;
+    long startTime = System.currentTimeMillis();
+    try {
+      cursor = queryExecutor.query(database, query.getQuery(), responseAspect.getRowSet());
+    } catch (Exception e) {
+      response.getStatusInformations().complete();
+      asyncControl.triggerRequestFailed(e);
+      throw e;
+    }
+    responseAspect.setPager(cursor);
+    asyncControl.onCancellationRequested.add(cursor::cancel);
+
+    cursor.fetchNextPage().whenComplete((r, e) -> {
+      response.getStatusInformations().add("Rows", responseAspect.getRowCount() + (cursor.hasMoreRows() ? "+" : ""));
+      response.getStatusInformations().add("Time", (System.currentTimeMillis() - startTime) + "ms");
+      response.getStatusInformations().add("Throughput", String.format("%.0f documents/s", cursor.getDocumentsPerSecond()));
+      if (cursor.isCancelled()) {
+        response.getStatusInformations().add("Fetch", "cancelled");
+      }
+      response.getStatusInformations().complete();
+      if (e != null) {
+        asyncControl.triggerRequestFailed(e);
+      } else {
+        asyncControl.triggerRequestSucceeded();
+      }
+    });
     return response;
   }
 }
@@ -0,0 +1,200 @@
+package milkman.plugin.nosql;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import milkman.domain.rowset.RowSet;
+import milkman.domain.rowset.RowSetPager;
+import milkman.plugin.nosql.ManagerFactoryCache.Lease;
+
+import static milkman.plugin.nosql.NosqlOptionsProvider.options;
+
+/**
+ * an open query result that is read page-wise in the background. Documents are appended to the row set
+ * in batches, columns are added as new keys are encountered, so rows stay aligned to a stable schema.
+ *
+ * The cursor keeps its manager leased until the result is exhausted, the cursor is cancelled or it was
+ * idle for longer than the idle timeout of the manager factories.
+ */
+@Slf4j
+public class NosqlResultCursor implements RowSetPager {
+
+  private static final ExecutorService fetchExecutor = Executors.newCachedThreadPool(daemonThreads("nosql-fetch"));
+  private static final ScheduledExecutorService idleCloser = Executors.newSingleThreadScheduledExecutor(daemonThreads("nosql-cursor-closer"));
+
+  private final Lease<?> lease;
+  private final Stream<Map<String, Object>> results;
+  private final Iterator<Map<String, Object>> iterator;
+  private final RowSet rowSet;
+
+  private CompletableFuture<Void> currentFetch;
+  private ScheduledFuture<?> idleClose;
+  private boolean fetching = false;
+  private boolean exhausted = false;
+  private boolean closed = false;
+  private volatile boolean cancelled = false;
+
+  private volatile double documentsPerSecond;
+
+  /**
+   * opens the result of the query on the leased manager. The lease is released if the query fails.
+   */
+  public static <M> NosqlResultCursor open(Lease<M> lease, Function<M, Stream<Map<String, Object>>> query, RowSet rowSet) {
+    try {
+      return new NosqlResultCursor(lease, query.apply(lease.getManager()), rowSet);
+    } catch (RuntimeException e) {
+      lease.close();
+      throw e;
+    }
+  }
+
+  private NosqlResultCursor(Lease<?> lease, Stream<Map<String, Object>> results, RowSet rowSet) {
+    this.lease = lease;
+    this.results = results;
+    this.iterator = results.iterator();
+    this.rowSet = rowSet;
+  }
+
+  @Override
+  public synchronized boolean hasMoreRows() {
+    return !exhausted && !closed;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * throughput of the last fetched page
+   */
+  public double getDocumentsPerSecond() {
+    return documentsPerSecond;
+  }
+
+  /**
+   * reads the next page of documents in the background. If a page is being read already, that fetch is returned.
+   */
+  @Override
+  public synchronized CompletableFuture<Void> fetchNextPage() {
+    if (fetching) {
+      return currentFetch;
+    }
+    if (!hasMoreRows()) {
+      return CompletableFuture.failedFuture(new IllegalStateException("No more rows available, the result cursor was closed"));
+    }
+    if (idleClose != null) {
+      idleClose.cancel(false);
+    }
+    fetching = true;
+    currentFetch = CompletableFuture.runAsync(this::fetchPage, fetchExecutor)
+        .whenComplete((r, e) -> afterFetch(e));
+    return currentFetch;
+  }
+
+  /**
+   * stops reading documents and releases the cursor. Rows read so far are kept.
+   */
+  public void cancel() {
+    cancelled = true;
+    synchronized (this) {
+      //a running fetch stops after the current document and closes the cursor afterwards
+      if (!fetching) {
+        close();
+      }
+    }
+  }
+
+  /**
+   * releases the cursor. A running fetch is stopped, the cursor is closed once it stopped.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    if (fetching) {
+      cancelled = true;
+      return;
+    }
+    closed = true;
+    if (idleClose != null) {
+      idleClose.cancel(false);
+    }
+    try {
+      results.close();
+    } catch (RuntimeException e) {
+      log.debug("Failed to close result stream", e);
+    }
+    lease.close();
+  }
+
+  private void fetchPage() {
+    int pageSize = Math.max(1, options().getMaxRowFetchLimit());
+    int batchSize = Math.max(1, options().getFetchSize());
+    long startTime = System.nanoTime();
+    int fetched = 0;
+    List<Object[]> batch = new ArrayList<>(batchSize);
+    try {
+      for (; fetched < pageSize && !cancelled; fetched++) {
+        if (!iterator.hasNext()) {
+          markExhausted();
+          break;
+        }
+        batch.add(toRow(iterator.next()));
+        if (batch.size() >= batchSize) {
+          rowSet.addRows(batch);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+    } finally {
+      if (!batch.isEmpty()) {
+        rowSet.addRows(batch);
+      }
+      long elapsedNanos = Math.max(1, System.nanoTime() - startTime);
+      documentsPerSecond = fetched * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+  }
+
+  /**
+   * documents can have different keys, so columns are added as they are encountered.
+   * Rows read before a column existed are filled up with nulls.
+   */
+  private Object[] toRow(Map<String, Object> document) {
+    document.keySet().forEach(rowSet::ensureColumn);
+    Object[] row = new Object[rowSet.getColumnCount()];
+    document.forEach((key, value) -> row[rowSet.ensureColumn(key)] = value);
+    return row;
+  }
+
+  private synchronized void markExhausted() {
+    exhausted = true;
+  }
+
+  private synchronized void afterFetch(Throwable error) {
+    fetching = false;
+    if (error != null || exhausted || cancelled) {
+      close();
+    } else {
+      idleClose = idleCloser.schedule(this::close, options().getFactoryIdleTimeoutSeconds(), TimeUnit.SECONDS);
+    }
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    return r -> {
+      Thread thread = new Thread(r, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
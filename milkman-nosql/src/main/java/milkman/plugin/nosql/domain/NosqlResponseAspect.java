@@ -1,25 +1,95 @@
 package milkman.plugin.nosql.domain;
 
-import java.util.LinkedList;
-import java.util.List;
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
 import milkman.domain.ResponseAspect;
+import milkman.domain.rowset.RowSet;
+import milkman.domain.rowset.RowSetPager;
+
+import java.util.List;
 
-@Data
+/**
+ * tabular result of a nosql query. Values are kept typed in a columnar {@link RowSet},
+ * rows are only formatted as strings on access.
+ */
+//the name is derived, it is only written
+@JsonIgnoreProperties(value = "name", allowGetters = true)
 public class NosqlResponseAspect implements ResponseAspect {
 
-	List<String> columnNames = new LinkedList<>();
-	List<List<String>> rows = new LinkedList<>();
-	
-	
+	@Getter @Setter
+	@JsonIgnore
+	RowSet rowSet = new RowSet();
+
+	/**
+	 * source of further pages, if the result was not read completely
+	 */
+	@Getter @Setter
+	@JsonIgnore
+	RowSetPager pager;
+
+	public NosqlResponseAspect() {
+	}
+
+	/**
+	 * restores a serialized result, values are restored as their formatted strings
+	 */
+	@JsonCreator
+	public NosqlResponseAspect(@JsonProperty("columnNames") List<String> columnNames, @JsonProperty("rows") List<List<String>> rows) {
+		if (columnNames != null) {
+			setColumnNames(columnNames);
+		}
+		if (rows != null) {
+			rows.forEach(this::addRow);
+		}
+	}
+
 	@Override
 	public String getName() {
 		return "result";
 	}
 
+	public List<String> getColumnNames() {
+		return rowSet.getColumnNames();
+	}
+
+	public void setColumnNames(List<String> columnNames) {
+		rowSet = new RowSet(columnNames);
+	}
+
+	/**
+	 * formatted view of all rows
+	 */
+	public List<List<String>> getRows() {
+		return rowSet.asFormattedRows();
+	}
+
+	@JsonIgnore
+	public int getRowCount() {
+		return rowSet.getRowCount();
+	}
+
+	@JsonIgnore
+	public boolean hasMoreRows() {
+		return pager != null && pager.hasMoreRows();
+	}
+
+	@Override
+	public void dispose() {
+		if (pager != null) {
+			pager.close();
+		}
+	}
+
+	public void addRow(List<?> row) {
+		rowSet.addRow(row);
+	}
 
-	public void addRow(List<String> row) {
-		rows.add(row);
+	public void addRow(Object... values) {
+		rowSet.addRow(values);
 	}
 	
 }
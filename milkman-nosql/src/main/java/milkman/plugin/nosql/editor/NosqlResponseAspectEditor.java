@@ -1,8 +1,13 @@
 package milkman.plugin.nosql.editor;
 
 import com.jfoenix.controls.JFXButton;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
 import javafx.scene.control.Tab;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
@@ -14,11 +19,22 @@ import milkman.domain.ResponseContainer;
 import milkman.plugin.nosql.domain.NosqlResponseAspect;
 import milkman.ui.components.JfxTableEditor;
 import milkman.ui.plugin.ResponseAspectEditor;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 
 public class NosqlResponseAspectEditor implements ResponseAspectEditor {
 
 	private JfxTableEditor<List<String>> editor;
 
+	//columns and rows of the result that are shown in the table
+	private int shownColumns;
+	private int shownRows;
+
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+	private Label rowCountLabel;
+
+	private JFXButton loadMoreBtn;
+
 	@Override
 	public Tab getRoot(RequestContainer request, ResponseContainer response) {
 		editor = new JfxTableEditor<>("nosql.result.list");
@@ -27,27 +43,80 @@ public class NosqlResponseAspectEditor implements ResponseAspectEditor {
 		VBox.setVgrow(editor, Priority.ALWAYS);
 		NosqlResponseAspect rowSetAspect = response.getAspect(NosqlResponseAspect.class).get();
 
-		initEditor(rowSetAspect);
+		editor.setItems(new ArrayList<>());
 
 		HBox tableToolbar = setupToolbar(rowSetAspect);
 		VBox vBox = new VBox(tableToolbar, editor);
 
+		//documents are still read in the background. The listener is registered before the rows read so far
+		//are shown, so rows added in between are not missed
+		rowSetAspect.getRowSet().onRowsAdded(count -> scheduleRefresh(rowSetAspect));
+		showNewRows(rowSetAspect);
+
 		return new Tab("Result", vBox);
 	}
 
 
-	private void initEditor(NosqlResponseAspect rowSetAspect) {
-		for(int i = 0; i < rowSetAspect.getColumnNames().size(); ++i) {
-			editor.addReadOnlyColumn(rowSetAspect.getColumnNames().get(i), getRowValue(i));	
+	/**
+	 * documents can contain keys that were not encountered before, so columns can be added while reading
+	 */
+	private void showNewColumns(NosqlResponseAspect rowSetAspect) {
+		List<String> columnNames = rowSetAspect.getColumnNames();
+		for (; shownColumns < columnNames.size(); ++shownColumns) {
+			editor.addReadOnlyColumn(columnNames.get(shownColumns), getRowValue(shownColumns));
 		}
-		editor.setItems(rowSetAspect.getRows());
+	}
+
+	private void scheduleRefresh(NosqlResponseAspect rowSetAspect) {
+		if (refreshScheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				refreshScheduled.set(false);
+				showNewRows(rowSetAspect);
+			});
+		}
+	}
+
+	private void showNewRows(NosqlResponseAspect rowSetAspect) {
+		showNewColumns(rowSetAspect);
+		List<List<String>> rows = rowSetAspect.getRows();
+		int rowCount = rows.size();
+		if (rowCount > shownRows) {
+			editor.appendItems(new ArrayList<>(rows.subList(shownRows, rowCount)));
+			shownRows = rowCount;
+		}
+		updatePagingState(rowSetAspect);
+	}
+
+	private void updatePagingState(NosqlResponseAspect rowSetAspect) {
+		boolean hasMoreRows = rowSetAspect.hasMoreRows();
+		rowCountLabel.setText(rowSetAspect.getRowCount() + (hasMoreRows ? "+" : "") + " rows");
+		loadMoreBtn.setVisible(hasMoreRows);
+		loadMoreBtn.setManaged(hasMoreRows);
+	}
+
+	private void loadMore(NosqlResponseAspect rowSetAspect) {
+		loadMoreBtn.setDisable(true);
+		rowSetAspect.getPager().fetchNextPage().whenComplete((r, e) -> Platform.runLater(() -> {
+			loadMoreBtn.setDisable(false);
+			if (e != null) {
+				rowCountLabel.setText("Reading documents failed: " + ExceptionUtils.getRootCauseMessage(e));
+			} else {
+				showNewRows(rowSetAspect);
+			}
+		}));
 	}
 
 	private HBox setupToolbar(NosqlResponseAspect nosqlResult) {
 		JFXButton copyResultBtn = new JFXButton("Copy to Clipboard");
 		copyResultBtn.setOnAction(e -> copyResultToClipboard(nosqlResult));
 
-		HBox tableToolbar = new HBox(copyResultBtn);
+		loadMoreBtn = new JFXButton("Load more");
+		loadMoreBtn.setOnAction(e -> loadMore(nosqlResult));
+
+		rowCountLabel = new Label();
+
+		HBox tableToolbar = new HBox(copyResultBtn, loadMoreBtn, rowCountLabel);
+		tableToolbar.setAlignment(Pos.CENTER_LEFT);
 		tableToolbar.getStyleClass().add("response-header");
 
 		return tableToolbar;
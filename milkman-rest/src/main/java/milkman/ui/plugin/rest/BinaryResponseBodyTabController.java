@@ -18,11 +18,11 @@ import milkman.ui.plugin.ToasterAware;
 import milkman.ui.plugin.rest.domain.RestRequestContainer;
 import milkman.ui.plugin.rest.domain.RestResponseBodyAspect;
 import milkman.ui.plugin.rest.domain.RestResponseHeaderAspect;
-import milkman.utils.BinaryUtil;
+import milkman.utils.ResponseBodyStore;
 import milkman.utils.fxml.FxmlUtil;
+import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -44,7 +44,7 @@ public class BinaryResponseBodyTabController implements ResponseAspectEditor, To
 
 	private Toaster toaster;
 
-	private byte[] fileContent = null;
+	private ResponseBodyStore fileContent = null;
 
 	@Override
 	@SneakyThrows
@@ -53,24 +53,30 @@ public class BinaryResponseBodyTabController implements ResponseAspectEditor, To
 		ImageView imageView = new ImageView();
 
 
-		body.getBody()
-				.subscribeOn(Schedulers.elastic())
-				.collectList()
-				.map(BinaryUtil::concat)
-				.subscribe(bytes -> {
-							fileContent = bytes;
-							Platform.runLater(() -> {
-								var image = new Image(new ByteArrayInputStream(bytes));
-								if (!image.isError()){
-									imageView.setImage(image);
-								}
-							});
-						},
+		//read the content from the store instead of collecting all chunks in memory
+		Flux<byte[]> received = body.getBody().subscribeOn(Schedulers.elastic());
+		ResponseBodyStore store;
+		if (body.getBodyStore() != null) {
+			store = body.getBodyStore();
+		} else {
+			store = new ResponseBodyStore();
+			received = received.doOnNext(store::append);
+		}
+
+		received.then()
+				.subscribe(nothing -> {},
 						throwable -> {
 							log.error("Received Error", throwable);
 							toaster.showToast(throwable.toString());
 						},
 						() -> {
+							fileContent = store;
+							Platform.runLater(() -> {
+								var image = new Image(store.openStream());
+								if (!image.isError()){
+									imageView.setImage(image);
+								}
+							});
 						},
 						s -> {
 							fileContent = null;
@@ -118,7 +124,7 @@ public class BinaryResponseBodyTabController implements ResponseAspectEditor, To
 		File file = fileChooser.showSaveDialog(FxmlUtil.getPrimaryStage());
 		if (file != null) {
 			try (var fs = new FileOutputStream(file)) {
-				fs.write(fileContent);
+				fileContent.writeTo(fs);
 			} catch (IOException ex) {
 				toaster.showToast(ex.toString());
 			}
@@ -4,13 +4,17 @@ import java.util.Optional;
 import javax.net.ssl.SSLSession;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import milkman.domain.RequestTiming;
+import milkman.domain.RequestTiming.Phase;
 import milkman.utils.Event0;
+import milkman.utils.ResponseBodyStore;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.ReplayProcessor;
 
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.ResponseInfo;
 import java.nio.ByteBuffer;
@@ -24,6 +28,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class ChunkedRequest {
 	private final HttpClient httpclient; 
 	private final HttpRequest httpRequest;
+	private final int bodyMemoryThreshold;
+	@Getter
+	private final RequestTiming timing;
 	
 	@Getter
 	private final CompletableFuture<ResponseInfo> responseInfo = new CompletableFuture<>();
@@ -33,21 +40,24 @@ public class ChunkedRequest {
 
 	@Getter
 	private CompletableFuture<Void> requestDone;
-	
-	private ReplayProcessor<byte[]> emitterProcessor;
+
+	//the received body, kept in memory up to the threshold, so late subscribers can replay it
+	@Getter
+	private ResponseBodyStore bodyStore;
 	private Flux<byte[]> chunks;
 
 	public void executeRequest(Event0 cancellationEvent){
 
 
-		this.emitterProcessor = ReplayProcessor.create();
-		chunks = emitterProcessor;
-		this.requestDone = emitterProcessor.then().toFuture();
+		this.bodyStore = new ResponseBodyStore(bodyMemoryThreshold);
+		chunks = bodyStore.asFlux();
+		this.requestDone = new CompletableFuture<>();
 		AtomicBoolean isSubscribed = new AtomicBoolean();
-		var future = httpclient.sendAsync(httpRequest, conInfo -> new HttpResponse.BodySubscriber<String>(){
+		var future = httpclient.sendAsync(withTiming(httpRequest), conInfo -> new HttpResponse.BodySubscriber<String>(){
 			private Flow.Subscription subscription;
 
 			{
+				timing.phaseDone(Phase.WAITING);
 				responseInfo.complete(conInfo);
 				cancellationEvent.add(() -> {
 					if (subscription != null)
@@ -66,19 +76,26 @@ public class ChunkedRequest {
 			@Override
 			public void onNext(List<ByteBuffer> item) {
 				byte[] chunk = toBytes(item);
+				timing.bytesReceived(chunk.length);
 //				System.out.println("Received chunk: " + chunk);
-				emitterProcessor.onNext(chunk);
+				try {
+					bodyStore.append(chunk);
+				} catch (Exception e) {
+					subscription.cancel();
+					onError(e);
+					return;
+				}
 				subscription.request(1);
 			}
 
 			@Override
 			public void onError(Throwable throwable) {
-				emitterProcessor.onError(throwable);
+				failBody(throwable);
 			}
 
 			@Override
 			public void onComplete() {
-				emitterProcessor.onComplete();
+				completeBody();
 			}
 
 			@Override
@@ -106,11 +123,12 @@ public class ChunkedRequest {
 			//under certain circumstances, the stringSubscriber was not subscribed (body handler not activated)
 			//leading to the call-future resolve but the futures in the subscriber to not be resolved.
 			if (!isSubscribed.get()) {
+					timing.phaseDone(Phase.WAITING);
 					if (err != null) {
-						emitterProcessor.onError(ExceptionUtils.getRootCause(err));
+						failBody(ExceptionUtils.getRootCause(err));
 						responseInfo.complete(new JavaRequestProcessor.EmptyResponseInfo());
 					} else {
-						emitterProcessor.onComplete();
+						completeBody();
 						responseInfo.complete(new JavaRequestProcessor.StaticResponseInfo(res));
 					}
 				}
@@ -147,11 +165,69 @@ public class ChunkedRequest {
 		return chunks;
 	}
 
+	/**
+	 * the request is sent as soon as the client has consumed the whole request body
+	 */
+	private HttpRequest withTiming(HttpRequest request) {
+		BodyPublisher bodyPublisher = request.bodyPublisher().orElse(BodyPublishers.noBody());
+		return HttpRequest.newBuilder(request, (name, value) -> true)
+				.method(request.method(), new TimedBodyPublisher(bodyPublisher))
+				.build();
+	}
+
+	private void completeBody() {
+		timing.phaseDone(Phase.DOWNLOAD);
+		bodyStore.complete();
+		requestDone.complete(null);
+	}
+
+	private void failBody(Throwable throwable) {
+		timing.phaseDone(Phase.DOWNLOAD);
+		bodyStore.error(throwable);
+		requestDone.completeExceptionally(throwable);
+	}
+
 
 //	private static String asString(List<ByteBuffer> buffers) {
 //		return new String(toBytes(buffers), StandardCharsets.UTF_8);
 //	}
 
+	@RequiredArgsConstructor
+	private class TimedBodyPublisher implements BodyPublisher {
+		private final BodyPublisher delegate;
+
+		@Override
+		public long contentLength() {
+			return delegate.contentLength();
+		}
+
+		@Override
+		public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			delegate.subscribe(new Flow.Subscriber<ByteBuffer>() {
+				@Override
+				public void onSubscribe(Flow.Subscription subscription) {
+					subscriber.onSubscribe(subscription);
+				}
+
+				@Override
+				public void onNext(ByteBuffer item) {
+					subscriber.onNext(item);
+				}
+
+				@Override
+				public void onError(Throwable throwable) {
+					subscriber.onError(throwable);
+				}
+
+				@Override
+				public void onComplete() {
+					timing.phaseDone(Phase.REQUEST);
+					subscriber.onComplete();
+				}
+			});
+		}
+	}
+
 	private static byte[] toBytes(List<ByteBuffer> buffers) {
 		int size = buffers.stream().mapToInt(ByteBuffer::remaining).sum();
 		byte[] bs = new byte[size];
@@ -0,0 +1,149 @@
+package milkman.ui.plugin.rest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import milkman.ui.plugin.rest.HttpOptionsPluginProvider.HttpOptions;
+import milkman.ui.plugin.rest.domain.RestRequestContainer;
+import org.apache.commons.lang3.StringUtils;
+
+import java.net.http.HttpClient;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * keeps one {@link HttpClient} per effective client configuration, so that keep-alive connections
+ * and http/2 multiplexing are shared between requests instead of being set up for every single request.
+ */
+@Slf4j
+public class HttpClientRegistry {
+
+	private static final int MAX_CLIENTS = 16;
+
+	private static final HttpClientRegistry registry = new HttpClientRegistry();
+
+	public static HttpClientRegistry clients() {
+		return registry;
+	}
+
+	private final Map<ClientKey, PooledClient> clients = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * returns a lease on a client for the given configuration. If there is no pooled client yet,
+	 * a new one is created via the given factory. The lease has to be released once the request is done.
+	 */
+	public ClientLease acquire(ClientKey key, Function<ClientKey, HttpClient> clientFactory) {
+		if (!clients.containsKey(key)) {
+			evictIfFull();
+		}
+
+		AtomicBoolean created = new AtomicBoolean(false);
+		PooledClient pooledClient = clients.computeIfAbsent(key, k -> {
+			created.set(true);
+			return new PooledClient(clientFactory.apply(k));
+		});
+
+		if (created.get()) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+
+		pooledClient.getActiveRequests().incrementAndGet();
+		pooledClient.touch();
+		return new ClientLease(pooledClient, !created.get());
+	}
+
+	/**
+	 * drops all pooled clients. Running requests are not affected, idle connections are closed
+	 * by the client itself as soon as it is not referenced anymore.
+	 */
+	public void invalidateAll() {
+		log.debug("Invalidating {} pooled http clients", clients.size());
+		clients.clear();
+	}
+
+	public Map<String, String> getStatistics(ClientLease lease) {
+		Map<String, String> result = new LinkedHashMap<>();
+		result.put("Client", lease.isReused() ? "reused" : "new");
+		result.put("Active requests", "" + lease.pooledClient.getActiveRequests().get());
+		result.put("Pooled clients", "" + clients.size());
+		result.put("Pool hits", "" + hits.get());
+		result.put("Pool misses", "" + misses.get());
+		return result;
+	}
+
+	private void evictIfFull() {
+		if (clients.size() < MAX_CLIENTS) {
+			return;
+		}
+		clients.entrySet().stream()
+				.filter(e -> e.getValue().getActiveRequests().get() == 0)
+				.min(Comparator.comparingLong(e -> e.getValue().getLastUsed()))
+				.ifPresent(e -> clients.remove(e.getKey()));
+	}
+
+
+	/**
+	 * all options that influence the way a client is built. If any of those change, a new client is used.
+	 */
+	@Value
+	public static class ClientKey {
+		String proxyUrl;
+		String proxyExclusion;
+		String clientCertificate;
+		boolean certificateValidation;
+		boolean http2Support;
+		boolean followRedirects;
+
+		public static ClientKey of(RestRequestContainer request, HttpOptions options) {
+			return new ClientKey(
+					options.isUseProxy() ? options.getProxyUrl() : null,
+					options.isUseProxy() ? options.getProxyExclusion() : null,
+					StringUtils.isNotEmpty(request.getClientCertificate()) ? request.getClientCertificate() : null,
+					options.isCertificateValidation(),
+					options.isHttp2Support(),
+					options.isFollowRedirects());
+		}
+	}
+
+	@Getter
+	@RequiredArgsConstructor
+	private static class PooledClient {
+		private final HttpClient client;
+		private final AtomicInteger activeRequests = new AtomicInteger();
+		private volatile long lastUsed = System.nanoTime();
+
+		void touch() {
+			lastUsed = System.nanoTime();
+		}
+	}
+
+	@RequiredArgsConstructor
+	public static class ClientLease {
+		private final PooledClient pooledClient;
+		@Getter
+		private final boolean reused;
+		private final AtomicBoolean released = new AtomicBoolean(false);
+
+		public HttpClient getClient() {
+			return pooledClient.getClient();
+		}
+
+		public void release() {
+			if (released.compareAndSet(false, true)) {
+				pooledClient.getActiveRequests().decrementAndGet();
+				pooledClient.touch();
+			}
+		}
+	}
+}
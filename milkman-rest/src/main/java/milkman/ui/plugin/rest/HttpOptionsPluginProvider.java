@@ -13,6 +13,7 @@ import milkman.ui.plugin.ToasterAware;
 import milkman.ui.plugin.rest.tls.Certificate;
 import milkman.ui.plugin.rest.tls.CertificateReader;
 import milkman.ui.plugin.rest.tls.ImportCertificateDialog;
+import milkman.utils.ResponseBodyStore;
 
 public class HttpOptionsPluginProvider implements OptionPageProvider<HttpOptionsPluginProvider.HttpOptions>, ToasterAware {
 
@@ -32,6 +33,8 @@ public class HttpOptionsPluginProvider implements OptionPageProvider<HttpOptions
 		private boolean certificateValidation = false;
 		private boolean followRedirects = false;
 		private String httpProtocol = "HTTP/2";
+		//response bodies above this size are buffered in a temporary file
+		private int bodyMemoryLimitKb = ResponseBodyStore.DEFAULT_MEMORY_THRESHOLD / 1024;
 		private List<Certificate> certificates = new LinkedList<>();
 
 		public boolean isHttp2Support() {
@@ -41,6 +44,10 @@ public class HttpOptionsPluginProvider implements OptionPageProvider<HttpOptions
 		public boolean isHttp3Support() {
 			return httpProtocol.contains("HTTP/3");
 		}
+
+		public int getBodyMemoryLimitBytes() {
+			return (int) Math.min(Integer.MAX_VALUE, Math.max(0, bodyMemoryLimitKb) * 1024L);
+		}
 	}
 
 	
@@ -56,7 +63,8 @@ public class HttpOptionsPluginProvider implements OptionPageProvider<HttpOptions
 
 	@Override
 	public void setOptions(HttpOptions options) {
-		currentOptions = options;		
+		currentOptions = options;
+		HttpClientRegistry.clients().invalidateAll();
 	}
 
 	@Override
@@ -72,6 +80,7 @@ public class HttpOptionsPluginProvider implements OptionPageProvider<HttpOptions
 					.toggle("Validate Certificates", HttpOptions::isCertificateValidation, HttpOptions::setCertificateValidation)
 					.toggle("Follow Redirects", HttpOptions::isFollowRedirects, HttpOptions::setFollowRedirects)
 					.selection("Protocol", HttpOptions::getHttpProtocol, HttpOptions::setHttpProtocol, List.of("HTTP/1.1", "HTTP/2", "HTTP/3"))
+					.numberInput("In-memory body limit (KB)", HttpOptions::getBodyMemoryLimitKb, HttpOptions::setBodyMemoryLimitKb)
 				.endSection()
 				.section("Client Certificates")
 				.list(
@@ -94,6 +103,7 @@ public class HttpOptionsPluginProvider implements OptionPageProvider<HttpOptions
 			try {
 				Certificate certificate = dialog.getCertificate();
 				reader.readCertificate(certificate);
+				HttpClientRegistry.clients().invalidateAll();
 				return certificate;
 			} catch (Exception e) {
 				toaster.showToast("Failed to import certificate: " + e.getMessage());
@@ -116,6 +126,7 @@ public class HttpOptionsPluginProvider implements OptionPageProvider<HttpOptions
 				existingCertificate.setBase64Certificate(certificate.getBase64Certificate());
 				existingCertificate.setBase64PrivateKey(certificate.getBase64PrivateKey());
 				existingCertificate.setPassword(certificate.getPassword());
+				HttpClientRegistry.clients().invalidateAll();
 			} catch (Exception e) {
 				toaster.showToast("Failed to import certificate: " + e.getMessage());
 			}
@@ -9,16 +9,20 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.experimental.Delegate;
 import lombok.extern.slf4j.Slf4j;
+import milkman.domain.RequestTiming;
 import milkman.domain.ResponseContainer.StyledText;
 import milkman.ui.main.dialogs.CredentialsInputDialog;
 import milkman.ui.main.options.CoreApplicationOptionsProvider;
 import milkman.ui.plugin.Templater;
+import milkman.ui.plugin.rest.HttpClientRegistry.ClientKey;
+import milkman.ui.plugin.rest.HttpClientRegistry.ClientLease;
 import milkman.ui.plugin.rest.tls.CertificateReader;
 import milkman.ui.plugin.rest.tls.CustomCertificateKeyManager;
 import milkman.ui.plugin.rest.tls.TrustAllTrustManager;
 import milkman.ui.plugin.rest.domain.*;
 import milkman.ui.plugin.rest.http3.JettyHttp3Client;
 import milkman.utils.AsyncResponseControl.AsyncControl;
+import milkman.utils.ResponseBodyStore;
 import milkman.utils.json.BlockingFluxByteToStringConverter;
 import org.apache.commons.lang3.StringUtils;
 import reactor.adapter.JdkFlowAdapter;
@@ -50,6 +54,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
+import static milkman.ui.plugin.rest.HttpClientRegistry.clients;
+
 @Slf4j
 public class JavaRequestProcessor implements RequestProcessor {
 
@@ -77,21 +83,20 @@ public class JavaRequestProcessor implements RequestProcessor {
 		return contentType.contains("multipart/");
 	}
 
-	@SneakyThrows
-	private HttpClient buildClient(RestRequestContainer request) {
-
-		if (HttpOptionsPluginProvider.options().isHttp3Support()) {
-			return new JettyHttp3Client();
-		}
+	private ClientLease acquireClient(RestRequestContainer request) {
+		return clients().acquire(ClientKey.of(request, HttpOptionsPluginProvider.options()), this::buildClient);
+	}
 
+	@SneakyThrows
+	private HttpClient buildClient(ClientKey clientKey) {
 		Builder builder = HttpClient.newBuilder();
-		if (!HttpOptionsPluginProvider.options().isHttp2Support()){
+		if (!clientKey.isHttp2Support()){
 			builder.version(Version.HTTP_1_1);
 		}
 
-		if (HttpOptionsPluginProvider.options().isUseProxy()) {
-			URL url = new URL(HttpOptionsPluginProvider.options().getProxyUrl());
-			builder.proxy(new ProxyExclusionRoutePlanner(url, HttpOptionsPluginProvider.options().getProxyExclusion()).java());
+		if (clientKey.getProxyUrl() != null) {
+			URL url = new URL(clientKey.getProxyUrl());
+			builder.proxy(new ProxyExclusionRoutePlanner(url, clientKey.getProxyExclusion()).java());
 			
 			//we dont use Authenticator because it might result in an exception if there is a 401 response
 			// see https://github.com/AdoptOpenJDK/openjdk-jdk11/blob/master/src/java.net.http/share/classes/jdk/internal/net/http/AuthenticationFilter.java#L263
@@ -106,22 +111,22 @@ public class JavaRequestProcessor implements RequestProcessor {
 //			}
 		}
 
-		if (StringUtils.isNotEmpty(request.getClientCertificate())) {
+		if (clientKey.getClientCertificate() != null) {
 			CertificateReader certReader = new CertificateReader();
 			milkman.ui.plugin.rest.tls.Certificate cert = HttpOptionsPluginProvider.options().getCertificates().stream()
-					.filter(c -> c.getName().equals(request.getClientCertificate()))
+					.filter(c -> c.getName().equals(clientKey.getClientCertificate()))
 					.findAny()
-					.orElseThrow(() -> new IllegalStateException("Certificate not found: " + request.getClientCertificate()));
+					.orElseThrow(() -> new IllegalStateException("Certificate not found: " + clientKey.getClientCertificate()));
 
 			var x509Certificate = certReader.readCertificate(cert);
 			var privateKey = certReader.readPrivateKey(cert);
-			configureSsl(builder, !HttpOptionsPluginProvider.options().isCertificateValidation(), x509Certificate, privateKey);
+			configureSsl(builder, !clientKey.isCertificateValidation(), x509Certificate, privateKey);
 		} else {
-			configureSsl(builder, !HttpOptionsPluginProvider.options().isCertificateValidation(), null, null);
+			configureSsl(builder, !clientKey.isCertificateValidation(), null, null);
 		}
 
 
-		if (HttpOptionsPluginProvider.options().isFollowRedirects()) {
+		if (clientKey.isFollowRedirects()) {
 			builder.followRedirects(Redirect.ALWAYS);
 		}
 
@@ -173,10 +178,64 @@ public class JavaRequestProcessor implements RequestProcessor {
 		HttpRequest httpRequest = toHttpRequest(request, templater);
 		
 		asyncControl.triggerReqeuestStarted();
-		AtomicLong startTime = new AtomicLong(System.currentTimeMillis());
-		
-		
-		var chReq = new ChunkedRequest(buildClient(request), httpRequest);
+
+		//the http3 client stops itself on failures, so we can't pool it
+		ClientLease clientLease = HttpOptionsPluginProvider.options().isHttp3Support() ? null : acquireClient(request);
+		JettyHttp3Client http3Client = clientLease == null ? new JettyHttp3Client() : null;
+		//timing starts once the client is set up, so the phases only contain the exchange with the server
+		RequestTiming timing = new RequestTiming();
+		HttpClient httpClient;
+		if (http3Client != null) {
+			http3Client.setTiming(timing);
+			httpClient = http3Client;
+		} else {
+			httpClient = clientLease.getClient();
+		}
+		ChunkedRequest chReq;
+		try {
+			chReq = sendRequest(request, templater, asyncControl, httpRequest, httpClient, timing);
+		} catch (Throwable e) {
+			//the lease is released once the request is done, which is never reached if it fails before
+			if (clientLease != null) {
+				clientLease.release();
+			}
+			throw e;
+		}
+
+		chReq.getRequestDone().handle((res, e) -> {
+//			System.out.println("triggers");
+			if (clientLease != null) {
+				clientLease.release();
+			}
+			if (e != null) {
+				asyncControl.triggerRequestFailed(e);
+			}
+			else {
+				asyncControl.triggerRequestSucceeded();
+			}
+			return null;
+		});
+
+		var response = toResponseContainer(httpRequest,
+																chReq.getEmitterProcessor(),
+																chReq.getBodyStore(),
+																chReq.getResponseInfo(),
+																chReq.getSslSessionInfo(),
+																chReq.getTiming());
+		if (clientLease != null) {
+			response.getStatusInformations().add("Connection", clients().getStatistics(clientLease));
+		}
+		return response;
+	}
+
+	/**
+	 * sends the request and blocks until the headers are received. If the proxy asks for authentication, the request is sent again with credentials.
+	 */
+	@SneakyThrows
+	private ChunkedRequest sendRequest(RestRequestContainer request, Templater templater, AsyncControl asyncControl, HttpRequest httpRequest,
+									   HttpClient httpClient, RequestTiming timing) {
+		int bodyMemoryLimit = HttpOptionsPluginProvider.options().getBodyMemoryLimitBytes();
+		var chReq = new ChunkedRequest(httpClient, httpRequest, bodyMemoryLimit, timing);
 		chReq.executeRequest(asyncControl.onCancellationRequested);
 		
 		//we block until we get the headers:
@@ -193,9 +252,8 @@ public class JavaRequestProcessor implements RequestProcessor {
 					proxyCredentials = new PasswordAuthentication(dialog.getUsername(), dialog.getPassword().toCharArray());
 					try {
 						var newRequest = toHttpRequest(request, templater);
-						startTime.set(System.currentTimeMillis());
 						//TODO i actually need a new flux here, no?
-						var proxyReq = new ChunkedRequest(buildClient(request), newRequest);
+						var proxyReq = new ChunkedRequest(httpClient, newRequest, bodyMemoryLimit, new RequestTiming());
 						proxyReq.executeRequest(asyncControl.onCancellationRequested);
 						responseHolder.set(proxyReq);
 					} catch (Exception e) {
@@ -211,23 +269,7 @@ public class JavaRequestProcessor implements RequestProcessor {
 			}
 		}
 		
-		chReq = responseHolder.get();
-		chReq.getRequestDone().handle((res, e) -> {
-//			System.out.println("triggers");
-			if (e != null) {
-				asyncControl.triggerRequestFailed(e);
-			}
-			else {
-				asyncControl.triggerRequestSucceeded();
-			}
-			return null;
-		});
-
-		return toResponseContainer(httpRequest,
-																chReq.getEmitterProcessor(),
-																chReq.getResponseInfo(),
-																chReq.getSslSessionInfo(),
-																startTime);
+		return responseHolder.get();
 	}
 
 	private String getRealmInfo(ResponseInfo responseInfo) {
@@ -281,19 +323,22 @@ public class JavaRequestProcessor implements RequestProcessor {
 	@SneakyThrows
 	private RestResponseContainer toResponseContainer(HttpRequest request,
 			Flux<byte[]> bodyPublisher,
+			ResponseBodyStore bodyStore,
 			CompletableFuture<ResponseInfo> httpResponse,
 			CompletableFuture<Optional<SSLSession>> sslSessionInfo,
-			AtomicLong startTime) {
+			RequestTiming timing) {
 		RestResponseContainer response = new RestResponseContainer(request.uri().toString());
 
 		bodyPublisher = tapContentLength(bodyPublisher, response);
 		bodyPublisher = bodyPublisher.doOnComplete(() -> {
-			response.getStatusInformations().add("Time", (System.currentTimeMillis() - startTime.get()) + "ms");
+			response.getStatusInformations().add("Time", formatMillis(timing.getTotalMs()));
+			response.getStatusInformations().add("Timing", timing.toStatusInfo());
 //			response.getStatusInformations().complete();
 		});
 
 
-		response.getAspects().add(new RestResponseBodyAspect(bodyPublisher));
+		response.getAspects().add(new RestResponseBodyAspect(bodyPublisher, bodyStore));
+		response.getAspects().add(timing);
 
 		addDebugOutput(request, response);
 
@@ -315,10 +360,7 @@ public class JavaRequestProcessor implements RequestProcessor {
 		sslSessionInfo.thenAccept(ssl -> ssl.ifPresent(sslSession ->
 				response.getStatusInformations().add("SSL", getCertDetails(sslSession))));
 
-		httpResponse.thenAccept(res -> {
-			var responseTimeInMs = System.currentTimeMillis() - startTime.get();
-			buildStatusView(res, response, responseTimeInMs);
-		});
+		httpResponse.thenAccept(res -> buildStatusView(res, response, timing.getTimeToFirstByteMs()));
 
 		return response;
 	}
@@ -366,7 +408,11 @@ public class JavaRequestProcessor implements RequestProcessor {
 		}
 	}
 
-	private void buildStatusView(ResponseInfo httpResponse, RestResponseContainer response, long responseTimeInMs) {
+	private static String formatMillis(Double millis) {
+		return millis != null ? Math.round(millis) + "ms" : "-";
+	}
+
+	private void buildStatusView(ResponseInfo httpResponse, RestResponseContainer response, Double responseTimeInMs) {
 		String versionStr = "undefined";
 		if (httpResponse.version() == Version.HTTP_1_1) {
 			versionStr = "1.1";
@@ -378,7 +424,7 @@ public class JavaRequestProcessor implements RequestProcessor {
 		response.getStatusInformations()
 				.add("Status", new StyledText(""+httpResponse.statusCode(), getStyle(httpResponse.statusCode())))
 				.add("Details", Map.of(
-						"TTFB", responseTimeInMs + "ms",
+						"TTFB", formatMillis(responseTimeInMs),
 						"Http", versionStr
 				));
 	}
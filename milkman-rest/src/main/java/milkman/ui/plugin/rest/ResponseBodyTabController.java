@@ -8,6 +8,7 @@ import lombok.val;
 import milkman.domain.RequestContainer;
 import milkman.domain.ResponseContainer;
 import milkman.ui.components.CodeFoldingContentEditor;
+import milkman.ui.components.PagedContentViewer;
 import milkman.ui.main.Toaster;
 import milkman.ui.main.options.CoreApplicationOptionsProvider;
 import milkman.ui.plugin.ContentTypeAwareEditor;
@@ -16,15 +17,22 @@ import milkman.ui.plugin.ResponseAspectEditor;
 import milkman.ui.plugin.ToasterAware;
 import milkman.ui.plugin.rest.domain.RestResponseBodyAspect;
 import milkman.ui.plugin.rest.domain.RestResponseHeaderAspect;
+import milkman.utils.ResponseBodyStore;
+import milkman.utils.Utf8ChunkDecoder;
 import reactor.core.scheduler.Schedulers;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 public class ResponseBodyTabController implements ResponseAspectEditor, ContentTypeAwareEditor, ToasterAware {
 
+	//bodies larger than this are shown in pages instead of as one text
+	private static final long STREAMING_TEXT_LIMIT = 1024 * 1024;
+
 	private List<ContentTypePlugin> plugins;
 	private Toaster toaster;
 
@@ -37,39 +45,77 @@ public class ResponseBodyTabController implements ResponseAspectEditor, ContentT
 		if (plugins != null)
 			root.setContentTypePlugins(plugins);
 		
-		response.getAspect(RestResponseHeaderAspect.class)
-				.map(RestResponseHeaderAspect::contentType)
-				.ifPresent(root::setContentType);
+		Optional<String> contentType = response.getAspect(RestResponseHeaderAspect.class)
+				.map(RestResponseHeaderAspect::contentType);
+		contentType.ifPresent(root::setContentType);
 		
 
 		
-		AtomicInteger idx = new AtomicInteger(0);
+		Tab tab = new Tab("Response Body", root);
+		Utf8ChunkDecoder decoder = new Utf8ChunkDecoder();
+		AtomicLong receivedBytes = new AtomicLong(0);
+		AtomicBoolean paged = new AtomicBoolean(false);
+		AtomicReference<PagedContentViewer> pagedViewer = new AtomicReference<>();
 		body.getBody()
 				.subscribeOn(Schedulers.elastic())
 				.subscribe(
 				value -> {
-					val cidx = idx.getAndIncrement();
-//					System.out.println("receiving content: " + cidx );
-					Platform.runLater(() -> {
-//						System.out.println("adding content" + cidx + " " + value);
-						root.addContent(new String(value, StandardCharsets.UTF_8));
-					});
+					if (paged.get()) {
+						//the viewer reads newly received bytes from the store itself
+						refresh(pagedViewer);
+						return;
+					}
+					long received = receivedBytes.addAndGet(value.length);
+					if (body.getBodyStore() != null && received > STREAMING_TEXT_LIMIT && paged.compareAndSet(false, true)) {
+						//too large for the text area, switch to a viewer that only shows parts of the body
+						switchToPagedViewer(tab, body.getBodyStore(), contentType, pagedViewer);
+						return;
+					}
+					String text = decoder.decode(value);
+					Platform.runLater(() -> root.addContent(text));
 				},
 				throwable -> {
 					log.error("Received Error", throwable);
 					toaster.showToast(throwable.toString());
 				},
-				() -> Platform.runLater(() -> {
-					if (CoreApplicationOptionsProvider.options().isAutoformatContent())
-						root.formatCurrentCode();
-				}),
+				() -> {
+					if (paged.get()) {
+						refresh(pagedViewer);
+						return;
+					}
+					String rest = decoder.flush();
+					Platform.runLater(() -> {
+						root.addContent(rest);
+						if (CoreApplicationOptionsProvider.options().isAutoformatContent())
+							root.formatCurrentCode();
+					});
+				},
 				s -> {
-//					System.out.println("Subscribed");
 					s.request(Long.MAX_VALUE);
 				}
 			);
 		
-		return new Tab("Response Body", root);
+		return tab;
+	}
+
+	private void switchToPagedViewer(Tab tab, ResponseBodyStore store, Optional<String> contentType, AtomicReference<PagedContentViewer> pagedViewer) {
+		Platform.runLater(() -> {
+			PagedContentViewer viewer = new PagedContentViewer(store);
+			if (plugins != null)
+				viewer.setContentTypePlugins(plugins);
+			contentType.ifPresent(viewer::setContentType);
+			pagedViewer.set(viewer);
+			tab.setContent(viewer);
+			viewer.refresh();
+		});
+	}
+
+	private void refresh(AtomicReference<PagedContentViewer> pagedViewer) {
+		//if the viewer is not created yet, it will read all received bytes on creation
+		PagedContentViewer viewer = pagedViewer.get();
+		if (viewer != null) {
+			viewer.refresh();
+		}
 	}
 
 	@Override
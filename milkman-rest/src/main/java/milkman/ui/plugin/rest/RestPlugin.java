@@ -3,19 +3,29 @@ package milkman.ui.plugin.rest;
 import milkman.domain.RequestContainer;
 import milkman.domain.RequestExecutionContext;
 import milkman.domain.ResponseContainer;
+import milkman.ui.main.options.LoadTestOptionsProvider;
 import milkman.ui.plugin.*;
 import milkman.ui.plugin.rest.domain.RestBodyAspect;
 import milkman.ui.plugin.rest.domain.RestHeaderAspect;
 import milkman.ui.plugin.rest.domain.RestQueryParamAspect;
 import milkman.ui.plugin.rest.domain.RestRequestContainer;
+import milkman.ui.plugin.rest.domain.RestResponseContainer;
 import milkman.utils.AsyncResponseControl.AsyncControl;
+import milkman.utils.LoadGenerator;
 
 import java.util.Arrays;
 import java.util.List;
 
-public class RestPlugin implements RequestAspectsPlugin, RequestTypePlugin {
+public class RestPlugin implements RequestAspectsPlugin, RequestTypePlugin, RequestExecutorAware {
 
+	private static final String LOAD_TEST_COMMAND = "LOAD_TEST";
 
+	private PluginRequestExecutor requestExecutor;
+
+	@Override
+	public void setRequestExecutor(PluginRequestExecutor executor) {
+		this.requestExecutor = executor;
+	}
 	
 	@Override
 	public List<RequestAspectEditor> getRequestTabs() {
@@ -70,6 +80,23 @@ public class RestPlugin implements RequestAspectsPlugin, RequestTypePlugin {
 		
 	}
 
+	@Override
+	public List<CustomCommand> getCustomCommands() {
+		return List.of(new CustomCommand(LOAD_TEST_COMMAND, "Load Test"));
+	}
+
+	@Override
+	public ResponseContainer executeCustomCommandAsync(String commandId, RequestContainer request, Templater templater, AsyncControl asyncControl) {
+		if (!LOAD_TEST_COMMAND.equals(commandId)) {
+			throw new IllegalArgumentException("Unsupported custom command: " + commandId);
+		}
+		asyncControl.triggerReqeuestStarted();
+		var response = new RestResponseContainer(templater.replaceTags(((RestRequestContainer) request).getUrl()));
+		new LoadGenerator(requestExecutor, LoadTestOptionsProvider.options().toProfile())
+				.start(request, response.getStatusInformations(), asyncControl);
+		return response;
+	}
+
 	@Override
 	public void initializeResponseAspects(RequestContainer request, ResponseContainer response, RequestExecutionContext context) {
 		// we dont need to do anything here as we created the request (where we added everything already)
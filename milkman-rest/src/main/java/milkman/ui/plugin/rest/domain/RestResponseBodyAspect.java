@@ -1,10 +1,12 @@
 package milkman.ui.plugin.rest.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import milkman.domain.ResponseAspect;
+import milkman.utils.ResponseBodyStore;
 import milkman.utils.json.BlockingFluxByteToStringConverter;
 import reactor.core.publisher.Flux;
 
@@ -16,9 +18,26 @@ public class RestResponseBodyAspect implements ResponseAspect {
 	@JsonSerialize(converter = BlockingFluxByteToStringConverter.class)
 	private Flux<byte[]> body;
 
+	/**
+	 * the store backing the body, if any. Allows to access parts of the body without subscribing to it.
+	 */
+	@JsonIgnore
+	private ResponseBodyStore bodyStore;
+
+	public RestResponseBodyAspect(Flux<byte[]> body) {
+		this.body = body;
+	}
+
 	@Override
 	public String getName() {
 		return "body";
 	}
+
+	@Override
+	public void dispose() {
+		if (bodyStore != null) {
+			bodyStore.dispose();
+		}
+	}
 	
 }
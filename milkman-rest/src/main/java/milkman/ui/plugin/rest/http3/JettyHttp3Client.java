@@ -25,6 +25,8 @@ import javax.net.ssl.SSLParameters;
 import lombok.Data;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import milkman.domain.RequestTiming;
+import milkman.domain.RequestTiming.Phase;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpURI;
@@ -42,15 +44,28 @@ import org.eclipse.jetty.http3.frames.SettingsFrame;
 public class JettyHttp3Client extends HttpClient {
 
   private final HTTP3Client httpClient;
+  private RequestTiming timing;
   private long timeoutInMillis;
 
   public JettyHttp3Client() throws Exception {
+    this(new RequestTiming());
+  }
+
+  public JettyHttp3Client(RequestTiming timing) throws Exception {
+    this.timing = timing;
     httpClient = new HTTP3Client();
     // Configure HTTP3Client, for example:
     httpClient.getHTTP3Configuration().setStreamIdleTimeout(15000);
     httpClient.start();
   }
 
+  /**
+   * replaces the timing, e.g. to exclude the startup of the client from the measured phases
+   */
+  public void setTiming(RequestTiming timing) {
+    this.timing = timing;
+  }
+
   @Override
   public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> responseBodyHandler)
       throws IOException, InterruptedException {
@@ -73,6 +88,7 @@ public class JettyHttp3Client extends HttpClient {
   public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> responseBodyHandler) {
     URI uri = request.uri();
     SocketAddress serverAddress = new InetSocketAddress(uri.getHost(), getPort(uri));
+    timing.phaseDone(Phase.DNS);
 
     CompletableFuture<HttpResponse<T>> futureResponse = new CompletableFuture<>();
     Jetty3ResponseListener<T> responseListener = new Jetty3ResponseListener<>(this, uri, responseBodyHandler, futureResponse);
@@ -101,7 +117,9 @@ public class JettyHttp3Client extends HttpClient {
 
     });
 
+    //quic establishes the connection and the tls session in a single handshake
     CompletableFuture<Stream> streamCF = sessionCF.thenCompose(session -> {
+      timing.phaseDone(Phase.TLS);
       // Add request headers
       HttpFields requestHeaders = buildHeaders(request, uri);
 
@@ -115,6 +133,9 @@ public class JettyHttp3Client extends HttpClient {
       // Open a Stream by sending the HEADERS frame.
       return session.newRequest(headersFrame, responseListener);
     });
+    if (!hasBody(request)) {
+      streamCF.thenRun(() -> timing.phaseDone(Phase.REQUEST));
+    }
 
     // Set request body
     //TODO: do this in async chain
@@ -0,0 +1,50 @@
+package milkman.ui.plugin.rest;
+
+import milkman.ui.plugin.rest.HttpClientRegistry.ClientKey;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientRegistryTest {
+
+	@Test
+	void shouldReuseClientForSameOptions() {
+		var registry = new HttpClientRegistry();
+		var created = new AtomicInteger();
+		var key = new ClientKey(null, null, null, false, true, false);
+
+		var first = registry.acquire(key, k -> newClient(created));
+		first.release();
+		var second = registry.acquire(new ClientKey(null, null, null, false, true, false), k -> newClient(created));
+
+		assertThat(created.get()).isEqualTo(1);
+		assertThat(second.getClient()).isSameAs(first.getClient());
+		assertThat(second.isReused()).isTrue();
+		assertThat(registry.getStatistics(second))
+				.containsEntry("Pool hits", "1")
+				.containsEntry("Pool misses", "1")
+				.containsEntry("Active requests", "1");
+	}
+
+	@Test
+	void shouldCreateNewClientAfterInvalidation() {
+		var registry = new HttpClientRegistry();
+		var created = new AtomicInteger();
+		var key = new ClientKey(null, null, null, false, true, false);
+
+		var first = registry.acquire(key, k -> newClient(created));
+		registry.invalidateAll();
+		var second = registry.acquire(key, k -> newClient(created));
+
+		assertThat(created.get()).isEqualTo(2);
+		assertThat(second.getClient()).isNotSameAs(first.getClient());
+	}
+
+	private HttpClient newClient(AtomicInteger created) {
+		created.incrementAndGet();
+		return HttpClient.newHttpClient();
+	}
+}
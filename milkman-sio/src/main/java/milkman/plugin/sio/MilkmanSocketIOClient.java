@@ -46,7 +46,7 @@ public class MilkmanSocketIOClient {
 		asyncControl.onCancellationRequested.add(() -> client.disconnect());
 	}
 
-	private SocketIoClientBuilder getSocketIoClientBuilder(SocketIoVersion version) {
+	static SocketIoClientBuilder getSocketIoClientBuilder(SocketIoVersion version) {
 		// based on compatibility matrix:
 		// https://github.com/socketio/socket.io-client-java#compatibility
 		switch (version) {
@@ -0,0 +1,387 @@
+package milkman.plugin.sio;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.Buffer;
+import okio.ByteString;
+import okio.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * transport shared by all socket.io connections of all protocol versions.
+ *
+ * The shaded clients talk to the server via OkHttp, which needs a thread per open websocket (and per pending poll).
+ * This transport implements the OkHttp factories the clients use on top of one non-blocking {@link HttpClient}
+ * with a small, fixed thread pool, so the number of threads stays the same no matter how many connections are open.
+ */
+@Slf4j
+class SharedSocketIoTransport implements WebSocket.Factory, Call.Factory {
+
+    private static final SharedSocketIoTransport INSTANCE = new SharedSocketIoTransport();
+
+    //set by the http client itself, can not be overridden
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade",
+            "sec-websocket-accept", "sec-websocket-extensions", "sec-websocket-key",
+            "sec-websocket-protocol", "sec-websocket-version");
+
+    private final HttpClient httpClient;
+
+    private SharedSocketIoTransport() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "socket.io-transport-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(20))
+                .executor(executor)
+                .build();
+    }
+
+    static SharedSocketIoTransport instance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public WebSocket newWebSocket(Request request, WebSocketListener listener) {
+        var webSocket = new WebSocketAdapter(request, listener);
+        webSocket.connect();
+        return webSocket;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        return new PollingCall(request);
+    }
+
+    private static void copyHeaders(Request request, BiConsumer<String, String> target) {
+        Headers headers = request.headers();
+        for (int i = 0; i < headers.size(); i++) {
+            if (!RESTRICTED_HEADERS.contains(headers.name(i).toLowerCase())) {
+                target.accept(headers.name(i), headers.value(i));
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+
+    /**
+     * an OkHttp websocket, backed by a websocket of the shared http client. Sends are queued, as the
+     * http client only allows one outstanding send per websocket.
+     */
+    private class WebSocketAdapter implements WebSocket, java.net.http.WebSocket.Listener {
+        private final Request request;
+        private final WebSocketListener listener;
+        private final AtomicLong queueSize = new AtomicLong();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private final StringBuilder textMessage = new StringBuilder();
+        private final ByteArrayOutputStream binaryMessage = new ByteArrayOutputStream();
+
+        private CompletableFuture<java.net.http.WebSocket> connected;
+        private CompletableFuture<java.net.http.WebSocket> lastSend;
+        private volatile boolean closing = false;
+
+        WebSocketAdapter(Request request, WebSocketListener listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+
+        synchronized void connect() {
+            var builder = httpClient.newWebSocketBuilder();
+            copyHeaders(request, builder::header);
+            //okhttp represents ws urls as http urls
+            URI uri = URI.create(request.url().uri().toString().replaceFirst("^http", "ws"));
+            connected = builder.buildAsync(uri, this);
+            lastSend = connected;
+            connected.whenComplete((ws, e) -> {
+                if (e != null) {
+                    fail(e);
+                }
+            });
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public long queueSize() {
+            return queueSize.get();
+        }
+
+        @Override
+        public boolean send(String text) {
+            return enqueue(text.length(), ws -> ws.sendText(text, true));
+        }
+
+        @Override
+        public boolean send(ByteString bytes) {
+            return enqueue(bytes.size(), ws -> ws.sendBinary(ByteBuffer.wrap(bytes.toByteArray()), true));
+        }
+
+        @Override
+        public boolean close(int code, String reason) {
+            boolean accepted = enqueue(0, ws -> ws.sendClose(code, reason == null ? "" : reason));
+            closing = true;
+            return accepted;
+        }
+
+        @Override
+        public void cancel() {
+            closing = true;
+            connected.thenAccept(java.net.http.WebSocket::abort);
+        }
+
+        private synchronized boolean enqueue(long size, Function<java.net.http.WebSocket, CompletableFuture<java.net.http.WebSocket>> send) {
+            if (closing || terminated.get()) {
+                return false;
+            }
+            queueSize.addAndGet(size);
+            lastSend = lastSend.thenCompose(send);
+            lastSend.whenComplete((ws, e) -> {
+                queueSize.addAndGet(-size);
+                if (e != null) {
+                    fail(e);
+                }
+            });
+            return true;
+        }
+
+        private void fail(Throwable error) {
+            //a failed send fails all queued sends, the listener is only notified once and not after the websocket was closed
+            if (terminated.compareAndSet(false, true)) {
+                listener.onFailure(this, unwrap(error), null);
+            }
+        }
+
+        @Override
+        public void onOpen(java.net.http.WebSocket webSocket) {
+            Response response = new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(101)
+                    .message("Switching Protocols")
+                    .build();
+            listener.onOpen(this, response);
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(java.net.http.WebSocket webSocket, CharSequence data, boolean last) {
+            textMessage.append(data);
+            if (last) {
+                String message = textMessage.toString();
+                textMessage.setLength(0);
+                listener.onMessage(this, message);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(java.net.http.WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            binaryMessage.write(bytes, 0, bytes.length);
+            if (last) {
+                ByteString message = ByteString.of(binaryMessage.toByteArray());
+                binaryMessage.reset();
+                listener.onMessage(this, message);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(java.net.http.WebSocket webSocket, int statusCode, String reason) {
+            //the close message is answered by the http client once this method returns
+            closing = true;
+            terminated.set(true);
+            listener.onClosing(this, statusCode, reason);
+            listener.onClosed(this, statusCode, reason);
+            return null;
+        }
+
+        @Override
+        public void onError(java.net.http.WebSocket webSocket, Throwable error) {
+            fail(error);
+        }
+    }
+
+
+    /**
+     * an OkHttp call, executed by the shared http client. Used by the polling transport of socket.io.
+     */
+    private class PollingCall implements Call {
+        private final Request request;
+        private volatile CompletableFuture<?> pending;
+        private volatile boolean executed = false;
+        private volatile boolean canceled = false;
+
+        PollingCall(Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            markExecuted();
+            try {
+                return toResponse(httpClient.send(toHttpRequest(), BodyHandlers.ofByteArray()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Request interrupted");
+            }
+        }
+
+        @Override
+        public void enqueue(Callback callback) {
+            markExecuted();
+            HttpRequest httpRequest;
+            try {
+                httpRequest = toHttpRequest();
+            } catch (IOException e) {
+                callback.onFailure(this, e);
+                return;
+            }
+            //the request itself is kept, so cancel() aborts it instead of a dependent stage
+            var exchange = httpClient.sendAsync(httpRequest, BodyHandlers.ofByteArray());
+            pending = exchange;
+            if (canceled) {
+                exchange.cancel(true);
+            }
+            exchange.whenComplete((response, error) -> {
+                if (error != null || canceled) {
+                    callback.onFailure(this, toIOException(error));
+                    return;
+                }
+                try {
+                    callback.onResponse(this, toResponse(response));
+                } catch (IOException e) {
+                    log.debug("Failed to handle socket.io polling response", e);
+                }
+            });
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            if (pending != null) {
+                pending.cancel(true);
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public Call clone() {
+            return new PollingCall(request);
+        }
+
+        private synchronized void markExecuted() {
+            if (executed) {
+                throw new IllegalStateException("Already Executed");
+            }
+            executed = true;
+        }
+
+        /**
+         * okhttp reports all failures as IOException, a canceled call fails with "Canceled"
+         */
+        private IOException toIOException(Throwable error) {
+            Throwable cause = error == null ? null : unwrap(error);
+            if (canceled) {
+                return new IOException("Canceled", cause);
+            }
+            return cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        }
+
+        private HttpRequest toHttpRequest() throws IOException {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(request.url().uri());
+            copyHeaders(request, builder::header);
+            RequestBody body = request.body();
+            if (body == null) {
+                builder.method(request.method(), BodyPublishers.noBody());
+            } else {
+                Buffer buffer = new Buffer();
+                body.writeTo(buffer);
+                if (body.contentType() != null && request.header("Content-Type") == null) {
+                    builder.header("Content-Type", body.contentType().toString());
+                }
+                builder.method(request.method(), BodyPublishers.ofByteArray(buffer.readByteArray()));
+            }
+            return builder.build();
+        }
+
+        private Response toResponse(HttpResponse<byte[]> response) {
+            Headers.Builder headers = new Headers.Builder();
+            response.headers().map().forEach((name, values) -> values.forEach(value -> headers.add(name, value)));
+            MediaType contentType = response.headers().firstValue("Content-Type").map(MediaType::parse).orElse(null);
+            return new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(response.statusCode())
+                    .message("")
+                    .headers(headers.build())
+                    .body(ResponseBody.create(contentType, response.body()))
+                    .build();
+        }
+    }
+}
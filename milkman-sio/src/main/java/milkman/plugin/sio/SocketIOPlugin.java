@@ -18,6 +18,8 @@ import java.util.List;
 
 public class SocketIOPlugin implements RequestAspectsPlugin, RequestTypePlugin {
 
+	private static final String SOAK_TEST_COMMAND = "SOAK_TEST";
+
 	SocketIOProcessor requestProcessor = new SocketIOProcessor();
 	
 	@Override
@@ -81,6 +83,19 @@ public class SocketIOPlugin implements RequestAspectsPlugin, RequestTypePlugin {
 		return requestProcessor.executeRequest((SocketIORequestContainer) request, templater, asyncControl);
 
 	}
+
+	@Override
+	public List<CustomCommand> getCustomCommands() {
+		return List.of(new CustomCommand(SOAK_TEST_COMMAND, "Soak Test"));
+	}
+
+	@Override
+	public ResponseContainer executeCustomCommandAsync(String commandId, RequestContainer request, Templater templater, AsyncControl asyncControl) {
+		if (!SOAK_TEST_COMMAND.equals(commandId)) {
+			throw new IllegalArgumentException("Unsupported custom command: " + commandId);
+		}
+		return requestProcessor.executeSoakTest((SocketIORequestContainer) request, templater, asyncControl);
+	}
 	
 	@Override
 	public String getRequestType() {
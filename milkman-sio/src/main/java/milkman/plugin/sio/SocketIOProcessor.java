@@ -1,19 +1,23 @@
 package milkman.plugin.sio;
 
 import milkman.domain.ResponseContainer;
+import milkman.plugin.sio.domain.SocketIOAspect;
 import milkman.plugin.sio.domain.SocketIORequestContainer;
 import milkman.plugin.sio.domain.SocketIOResponseAspect;
 import milkman.plugin.sio.domain.SocketIoSettingsAspect;
+import milkman.ui.main.options.LoadTestOptionsProvider;
 import milkman.ui.plugin.Templater;
 import milkman.ui.plugin.rest.domain.HeaderEntry;
 import milkman.ui.plugin.rest.domain.RestHeaderAspect;
 import milkman.ui.plugin.rest.domain.RestResponseBodyAspect;
 import milkman.ui.plugin.rest.domain.RestResponseContainer;
 import milkman.utils.AsyncResponseControl.AsyncControl;
+import milkman.utils.SoakTest;
 import reactor.core.publisher.ReplayProcessor;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class SocketIOProcessor {
@@ -23,9 +27,7 @@ public class SocketIOProcessor {
 		var settings = request.getAspect(SocketIoSettingsAspect.class).get();
 		var url = templater.replaceTags(request.getUrl());
 
-		var headers = request.getAspect(RestHeaderAspect.class).get().getEntries().stream()
-			.filter(HeaderEntry::isEnabled)
-			.collect(Collectors.toMap(h -> templater.replaceTags(h.getName()), h -> List.of(templater.replaceTags(h.getValue()))));
+		var headers = getHeaders(request, templater);
 
 		var emitter = ReplayProcessor.<byte[]>create();
 
@@ -44,4 +46,31 @@ public class SocketIOProcessor {
 		response.getAspects().add(new SocketIOResponseAspect(client));
 		return response;
 	}
+
+	/**
+	 * emits the messages of the request on several connections, the message script consists of messages separated by empty lines
+	 */
+	public ResponseContainer executeSoakTest(SocketIORequestContainer request, Templater templater, AsyncControl asyncControl) {
+		var settings = request.getAspect(SocketIoSettingsAspect.class).get();
+		var sioAspect = request.getAspect(SocketIOAspect.class).get();
+		var url = templater.replaceTags(request.getUrl());
+
+		var connector = new SocketIoSoakConnector(URI.create(url),
+				settings.getHandshakePath(),
+				settings.getClientVersion(),
+				getHeaders(request, templater),
+				templater.replaceTags(sioAspect.getEvent()));
+		var soakTest = new SoakTest(connector, LoadTestOptionsProvider.options().toSoakProfile(), SoakTest.parseScript(sioAspect.getMessage()), templater);
+
+		asyncControl.triggerReqeuestStarted();
+		var response = new RestResponseContainer(url);
+		soakTest.start(response.getStatusInformations(), asyncControl);
+		return response;
+	}
+
+	private Map<String, List<String>> getHeaders(SocketIORequestContainer request, Templater templater) {
+		return request.getAspect(RestHeaderAspect.class).get().getEntries().stream()
+			.filter(HeaderEntry::isEnabled)
+			.collect(Collectors.toMap(h -> templater.replaceTags(h.getName()), h -> List.of(templater.replaceTags(h.getValue()))));
+	}
 }
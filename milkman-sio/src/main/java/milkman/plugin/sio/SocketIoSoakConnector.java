@@ -0,0 +1,65 @@
+package milkman.plugin.sio;
+
+import lombok.RequiredArgsConstructor;
+import milkman.plugin.sio.domain.SocketIoVersion;
+import milkman.utils.SoakTest.Connection;
+import milkman.utils.SoakTest.ConnectionListener;
+import milkman.utils.SoakTest.Connector;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * opens socket.io connections for a soak test. Messages are emitted as the given event, acknowledgements
+ * and all received events count as responses.
+ */
+@RequiredArgsConstructor
+class SocketIoSoakConnector implements Connector {
+
+	private final URI serverUri;
+	private final String handshakePath;
+	private final SocketIoVersion version;
+	private final Map<String, List<String>> headers;
+	private final String event;
+
+	@Override
+	public CompletableFuture<Connection> connect(ConnectionListener listener) {
+		CompletableFuture<Connection> connected = new CompletableFuture<>();
+		AtomicReference<SocketIoClient> client = new AtomicReference<>();
+		Connection connection = new Connection() {
+			@Override
+			public void send(String message) {
+				client.get().emit(event, message, listener::onMessage);
+			}
+
+			@Override
+			public void close() {
+				client.get().disconnect();
+			}
+		};
+
+		client.set(MilkmanSocketIOClient.getSocketIoClientBuilder(version)
+				.serverUri(serverUri)
+				.handshakePath(handshakePath)
+				.headers(headers)
+				.onConnect(() -> connected.complete(connection))
+				.onDisconnect(() -> {
+					if (!connected.completeExceptionally(new IOException("Disconnected before connection was established"))) {
+						listener.onClosed(null);
+					}
+				})
+				.onConnectError(err -> {
+					if (!connected.completeExceptionally(new IOException(err))) {
+						listener.onClosed(new IOException(err));
+					}
+				})
+				.onEventMessage((evt, msg) -> listener.onMessage(msg))
+				.build());
+		client.get().connect();
+		return connected;
+	}
+}
@@ -6,16 +6,10 @@ import lombok.RequiredArgsConstructor;
 import milkman.sio.shaded.v09.client.IO;
 import milkman.sio.shaded.v09.client.IO.Options;
 import milkman.sio.shaded.v09.client.Socket;
-import okhttp3.Dispatcher;
-import okhttp3.OkHttpClient;
-import okhttp3.internal.Util;
 
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -62,7 +56,7 @@ public class SocketIoV09Client implements SocketIoClient {
             options.path = handshakePath;
         }
 
-        initializeOkHttpClientForSocketIo();
+        useSharedTransport();
 
         Socket socket = IO.socket(serverUri, options);
         socket
@@ -83,13 +77,9 @@ public class SocketIoV09Client implements SocketIoClient {
 
     }
 
-    private static void initializeOkHttpClientForSocketIo() {
-        //a client that has an executor with 0 keepAliveTime
-        OkHttpClient client = new OkHttpClient().newBuilder()
-                .dispatcher(new Dispatcher(new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS,
-                        new SynchronousQueue<Runnable>(), Util.threadFactory("OkHttp Dispatcher", false))))
-                .build();
-        IO.setDefaultOkHttpCallFactory(client);
-        IO.setDefaultOkHttpWebSocketFactory(client);
+    private static void useSharedTransport() {
+        //all connections share the transport instead of creating a client with own threads per connection
+        IO.setDefaultOkHttpCallFactory(SharedSocketIoTransport.instance());
+        IO.setDefaultOkHttpWebSocketFactory(SharedSocketIoTransport.instance());
     }
 }
@@ -0,0 +1,311 @@
+package milkman.plugin.sio;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SharedSocketIoTransportTest {
+
+    private final SharedSocketIoTransport sut = SharedSocketIoTransport.instance();
+
+    private LocalWebSocketServer wsServer;
+    private HttpServer httpServer;
+
+    @AfterEach
+    void stopServers() throws InterruptedException {
+        if (wsServer != null) {
+            wsServer.stop(1000);
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    @Test
+    void shouldReassembleFragmentedMessages() throws Exception {
+        startWebSocketServer();
+        var events = new RecordingListener();
+        sut.newWebSocket(wsRequest(), events);
+        var connection = wsServer.opened.get(5, TimeUnit.SECONDS);
+        assertThat(events.next()).isEqualTo("open");
+
+        connection.sendFragmentedFrame(Opcode.TEXT, utf8("Hel"), false);
+        connection.sendFragmentedFrame(Opcode.TEXT, utf8("lo"), true);
+        connection.sendFragmentedFrame(Opcode.BINARY, ByteBuffer.wrap(new byte[]{1, 2}), false);
+        connection.sendFragmentedFrame(Opcode.BINARY, ByteBuffer.wrap(new byte[]{3}), true);
+        connection.send("next");
+
+        assertThat(events.next()).isEqualTo("message Hello");
+        assertThat(events.next()).isEqualTo("binary 010203");
+        assertThat(events.next()).isEqualTo("message next");
+    }
+
+    @Test
+    void shouldDeliverQueuedSendsInOrder() throws Exception {
+        startWebSocketServer();
+        var events = new RecordingListener();
+        //sends are queued until the connection is established
+        var webSocket = sut.newWebSocket(wsRequest(), events);
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sent.add("message " + i);
+            assertThat(webSocket.send("message " + i)).isTrue();
+        }
+
+        List<String> received = new ArrayList<>();
+        for (int i = 0; i < sent.size(); i++) {
+            received.add(wsServer.received.poll(5, TimeUnit.SECONDS));
+        }
+
+        assertThat(received).isEqualTo(sent);
+        assertThat(webSocket.queueSize()).isZero();
+        assertThat(events.next()).isEqualTo("open");
+    }
+
+    @Test
+    void shouldCloseAfterQueuedSends() throws Exception {
+        startWebSocketServer();
+        var events = new RecordingListener();
+        var webSocket = sut.newWebSocket(wsRequest(), events);
+        webSocket.send("first");
+        webSocket.send("second");
+
+        assertThat(webSocket.close(1000, "bye")).isTrue();
+        assertThat(webSocket.send("after close")).isFalse();
+
+        assertThat(wsServer.received.poll(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(wsServer.received.poll(5, TimeUnit.SECONDS)).isEqualTo("second");
+        assertThat(wsServer.closeCode.get(5, TimeUnit.SECONDS)).isEqualTo(1000);
+        assertThat(events.next()).isEqualTo("open");
+        assertThat(events.next()).isEqualTo("closing 1000");
+        assertThat(events.next()).isEqualTo("closed 1000");
+        assertThat(wsServer.received).isEmpty();
+    }
+
+    @Test
+    void shouldAbortConnectionOnCancel() throws Exception {
+        startWebSocketServer();
+        var events = new RecordingListener();
+        var webSocket = sut.newWebSocket(wsRequest(), events);
+        assertThat(events.next()).isEqualTo("open");
+
+        webSocket.cancel();
+
+        assertThat(webSocket.send("after cancel")).isFalse();
+        assertThat(webSocket.close(1000, "bye")).isFalse();
+        assertThat(wsServer.closeCode.get(5, TimeUnit.SECONDS)).isNotEqualTo(1000);
+        assertThat(wsServer.received).isEmpty();
+    }
+
+    @Test
+    void shouldReportFailedHandshakeOnce() throws Exception {
+        var events = new RecordingListener();
+        var webSocket = sut.newWebSocket(new Request.Builder().url("http://localhost:" + unusedPort() + "/").build(), events);
+
+        assertThat(events.next()).startsWith("failure ");
+        assertThat(webSocket.send("message")).isFalse();
+        assertThat(events.events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void shouldMapPollingResponses() throws Exception {
+        startHttpServer(exchange -> {
+            byte[] body = "boom".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(500, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        var result = new CompletableFuture<Response>();
+
+        sut.newCall(httpRequest()).enqueue(callback(result));
+
+        Response response = result.get(5, TimeUnit.SECONDS);
+        assertThat(response.code()).isEqualTo(500);
+        assertThat(response.header("Content-Type")).isEqualTo("text/plain");
+        assertThat(response.body().string()).isEqualTo("boom");
+    }
+
+    @Test
+    void shouldMapConnectionErrorsToIOException() throws Exception {
+        var result = new CompletableFuture<Response>();
+        Call call = sut.newCall(new Request.Builder().url("http://localhost:" + unusedPort() + "/").build());
+
+        call.enqueue(callback(result));
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IOException.class);
+        assertThatThrownBy(() -> call.execute()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldFailCanceledPolls() throws Exception {
+        var release = new CountDownLatch(1);
+        startHttpServer(exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        var result = new CompletableFuture<Response>();
+        Call call = sut.newCall(httpRequest());
+
+        call.enqueue(callback(result));
+        call.cancel();
+        release.countDown();
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("Canceled");
+        assertThat(call.isCanceled()).isTrue();
+    }
+
+    private void startWebSocketServer() throws Exception {
+        wsServer = new LocalWebSocketServer();
+        wsServer.start();
+        wsServer.started.get(5, TimeUnit.SECONDS);
+    }
+
+    private void startHttpServer(com.sun.net.httpserver.HttpHandler handler) throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", handler);
+        httpServer.start();
+    }
+
+    private Request wsRequest() {
+        return new Request.Builder().url("ws://localhost:" + wsServer.getPort() + "/").build();
+    }
+
+    private Request httpRequest() {
+        return new Request.Builder().url("http://localhost:" + httpServer.getAddress().getPort() + "/").build();
+    }
+
+    private static int unusedPort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Callback callback(CompletableFuture<Response> result) {
+        return new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                result.complete(response);
+            }
+        };
+    }
+
+    /**
+     * records the callbacks of the transport as strings
+     */
+    private static class RecordingListener extends WebSocketListener {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        String next() throws InterruptedException {
+            return events.poll(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            events.add("open");
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            events.add("message " + text);
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, ByteString bytes) {
+            events.add("binary " + bytes.hex());
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            events.add("closing " + code);
+        }
+
+        @Override
+        public void onClosed(WebSocket webSocket, int code, String reason) {
+            events.add("closed " + code);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            events.add("failure " + t.getClass().getSimpleName());
+        }
+    }
+
+    private static class LocalWebSocketServer extends WebSocketServer {
+        private final CompletableFuture<Void> started = new CompletableFuture<>();
+        private final CompletableFuture<org.java_websocket.WebSocket> opened = new CompletableFuture<>();
+        private final CompletableFuture<Integer> closeCode = new CompletableFuture<>();
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        LocalWebSocketServer() {
+            super(new InetSocketAddress("localhost", 0));
+        }
+
+        @Override
+        public void onStart() {
+            started.complete(null);
+        }
+
+        @Override
+        public void onOpen(org.java_websocket.WebSocket conn, ClientHandshake handshake) {
+            opened.complete(conn);
+        }
+
+        @Override
+        public void onMessage(org.java_websocket.WebSocket conn, String message) {
+            received.add(message);
+        }
+
+        @Override
+        public void onClose(org.java_websocket.WebSocket conn, int code, String reason, boolean remote) {
+            closeCode.complete(code);
+        }
+
+        @Override
+        public void onError(org.java_websocket.WebSocket conn, Exception ex) {
+            started.completeExceptionally(ex);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package milkman.plugin.test;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import milkman.domain.Environment;
+import milkman.domain.Environment.EnvironmentEntry;
 import milkman.domain.RequestContainer;
 import milkman.domain.ResponseContainer;
 import milkman.plugin.test.domain.*;
@@ -10,9 +12,9 @@ import milkman.plugin.test.domain.TestAspect.TestDetails;
 import milkman.plugin.test.domain.TestResultAspect.TestResultEvent;
 import milkman.ui.plugin.PluginRequestExecutor;
 import milkman.ui.plugin.Templater;
+import milkman.utils.AsyncResponseControl;
 import milkman.utils.AsyncResponseControl.AsyncControl;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.ReplayProcessor;
 import reactor.core.scheduler.Schedulers;
@@ -21,7 +23,11 @@ import reactor.util.function.Tuples;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import static milkman.domain.ResponseContainer.StyledText;
@@ -45,11 +51,13 @@ public class TestRunner {
 		asyncControl.triggerReqeuestStarted();
 
 
+		int parallelism = Math.max(1, testAspect.getParallelism());
+
 		var replay = ReplayProcessor.<TestResultEvent>create();
 		Flux<TestResultEvent> resultFlux = Flux.<TestResultEvent>create(sink -> {
-			var subscription = Flux.fromIterable(testAspect.getRequests())
+			var steps = Flux.fromIterable(testAspect.getRequests())
 					.index()
-					.flatMap(tuple -> {
+					.concatMap(tuple -> {
 						var requestId = tuple.getT1();
 						var testDetails = tuple.getT2();
 						return Mono.defer(() ->
@@ -57,27 +65,18 @@ public class TestRunner {
 										.map(r -> Tuples.of(requestId, testDetails, r))))
 								.repeat(testDetails.getRepeat());
 					})
-					.filter(t -> {
-						var requestId = t.getT1();
-						var testDetails = t.getT2();
-						var requestContainer = t.getT3();
-						if (testDetails.isSkip()){
-							sink.next(new TestResultEvent(requestId.toString(), requestContainer.getName(), SKIPPED, Map.of()));
-						}
-						return !testDetails.isSkip();
-					})
-					.doOnNext(tuple -> {
-						var requestId = tuple.getT1();
-						var requestContainer = tuple.getT3();
-						sink.next(new TestResultEvent(requestId.toString(), requestContainer.getName(), STARTED, Map.of()));
-					})
-					.flatMap(tuple -> execute(tuple, testEnvironment, sink, asyncControl))
-					.flatMap(testSuccess -> {
-						if (!testSuccess && testAspect.isStopOnFirstFailure()) {
-							return Mono.error(new RuntimeException("Test failed"));
-						}
-						return Mono.empty();
-					})
+					.collectList()
+					.flatMapIterable(TestRunner::splitAtBarriers)
+					//segments are executed one after another, steps within a segment concurrently.
+					//flatMapSequential emits the events of the steps in the order of the steps, regardless of which one finishes first
+					.concatMap(segment -> Flux.fromIterable(segment)
+							.flatMapSequential(step -> executeStep(step, testEnvironment), parallelism))
+					//the failure is only seen once all previous steps finished and their events were emitted.
+					//stopping here cancels the following steps that are still running
+					.takeUntil(event -> event.getResultState() == FAILED && testAspect.isStopOnFirstFailure());
+
+			var subscription = steps
+					.doOnNext(sink::next)
 //				.switchIfEmpty(Mono.defer(() -> {
 //					log.error("Request could not be found");
 //					return Mono.just(new TestResultEvent("", "", TestResultAspect.TestResultState.EXCEPTION));
@@ -111,26 +110,67 @@ public class TestRunner {
 		return environment;
 	}
 
-	private Mono<Boolean> execute(
+	/**
+	 * splits the steps into segments that can be executed concurrently. A barrier step always forms its own segment.
+	 */
+	static <T extends Tuple3<?, TestDetails, ?>> List<List<T>> splitAtBarriers(List<T> steps) {
+		List<List<T>> segments = new LinkedList<>();
+		List<T> currentSegment = new LinkedList<>();
+		for (T step : steps) {
+			if (step.getT2().isBarrier()) {
+				if (!currentSegment.isEmpty()) {
+					segments.add(currentSegment);
+					currentSegment = new LinkedList<>();
+				}
+				segments.add(List.of(step));
+			} else {
+				currentSegment.add(step);
+			}
+		}
+		if (!currentSegment.isEmpty()) {
+			segments.add(currentSegment);
+		}
+		return segments;
+	}
+
+	private Flux<TestResultEvent> executeStep(Tuple3<Long, TestDetails, RequestContainer> step, Environment overrideEnv) {
+		var requestId = step.getT1().toString();
+		var requestContainer = step.getT3();
+		if (step.getT2().isSkip()) {
+			return Flux.just(new TestResultEvent(requestId, requestContainer.getName(), SKIPPED, Map.of()));
+		}
+		return Flux.concat(
+				Mono.fromCallable(() -> new TestResultEvent(requestId, requestContainer.getName(), STARTED, Map.of())),
+				execute(step, overrideEnv).subscribeOn(Schedulers.elastic()));
+	}
+
+	private Mono<TestResultEvent> execute(
 			Tuple3<Long, TestDetails, RequestContainer> request,
-			Environment overrideEnv,
-			FluxSink<TestResultEvent> replay,
-			AsyncControl asyncControl) {
+			Environment overrideEnv) {
 		var testDetails = request.getT2();
 		var retryDelay = Duration.ofMillis(testDetails.getWaitBetweenRetriesInMs());
-		return Mono.defer(() -> Mono.just(executor.executeRequest(request.getT3(), Optional.of(overrideEnv), asyncControl)))
+		//every step gets its own control, so a single step can be cancelled (e.g. on first failure of another step)
+		var stepControl = new AsyncResponseControl();
+		return Mono.fromCallable(() -> {
+					//concurrent steps must not modify the same environment, changes are merged back once the step is done
+					var stepEnv = new StepEnvironment(overrideEnv);
+					try {
+						return executor.executeRequest(request.getT3(), Optional.of(stepEnv.getEnvironment()), stepControl.getCancellationControl());
+					} finally {
+						stepEnv.mergeChanges();
+					}
+				})
 				.retryWhen(Retry.fixedDelay(testDetails.getRetries(), retryDelay)
 //						.filter(t -> !testDetails.isIgnore()) // might be wanted behavior: retry on error but ignore result, so we dont use this filter here
 						.scheduler(Schedulers.elastic()))
 				.flatMap(res -> res.getStatusInformations().toMono())
-				.doOnNext(si -> replay.next(new TestResultEvent(request.getT1().toString(), request.getT3().getName(), SUCCEEDED, si)))
-				.then(Mono.just(true))
+				.map(si -> new TestResultEvent(request.getT1().toString(), request.getT3().getName(), SUCCEEDED, si))
 				.onErrorResume(err -> {
-					var state = testDetails.isIgnore() ? IGNORED : FAILED;
+					var state = testDetails.isIgnore() ? IGNORED : FAILED; //ignored failures do not stop the test
 					var message = getErrorMessage(err);
-					replay.next(new TestResultEvent(request.getT1().toString(), request.getT3().getName(), state, Map.of("exception", new StyledText(message))));
-					return Mono.just(testDetails.isIgnore()); //pretend success, if ignore is true
-				});
+					return Mono.just(new TestResultEvent(request.getT1().toString(), request.getT3().getName(), state, Map.of("exception", new StyledText(message))));
+				})
+				.doOnCancel(stepControl::cancleRequest);
 	}
 
 	private String getErrorMessage(Throwable err) {
@@ -140,4 +180,38 @@ public class TestRunner {
 		}
 		return err.toString();
 	}
+
+	/**
+	 * a copy of the shared environment for a single step, so concurrently running steps do not modify the same entries
+	 */
+	static class StepEnvironment {
+		private final Environment sharedEnvironment;
+		private final Map<String, String> initialValues = new HashMap<>();
+		@Getter
+		private final Environment environment;
+
+		StepEnvironment(Environment sharedEnvironment) {
+			this.sharedEnvironment = sharedEnvironment;
+			environment = new Environment(sharedEnvironment.getName());
+			environment.setActive(sharedEnvironment.isActive());
+			synchronized (sharedEnvironment) {
+				sharedEnvironment.getEntries().forEach(e -> {
+					initialValues.put(e.getName(), e.getValue());
+					environment.getEntries().add(new EnvironmentEntry(e.getId(), e.getName(), e.getValue(), e.isEnabled()));
+				});
+			}
+		}
+
+		/**
+		 * applies the variables set by the step to the shared environment, so following steps can use them.
+		 * Untouched variables are skipped, so values set by other steps in the meantime are kept.
+		 */
+		void mergeChanges() {
+			synchronized (sharedEnvironment) {
+				environment.getEntries().stream()
+						.filter(e -> !initialValues.containsKey(e.getName()) || !Objects.equals(initialValues.get(e.getName()), e.getValue()))
+						.forEach(e -> sharedEnvironment.setOrAdd(e.getName(), e.getValue()));
+			}
+		}
+	}
 }
@@ -15,6 +15,8 @@ public class TestAspect extends RequestAspect {
 	private List<TestDetails> requests = new LinkedList<>();
 	private boolean stopOnFirstFailure = true;
 	private boolean propagateResultEnvironment;
+	//number of test steps that are executed concurrently
+	private int parallelism = 1;
 	private List<EnvironmentEntry> environmentOverride = new LinkedList<>();
 
 	public TestAspect() {
@@ -31,5 +33,7 @@ public class TestAspect extends RequestAspect {
 		private int retries;
 		private int waitBetweenRetriesInMs;
 		private int repeat;
+		//waits for all previous steps and blocks all following steps, even if steps are executed concurrently
+		private boolean barrier;
 	}
 }
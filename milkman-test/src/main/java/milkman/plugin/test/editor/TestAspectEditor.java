@@ -93,7 +93,7 @@ public class TestAspectEditor implements RequestAspectEditor, RequestExecutorAwa
 					&& e.getDragboard().hasContent(JAVA_FORMAT)) {
 				try {
 					var content = deserialize((String) e.getDragboard().getContent(JAVA_FORMAT), RequestContainer.class);
-					requests.add(new TestDetails(content.getId(), false, false, 0, 0, 0));
+					requests.add(new TestDetails(content.getId(), false, false, 0, 0, 0, false));
 					testAspect.setDirty(true);
 					e.setDropCompleted(true);
 				} catch (Exception ex) {
@@ -151,6 +151,17 @@ public class TestAspectEditor implements RequestAspectEditor, RequestExecutorAwa
 		});
 		requestDetails.add(cbIgnore);
 
+		var cbBarrier = new JFXToggleButton();
+		cbBarrier.setText("run in order (barrier)");
+		cbBarrier.setSelected(details.isBarrier());
+		cbBarrier.selectedProperty().addListener((obs, o, n) -> {
+			if (n != null) {
+				details.setBarrier(n);
+				markDirtyRunnable.run();
+			}
+		});
+		requestDetails.add(cbBarrier);
+
 		var retries = new HboxExt();
 		retries.add(new Label("Retries"));
 		var retriesTxt = retries.add(new JFXTextField());
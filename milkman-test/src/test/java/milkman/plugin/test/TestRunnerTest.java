@@ -0,0 +1,244 @@
+package milkman.plugin.test;
+
+import milkman.domain.Environment;
+import milkman.domain.RequestContainer;
+import milkman.domain.ResponseContainer;
+import milkman.plugin.test.domain.TestAspect;
+import milkman.plugin.test.domain.TestAspect.TestDetails;
+import milkman.plugin.test.domain.TestContainer;
+import milkman.plugin.test.domain.TestResultAspect;
+import milkman.plugin.test.domain.TestResultAspect.TestResultEvent;
+import milkman.plugin.test.domain.TestResultEnvAspect;
+import milkman.ui.plugin.PluginRequestExecutor;
+import milkman.utils.AsyncResponseControl;
+import milkman.utils.AsyncResponseControl.AsyncControl;
+import org.junit.jupiter.api.Test;
+import reactor.util.function.Tuple3;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static milkman.plugin.test.domain.TestResultAspect.TestResultState.FAILED;
+import static milkman.plugin.test.domain.TestResultAspect.TestResultState.STARTED;
+import static milkman.plugin.test.domain.TestResultAspect.TestResultState.SUCCEEDED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TestRunnerTest {
+
+    private final FakeExecutor executor = new FakeExecutor();
+
+    @Test
+    void shouldSplitStepsAtBarriers() {
+        var steps = List.of(step("a", true), step("b", false), step("c", false), step("d", true), step("e", true), step("f", false));
+
+        var segments = TestRunner.splitAtBarriers(steps);
+
+        assertThat(segments)
+                .extracting(segment -> segment.stream().map(Tuple3::getT3).collect(Collectors.toList()))
+                .containsExactly(List.of("a"), List.of("b", "c"), List.of("d"), List.of("e"), List.of("f"));
+    }
+
+    @Test
+    void shouldKeepStepsWithoutBarriersInOneSegment() {
+        var steps = List.of(step("a", false), step("b", false));
+
+        assertThat(TestRunner.splitAtBarriers(steps)).hasSize(1);
+        assertThat(TestRunner.splitAtBarriers(List.of())).isEmpty();
+    }
+
+    @Test
+    void shouldEmitResultsInStepOrderWhileRunningConcurrently() {
+        executor.add("slow", 300);
+        executor.add("medium", 200);
+        executor.add("fast", 100);
+
+        var events = run(3, false, details("slow"), details("medium"), details("fast"));
+
+        assertThat(events).filteredOn(e -> e.getResultState() == SUCCEEDED)
+                .extracting(TestResultEvent::getRequestName)
+                .containsExactly("slow", "medium", "fast");
+        assertThat(executor.maxConcurrency.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotRunStepsConcurrentlyAcrossBarriers() {
+        executor.add("a", 100);
+        executor.add("b", 0);
+        executor.add("c", 0);
+        var barrier = details("b");
+        barrier.setBarrier(true);
+
+        run(3, false, details("a"), barrier, details("c"));
+
+        assertThat(executor.log).containsExactly("start a", "end a", "start b", "end b", "start c", "end c");
+        assertThat(executor.maxConcurrency.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStopOnFirstFailure() {
+        executor.addFailing("failing");
+        executor.add("never", 0);
+
+        var events = run(1, true, details("failing"), details("never"));
+
+        assertThat(events).extracting(TestResultEvent::getRequestName, TestResultEvent::getResultState)
+                .containsExactly(tuple("failing", STARTED), tuple("failing", FAILED));
+        assertThat(executor.log).doesNotContain("start never");
+    }
+
+    @Test
+    void shouldFinishEarlierStepsAndCancelLaterStepsOnFirstFailure() throws InterruptedException {
+        executor.add("slow", 300);
+        //fails before the previous step finished
+        executor.addFailing("failing");
+        executor.add("later", 5_000);
+
+        long start = System.nanoTime();
+        var events = run(3, true, details("slow"), details("failing"), details("later"));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        assertThat(events).extracting(TestResultEvent::getRequestName, TestResultEvent::getResultState)
+                .containsExactly(tuple("slow", STARTED), tuple("slow", SUCCEEDED), tuple("failing", STARTED), tuple("failing", FAILED));
+        executor.awaitEnd("later");
+        assertThat(executor.cancelled).containsExactly("later");
+    }
+
+    @Test
+    void shouldGiveEveryStepItsOwnEnvironment() {
+        executor.add("a", 100);
+        executor.add("b", 100);
+        executor.add("c", 0);
+        var barrier = details("c");
+        barrier.setBarrier(true);
+
+        var container = runForContainer(2, false, details("a"), details("b"), barrier);
+        blockForEvents(container);
+
+        assertThat(executor.environmentMismatches).isEmpty();
+        var environment = container.getAspect(TestResultEnvAspect.class).get().getEnvironment();
+        assertThat(valueOf(environment, "result_a")).contains("a");
+        assertThat(valueOf(environment, "result_b")).contains("b");
+        //the step after the barrier sees the variables of the previous steps
+        assertThat(executor.seenByStep.get("c")).containsEntry("result_a", "a").containsEntry("result_b", "b");
+    }
+
+    private List<TestResultEvent> run(int parallelism, boolean stopOnFirstFailure, TestDetails... steps) {
+        return blockForEvents(runForContainer(parallelism, stopOnFirstFailure, steps));
+    }
+
+    private ResponseContainer runForContainer(int parallelism, boolean stopOnFirstFailure, TestDetails... steps) {
+        var aspect = new TestAspect();
+        aspect.setParallelism(parallelism);
+        aspect.setStopOnFirstFailure(stopOnFirstFailure);
+        aspect.getRequests().addAll(List.of(steps));
+        var test = new TestContainer("test");
+        test.addAspect(aspect);
+        AsyncControl control = new AsyncResponseControl().getCancellationControl();
+        return new TestRunner(executor).executeRequest(test, null, control);
+    }
+
+    private static List<TestResultEvent> blockForEvents(ResponseContainer container) {
+        return container.getAspect(TestResultAspect.class).get().getResults()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static Optional<String> valueOf(Environment environment, String name) {
+        return environment.getEntries().stream()
+                .filter(e -> e.getName().equals(name))
+                .map(Environment.EnvironmentEntry::getValue)
+                .findAny();
+    }
+
+    private static TestDetails details(String requestId) {
+        return new TestDetails(requestId, false, false, 0, 0, 0, false);
+    }
+
+    private static Tuple3<Long, TestDetails, String> step(String name, boolean barrier) {
+        var details = details(name);
+        details.setBarrier(barrier);
+        return Tuples.of(0L, details, name);
+    }
+
+    /**
+     * executes requests by sleeping, records the order of execution and the environment seen by each request
+     */
+    private static class FakeExecutor implements PluginRequestExecutor {
+        private final Map<String, RequestContainer> requests = new ConcurrentHashMap<>();
+        private final Map<String, Integer> delays = new ConcurrentHashMap<>();
+        private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> cancelled = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> environmentMismatches = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, Map<String, String>> seenByStep = new ConcurrentHashMap<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrency = new AtomicInteger();
+
+        void add(String name, int delayInMs) {
+            requests.put(name, new TestContainer(name));
+            delays.put(name, delayInMs);
+        }
+
+        void addFailing(String name) {
+            add(name, -1);
+        }
+
+        void awaitEnd(String name) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!log.contains("end " + name) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        @Override
+        public Optional<RequestContainer> getDetails(String requestId) {
+            return Optional.ofNullable(requests.get(requestId));
+        }
+
+        @Override
+        public ResponseContainer executeRequest(RequestContainer request, Optional<Environment> environmentOverride, AsyncControl asyncControl) {
+            var name = request.getName();
+            var environment = environmentOverride.get();
+            seenByStep.put(name, environment.getEntries().stream()
+                    .collect(Collectors.toMap(Environment.EnvironmentEntry::getName, Environment.EnvironmentEntry::getValue)));
+            maxConcurrency.accumulateAndGet(running.incrementAndGet(), Math::max);
+            log.add("start " + name);
+            try {
+                int delay = delays.get(name);
+                if (delay < 0) {
+                    throw new IllegalStateException("request failed");
+                }
+                environment.setOrAdd("step", name);
+                var cancellation = new CountDownLatch(1);
+                //recorded right away, as the thread of a cancelled step might be interrupted as well
+                asyncControl.onCancellationRequested.add(() -> {
+                    cancelled.add(name);
+                    cancellation.countDown();
+                });
+                cancellation.await(delay, TimeUnit.MILLISECONDS);
+                if (!valueOf(environment, "step").equals(Optional.of(name))) {
+                    environmentMismatches.add(name);
+                }
+                environment.setOrAdd("result_" + name, name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                log.add("end " + name);
+                running.decrementAndGet();
+            }
+            var response = new ResponseContainer() {};
+            response.getStatusInformations().complete(Map.of());
+            return response;
+        }
+    }
+}
@@ -1,23 +1,27 @@
 package milkman.plugin.ws;
 
+import milkman.plugin.ws.domain.WebsocketMessage.Direction;
+import milkman.plugin.ws.domain.WebsocketMessageLog;
 import milkman.utils.AsyncResponseControl.AsyncControl;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.enums.Opcode;
 import org.java_websocket.handshake.ServerHandshake;
-import org.reactivestreams.Subscriber;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public class MilkmanWebsocketClient extends WebSocketClient {
 
-	private final Subscriber<byte[]> responseSubscriber;
+	private final WebsocketMessageLog messageLog;
 	private final AsyncControl asyncControl;
 
 
 	public MilkmanWebsocketClient(URI serverUri,
-								  Subscriber<byte[]> responseSubscriber,
+								  WebsocketMessageLog messageLog,
 								  AsyncControl asyncControl) {
 		super(serverUri);
-		this.responseSubscriber = responseSubscriber;
+		this.messageLog = messageLog;
 		this.asyncControl = asyncControl;
 		asyncControl.onCancellationRequested.add(() -> close());
 	}
@@ -29,26 +33,48 @@ public class MilkmanWebsocketClient extends WebSocketClient {
 
 	@Override
 	public void send(String message) {
-		String msg = "SENT: \n" + message + "\n\n";
-		responseSubscriber.onNext(msg.getBytes());
+		messageLog.record(Direction.SENT, Opcode.TEXT, message.getBytes(StandardCharsets.UTF_8));
 		super.send(message);
 	}
 
+	@Override
+	public void send(byte[] data) {
+		messageLog.record(Direction.SENT, Opcode.BINARY, data);
+		super.send(data);
+	}
+
+	@Override
+	public void send(ByteBuffer bytes) {
+		messageLog.record(Direction.SENT, Opcode.BINARY, toArray(bytes));
+		super.send(bytes);
+	}
+
 	@Override
 	public void onMessage(String message) {
-		String msg = "RECEIVED: \n" + message + "\n\n";
-		responseSubscriber.onNext(msg.getBytes());
+		messageLog.record(Direction.RECEIVED, Opcode.TEXT, message.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void onMessage(ByteBuffer bytes) {
+		messageLog.record(Direction.RECEIVED, Opcode.BINARY, toArray(bytes));
 	}
 
 	@Override
 	public void onClose(int code, String reason, boolean remote) {
-		responseSubscriber.onComplete();
+		messageLog.close();
 		asyncControl.triggerRequestSucceeded();
 	}
 
 	@Override
 	public void onError(Exception ex) {
-		responseSubscriber.onError(ex);
+		messageLog.close();
 		asyncControl.triggerRequestFailed(ex);
 	}
+
+	private static byte[] toArray(ByteBuffer bytes) {
+		//the buffer is not consumed, it is still sent or passed on afterwards
+		byte[] array = new byte[bytes.remaining()];
+		bytes.duplicate().get(array);
+		return array;
+	}
 }
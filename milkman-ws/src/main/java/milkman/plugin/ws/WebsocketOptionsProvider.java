@@ -0,0 +1,46 @@
+package milkman.plugin.ws;
+
+import lombok.Data;
+import milkman.ui.main.options.OptionDialogBuilder;
+import milkman.ui.main.options.OptionDialogPane;
+import milkman.ui.plugin.OptionPageProvider;
+import milkman.ui.plugin.OptionsObject;
+
+public class WebsocketOptionsProvider implements OptionPageProvider<WebsocketOptionsProvider.WebsocketOptions> {
+
+	@Data
+	public static class WebsocketOptions implements OptionsObject {
+		private int messageLogSize = 1000;
+		private boolean spillPayloads = false;
+	}
+
+	private static WebsocketOptions currentOptions = new WebsocketOptions();
+	public static WebsocketOptions options() {
+		return currentOptions;
+	}
+
+	@Override
+	public WebsocketOptions getOptions() {
+		return currentOptions;
+	}
+
+	@Override
+	public void setOptions(WebsocketOptions options) {
+		currentOptions = options;
+	}
+
+	@Override
+	public OptionDialogPane getOptionsDialog(OptionDialogBuilder builder) {
+		return builder.page("WebSocket", getOptions())
+				.section("Message Log")
+					.numberInput("Keep last messages", WebsocketOptions::getMessageLogSize, WebsocketOptions::setMessageLogSize)
+					.toggle("Keep payloads in a temporary file", WebsocketOptions::isSpillPayloads, WebsocketOptions::setSpillPayloads)
+				.endSection()
+				.build();
+	}
+
+	@Override
+	public int getOrder() {
+		return 560;
+	}
+}
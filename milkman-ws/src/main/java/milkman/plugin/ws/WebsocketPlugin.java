@@ -6,6 +6,7 @@ import milkman.domain.ResponseContainer;
 import milkman.plugin.ws.domain.WebsocketAspect;
 import milkman.plugin.ws.domain.WebsocketRequestContainer;
 import milkman.plugin.ws.editor.WebSocketAspectEditor;
+import milkman.plugin.ws.editor.WebsocketMessageLogEditor;
 import milkman.plugin.ws.editor.WebsocketRequestEditor;
 import milkman.ui.plugin.*;
 import milkman.ui.plugin.rest.domain.HeaderEntry;
@@ -18,6 +19,8 @@ import java.util.UUID;
 
 public class WebsocketPlugin implements RequestAspectsPlugin, RequestTypePlugin {
 
+	private static final String SOAK_TEST_COMMAND = "SOAK_TEST";
+
 	WebsocketProcessor requestProcessor = new WebsocketProcessor();
 	
 	@Override
@@ -27,7 +30,7 @@ public class WebsocketPlugin implements RequestAspectsPlugin, RequestTypePlugin
 
 	@Override
 	public List<ResponseAspectEditor> getResponseTabs() {
-		return Collections.emptyList();
+		return Collections.singletonList(new WebsocketMessageLogEditor());
 	}
 
 	@Override
@@ -77,6 +80,19 @@ public class WebsocketPlugin implements RequestAspectsPlugin, RequestTypePlugin
 		return requestProcessor.executeRequest((WebsocketRequestContainer) request, templater, asyncControl);
 
 	}
+
+	@Override
+	public List<CustomCommand> getCustomCommands() {
+		return List.of(new CustomCommand(SOAK_TEST_COMMAND, "Soak Test"));
+	}
+
+	@Override
+	public ResponseContainer executeCustomCommandAsync(String commandId, RequestContainer request, Templater templater, AsyncControl asyncControl) {
+		if (!SOAK_TEST_COMMAND.equals(commandId)) {
+			throw new IllegalArgumentException("Unsupported custom command: " + commandId);
+		}
+		return requestProcessor.executeSoakTest((WebsocketRequestContainer) request, templater, asyncControl);
+	}
 	
 	@Override
 	public String getRequestType() {
@@ -1,32 +1,49 @@
 package milkman.plugin.ws;
 
 import milkman.domain.ResponseContainer;
+import milkman.plugin.ws.domain.WebsocketAspect;
+import milkman.plugin.ws.domain.WebsocketMessageLog;
 import milkman.plugin.ws.domain.WebsocketRequestContainer;
 import milkman.plugin.ws.domain.WebsocketResponseAspect;
+import milkman.ui.main.options.LoadTestOptionsProvider;
 import milkman.ui.plugin.Templater;
-import milkman.ui.plugin.rest.domain.RestResponseBodyAspect;
 import milkman.ui.plugin.rest.domain.RestResponseContainer;
 import milkman.utils.AsyncResponseControl;
-import reactor.core.publisher.ReplayProcessor;
+import milkman.utils.SoakTest;
 
 import java.net.URI;
 
+import static milkman.plugin.ws.WebsocketOptionsProvider.options;
+
 public class WebsocketProcessor {
 
 
 	public ResponseContainer executeRequest(WebsocketRequestContainer request, Templater templater, AsyncResponseControl.AsyncControl asyncControl) {
 		var url = templater.replaceTags(request.getUrl());
 
-		var emitter = ReplayProcessor.<byte[]>create();
+		var messageLog = new WebsocketMessageLog(options().getMessageLogSize(), options().isSpillPayloads());
 
-		var client = new MilkmanWebsocketClient(URI.create(url), emitter, asyncControl);
+		var client = new MilkmanWebsocketClient(URI.create(url), messageLog, asyncControl);
 
 		asyncControl.triggerReqeuestStarted();
 		client.connect();
 
 		var response = new RestResponseContainer(url);
-		response.getAspects().add(new RestResponseBodyAspect(emitter));
-		response.getAspects().add(new WebsocketResponseAspect(client));
+		response.getAspects().add(new WebsocketResponseAspect(client, messageLog));
+		return response;
+	}
+
+	/**
+	 * replays the messages of the request on several connections, the message script consists of messages separated by empty lines
+	 */
+	public ResponseContainer executeSoakTest(WebsocketRequestContainer request, Templater templater, AsyncResponseControl.AsyncControl asyncControl) {
+		var url = templater.replaceTags(request.getUrl());
+		var script = SoakTest.parseScript(request.getAspect(WebsocketAspect.class).map(WebsocketAspect::getMessage).orElse(""));
+		var soakTest = new SoakTest(new WebsocketSoakConnector(URI.create(url)), LoadTestOptionsProvider.options().toSoakProfile(), script, templater);
+
+		asyncControl.triggerReqeuestStarted();
+		var response = new RestResponseContainer(url);
+		soakTest.start(response.getStatusInformations(), asyncControl);
 		return response;
 	}
 }
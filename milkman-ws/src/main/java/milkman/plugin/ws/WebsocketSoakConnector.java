@@ -0,0 +1,74 @@
+package milkman.plugin.ws;
+
+import lombok.RequiredArgsConstructor;
+import milkman.utils.SoakTest.Connection;
+import milkman.utils.SoakTest.ConnectionListener;
+import milkman.utils.SoakTest.Connector;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * opens plain websocket connections for a soak test, without recording the messages
+ */
+@RequiredArgsConstructor
+class WebsocketSoakConnector implements Connector {
+
+	private final URI serverUri;
+
+	@Override
+	public CompletableFuture<Connection> connect(ConnectionListener listener) {
+		CompletableFuture<Connection> connected = new CompletableFuture<>();
+		WebSocketClient client = new WebSocketClient(serverUri) {
+			//an anonymous class can not be referenced via WebSocketClient.this
+			private final WebSocketClient socket = this;
+			private final Connection connection = new Connection() {
+				@Override
+				public void send(String message) {
+					socket.send(message);
+				}
+
+				@Override
+				public void close() {
+					socket.close();
+				}
+			};
+
+			@Override
+			public void onOpen(ServerHandshake handshakedata) {
+				connected.complete(connection);
+			}
+
+			@Override
+			public void onMessage(String message) {
+				listener.onMessage(message);
+			}
+
+			@Override
+			public void onMessage(ByteBuffer bytes) {
+				listener.onMessage(StandardCharsets.UTF_8.decode(bytes).toString());
+			}
+
+			@Override
+			public void onClose(int code, String reason, boolean remote) {
+				if (connected.completeExceptionally(new IOException("Connection closed (" + code + "): " + reason))) {
+					return;
+				}
+				listener.onClosed(remote ? new IOException("Connection closed by server (" + code + "): " + reason) : null);
+			}
+
+			@Override
+			public void onError(Exception ex) {
+				//the connection is closed afterwards
+				connected.completeExceptionally(ex);
+			}
+		};
+		client.connect();
+		return connected;
+	}
+}
@@ -0,0 +1,91 @@
+package milkman.plugin.ws.domain;
+
+import lombok.Getter;
+import milkman.utils.ResponseBodyStore;
+import org.java_websocket.enums.Opcode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * a single frame in the {@link WebsocketMessageLog}. The payload is either kept in memory or references
+ * a range of the spill file of the log.
+ */
+public class WebsocketMessage {
+
+	public enum Direction { SENT, RECEIVED }
+
+	//binary payloads are shown as hex, which gets unwieldy for large frames
+	private static final int MAX_HEX_BYTES = 16 * 1024;
+
+	@Getter
+	private final Instant timestamp;
+	@Getter
+	private final Direction direction;
+	@Getter
+	private final Opcode opcode;
+	@Getter
+	private final int size;
+
+	private final byte[] payload;
+	private final ResponseBodyStore spillStore;
+	private final long spillOffset;
+
+	WebsocketMessage(Instant timestamp, Direction direction, Opcode opcode, byte[] payload) {
+		this(timestamp, direction, opcode, payload.length, payload, null, 0);
+	}
+
+	WebsocketMessage(Instant timestamp, Direction direction, Opcode opcode, int size, ResponseBodyStore spillStore, long spillOffset) {
+		this(timestamp, direction, opcode, size, null, spillStore, spillOffset);
+	}
+
+	private WebsocketMessage(Instant timestamp, Direction direction, Opcode opcode, int size, byte[] payload, ResponseBodyStore spillStore, long spillOffset) {
+		this.timestamp = timestamp;
+		this.direction = direction;
+		this.opcode = opcode;
+		this.size = size;
+		this.payload = payload;
+		this.spillStore = spillStore;
+		this.spillOffset = spillOffset;
+	}
+
+	ResponseBodyStore getSpillStore() {
+		return spillStore;
+	}
+
+	public boolean isBinary() {
+		return opcode == Opcode.BINARY;
+	}
+
+	public byte[] getPayload() {
+		return payload != null ? payload : spillStore.read(spillOffset, size);
+	}
+
+	/**
+	 * the first bytes of the payload, without reading the whole payload from the spill file
+	 */
+	public byte[] getPayload(int maxLength) {
+		int length = Math.min(size, maxLength);
+		return payload != null ? Arrays.copyOf(payload, length) : spillStore.read(spillOffset, length);
+	}
+
+	/**
+	 * the payload for display: text frames as string, binary frames as hex
+	 */
+	public String getPayloadAsText() {
+		byte[] bytes = getPayload();
+		if (!isBinary()) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		int length = Math.min(bytes.length, MAX_HEX_BYTES);
+		StringBuilder hex = new StringBuilder(length * 3);
+		for (int i = 0; i < length; i++) {
+			hex.append(String.format("%02x", bytes[i])).append(i % 16 == 15 ? '\n' : ' ');
+		}
+		if (length < bytes.length) {
+			hex.append("\n... (").append(bytes.length - length).append(" more bytes)");
+		}
+		return hex.toString();
+	}
+}
@@ -0,0 +1,200 @@
+package milkman.plugin.ws.domain;
+
+import milkman.plugin.ws.domain.WebsocketMessage.Direction;
+import milkman.utils.ResponseBodyStore;
+import org.java_websocket.enums.Opcode;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * the frames sent and received on a websocket, kept in a ring buffer of a fixed capacity, so long-lived sockets
+ * do not fill up the memory. Older messages are dropped, but still counted.
+ *
+ * If payloads are spilled, they are written to temporary files and only the metadata of the messages is kept in memory.
+ * The files are rotated, a file is deleted once none of its messages is kept anymore.
+ */
+public class WebsocketMessageLog {
+
+	private static final Duration RATE_WINDOW = Duration.ofSeconds(10);
+	private static final long SPILL_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private final WebsocketMessage[] buffer;
+	//index of the next message to be written
+	private int head = 0;
+	private int count = 0;
+
+	private long sentMessages = 0;
+	private long sentBytes = 0;
+	private long receivedMessages = 0;
+	private long receivedBytes = 0;
+	private boolean closed = false;
+	private boolean disposed = false;
+
+	private final boolean spillPayloads;
+	//spill files, oldest first. Only the last one is written to
+	private final Deque<ResponseBodyStore> spillSegments = new ArrayDeque<>();
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+	public WebsocketMessageLog(int capacity, boolean spillPayloads) {
+		this.buffer = new WebsocketMessage[Math.max(1, capacity)];
+		this.spillPayloads = spillPayloads;
+	}
+
+	public void record(Direction direction, Opcode opcode, byte[] payload) {
+		synchronized (this) {
+			if (disposed) {
+				return;
+			}
+			Instant now = Instant.now();
+			WebsocketMessage message;
+			if (spillPayloads) {
+				ResponseBodyStore spillStore = currentSpillSegment();
+				long offset = spillStore.size();
+				spillStore.append(payload);
+				message = new WebsocketMessage(now, direction, opcode, payload.length, spillStore, offset);
+			} else {
+				message = new WebsocketMessage(now, direction, opcode, payload);
+			}
+			buffer[head] = message;
+			head = (head + 1) % buffer.length;
+			count = Math.min(count + 1, buffer.length);
+			releaseUnusedSpillSegments();
+
+			if (direction == Direction.SENT) {
+				sentMessages++;
+				sentBytes += payload.length;
+			} else {
+				receivedMessages++;
+				receivedBytes += payload.length;
+			}
+		}
+		listeners.forEach(Runnable::run);
+	}
+
+	/**
+	 * marks the socket as closed, the log is kept
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		listeners.forEach(Runnable::run);
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * registers a listener that is called after a message was recorded or the socket was closed.
+	 * Listeners are called on the thread of the socket.
+	 */
+	public void onChange(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	public void removeOnChange(Runnable listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * the messages that are still kept, oldest first
+	 */
+	public synchronized List<WebsocketMessage> getMessages() {
+		List<WebsocketMessage> messages = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			messages.add(message(i));
+		}
+		return messages;
+	}
+
+	public synchronized long getDroppedMessages() {
+		return sentMessages + receivedMessages - count;
+	}
+
+	/**
+	 * message counters and the rates within the last seconds, formatted for display
+	 */
+	public synchronized Map<String, String> getStatistics() {
+		Map<String, String> result = new LinkedHashMap<>();
+		result.put("Sent", sentMessages + " messages, " + sentBytes + " bytes");
+		result.put("Received", receivedMessages + " messages, " + receivedBytes + " bytes");
+
+		Instant now = Instant.now();
+		Instant windowStart = now.minus(RATE_WINDOW);
+		long messages = 0, bytes = 0;
+		Instant oldest = windowStart;
+		for (int i = count - 1; i >= 0 && message(i).getTimestamp().isAfter(windowStart); i--) {
+			messages++;
+			bytes += message(i).getSize();
+			oldest = message(i).getTimestamp();
+		}
+		//the window is only partially covered, if messages of the window were dropped already
+		boolean partialWindow = messages == count && getDroppedMessages() > 0;
+		double seconds = Math.max(1, Duration.between(partialWindow ? oldest : windowStart, now).toMillis()) / 1000.0;
+		result.put("Rate (last " + RATE_WINDOW.getSeconds() + "s)", String.format("%.1f msgs/s, %.0f bytes/s", messages / seconds, bytes / seconds));
+
+		result.put("Kept", count + " messages" + (getDroppedMessages() > 0 ? ", " + getDroppedMessages() + " dropped" : ""));
+		if (spillPayloads) {
+			long spilledBytes = spillSegments.stream().mapToLong(ResponseBodyStore::size).sum();
+			result.put("Spilled", spillSegments.size() + " files, " + spilledBytes + " bytes");
+		}
+		return result;
+	}
+
+	/**
+	 * drops all messages and releases the spill files. Messages recorded afterwards are ignored
+	 */
+	public void dispose() {
+		synchronized (this) {
+			disposed = true;
+			closed = true;
+			Arrays.fill(buffer, null);
+			count = 0;
+			spillSegments.forEach(ResponseBodyStore::dispose);
+			spillSegments.clear();
+		}
+		listeners.forEach(Runnable::run);
+		listeners.clear();
+	}
+
+	public synchronized boolean isDisposed() {
+		return disposed;
+	}
+
+	private ResponseBodyStore currentSpillSegment() {
+		ResponseBodyStore current = spillSegments.peekLast();
+		if (current == null || current.size() >= SPILL_SEGMENT_SIZE) {
+			current = new ResponseBodyStore(0);
+			spillSegments.addLast(current);
+		}
+		return current;
+	}
+
+	/**
+	 * deletes the oldest spill files, that only contain payloads of messages that were dropped already
+	 */
+	private void releaseUnusedSpillSegments() {
+		if (spillSegments.isEmpty()) {
+			return;
+		}
+		ResponseBodyStore oldestInUse = message(0).getSpillStore();
+		while (spillSegments.peekFirst() != oldestInUse) {
+			spillSegments.pollFirst().dispose();
+		}
+	}
+
+	private WebsocketMessage message(int index) {
+		int oldest = (head - count + buffer.length) % buffer.length;
+		return buffer[(oldest + index) % buffer.length];
+	}
+}
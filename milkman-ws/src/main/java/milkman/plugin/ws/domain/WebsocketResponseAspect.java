@@ -8,9 +8,7 @@ import milkman.domain.ResponseAspect;
 import milkman.plugin.ws.MilkmanWebsocketClient;
 
 /**
- * TODO: this will be transformed into holding client & body, so that we can implement
- * list-view on incoming/outgoing events.
- * For now, we use RestResponseBodyAspect though, so this aspect only holds the client for further interactions
+ * holds the client for further interactions and the log of sent and received messages
  */
 @Data
 @AllArgsConstructor
@@ -20,8 +18,24 @@ public class WebsocketResponseAspect implements ResponseAspect {
 	@JsonIgnore
 	private MilkmanWebsocketClient client;
 
+	@JsonIgnore
+	private WebsocketMessageLog messageLog;
+
 	@Override
 	public String getName() {
 		return "wsBody";
 	}
+
+	/**
+	 * closes the connection, if it is still open, and releases the message log
+	 */
+	@Override
+	public void dispose() {
+		if (client != null && !client.isClosed()) {
+			client.close();
+		}
+		if (messageLog != null) {
+			messageLog.dispose();
+		}
+	}
 }
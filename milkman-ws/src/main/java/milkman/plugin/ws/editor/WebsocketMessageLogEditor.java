@@ -0,0 +1,186 @@
+package milkman.plugin.ws.editor;
+
+import com.jfoenix.controls.JFXCheckBox;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.Tab;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import milkman.domain.RequestContainer;
+import milkman.domain.ResponseContainer;
+import milkman.plugin.ws.domain.WebsocketMessage;
+import milkman.plugin.ws.domain.WebsocketMessageLog;
+import milkman.plugin.ws.domain.WebsocketResponseAspect;
+import milkman.ui.components.ContentEditor;
+import milkman.ui.plugin.ContentTypeAwareEditor;
+import milkman.ui.plugin.ContentTypePlugin;
+import milkman.ui.plugin.ResponseAspectEditor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * shows the message log of a websocket as list, the payload of the selected message is shown below.
+ * The list only renders visible rows, so it stays responsive for large logs.
+ *
+ * The tab detaches from the log once it is removed from the response area, e.g. because another response is shown.
+ */
+public class WebsocketMessageLogEditor implements ResponseAspectEditor, ContentTypeAwareEditor {
+
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+	private static final int PREVIEW_LENGTH = 200;
+
+	private List<ContentTypePlugin> plugins;
+
+	private ListView<WebsocketMessage> messageList;
+	private Label statisticsLabel;
+	private CheckBox follow;
+	private Timeline statisticsRefresh;
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+	@Override
+	public Tab getRoot(RequestContainer request, ResponseContainer response) {
+		WebsocketMessageLog messageLog = response.getAspect(WebsocketResponseAspect.class).get().getMessageLog();
+
+		messageList = new ListView<>();
+		messageList.setCellFactory(list -> new MessageCell());
+
+		ContentEditor payloadView = new ContentEditor();
+		payloadView.setEditable(false);
+		if (plugins != null)
+			payloadView.setContentTypePlugins(plugins);
+		payloadView.setContentType("text/plain");
+		messageList.getSelectionModel().selectedItemProperty().addListener((obs, o, message) -> {
+			if (message != null) {
+				String payload = message.getPayloadAsText();
+				payloadView.setContentType(isJson(message, payload) ? "application/json" : "text/plain");
+				payloadView.setContent(() -> payload, s -> {});
+			}
+		});
+
+		SplitPane splitPane = new SplitPane(messageList, payloadView);
+		splitPane.setOrientation(Orientation.VERTICAL);
+		splitPane.setDividerPositions(0.6);
+		VBox.setVgrow(splitPane, Priority.ALWAYS);
+
+		statisticsLabel = new Label();
+		follow = new JFXCheckBox("Follow");
+		follow.setSelected(true);
+		HBox toolbar = new HBox(10, follow, statisticsLabel);
+		toolbar.setAlignment(Pos.CENTER_LEFT);
+
+		refresh(messageLog);
+		Runnable changeListener = () -> scheduleRefresh(messageLog);
+		messageLog.onChange(changeListener);
+		if (!messageLog.isClosed()) {
+			//rates change even if no messages arrive
+			statisticsRefresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> updateStatistics(messageLog)));
+			statisticsRefresh.setCycleCount(Animation.INDEFINITE);
+			statisticsRefresh.play();
+		}
+
+		Tab tab = new Tab("Message Log", new VBox(toolbar, splitPane));
+		tab.tabPaneProperty().addListener((obs, oldPane, newPane) -> {
+			if (oldPane != null && newPane == null) {
+				messageLog.removeOnChange(changeListener);
+				stopStatisticsRefresh();
+			}
+		});
+		return tab;
+	}
+
+	private static boolean isJson(WebsocketMessage message, String payload) {
+		String trimmed = payload.trim();
+		return !message.isBinary() && (trimmed.startsWith("{") || trimmed.startsWith("["));
+	}
+
+	private void scheduleRefresh(WebsocketMessageLog messageLog) {
+		if (refreshScheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				refreshScheduled.set(false);
+				refresh(messageLog);
+			});
+		}
+	}
+
+	private void refresh(WebsocketMessageLog messageLog) {
+		WebsocketMessage selected = messageList.getSelectionModel().getSelectedItem();
+		List<WebsocketMessage> messages = messageLog.getMessages();
+		messageList.getItems().setAll(messages);
+		if (selected != null && messages.contains(selected)) {
+			messageList.getSelectionModel().select(selected);
+		}
+		if (follow.isSelected() && !messages.isEmpty()) {
+			messageList.scrollTo(messages.size() - 1);
+		}
+		updateStatistics(messageLog);
+		if (messageLog.isClosed()) {
+			stopStatisticsRefresh();
+		}
+	}
+
+	private void stopStatisticsRefresh() {
+		if (statisticsRefresh != null) {
+			statisticsRefresh.stop();
+			statisticsRefresh = null;
+		}
+	}
+
+	private void updateStatistics(WebsocketMessageLog messageLog) {
+		statisticsLabel.setText(messageLog.getStatistics().entrySet().stream()
+				.map(e -> e.getKey() + ": " + e.getValue())
+				.collect(Collectors.joining(" | ")));
+	}
+
+	@Override
+	public boolean canHandleAspect(RequestContainer request, ResponseContainer response) {
+		return response.getAspect(WebsocketResponseAspect.class)
+				.filter(ws -> ws.getMessageLog() != null)
+				.isPresent();
+	}
+
+	@Override
+	public void setContentTypePlugins(List<ContentTypePlugin> plugins) {
+		this.plugins = plugins;
+	}
+
+
+	private static class MessageCell extends ListCell<WebsocketMessage> {
+		@Override
+		protected void updateItem(WebsocketMessage message, boolean empty) {
+			super.updateItem(message, empty);
+			if (empty || message == null) {
+				setText(null);
+				return;
+			}
+			String time = LocalTime.ofInstant(message.getTimestamp(), ZoneId.systemDefault()).format(TIME_FORMAT);
+			setText(time + "  " + message.getDirection() + "  " + message.getOpcode() + "  " + message.getSize() + " bytes  " + preview(message));
+		}
+
+		private String preview(WebsocketMessage message) {
+			if (message.isBinary()) {
+				return "";
+			}
+			//only the start of the payload is needed for the preview
+			String text = new String(message.getPayload(PREVIEW_LENGTH * 4), StandardCharsets.UTF_8);
+			String firstLine = text.lines().findFirst().orElse("");
+			return firstLine.length() > PREVIEW_LENGTH ? firstLine.substring(0, PREVIEW_LENGTH) + "..." : firstLine;
+		}
+	}
+}
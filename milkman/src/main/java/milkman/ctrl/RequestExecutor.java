@@ -27,10 +27,11 @@ public class RequestExecutor extends Service<AsyncResponseControl> {
 	@Override
 	protected Task<AsyncResponseControl> createTask() {
 		return new Task<AsyncResponseControl>() {
-			
+
+			private final AsyncResponseControl asyncCtrl = new AsyncResponseControl();
+
 			@Override
 			protected AsyncResponseControl call() {
-				var asyncCtrl = new AsyncResponseControl();
 				try {
 					if (customCommand.isPresent()) {
 						String commandId = customCommand.get().getCommandId();
@@ -60,6 +61,14 @@ public class RequestExecutor extends Service<AsyncResponseControl> {
 					throw e;
 				}
 			}
+
+			/**
+			 * forwards cancellation to plugins that are still blocked in executing the request (e.g. a running sql query)
+			 */
+			@Override
+			protected void cancelled() {
+				asyncCtrl.cancleRequest();
+			}
 		};
 	}
 
@@ -55,12 +55,15 @@ public class WorkspaceController {
 
 	public void loadWorkspace(Workspace workspace) {
 		this.activeWorkspace = workspace;
+		workspace.getRequestIndex().invalidate();
 		loadCollections(workspace);
 		closeUnknownRequestContainers(workspace);
 		displayRequest(workspace.getActiveRequest());
 	}
 
 	public void reloadActiveWorkspace() {
+		//collections might have been replaced completely, e.g. by synchronization
+		activeWorkspace.getRequestIndex().invalidate();
 		loadCollections(activeWorkspace);
 		closeUnknownRequestContainers(activeWorkspace);
 		//refresh from store, if no changes
@@ -110,10 +113,7 @@ public class WorkspaceController {
 	}
 	
 	private RequestContainer findRequest(String requestId) {
-		return activeWorkspace.getCollections().stream()
-		.flatMap(c -> c.getRequests().stream())
-		.filter(r -> r.getId().equals(requestId))
-		.findAny()
+		return activeWorkspace.getRequestIndex().findRequest(requestId)
 		.orElseThrow(() -> new IllegalArgumentException("Request with ID " + requestId + " not found in active workspace"));
 	}
 	
@@ -186,14 +186,9 @@ public class WorkspaceController {
 
 	public void scheduleRequestExecution(RequestContainer request, Optional<CustomCommand> command) {
 		RequestTypePlugin plugin = requestTypeManager.getPluginFor(request);
-		executor = new RequestExecutor(request, plugin, buildTemplater(), command, executionListenerManager);
-
 		RequestExecutionContext context = getExecutionCtx();
-		try {
-			plugins.loadRequestAspectPlugins().forEach(a -> a.beforeRequestExecution(request, context));
-		} catch (Throwable t) {
-			toaster.showToast("Failed to run pre hook: " + t);
-		}
+		Templater templater = runPreRequestHooks(request, context);
+		executor = new RequestExecutor(request, plugin, templater, command, executionListenerManager);
 
 		long startTime = System.currentTimeMillis();
 		executor.setOnScheduled(e -> activeWorkspace.getEnqueuedRequestIds().put(request.getId(), executor));
@@ -217,7 +212,10 @@ public class WorkspaceController {
 			} catch (Throwable ex) {
 				toaster.showToast("Failed to run post hook: " + ex);
 			}
-			activeWorkspace.getCachedResponses().put(request.getId(), asyncCtrl);
+			var replaced = activeWorkspace.getCachedResponses().put(request.getId(), asyncCtrl);
+			if (replaced != null && replaced != asyncCtrl) {
+				replaced.dispose();
+			}
 			log.info("Received response");
 			workingAreaView.displayResponseFor(request, asyncCtrl);
 			executor = null;
@@ -226,6 +224,19 @@ public class WorkspaceController {
 		executor.start();
 	}
 
+	/**
+	 * runs the pre request hooks and builds the templater afterwards, as the templater takes a snapshot
+	 * of the environments and hooks might set variables that are used by the request
+	 */
+	Templater runPreRequestHooks(RequestContainer request, RequestExecutionContext context) {
+		try {
+			plugins.loadRequestAspectPlugins().forEach(a -> a.beforeRequestExecution(request, context));
+		} catch (Throwable t) {
+			toaster.showToast("Failed to run pre hook: " + t);
+		}
+		return new EnvironmentTemplater(context.getActiveEnvironment(), context.getGlobalEnvironments(), new PrefixedTemplaterResolver(plugins.loadTemplaterPlugins()));
+	}
+
 	private RequestExecutionContext getExecutionCtx() {
 		var activeEnv = activeWorkspace.getEnvironments().stream().filter(e -> e.isActive()).findAny();
 		var globalEnvs = new LinkedList<>(activeWorkspace.getEnvironments().stream().filter(e -> e.isGlobal()).collect(Collectors.toList()));
@@ -298,6 +309,9 @@ public class WorkspaceController {
 		} else if (command instanceof DeleteRequest) {
 			DeleteRequest deleteRequest = (DeleteRequest) command;
 			deleteRequest(deleteRequest.getCollection(), deleteRequest.getRequest());
+		} else if (command instanceof UpdateRequestLocation) {
+			var location = (UpdateRequestLocation) command;
+			activeWorkspace.getRequestIndex().put(location.getCollection(), location.getRequest());
 		} else if (command instanceof DeleteCollection) {
 			deleteCollection(((DeleteCollection) command).getCollection());
 		} else if (command instanceof AddFolder) {
@@ -356,6 +370,7 @@ public class WorkspaceController {
 			request.ifPresent(req -> {
 				closeRequest(req, CloseType.CLOSE_THIS);
 				collection.getRequests().remove(req);
+				activeWorkspace.getRequestIndex().remove(rid);
 			});
 		});
 		folder.getFolders().forEach(child -> deleteAllRequestsFromFolder(collection, child));
@@ -419,6 +434,7 @@ public class WorkspaceController {
 		activeWorkspace.getCollections().remove(collection);
 		loadCollections(activeWorkspace);
 		for(RequestContainer request : collection.getRequests()) {
+			activeWorkspace.getRequestIndex().remove(request.getId());
 			Optional<RequestContainer> openRequest = activeWorkspace.getOpenRequests().stream()
 					.filter(r -> r.getId().equals(request.getId()))
 					.findAny();
@@ -438,6 +454,7 @@ public class WorkspaceController {
 
 	private void deleteRequest(Collection collection, RequestContainer request) {
 		collection.getRequests().removeIf(r -> r.getId().equals(request.getId()));
+		activeWorkspace.getRequestIndex().remove(request.getId());
 		loadCollections(activeWorkspace);
 		
 		Optional<RequestContainer> openRequest = activeWorkspace.getOpenRequests().stream()
@@ -462,9 +479,11 @@ public class WorkspaceController {
 				.findAny().ifPresent(r -> r.setName(newName));
 
 			//replace names in collections:
-			activeWorkspace.getCollections().stream().flatMap(c -> c.getRequests().stream())
-					.filter(r -> r.getId().equals(request.getId()))
-					.findAny().ifPresent(r -> r.setName(newName));
+			activeWorkspace.getRequestIndex().findRequest(request.getId())
+					.ifPresent(r -> {
+						r.setName(newName);
+						r.markChanged();
+					});
 			
 			loadCollections(activeWorkspace);
 			
@@ -536,19 +555,20 @@ public class WorkspaceController {
 		if (!request.isInStorage()) {
 			saveAsRequest(request);
 		} else {
-			//have to go through all collections bc we dont have a backlink
-			//and replace the request
-			outer: for (Collection collection : activeWorkspace.getCollections()) {
+			//look up the collection via the index and replace the request
+			activeWorkspace.getRequestIndex().findCollection(request.getId()).ifPresent(collection -> {
 				for (ListIterator<RequestContainer> iterator = collection.getRequests().listIterator(); iterator.hasNext();) {
 					RequestContainer requestContainer = iterator.next();
 					if (requestContainer.getId().equals(request.getId())){
 						request.setDirty(false);
-						iterator.set(ObjectUtils.deepClone(request));
+						RequestContainer storedRequest = ObjectUtils.deepClone(request);
+						iterator.set(storedRequest);
+						activeWorkspace.getRequestIndex().put(collection, storedRequest);
 						loadCollections(activeWorkspace);
-						break outer;
+						break;
 					}
 				}
-			}
+			});
 		}
 		
 		onCommand.invoke(new PersistWorkspace(activeWorkspace));
@@ -571,7 +591,9 @@ public class WorkspaceController {
 				.filter(c -> c.getName().equals(collectionName))
 				.findAny();
 		Collection collection = foundCollection.orElseGet(() -> createNewCollection(collectionName));
-		collection.getRequests().add(ObjectUtils.deepClone(request));
+		RequestContainer storedRequest = ObjectUtils.deepClone(request);
+		collection.getRequests().add(storedRequest);
+		activeWorkspace.getRequestIndex().put(collection, storedRequest);
 
 		var folderPath = dialog.getFolderPath();
 		mkFolders(folderPath, collection)
@@ -635,10 +657,7 @@ public class WorkspaceController {
 	
 
 	public Optional<RequestContainer> findRequestById(String id) {
-		return activeWorkspace.getCollections().stream()
-				.flatMap(c -> c.getRequests().stream())
-				.filter(r -> r.getId().equals(id))
-				.findFirst();
+		return activeWorkspace.getRequestIndex().findRequest(id);
 	}
 
 
@@ -660,21 +679,21 @@ public class WorkspaceController {
 
 
 	private void removeAllCachedResponses() {
-		activeWorkspace.getCachedResponses().values().forEach(AsyncResponseControl::cancleRequest);
+		activeWorkspace.getCachedResponses().values().forEach(AsyncResponseControl::dispose);
 		activeWorkspace.getCachedResponses().clear();
 	}
 
 	private void removeCachedResponseFor(String requestId) {
 		var arc = activeWorkspace.getCachedResponses().remove(requestId);
 		if (arc != null) {
-			arc.cancleRequest();
+			arc.dispose();
 		}
 	}
 
 	private void removeCachedResponseFor(RequestContainer removed) {
 		var arc = activeWorkspace.getCachedResponses().remove(removed.getId());
 		if (arc != null) {
-			arc.cancleRequest();
+			arc.dispose();
 		}
 	}
 
@@ -2,7 +2,11 @@ package milkman.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import milkman.utils.Event0;
 import milkman.utils.PropertyChangeEvent;
 
@@ -11,6 +15,13 @@ public class Dirtyable {
 
 	private boolean dirty = false;
 	
+	//incremented on every change, so unchanged objects can be detected without comparing their content
+	@JsonIgnore
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private long revision = 0;
+
 	@JsonIgnore
 	public final PropertyChangeEvent<Boolean> onDirtyChange = new PropertyChangeEvent<>();
 	@JsonIgnore
@@ -20,6 +31,7 @@ public class Dirtyable {
 		setDirty(dirty, true);
 	}
 	public void setDirty(boolean dirty, boolean notification) {
+		revision++;
 		onInvalidate.invoke();
 		if (dirty != this.dirty) {
 			if (notification)
@@ -28,6 +40,13 @@ public class Dirtyable {
 		}
 	}
 	
+	/**
+	 * marks this object as changed without touching its dirty state, e.g. if a stored request is changed in place
+	 */
+	public void markChanged() {
+		revision++;
+	}
+
 	public void propagateDirtyStateTo(Dirtyable other) {
 		onDirtyChange.add((o,n) -> other.setDirty(n));
 	}
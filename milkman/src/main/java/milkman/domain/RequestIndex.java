@@ -0,0 +1,92 @@
+package milkman.domain;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * index of all stored requests of a workspace by their id, including a back link to the collection
+ * a request is stored in.
+ *
+ * The index is built once and then kept up to date by everyone who adds, removes or moves stored requests
+ * (e.g. the workspace controller or drag and drop). If the collections are replaced as a whole (e.g. by loading,
+ * synchronizing or importing), the index has to be invalidated.
+ */
+@RequiredArgsConstructor
+public class RequestIndex {
+
+	private final Supplier<List<Collection>> collections;
+
+	private Map<String, Entry> entries;
+
+	public synchronized Optional<RequestContainer> findRequest(String requestId) {
+		return findEntry(requestId).map(Entry::getRequest);
+	}
+
+	public synchronized Optional<Collection> findCollection(String requestId) {
+		return findEntry(requestId).map(Entry::getCollection);
+	}
+
+	/**
+	 * registers a stored request, replacing any previous request with the same id
+	 */
+	public synchronized void put(Collection collection, RequestContainer request) {
+		if (entries != null) {
+			entries.put(request.getId(), new Entry(request, collection));
+		}
+	}
+
+	public synchronized void remove(String requestId) {
+		if (entries != null) {
+			entries.remove(requestId);
+		}
+	}
+
+	/**
+	 * drops the index, it will be rebuilt on next access
+	 */
+	public synchronized void invalidate() {
+		entries = null;
+	}
+
+	private Optional<Entry> findEntry(String requestId) {
+		if (requestId == null) {
+			return Optional.empty();
+		}
+		if (entries == null) {
+			rebuild();
+		}
+		return Optional.ofNullable(entries.get(requestId));
+	}
+
+	private void rebuild() {
+		Map<String, Entry> newEntries = new HashMap<>();
+		for (Collection collection : getCollections()) {
+			if (collection.getRequests() == null) {
+				continue;
+			}
+			for (RequestContainer request : collection.getRequests()) {
+				//in case of duplicate ids, first one wins, same as a linear search would do
+				newEntries.putIfAbsent(request.getId(), new Entry(request, collection));
+			}
+		}
+		entries = newEntries;
+	}
+
+	private List<Collection> getCollections() {
+		List<Collection> result = collections.get();
+		return result != null ? result : Collections.emptyList();
+	}
+
+	@Value
+	private static class Entry {
+		RequestContainer request;
+		Collection collection;
+	}
+}
@@ -0,0 +1,164 @@
+package milkman.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * nanosecond-resolution timings of the phases of a single request execution.
+ *
+ * Request processors mark the end of every phase they are able to observe. Phases that are not observed
+ * (e.g. because the client does not expose them) are accounted to the next observed phase, which is then
+ * reported under a combined name, such as "Connect + TLS + Request sent".
+ *
+ * Added as response aspect "timing", so the timings are available to scripts and tests as well.
+ */
+public class RequestTiming implements ResponseAspect {
+
+	@Getter
+	@RequiredArgsConstructor
+	public enum Phase {
+		DNS("DNS"),
+		CONNECT("Connect"),
+		TLS("TLS"),
+		REQUEST("Request sent"),
+		WAITING("Waiting (TTFB)"),
+		DOWNLOAD("Download");
+
+		private final String label;
+	}
+
+	private static final long NOT_OBSERVED = -1;
+
+	private final LongSupplier clock;
+	private final long startTime;
+	//elapsed nanos since start, indexed by phase ordinal
+	private final long[] phaseEnds = new long[Phase.values().length];
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	public RequestTiming() {
+		this(System::nanoTime);
+	}
+
+	RequestTiming(LongSupplier clock) {
+		this.clock = clock;
+		this.startTime = clock.getAsLong();
+		Arrays.fill(phaseEnds, NOT_OBSERVED);
+	}
+
+	/**
+	 * marks the given phase as done now. Subsequent calls for the same phase are ignored.
+	 */
+	public synchronized void phaseDone(Phase phase) {
+		if (phaseEnds[phase.ordinal()] == NOT_OBSERVED) {
+			phaseEnds[phase.ordinal()] = clock.getAsLong() - startTime;
+		}
+	}
+
+	public void bytesReceived(long count) {
+		bytesReceived.addAndGet(count);
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * durations in nanoseconds of all observed phases in order of execution
+	 */
+	@JsonIgnore
+	public synchronized Map<String, Long> getPhaseNanos() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		List<String> pendingLabels = new LinkedList<>();
+		long previousEnd = 0;
+		for (Phase phase : Phase.values()) {
+			pendingLabels.add(phase.getLabel());
+			long end = phaseEnds[phase.ordinal()];
+			if (end != NOT_OBSERVED) {
+				result.put(String.join(" + ", pendingLabels), Math.max(0, end - previousEnd));
+				previousEnd = Math.max(previousEnd, end);
+				pendingLabels.clear();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * durations in milliseconds of all observed phases in order of execution
+	 */
+	public Map<String, Double> getPhases() {
+		Map<String, Double> result = new LinkedHashMap<>();
+		getPhaseNanos().forEach((label, nanos) -> result.put(label, toMillis(nanos)));
+		return result;
+	}
+
+	/**
+	 * time from the start of the request until the first byte of the response was received, null if not observed
+	 */
+	public synchronized Double getTimeToFirstByteMs() {
+		long end = phaseEnds[Phase.WAITING.ordinal()];
+		return end != NOT_OBSERVED ? toMillis(end) : null;
+	}
+
+	/**
+	 * time from the start of the request until the response was received completely, null if not done yet
+	 */
+	public synchronized Double getTotalMs() {
+		long end = phaseEnds[Phase.DOWNLOAD.ordinal()];
+		return end != NOT_OBSERVED ? toMillis(end) : null;
+	}
+
+	/**
+	 * throughput of the body transfer, null if not done yet
+	 */
+	public synchronized Double getBytesPerSecond() {
+		long firstByte = phaseEnds[Phase.WAITING.ordinal()];
+		long end = phaseEnds[Phase.DOWNLOAD.ordinal()];
+		if (firstByte == NOT_OBSERVED || end == NOT_OBSERVED || end <= firstByte) {
+			return null;
+		}
+		return bytesReceived.get() * 1_000_000_000.0 / (end - firstByte);
+	}
+
+	/**
+	 * formatted timings for display in a {@link StatusInfoContainer}
+	 */
+	public Map<String, String> toStatusInfo() {
+		Map<String, String> result = new LinkedHashMap<>();
+		getPhaseNanos().forEach((label, nanos) -> result.put(label, formatMillis(toMillis(nanos))));
+		Double ttfb = getTimeToFirstByteMs();
+		if (ttfb != null) {
+			result.put("Time to first byte", formatMillis(ttfb));
+		}
+		Double total = getTotalMs();
+		if (total != null) {
+			result.put("Total", formatMillis(total));
+		}
+		Double throughput = getBytesPerSecond();
+		if (throughput != null) {
+			result.put("Throughput", String.format("%.1f KB/s", throughput / 1024));
+		}
+		return result;
+	}
+
+	@Override
+	public String getName() {
+		return "timing";
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	private static String formatMillis(double millis) {
+		return String.format("%.3fms", millis);
+	}
+}
@@ -8,4 +8,11 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 public interface ResponseAspect {
 
 	String getName();
+
+	/**
+	 * releases resources held by this aspect (e.g. temporary files or connections).
+	 * Called once the response is discarded, e.g. because the request was executed again or closed.
+	 */
+	default void dispose() {
+	}
 }
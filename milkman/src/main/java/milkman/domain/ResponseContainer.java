@@ -32,6 +32,13 @@ public abstract class ResponseContainer {
 				.map(a -> (T)a);
 	}
 
+	/**
+	 * releases the resources of all aspects, the response can not be displayed anymore afterwards
+	 */
+	public void dispose() {
+		aspects.forEach(ResponseAspect::dispose);
+	}
+
 	@Getter @EqualsAndHashCode
 	public static class StyledText {
 		private final String text;
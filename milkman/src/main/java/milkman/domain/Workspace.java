@@ -3,7 +3,9 @@ package milkman.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import milkman.ctrl.RequestExecutor;
 import milkman.ui.main.sync.NoSyncDetails;
 import milkman.utils.AsyncResponseControl;
@@ -44,6 +46,11 @@ public class Workspace {
 	
 	@JsonIgnore
 	private Map<String, RequestExecutor> enqueuedRequestIds = new HashMap<String, RequestExecutor>();
+
+	@JsonIgnore
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private final RequestIndex requestIndex = new RequestIndex(this::getCollections);
 	
 	public Workspace(long id, String workspaceId, String name, List<Collection> collections,
 			List<RequestContainer> openRequests, RequestContainer activeRequest) {
@@ -0,0 +1,260 @@
+package milkman.domain.rowset;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * a single column of a {@link RowSet}. Values are kept in a primitive array of the narrowest type that fits
+ * all values appended so far, strings are dictionary-encoded and nulls are tracked in a bitmap.
+ *
+ * If a value does not fit the current type, the column is converted to a wider type (e.g. int to long),
+ * or to plain objects as a last resort. Values that are no plain values (e.g. driver specific objects) are stored as strings.
+ */
+public class Column {
+
+	public enum Type {
+		//only nulls so far
+		EMPTY, INT, LONG, DOUBLE, BOOLEAN, STRING, OBJECT
+	}
+
+	private static final int INITIAL_CAPACITY = 16;
+	//high cardinality strings are not worth a dictionary
+	private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+	private Type type = Type.EMPTY;
+	private int size = 0;
+	private final BitSet nulls = new BitSet();
+
+	private int[] ints;
+	private long[] longs;
+	private double[] doubles;
+	private BitSet booleans;
+	private Object[] objects;
+
+	private Map<String, Integer> dictionaryCodes;
+	private List<String> dictionary;
+
+	public Type getType() {
+		return type;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isNull(int row) {
+		checkIndex(row);
+		return nulls.get(row);
+	}
+
+	public Object get(int row) {
+		if (isNull(row)) {
+			return null;
+		}
+		switch (type) {
+			case INT: return ints[row];
+			case LONG: return longs[row];
+			case DOUBLE: return doubles[row];
+			case BOOLEAN: return booleans.get(row);
+			case STRING: return dictionary.get(ints[row]);
+			default: return objects[row];
+		}
+	}
+
+	/**
+	 * the value formatted for display, "NULL" for null values
+	 */
+	public String getFormatted(int row) {
+		Object value = get(row);
+		return value != null ? value.toString() : "NULL";
+	}
+
+	public int getInt(int row) {
+		return type == Type.INT && !isNull(row) ? ints[row] : ((Number) get(row)).intValue();
+	}
+
+	public long getLong(int row) {
+		if (!isNull(row)) {
+			if (type == Type.LONG) {
+				return longs[row];
+			}
+			if (type == Type.INT) {
+				return ints[row];
+			}
+		}
+		return ((Number) get(row)).longValue();
+	}
+
+	public double getDouble(int row) {
+		return type == Type.DOUBLE && !isNull(row) ? doubles[row] : ((Number) get(row)).doubleValue();
+	}
+
+	void appendNull() {
+		ensureCapacity(size + 1);
+		nulls.set(size);
+		size++;
+	}
+
+	void append(Object value) {
+		if (value == null) {
+			appendNull();
+			return;
+		}
+		value = toStorableValue(value);
+		Type valueType = typeOf(value);
+		if (type == Type.EMPTY) {
+			initialize(valueType);
+		} else if (type != valueType && type != Type.OBJECT) {
+			widen(valueType);
+		}
+		ensureCapacity(size + 1);
+		switch (type) {
+			case INT: ints[size] = ((Number) value).intValue(); break;
+			case LONG: longs[size] = ((Number) value).longValue(); break;
+			case DOUBLE: doubles[size] = ((Number) value).doubleValue(); break;
+			case BOOLEAN: booleans.set(size, (Boolean) value); break;
+			case STRING: appendString((String) value); break;
+			default: objects[size] = value;
+		}
+		size++;
+	}
+
+	private void appendString(String value) {
+		Integer code = dictionaryCodes.get(value);
+		if (code == null) {
+			if (dictionary.size() >= MAX_DICTIONARY_SIZE) {
+				convertToObjects();
+				objects[size] = value;
+				return;
+			}
+			code = dictionary.size();
+			dictionary.add(value);
+			dictionaryCodes.put(value, code);
+		}
+		ints[size] = code;
+	}
+
+	/**
+	 * driver specific objects (e.g. clobs, arrays or user defined types) can depend on an open connection
+	 * or be mutable, so they are converted to their string representation right away
+	 */
+	public static Object toStorableValue(Object value) {
+		if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character
+				|| value instanceof TemporalAccessor || value instanceof Date || value instanceof UUID) {
+			return value;
+		}
+		return value.toString();
+	}
+
+	private static Type typeOf(Object value) {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return Type.INT;
+		}
+		if (value instanceof Long) {
+			return Type.LONG;
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return Type.DOUBLE;
+		}
+		if (value instanceof Boolean) {
+			return Type.BOOLEAN;
+		}
+		if (value instanceof String) {
+			return Type.STRING;
+		}
+		return Type.OBJECT;
+	}
+
+	private void initialize(Type newType) {
+		int capacity = Math.max(INITIAL_CAPACITY, size + 1);
+		switch (newType) {
+			case INT: ints = new int[capacity]; break;
+			case LONG: longs = new long[capacity]; break;
+			case DOUBLE: doubles = new double[capacity]; break;
+			case BOOLEAN: booleans = new BitSet(capacity); break;
+			case STRING:
+				ints = new int[capacity];
+				dictionary = new ArrayList<>();
+				dictionaryCodes = new HashMap<>();
+				break;
+			default: objects = new Object[capacity];
+		}
+		type = newType;
+	}
+
+	private void widen(Type valueType) {
+		if (type == Type.INT && valueType == Type.LONG) {
+			longs = new long[ints.length];
+			for (int i = 0; i < size; i++) {
+				longs[i] = ints[i];
+			}
+			ints = null;
+			type = Type.LONG;
+		} else if (type == Type.INT && valueType == Type.DOUBLE) {
+			//ints are exactly representable as double, longs are not
+			doubles = new double[ints.length];
+			for (int i = 0; i < size; i++) {
+				doubles[i] = ints[i];
+			}
+			ints = null;
+			type = Type.DOUBLE;
+		} else if (!(type == Type.LONG && valueType == Type.INT) && !(type == Type.DOUBLE && valueType == Type.INT)) {
+			convertToObjects();
+		}
+	}
+
+	private void convertToObjects() {
+		int capacity = type == Type.BOOLEAN ? size + 1 : capacity();
+		Object[] converted = new Object[Math.max(INITIAL_CAPACITY, capacity)];
+		for (int i = 0; i < size; i++) {
+			converted[i] = get(i);
+		}
+		ints = null;
+		longs = null;
+		doubles = null;
+		booleans = null;
+		dictionary = null;
+		dictionaryCodes = null;
+		objects = converted;
+		type = Type.OBJECT;
+	}
+
+	private int capacity() {
+		switch (type) {
+			case INT:
+			case STRING: return ints.length;
+			case LONG: return longs.length;
+			case DOUBLE: return doubles.length;
+			case OBJECT: return objects.length;
+			//bitsets grow on their own
+			default: return Integer.MAX_VALUE;
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (type == Type.EMPTY || type == Type.BOOLEAN || capacity <= capacity()) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, capacity() + (capacity() >> 1));
+		switch (type) {
+			case INT:
+			case STRING: ints = Arrays.copyOf(ints, newCapacity); break;
+			case LONG: longs = Arrays.copyOf(longs, newCapacity); break;
+			case DOUBLE: doubles = Arrays.copyOf(doubles, newCapacity); break;
+			default: objects = Arrays.copyOf(objects, newCapacity);
+		}
+	}
+
+	private void checkIndex(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + size + " rows");
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package milkman.domain.rowset;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+/**
+ * a columnar, typed container for tabular query results. Values are appended row by row but stored
+ * column-wise (see {@link Column}), which keeps large results compact and avoids turning every cell into a string.
+ *
+ * Strings for display are only created on access, e.g. via {@link #asFormattedRows()}.
+ *
+ * Rows can be appended while the row set is read (e.g. by the ui while a result is still being fetched),
+ * listeners are notified about appended rows. {@link Column}s themselves are not synchronized.
+ */
+public class RowSet {
+
+	private final List<String> columnNames = new ArrayList<>();
+	private List<String> columnNamesSnapshot;
+	private final List<Column> columns = new ArrayList<>();
+	//first column with a given name, result sets can contain several columns with the same name
+	private final Map<String, Integer> columnIndex = new HashMap<>();
+	private int rowCount = 0;
+	private final List<IntConsumer> rowListeners = new CopyOnWriteArrayList<>();
+
+	public RowSet() {
+	}
+
+	public RowSet(List<String> columnNames) {
+		columnNames.forEach(this::addColumn);
+	}
+
+	/**
+	 * returns the index of the column with the given name, adding a new column if it does not exist yet.
+	 * New columns are filled with nulls for all existing rows.
+	 */
+	public synchronized int ensureColumn(String name) {
+		Integer idx = columnIndex.get(name);
+		return idx != null ? idx : addColumn(name);
+	}
+
+	private int addColumn(String name) {
+		Column column = new Column();
+		for (int i = 0; i < rowCount; i++) {
+			column.appendNull();
+		}
+		columnNames.add(name);
+		columnNamesSnapshot = null;
+		columns.add(column);
+		columnIndex.putIfAbsent(name, columns.size() - 1);
+		return columns.size() - 1;
+	}
+
+	public void addRow(Object... values) {
+		synchronized (this) {
+			appendRow(values);
+		}
+		notifyRowListeners();
+	}
+
+	public void addRow(List<?> values) {
+		addRow(values.toArray());
+	}
+
+	/**
+	 * appends several rows at once, listeners are notified only once
+	 */
+	public void addRows(List<Object[]> rows) {
+		synchronized (this) {
+			rows.forEach(this::appendRow);
+		}
+		notifyRowListeners();
+	}
+
+	/**
+	 * registers a listener that is called with the new row count after rows were appended.
+	 * Listeners are called on the thread that appended the rows.
+	 */
+	public void onRowsAdded(IntConsumer listener) {
+		rowListeners.add(listener);
+	}
+
+	private void notifyRowListeners() {
+		if (!rowListeners.isEmpty()) {
+			int count = getRowCount();
+			rowListeners.forEach(l -> l.accept(count));
+		}
+	}
+
+	private void appendRow(Object[] values) {
+		if (values.length > columns.size()) {
+			throw new IllegalArgumentException("Row has " + values.length + " values, but only " + columns.size() + " columns exist");
+		}
+		for (int i = 0; i < columns.size(); i++) {
+			columns.get(i).append(i < values.length ? values[i] : null);
+		}
+		rowCount++;
+	}
+
+	public synchronized int getRowCount() {
+		return rowCount;
+	}
+
+	public synchronized int getColumnCount() {
+		return columns.size();
+	}
+
+	public synchronized List<String> getColumnNames() {
+		if (columnNamesSnapshot == null) {
+			columnNamesSnapshot = Collections.unmodifiableList(new ArrayList<>(columnNames));
+		}
+		return columnNamesSnapshot;
+	}
+
+	public synchronized Column getColumn(int column) {
+		return columns.get(column);
+	}
+
+	public synchronized Object getValue(int row, int column) {
+		return columns.get(column).get(row);
+	}
+
+	public synchronized String getFormattedValue(int row, int column) {
+		return columns.get(column).getFormatted(row);
+	}
+
+	/**
+	 * a read-only view of all rows with formatted values. Values are formatted on access, nothing is copied.
+	 */
+	public List<List<String>> asFormattedRows() {
+		return new AbstractList<>() {
+			@Override
+			public List<String> get(int row) {
+				int count = getRowCount();
+				if (row < 0 || row >= count) {
+					throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + count + " rows");
+				}
+				return formattedRow(row);
+			}
+
+			@Override
+			public int size() {
+				return getRowCount();
+			}
+		};
+	}
+
+	private List<String> formattedRow(int row) {
+		return new AbstractList<>() {
+			@Override
+			public String get(int column) {
+				return getFormattedValue(row, column);
+			}
+
+			@Override
+			public int size() {
+				return getColumnCount();
+			}
+		};
+	}
+}
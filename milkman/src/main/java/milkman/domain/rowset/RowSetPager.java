@@ -0,0 +1,19 @@
+package milkman.domain.rowset;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * fetches further rows of a result that is larger than one page, without re-running the query.
+ * Fetched rows are appended to the row set of the response aspect.
+ */
+public interface RowSetPager {
+
+	boolean hasMoreRows();
+
+	CompletableFuture<Void> fetchNextPage();
+
+	/**
+	 * releases the underlying cursor, no further pages can be fetched afterwards
+	 */
+	void close();
+}
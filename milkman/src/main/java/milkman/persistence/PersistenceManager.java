@@ -1,10 +1,18 @@
 package milkman.persistence;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
@@ -17,19 +25,73 @@ import org.dizitart.no2.objects.filters.ObjectFilters;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.SneakyThrows;
+import lombok.Value;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 import milkman.PlatformUtil;
+import milkman.domain.Collection;
+import milkman.domain.Environment;
+import milkman.domain.RequestAspect;
+import milkman.domain.RequestContainer;
 import milkman.domain.Workspace;
 
 @Singleton
 @Slf4j
 public class PersistenceManager {
+
+	private static final String WORKSPACE_KEY = "workspace";
 	
 	private CompletableFuture<Nitrite> db;
+	private ObjectMapper mapper;
 	private ObjectRepository<Workspace> workspaces;
+	private ObjectRepository<StoredCollection> collections;
+	private ObjectRepository<StoredRequest> requests;
+	private ObjectRepository<StoredEnvironment> environments;
+	private ObjectRepository<StoredOpenRequests> openRequests;
 	private ObjectRepository<OptionEntry> options;
 	private ObjectRepository<WorkbenchState> workbenchStates;
+
+	/**
+	 * what was written last for each document of a workspace, as it is currently in the database.
+	 * Used to write only documents that actually changed, without serializing the unchanged ones.
+	 */
+	private final Map<Long, Map<String, Object>> persistedDocuments = new ConcurrentHashMap<>();
+
+	//marks a document that exists in the database but was not loaded, so it is either overwritten or removed
+	private static final Object UNKNOWN_DOCUMENT = new Object();
+
+	/**
+	 * requests make up most of a workspace, so they are not compared by content but by instance and revisions.
+	 * Saving a request replaces it by a copy and editing an aspect increments the revision of that aspect.
+	 * Revisions are compared per aspect, as a changed aspect list could otherwise result in the same total.
+	 */
+	@Value
+	private static class PersistedRequest {
+		RequestContainer request;
+		long revision;
+		List<RequestAspect> aspects;
+		long[] aspectRevisions;
+
+		static PersistedRequest of(RequestContainer request) {
+			List<RequestAspect> aspects = new ArrayList<>(nullSafe(request.getAspects()));
+			return new PersistedRequest(request, request.getRevision(), aspects,
+					aspects.stream().mapToLong(RequestAspect::getRevision).toArray());
+		}
+
+		boolean isUnchanged(RequestContainer current) {
+			List<RequestAspect> currentAspects = nullSafe(current.getAspects());
+			if (request != current || revision != current.getRevision() || aspects.size() != currentAspects.size()) {
+				return false;
+			}
+			for (int i = 0; i < aspectRevisions.length; i++) {
+				RequestAspect aspect = currentAspects.get(i);
+				if (aspect != aspects.get(i) || aspect.getRevision() != aspectRevisions[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
 	
 	public WorkbenchState loadWorkbenchState() {
 		assureInitialization();
@@ -53,24 +115,238 @@ public class PersistenceManager {
 		return result;
 	}
 
-	public Optional<Workspace> loadWorkspaceByName(String name) {
+	public synchronized Optional<Workspace> loadWorkspaceByName(String name) {
 		assureInitialization();
 		return Optional.ofNullable(workspaces
 				.find(ObjectFilters.eq("name", name))
 				.firstOrDefault())
+				.map(this::loadWorkspaceContent)
 				.map(this::fixSerialization);
 	}
 
-	
-	public void persistWorkspace(Workspace workspace) {
+	/**
+	 * persists the workspace. Collections, requests, open requests and environments are stored as separate documents
+	 * and only those that changed since they were loaded or persisted the last time are written.
+	 */
+	public synchronized void persistWorkspace(Workspace workspace) {
 		assureInitialization();
 		if (workspace.getId() == 0) {
 			long newId = new Random().nextLong(); //todo awkward method to generate new id
-			workspace.setId(newId);			
-			workspaces.insert(workspace);
+			workspace.setId(newId);
+		}
+
+		Map<String, Object> persisted = persistedDocuments.computeIfAbsent(workspace.getId(), this::loadStoredDocumentKeys);
+		Set<String> currentKeys = new HashSet<>();
+
+		int collectionPosition = 0;
+		for (Collection collection : nullSafe(workspace.getCollections())) {
+			String collectionKey = uniqueKey(workspace.getId() + "/" + collection.getId(), currentKeys);
+			List<String> requestIds = new LinkedList<>();
+			for (RequestContainer request : nullSafe(collection.getRequests())) {
+				String requestKey = uniqueKey(collectionKey + "/" + request.getId(), currentKeys);
+				requestIds.add(requestKey);
+				writeRequestIfChanged(requestKey, workspace.getId(), request, persisted);
+			}
+			var storedCollection = new StoredCollection(collectionKey, workspace.getId(), collectionPosition++, withoutRequests(collection), requestIds);
+			writeIfChanged(collections, collectionKey, storedCollection, persisted);
+		}
+
+		writeOpenRequests(workspace, persisted, currentKeys);
+
+		int environmentPosition = 0;
+		for (Environment environment : nullSafe(workspace.getEnvironments())) {
+			String environmentKey = uniqueKey(workspace.getId() + "/" + environment.getId(), currentKeys);
+			var storedEnvironment = new StoredEnvironment(environmentKey, workspace.getId(), environmentPosition++, environment);
+			writeIfChanged(environments, environmentKey, storedEnvironment, persisted);
+		}
+
+		removeDeletedDocuments(persisted, currentKeys);
+
+		//the workspace document is written last, so an interrupted migration is just repeated on next load
+		writeIfChanged(workspaces, WORKSPACE_KEY, withoutContent(workspace), persisted);
+	}
+
+	/**
+	 * open requests are copies of the requests of collections and are stored the same way, referenced by their ids.
+	 * The active request usually is one of them, otherwise it is stored on its own.
+	 */
+	private void writeOpenRequests(Workspace workspace, Map<String, Object> persisted, Set<String> currentKeys) {
+		String openRequestsKey = uniqueKey(workspace.getId() + "/open", currentKeys);
+		RequestContainer activeRequest = workspace.getActiveRequest();
+		List<String> requestIds = new LinkedList<>();
+		String activeRequestId = null;
+		for (RequestContainer request : nullSafe(workspace.getOpenRequests())) {
+			String requestKey = uniqueKey(openRequestsKey + "/" + request.getId(), currentKeys);
+			requestIds.add(requestKey);
+			writeRequestIfChanged(requestKey, workspace.getId(), request, persisted);
+			if (activeRequestId == null && activeRequest != null && request.getId().equals(activeRequest.getId())) {
+				activeRequestId = requestKey;
+			}
+		}
+		if (activeRequestId == null && activeRequest != null) {
+			activeRequestId = uniqueKey(workspace.getId() + "/active/" + activeRequest.getId(), currentKeys);
+			writeRequestIfChanged(activeRequestId, workspace.getId(), activeRequest, persisted);
 		}
-		else
-			workspaces.update(workspace);
+		var storedOpenRequests = new StoredOpenRequests(openRequestsKey, workspace.getId(), requestIds, activeRequestId);
+		writeIfChanged(openRequests, openRequestsKey, storedOpenRequests, persisted);
+	}
+
+	private void writeRequestIfChanged(String key, long workspaceId, RequestContainer request, Map<String, Object> persisted) {
+		Object persistedRequest = persisted.get(key);
+		if (persistedRequest instanceof PersistedRequest && ((PersistedRequest) persistedRequest).isUnchanged(request)) {
+			return;
+		}
+		requests.update(new StoredRequest(key, workspaceId, request), true);
+		persisted.put(key, PersistedRequest.of(request));
+	}
+
+	/**
+	 * the other documents are small, they are compared to a copy of what was written last.
+	 * The copy is only made on write, so unchanged documents are never serialized.
+	 */
+	private <T> void writeIfChanged(ObjectRepository<T> repository, String key, T document, Map<String, Object> persisted) {
+		if (!document.equals(persisted.get(key))) {
+			repository.update(document, true);
+			persisted.put(key, copyOf(document));
+		}
+	}
+
+	private void removeDeletedDocuments(Map<String, Object> persisted, Set<String> currentKeys) {
+		List<String> deletedKeys = persisted.keySet().stream()
+				.filter(k -> !k.equals(WORKSPACE_KEY) && !currentKeys.contains(k))
+				.collect(Collectors.toList());
+		if (deletedKeys.isEmpty()) {
+			return;
+		}
+		Object[] keys = deletedKeys.toArray();
+		requests.remove(ObjectFilters.in("id", keys));
+		collections.remove(ObjectFilters.in("id", keys));
+		environments.remove(ObjectFilters.in("id", keys));
+		openRequests.remove(ObjectFilters.in("id", keys));
+		deletedKeys.forEach(persisted::remove);
+	}
+
+	/**
+	 * used, if a workspace is persisted that was not loaded before. All stored documents are marked as unknown,
+	 * so they are either overwritten or removed.
+	 */
+	private Map<String, Object> loadStoredDocumentKeys(long workspaceId) {
+		Map<String, Object> persisted = new HashMap<>();
+		for (val request : requests.find(ObjectFilters.eq("workspaceId", workspaceId)))
+			persisted.put(request.getId(), UNKNOWN_DOCUMENT);
+		for (val collection : collections.find(ObjectFilters.eq("workspaceId", workspaceId)))
+			persisted.put(collection.getId(), UNKNOWN_DOCUMENT);
+		for (val environment : environments.find(ObjectFilters.eq("workspaceId", workspaceId)))
+			persisted.put(environment.getId(), UNKNOWN_DOCUMENT);
+		for (val storedOpenRequests : openRequests.find(ObjectFilters.eq("workspaceId", workspaceId)))
+			persisted.put(storedOpenRequests.getId(), UNKNOWN_DOCUMENT);
+		return persisted;
+	}
+
+	private Workspace loadWorkspaceContent(Workspace workspace) {
+		if (!nullSafe(workspace.getCollections()).isEmpty() || !nullSafe(workspace.getEnvironments()).isEmpty()) {
+			//old format: the whole workspace was stored in one document
+			log.info("Migrating workspace {} to per-collection storage", workspace.getName());
+			persistedDocuments.remove(workspace.getId());
+			persistWorkspace(workspace);
+			return workspace;
+		}
+
+		Map<String, Object> persisted = new HashMap<>();
+
+		Map<String, RequestContainer> storedRequests = new HashMap<>();
+		for (val storedRequest : requests.find(ObjectFilters.eq("workspaceId", workspace.getId()))) {
+			persisted.put(storedRequest.getId(), PersistedRequest.of(storedRequest.getRequest()));
+			storedRequests.put(storedRequest.getId(), storedRequest.getRequest());
+		}
+
+		List<StoredCollection> storedCollections = new ArrayList<>();
+		for (val storedCollection : collections.find(ObjectFilters.eq("workspaceId", workspace.getId()))) {
+			//the loaded collection becomes part of the workspace and is changed from now on, so a copy is kept
+			persisted.put(storedCollection.getId(), copyOf(storedCollection));
+			storedCollections.add(storedCollection);
+		}
+		storedCollections.sort(Comparator.comparingInt(StoredCollection::getPosition));
+
+		List<Collection> loadedCollections = new LinkedList<>();
+		for (StoredCollection storedCollection : storedCollections) {
+			Collection collection = storedCollection.getCollection();
+			collection.setRequests(storedCollection.getRequestIds().stream()
+					.map(storedRequests::get)
+					.filter(r -> r != null)
+					.collect(Collectors.toCollection(LinkedList::new)));
+			loadedCollections.add(collection);
+		}
+
+		List<StoredEnvironment> storedEnvironments = new ArrayList<>();
+		for (val storedEnvironment : environments.find(ObjectFilters.eq("workspaceId", workspace.getId()))) {
+			persisted.put(storedEnvironment.getId(), copyOf(storedEnvironment));
+			storedEnvironments.add(storedEnvironment);
+		}
+		storedEnvironments.sort(Comparator.comparingInt(StoredEnvironment::getPosition));
+
+		persisted.put(WORKSPACE_KEY, copyOf(workspace));
+
+		//workspaces persisted before open requests were stored separately still contain them
+		StoredOpenRequests storedOpenRequests = openRequests.find(ObjectFilters.eq("workspaceId", workspace.getId())).firstOrDefault();
+		if (storedOpenRequests != null) {
+			persisted.put(storedOpenRequests.getId(), copyOf(storedOpenRequests));
+			workspace.setOpenRequests(storedOpenRequests.getRequestIds().stream()
+					.map(storedRequests::get)
+					.filter(r -> r != null)
+					.collect(Collectors.toCollection(LinkedList::new)));
+			workspace.setActiveRequest(storedOpenRequests.getActiveRequestId() == null ? null : storedRequests.get(storedOpenRequests.getActiveRequestId()));
+		}
+
+		workspace.setCollections(loadedCollections);
+		workspace.setEnvironments(storedEnvironments.stream()
+				.map(StoredEnvironment::getEnvironment)
+				.collect(Collectors.toCollection(LinkedList::new)));
+		persistedDocuments.put(workspace.getId(), persisted);
+		return workspace;
+	}
+
+	/**
+	 * the workspace document only contains everything except collections, environments and open requests
+	 */
+	private Workspace withoutContent(Workspace workspace) {
+		Workspace document = new Workspace(workspace.getId(),
+				workspace.getWorkspaceId(),
+				workspace.getName(),
+				new LinkedList<>(),
+				new LinkedList<>(),
+				null);
+		document.setEnvironments(new LinkedList<>());
+		document.setKeySets(workspace.getKeySets());
+		document.setSyncDetails(workspace.getSyncDetails());
+		return document;
+	}
+
+	private Collection withoutRequests(Collection collection) {
+		return new Collection(collection.getId(),
+				collection.getName(),
+				collection.isStarred(),
+				new LinkedList<>(),
+				collection.getFolders());
+	}
+
+	private static String uniqueKey(String key, Set<String> usedKeys) {
+		//requests might be contained several times, e.g. if imported twice
+		String uniqueKey = key;
+		int idx = 1;
+		while (!usedKeys.add(uniqueKey)) {
+			uniqueKey = key + "#" + idx++;
+		}
+		return uniqueKey;
+	}
+
+	private static <T> List<T> nullSafe(List<T> list) {
+		return list == null ? List.of() : list;
+	}
+
+	@SneakyThrows
+	private <T> T copyOf(T document) {
+		return (T) mapper.readValue(mapper.writeValueAsBytes(document), document.getClass());
 	}
 	
 	public List<OptionEntry> loadOptions(){
@@ -90,24 +366,37 @@ public class PersistenceManager {
 		options.insert(optEntries.toArray(new OptionEntry[] {}));
 	}
 
-	public boolean deleteWorkspace(String workspaceName) {
+	public synchronized boolean deleteWorkspace(String workspaceName) {
 		assureInitialization();
+		Workspace workspace = workspaces.find(ObjectFilters.eq("name", workspaceName)).firstOrDefault();
+		if (workspace == null) {
+			return false;
+		}
+		requests.remove(ObjectFilters.eq("workspaceId", workspace.getId()));
+		collections.remove(ObjectFilters.eq("workspaceId", workspace.getId()));
+		environments.remove(ObjectFilters.eq("workspaceId", workspace.getId()));
+		openRequests.remove(ObjectFilters.eq("workspaceId", workspace.getId()));
+		persistedDocuments.remove(workspace.getId());
 		return workspaces.remove(ObjectFilters.eq("name", workspaceName)).getAffectedCount() > 0;
 	}
 	
 	
 	@PostConstruct
 	public void init() {
+		init(PlatformUtil.getWritableLocationForFile("database.db"));
+	}
+
+	void init(String databaseFile) {
 		JacksonMapper nitriteMapper = new JacksonMapper();
-		ObjectMapper mapper = nitriteMapper.getObjectMapper();
+		mapper = nitriteMapper.getObjectMapper();
 		mapper.addHandler(new UnknownPluginHandler());
-		db = CompletableFuture.supplyAsync(() -> createOrOpenDb(nitriteMapper));
+		db = CompletableFuture.supplyAsync(() -> createOrOpenDb(nitriteMapper, databaseFile));
 	}
 	
-	private Nitrite createOrOpenDb(JacksonMapper nitriteMapper) {
+	private Nitrite createOrOpenDb(JacksonMapper nitriteMapper, String databaseFile) {
 		var createdDb = Nitrite.builder()
 		        .compressed()
-		        .filePath(PlatformUtil.getWritableLocationForFile("database.db"))
+		        .filePath(databaseFile)
 		        .nitriteMapper(nitriteMapper)
 		        .openOrCreate("milkman", "bringthemilk");
 		if (createdDb == null)
@@ -115,10 +404,21 @@ public class PersistenceManager {
 		return createdDb;
 	}
 
+	/**
+	 * closes the database, the persistence manager can not be used afterwards
+	 */
+	void close() {
+		db.join().close();
+	}
+
 	@SneakyThrows
 	private void assureInitialization() {
 		if (workspaces == null || options == null || workbenchStates == null) {
 			workspaces = db.get().getRepository(Workspace.class);
+			collections = db.get().getRepository(StoredCollection.class);
+			requests = db.get().getRepository(StoredRequest.class);
+			environments = db.get().getRepository(StoredEnvironment.class);
+			openRequests = db.get().getRepository(StoredOpenRequests.class);
 			options = db.get().getRepository(OptionEntry.class);
 			workbenchStates = db.get().getRepository(WorkbenchState.class);
 		}
@@ -126,6 +426,10 @@ public class PersistenceManager {
 	
 
 	private Workspace fixSerialization(Workspace ws) {
+		if (ws.getActiveRequest() == null) {
+			ws.getOpenRequests().stream().findFirst().ifPresent(ws::setActiveRequest);
+			return ws;
+		}
 		//due to json serialization, the active request is duplicated, but should be references from openRequests
 		ws.getOpenRequests().stream()
 		.filter(r -> r.getId().equals(ws.getActiveRequest().getId()))
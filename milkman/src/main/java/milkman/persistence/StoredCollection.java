@@ -0,0 +1,33 @@
+package milkman.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import milkman.domain.Collection;
+import org.dizitart.no2.IndexType;
+import org.dizitart.no2.objects.Id;
+import org.dizitart.no2.objects.Index;
+import org.dizitart.no2.objects.Indices;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * a collection of a workspace, stored without its requests. The requests are stored
+ * as separate {@link StoredRequest}s, referenced in order by their ids.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Indices({
+	@Index(value = "workspaceId", type = IndexType.NonUnique)
+})
+public class StoredCollection {
+
+	@Id
+	String id;
+	long workspaceId;
+	int position;
+	Collection collection;
+	List<String> requestIds = new LinkedList<>();
+}
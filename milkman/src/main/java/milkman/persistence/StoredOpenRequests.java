@@ -0,0 +1,31 @@
+package milkman.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.dizitart.no2.IndexType;
+import org.dizitart.no2.objects.Id;
+import org.dizitart.no2.objects.Index;
+import org.dizitart.no2.objects.Indices;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * the open requests of a workspace. The requests are stored as separate {@link StoredRequest}s,
+ * referenced in order by their ids, so the workspace document stays small.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Indices({
+	@Index(value = "workspaceId", type = IndexType.Unique)
+})
+public class StoredOpenRequests {
+
+	@Id
+	String id;
+	long workspaceId;
+	List<String> requestIds = new LinkedList<>();
+	String activeRequestId;
+}
@@ -0,0 +1,28 @@
+package milkman.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import milkman.domain.RequestContainer;
+import org.dizitart.no2.IndexType;
+import org.dizitart.no2.objects.Id;
+import org.dizitart.no2.objects.Index;
+import org.dizitart.no2.objects.Indices;
+
+/**
+ * a single request of a collection, stored as its own document so that saving a request
+ * does not rewrite the whole workspace.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Indices({
+	@Index(value = "workspaceId", type = IndexType.NonUnique)
+})
+public class StoredRequest {
+
+	@Id
+	String id;
+	long workspaceId;
+	RequestContainer request;
+}
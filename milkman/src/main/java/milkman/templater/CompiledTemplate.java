@@ -0,0 +1,141 @@
+package milkman.templater;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * a template that is parsed once into literal and variable segments, so it can be rendered
+ * repeatedly without scanning the input again.
+ *
+ * A variable is an innermost tag, i.e. {{name}} where name does not contain an opening brace.
+ * Nested tags like {{ {{a}}{{b}} }} are resolved from the inside out by rendering the result again.
+ */
+class CompiledTemplate {
+
+	private static final int MAX_CACHED_TEMPLATES = 256;
+
+	//large inputs (e.g. bodies) are not cached, so the cache does not keep them alive.
+	//parsing is linear anyway, so caching mostly pays off for the many small inputs like urls and headers
+	static final int MAX_CACHED_TEMPLATE_LENGTH = 8 * 1024;
+
+	private static final Map<String, CompiledTemplate> templateCache = Collections.synchronizedMap(
+			new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, CompiledTemplate> eldest) {
+					return size() > MAX_CACHED_TEMPLATES;
+				}
+			});
+
+	private final List<Segment> segments;
+	private final int literalLength;
+
+	private CompiledTemplate(List<Segment> segments) {
+		this.segments = segments;
+		this.literalLength = segments.stream()
+				.filter(s -> !s.isVariable())
+				.mapToInt(s -> s.getText().length())
+				.sum();
+	}
+
+	/**
+	 * returns the compiled template for the given input. Compiled templates of small inputs are cached,
+	 * so repeated executions of the same request reuse the parsed template.
+	 */
+	static CompiledTemplate of(String template) {
+		if (template.length() > MAX_CACHED_TEMPLATE_LENGTH) {
+			return compile(template);
+		}
+		CompiledTemplate compiled = templateCache.get(template);
+		if (compiled == null) {
+			compiled = compile(template);
+			templateCache.put(template, compiled);
+		}
+		return compiled;
+	}
+
+	static CompiledTemplate compile(String template) {
+		List<Segment> segments = new ArrayList<>();
+		int length = template.length();
+		int literalStart = 0;
+		int idx = template.indexOf("{{");
+		while (idx >= 0 && idx + 1 < length) {
+			int tagEnd = -1;
+			int nextCandidate = idx + 1;
+			for (int pos = idx + 2; pos < length; ++pos) {
+				char c = template.charAt(pos);
+				if (pos > idx + 2 && c == '}' && pos + 1 < length && template.charAt(pos + 1) == '}') {
+					tagEnd = pos;
+					break;
+				}
+				if (c == '{') {
+					//no tag can start before this brace, as it would contain an opening brace
+					nextCandidate = Math.max(idx + 1, pos - 1);
+					break;
+				}
+				if (pos == length - 1) {
+					//no closing braces left, so no further tag possible
+					nextCandidate = length;
+				}
+			}
+
+			if (tagEnd >= 0) {
+				if (idx > literalStart) {
+					segments.add(Segment.literal(template.substring(literalStart, idx)));
+				}
+				segments.add(Segment.variable(template.substring(idx + 2, tagEnd)));
+				literalStart = tagEnd + 2;
+				idx = template.indexOf("{{", literalStart);
+			} else {
+				idx = nextCandidate < length ? template.indexOf("{{", nextCandidate) : -1;
+			}
+		}
+
+		if (literalStart < length) {
+			segments.add(Segment.literal(template.substring(literalStart)));
+		}
+		return new CompiledTemplate(segments);
+	}
+
+	boolean hasVariables() {
+		return segments.stream().anyMatch(Segment::isVariable);
+	}
+
+	/**
+	 * renders this template. The variable resolver is called with the raw (untrimmed) tag name.
+	 */
+	String render(Function<String, String> variableResolver) {
+		if (segments.size() == 1 && !segments.get(0).isVariable()) {
+			return segments.get(0).getText();
+		}
+
+		StringBuilder result = new StringBuilder(literalLength + 16 * segments.size());
+		for (Segment segment : segments) {
+			if (segment.isVariable()) {
+				result.append(variableResolver.apply(segment.getText()));
+			} else {
+				result.append(segment.getText());
+			}
+		}
+		return result.toString();
+	}
+
+	@Value
+	private static class Segment {
+		String text;
+		boolean variable;
+
+		static Segment literal(String text) {
+			return new Segment(text, false);
+		}
+
+		static Segment variable(String name) {
+			return new Segment(name, true);
+		}
+	}
+}
@@ -1,92 +1,113 @@
 package milkman.templater;
 
+import lombok.extern.slf4j.Slf4j;
 import milkman.domain.Environment;
 import milkman.domain.Environment.EnvironmentEntry;
 import milkman.ui.plugin.Templater;
 
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Set;
 
+@Slf4j
 public class EnvironmentTemplater implements Templater{
 
+	//safety net in case plugin templaters keep producing new tags
+	private static final int MAX_PASSES = 100;
 
-//	private final Pattern tagPattern = Pattern.compile("(?<=[\\{]{2})([^}]+)(?=[\\}]{2})");
-	private final Pattern tagPattern = Pattern.compile("([\\{]{2}[^{]+?[\\}]{2})");
-	private final Optional<Environment> activeEnvironment;
-	private final List<Environment> globalEnvironments;
 	private final PrefixedTemplaterResolver resolver;
 
+	//a templater is built per execution, so the merged environment is only built once per execution.
+	//it is built upfront, as a templater might be used by several threads (e.g. parallel test steps)
+	private final Map<String, String> mergedEnvironment;
+
 
 	public EnvironmentTemplater(Optional<Environment> activeEnvironment, List<Environment> globalEnvironments, PrefixedTemplaterResolver resolver) {
-		this.activeEnvironment = activeEnvironment;
-		this.globalEnvironments = globalEnvironments;
 		this.resolver = resolver;
+		this.mergedEnvironment = mergeEnvironments(activeEnvironment, globalEnvironments);
 	}
 
 
 	@Override
 	public String replaceTags(String input) {
-		boolean matched;
-		String oldInput;
+		if (input == null){
+			return "";
+		}
+		return replaceTags(CompiledTemplate.of(input), input, new Resolution());
+	}
+
+	/**
+	 * only request templates are cached, values of environment entries are compiled on each use, so they neither
+	 * evict request templates from the cache nor are kept alive by it
+	 */
+	private String replaceTags(CompiledTemplate compiledInput, String input, Resolution resolution) {
 		String curInput = input;
-		do{
-			if (curInput == null){
-				return "";
+		CompiledTemplate template = compiledInput;
+		for (int pass = 0; pass < MAX_PASSES; ++pass) {
+			if (!template.hasVariables()) {
+				return curInput;
 			}
 
-			oldInput = curInput;
-			Matcher matcher = tagPattern.matcher(curInput);
-			matched = false;
-			StringBuffer bufStr = new StringBuffer();
-			while(matcher.find()) {
-				String matchedGroup = matcher.group();
-				String value = getValueForTag(matchedGroup.substring(2, matchedGroup.length()-2));
-				matcher.appendReplacement(bufStr, Matcher.quoteReplacement(value));
-				matched = true;
+			String oldInput = curInput;
+			curInput = template.render(tagName -> getValueForTag(tagName, resolution));
+
+			// replaced values might form new tags (e.g. {{ {{a}}{{b}} }}), so we repeat until nothing changes anymore
+			if (resolution.cycleDetected || oldInput.equals(curInput) || !curInput.contains("{{")) {
+				return curInput;
 			}
-			matcher.appendTail(bufStr);
-			curInput = bufStr.toString();
-		} while(matched && !oldInput.equals(curInput));
-
-//		for(int i = 1; i <= matcher.groupCount(); ++i) {
-//			String replacementValue = getValueForTag(matcher.group(i));
-//			
-//			matcher.replaceAll(replacement)
-//		}
+			template = CompiledTemplate.compile(curInput);
+		}
+		log.warn("Stopped replacing tags after {} passes", MAX_PASSES);
 		return curInput;
 	}
 
 
-	private Map<String, String> getMergedEnvironment(Optional<Environment> activeEnvironment, List<Environment> globalEnvironments) {
-		Map<String, String> entries;
-		List<EnvironmentEntry> envEntries = activeEnvironment.map(env -> new LinkedList<>(env.getEntries())).orElse(new LinkedList<>());
-		globalEnvironments.forEach(ge -> envEntries.addAll(ge.getEntries()));
-
-
-		entries = envEntries.stream()
-				.filter(e -> e.isEnabled())
-				.collect(Collectors.toMap(
-						(EnvironmentEntry e) -> e.getName(),
-						(EnvironmentEntry e) -> e.getValue() == null ? "" : e.getValue(),
-						(String a, String b) -> a)); //in case several keys have the same name, use first one
+	private static Map<String, String> mergeEnvironments(Optional<Environment> activeEnvironment, List<Environment> globalEnvironments) {
+		Map<String, String> entries = new HashMap<>();
+		activeEnvironment.ifPresent(env -> addEnabledEntries(env, entries));
+		globalEnvironments.forEach(ge -> addEnabledEntries(ge, entries));
 		return entries;
 	}
 
+	private static void addEnabledEntries(Environment environment, Map<String, String> entries) {
+		for (EnvironmentEntry entry : environment.getEntries()) {
+			if (entry.isEnabled()) {
+				//in case several keys have the same name, use first one
+				entries.putIfAbsent(entry.getName(), entry.getValue() == null ? "" : entry.getValue());
+			}
+		}
+	}
+
 
-	private String getValueForTag(String tagName) {
-		Map<String, String> entries = getMergedEnvironment(activeEnvironment, globalEnvironments);
+	private String getValueForTag(String tagName, Resolution resolution) {
+		Map<String, String> entries = mergedEnvironment;
 		String trimmed = tagName.trim();
 		if (entries.containsKey(trimmed)){
-			return replaceTags(entries.get(trimmed));
-		} else {
+			if (!resolution.resolving.add(trimmed)) {
+				log.warn("Cyclic reference detected for variable {}", trimmed);
+				resolution.cycleDetected = true;
+				return "{{" + tagName + "}}";
+			}
+			String entryValue = entries.get(trimmed);
+			String value = replaceTags(CompiledTemplate.compile(entryValue), entryValue, resolution);
+			resolution.resolving.remove(trimmed);
+			return value;
+		} else if (resolver != null) {
 			return resolver.resolveViaPluginTemplater(trimmed)
 					.orElse("{{" + tagName + "}}");
 		}
+		return "{{" + tagName + "}}";
+	}
+
+	/**
+	 * state of a single replaceTags call, used to detect cyclic variable references
+	 */
+	private static class Resolution {
+		private final Set<String> resolving = new HashSet<>();
+		private boolean cycleDetected = false;
 	}
 
 }
@@ -88,6 +88,15 @@ public interface UiCommand {
 		Collection collection;
 	}
 	
+	/**
+	 * sent after a stored request was moved to another position, e.g. via drag and drop
+	 */
+	@Value
+	class UpdateRequestLocation implements UiCommand {
+		RequestContainer request;
+		Collection collection;
+	}
+	
 	@Value
 	class RenameRequest implements UiCommand {
 		RequestContainer request;
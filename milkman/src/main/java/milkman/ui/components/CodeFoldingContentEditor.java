@@ -218,6 +218,12 @@ public class CodeFoldingContentEditor extends ContentEditor {
     	super.addContent(additiveContent);
     };
 
+    @Override
+    public void removeLeadingContent(int length) {
+        //the displayed text differs from the original text if ranges are collapsed
+        replaceText(originalText.substring(Math.min(length, originalText.length())));
+    }
+
     private class FoldOperatorFactory implements IntFunction<Node> {
 
         Map<Integer, CollapsableRange> lineToContentLookup = new HashMap<>();
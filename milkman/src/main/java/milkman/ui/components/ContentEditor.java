@@ -426,6 +426,13 @@ public class ContentEditor extends VBox {
 		codeArea.appendText(additiveContent);
 	}
 
+	/**
+	 * removes the first characters of the content, e.g. to keep only the latest messages of a stream
+	 */
+	public void removeLeadingContent(int length) {
+		codeArea.deleteText(0, Math.min(length, codeArea.getLength()));
+	}
+
 	protected void replaceText(String newText) {
 		codeArea.replaceText(newText != null ? newText : "");
 	}
@@ -63,6 +63,9 @@ public class JfxTableEditor<T> extends StackPane {
 
 	private Supplier<T> newItemCreator;
 
+	//items appended via appendItems are not forwarded to the backing list
+	private boolean appendingItems = false;
+
 
 	public JfxTableEditor(String tableId) {
 		this.tableId = tableId;
@@ -308,6 +311,8 @@ public class JfxTableEditor<T> extends StackPane {
 
 			@Override
 			public void onChanged(Change<? extends RecursiveWrapper<T>> c) {
+				if (appendingItems)
+					return;
 				//forward removals:
 				if (!c.next())
 					return;
@@ -355,6 +360,19 @@ public class JfxTableEditor<T> extends StackPane {
 		
 	}
 	
+	/**
+	 * shows additional items, e.g. rows of a result that is still being fetched.
+	 * The items are only shown, they are not added to the list given in {@link #setItems(List)}.
+	 */
+	public void appendItems(List<T> newItems) {
+		appendingItems = true;
+		try {
+			obsWrappedItems.addAll(newItems.stream().map(i -> new RecursiveWrapper<>(i)).collect(Collectors.toList()));
+		} finally {
+			appendingItems = false;
+		}
+	}
+
 	public void clearContent() {
 		table.getColumns().clear();
 	}
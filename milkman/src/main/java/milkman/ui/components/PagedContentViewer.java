@@ -0,0 +1,227 @@
+package milkman.ui.components;
+
+import com.jfoenix.controls.JFXButton;
+import com.jfoenix.controls.JFXTextField;
+import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
+import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import milkman.utils.ResponseBodyStore;
+import milkman.utils.Utf8ChunkDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * a read-only viewer for (potentially huge) bodies that are kept in a {@link ResponseBodyStore}.
+ * Only one page of the body is decoded and shown at once, so neither the whole string nor the
+ * highlighting of the whole body is ever materialized.
+ * <p>
+ * Searching is done on the bytes of the store and jumps to the page containing the match.
+ */
+public class PagedContentViewer extends ContentEditor {
+
+	public static final int DEFAULT_PAGE_SIZE = 256 * 1024;
+
+	//max length of an utf-8 encoded character
+	private static final int MAX_CHAR_BYTES = 4;
+
+	//searches are run one after another, a search that is superseded by a newer one stops early
+	private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = Executors.defaultThreadFactory().newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final ResponseBodyStore store;
+	private final int pageSize;
+
+	private final Label pageLabel = new Label();
+	private final TextField searchField = new JFXTextField();
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+	private final AtomicLong searchRun = new AtomicLong();
+
+	private long currentPage = 0;
+	//byte offset of the first character shown on the current page
+	private long currentPageStart = 0;
+	private long lastMatch = -1;
+
+	public PagedContentViewer(ResponseBodyStore store) {
+		this(store, DEFAULT_PAGE_SIZE);
+	}
+
+	public PagedContentViewer(ResponseBodyStore store, int pageSize) {
+		this.store = store;
+		this.pageSize = pageSize;
+		setEditable(false);
+		setupPaging();
+		showPage(0);
+	}
+
+	private void setupPaging() {
+		var previous = new JFXButton();
+		previous.setGraphic(new FontAwesomeIconView(FontAwesomeIcon.ANGLE_LEFT));
+		previous.setOnAction(e -> showPage(currentPage - 1));
+		var next = new JFXButton();
+		next.setGraphic(new FontAwesomeIconView(FontAwesomeIcon.ANGLE_RIGHT));
+		next.setOnAction(e -> showPage(currentPage + 1));
+
+		searchField.setPromptText("Search whole body");
+		searchField.textProperty().addListener((obs, o, n) -> {
+			lastMatch = -1;
+			//drops the result of a running search for the previous text
+			searchRun.incrementAndGet();
+		});
+		searchField.setOnKeyPressed(e -> {
+			if (e.getCode() == KeyCode.ENTER) {
+				searchNext(searchField.getText());
+			}
+		});
+
+		addExtraHeaderElement(previous, false);
+		addExtraHeaderElement(pageLabel, false);
+		addExtraHeaderElement(next, false);
+		addExtraHeaderElement(searchField, false);
+	}
+
+	/**
+	 * updates the shown page with newly received bytes. Can be called from any thread,
+	 * subsequent calls are coalesced until the ui thread processes the update.
+	 */
+	public void refresh() {
+		if (refreshScheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				refreshScheduled.set(false);
+				showPage(currentPage);
+			});
+		}
+	}
+
+	public long getPageCount() {
+		return Math.max(1, (store.size() + pageSize - 1) / pageSize);
+	}
+
+	/**
+	 * formatting is only possible, if the whole body fits onto the current page
+	 */
+	@Override
+	public void formatCurrentCode() {
+		if (store != null && store.isCompleted() && store.size() <= pageSize) {
+			super.formatCurrentCode();
+		}
+	}
+
+	private void showPage(long page) {
+		if (store.isDisposed()) {
+			replaceText("");
+			pageLabel.setText(ResponseBodyStore.DISCARDED_MESSAGE);
+			return;
+		}
+		long newPage = Math.max(0, Math.min(page, getPageCount() - 1));
+		long pageOffset = newPage * pageSize;
+		//read some more bytes, so that a character starting at the end of the page is shown completely
+		byte[] bytes = store.read(pageOffset, pageSize + MAX_CHAR_BYTES - 1);
+
+		//characters are shown on the page their first byte belongs to
+		int from = 0;
+		while (pageOffset > 0 && from < bytes.length && from < MAX_CHAR_BYTES - 1 && isContinuationByte(bytes[from])) {
+			from++;
+		}
+		int to = Math.min(bytes.length, pageSize);
+		while (to < bytes.length && isContinuationByte(bytes[to])) {
+			to++;
+		}
+		//an incomplete character at the end of a body that is still received is held back
+		String text = new Utf8ChunkDecoder().decode(Arrays.copyOfRange(bytes, from, Math.max(from, to)));
+
+		String currentText = codeArea.getText();
+		if (newPage == currentPage && text.startsWith(currentText)) {
+			//keep caret and scroll position while the current page is filled up
+			if (text.length() > currentText.length()) {
+				codeArea.appendText(text.substring(currentText.length()));
+			}
+		} else {
+			replaceText(text);
+			codeArea.moveTo(0);
+			codeArea.requestFollowCaret();
+		}
+		currentPage = newPage;
+		currentPageStart = pageOffset + from;
+		pageLabel.setText("Page " + (currentPage + 1) + "/" + getPageCount() + " (" + formatSize(store.size()) + ")");
+	}
+
+	/**
+	 * searches in the background, so the ui is not blocked by bodies that are spilled to disk.
+	 * A new search supersedes a running one, whose result is dropped.
+	 */
+	private void searchNext(String query) {
+		long run = searchRun.incrementAndGet();
+		if (query == null || query.isEmpty()) {
+			return;
+		}
+		byte[] pattern = query.getBytes(StandardCharsets.UTF_8);
+		long fromOffset = lastMatch + 1;
+		boolean wrapAround = lastMatch >= 0;
+		BooleanSupplier superseded = () -> run != searchRun.get();
+		pageLabel.setText("Searching '" + query + "'...");
+		searchExecutor.execute(() -> {
+			try {
+				long match = store.indexOf(pattern, fromOffset, superseded);
+				if (match < 0 && wrapAround) {
+					match = store.indexOf(pattern, 0, superseded);
+				}
+				long result = match;
+				Platform.runLater(() -> {
+					if (!superseded.getAsBoolean()) {
+						showMatch(query, result);
+					}
+				});
+			} catch (RuntimeException e) {
+				Platform.runLater(() -> {
+					if (!superseded.getAsBoolean()) {
+						pageLabel.setText("Search failed: " + e.getMessage());
+					}
+				});
+			}
+		});
+	}
+
+	private void showMatch(String query, long match) {
+		if (match < 0) {
+			pageLabel.setText("'" + query + "' not found");
+			return;
+		}
+		lastMatch = match;
+
+		showPage(match / pageSize);
+		if (match < currentPageStart) {
+			//match starts within a character that belongs to the previous page
+			return;
+		}
+		int prefixLength = new String(store.read(currentPageStart, (int) (match - currentPageStart)), StandardCharsets.UTF_8).length();
+		int textLength = codeArea.getLength();
+		codeArea.selectRange(Math.min(prefixLength, textLength), Math.min(prefixLength + query.length(), textLength));
+		codeArea.requestFollowCaret();
+	}
+
+	private static boolean isContinuationByte(byte b) {
+		return (b & 0xC0) == 0x80;
+	}
+
+	private static String formatSize(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		if (bytes < 1024 * 1024) {
+			return String.format("%.1f KB", bytes / 1024.0);
+		}
+		return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+	}
+}
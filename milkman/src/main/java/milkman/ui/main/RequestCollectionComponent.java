@@ -66,7 +66,7 @@ public class RequestCollectionComponent {
 	public void display(List<Collection> collections) {
 
 		collectionContainer.setShowRoot(false);
-		collectionContainer.setCellFactory(new DnDCellFactory());
+		collectionContainer.setCellFactory(new DnDCellFactory((request, collection) -> onCommand.invoke(new UpdateRequestLocation(request, collection))));
 		List<TreeItem<Node>> entries = new LinkedList<>();
 		for (Collection collection : collections) {
 			entries.add(buildTree(collection));
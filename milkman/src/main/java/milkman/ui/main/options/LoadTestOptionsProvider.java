@@ -0,0 +1,68 @@
+package milkman.ui.main.options;
+
+import lombok.Data;
+import milkman.ui.main.options.LoadTestOptionsProvider.LoadTestOptions;
+import milkman.ui.plugin.OptionPageProvider;
+import milkman.ui.plugin.OptionsObject;
+import milkman.utils.LoadGenerator.LoadProfile;
+import milkman.utils.SoakTest.SoakProfile;
+
+public class LoadTestOptionsProvider implements OptionPageProvider<LoadTestOptions> {
+
+	@Data
+	public static class LoadTestOptions implements OptionsObject {
+		private int totalRequests = 100;
+		private int concurrency = 4;
+		private int requestsPerSecond = 0;
+
+		private int soakConnections = 10;
+		private int soakMessagesPerSecond = 1;
+		private int soakDurationSeconds = 60;
+		private String soakCorrelationExpression = "";
+
+		public LoadProfile toProfile() {
+			return new LoadProfile(totalRequests, concurrency, requestsPerSecond);
+		}
+
+		public SoakProfile toSoakProfile() {
+			return new SoakProfile(soakConnections, soakMessagesPerSecond, soakDurationSeconds, soakCorrelationExpression);
+		}
+	}
+
+	private static LoadTestOptions currentOptions = new LoadTestOptions();
+	public static LoadTestOptions options() {
+		return currentOptions;
+	}
+
+	@Override
+	public LoadTestOptions getOptions() {
+		return currentOptions;
+	}
+
+	@Override
+	public void setOptions(LoadTestOptions options) {
+		currentOptions = options;
+	}
+
+	@Override
+	public OptionDialogPane getOptionsDialog(OptionDialogBuilder builder) {
+		return builder.page("Load Test", getOptions())
+				.section("Load Profile")
+					.numberInput("Total Requests", LoadTestOptions::getTotalRequests, LoadTestOptions::setTotalRequests)
+					.numberInput("Concurrent Requests", LoadTestOptions::getConcurrency, LoadTestOptions::setConcurrency)
+					.numberInput("Requests per Second (0 = unlimited)", LoadTestOptions::getRequestsPerSecond, LoadTestOptions::setRequestsPerSecond)
+				.endSection()
+				.section("Soak Test (WebSocket, Socket.IO)")
+					.numberInput("Connections", LoadTestOptions::getSoakConnections, LoadTestOptions::setSoakConnections)
+					.numberInput("Messages per Second per Connection (0 = only connect)", LoadTestOptions::getSoakMessagesPerSecond, LoadTestOptions::setSoakMessagesPerSecond)
+					.numberInput("Duration (s)", LoadTestOptions::getSoakDurationSeconds, LoadTestOptions::setSoakDurationSeconds)
+					.textInput("Correlation Expression (e.g. $.id, empty = in order)", LoadTestOptions::getSoakCorrelationExpression, LoadTestOptions::setSoakCorrelationExpression)
+				.endSection()
+				.build();
+	}
+
+	@Override
+	public int getOrder() {
+		return 150;
+	}
+}
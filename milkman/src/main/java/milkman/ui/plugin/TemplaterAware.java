@@ -0,0 +1,10 @@
+package milkman.ui.plugin;
+
+/**
+ * gets a templater that replaces tags with the values of the current environments,
+ * e.g. for editors that need to know the effective url of a request
+ */
+public interface TemplaterAware {
+
+	void setTemplater(Templater templater);
+}
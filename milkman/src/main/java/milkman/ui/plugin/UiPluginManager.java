@@ -2,7 +2,10 @@ package milkman.ui.plugin;
 
 import lombok.RequiredArgsConstructor;
 import milkman.ctrl.ExecutionListenerManager;
+import milkman.domain.Environment;
 import milkman.domain.Workspace;
+import milkman.templater.EnvironmentTemplater;
+import milkman.templater.PrefixedTemplaterResolver;
 import milkman.ui.components.AutoCompleter;
 import milkman.ui.main.ActiveEnvironmentProvider;
 import milkman.ui.main.Toaster;
@@ -10,6 +13,7 @@ import milkman.ui.main.Toaster;
 import javax.inject.Inject;
 import java.util.*;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor(onConstructor_={@Inject})
 public class UiPluginManager {
@@ -116,10 +120,22 @@ public class UiPluginManager {
 			((RequestTypePluginAware)o).setRequestTypePlugins(loadRequestTypePlugins());
 		}
 
+		if (o instanceof TemplaterAware) {
+			//the environments might change while an editor is shown, so the templater is built on each use
+			((TemplaterAware) o).setTemplater(input -> buildTemplater().replaceTags(input));
+		}
+
 		if (o instanceof PluginManagerAware) {
 			((PluginManagerAware)o).setPluginManager(this);
 		}
 	}
+
+	private Templater buildTemplater() {
+		List<Environment> environments = activeWorkspace.get().getEnvironments();
+		Optional<Environment> activeEnv = environments.stream().filter(Environment::isActive).findAny();
+		List<Environment> globalEnvs = environments.stream().filter(Environment::isGlobal).collect(Collectors.toList());
+		return new EnvironmentTemplater(activeEnv, globalEnvs, new PrefixedTemplaterResolver(loadTemplaterPlugins()));
+	}
 	
 	public <T> List<T> loadSpiInstances(Class<T> type) {
 		if (cachedInstances.containsKey(type))
@@ -30,6 +30,16 @@ public class AsyncResponseControl {
 		onRequestStarted.clear();
 		cancellationControl.onCancellationRequested.invoke();
 	}
+
+	/**
+	 * cancels the request, if still running, and releases the resources of the response
+	 */
+	public void dispose() {
+		cancleRequest();
+		if (response != null) {
+			response.dispose();
+		}
+	}
 	
 	
 	@NoArgsConstructor(access = AccessLevel.PRIVATE)
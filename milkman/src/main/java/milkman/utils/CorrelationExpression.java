@@ -0,0 +1,61 @@
+package milkman.utils;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Optional;
+
+/**
+ * extracts a correlation id from a json message, so that responses can be matched to the requests they belong to.
+ *
+ * The expression is either a json pointer (e.g. /data/id) or a dotted path (e.g. $.data.id, data.items[0].id).
+ * Messages that are no json or do not contain the path have no correlation id.
+ */
+public class CorrelationExpression {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private final JsonPointer pointer;
+
+	private CorrelationExpression(JsonPointer pointer) {
+		this.pointer = pointer;
+	}
+
+	public static CorrelationExpression parse(String expression) {
+		if (StringUtils.isBlank(expression)) {
+			return new CorrelationExpression(null);
+		}
+		String path = expression.trim();
+		if (!path.startsWith("/")) {
+			path = StringUtils.removeStart(path, "$");
+			path = path.replaceAll("\\[(\\d+)]", ".$1");
+			path = "/" + StringUtils.removeStart(path, ".").replace(".", "/");
+		}
+		try {
+			return new CorrelationExpression(JsonPointer.compile(path));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid correlation expression: " + expression, e);
+		}
+	}
+
+	/**
+	 * without an expression, messages can not be correlated by content
+	 */
+	public boolean isEmpty() {
+		return pointer == null;
+	}
+
+	public Optional<String> extract(String message) {
+		if (pointer == null || message == null) {
+			return Optional.empty();
+		}
+		try {
+			JsonNode value = mapper.readTree(message).at(pointer);
+			return value.isMissingNode() || value.isNull() ? Optional.empty() : Optional.of(value.asText());
+		} catch (Exception e) {
+			return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package milkman.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * a histogram with logarithmic buckets that are linearly subdivided (like HdrHistogram), so that
+ * recorded values keep a relative precision of better than 1% over the whole range of long values.
+ *
+ * Recording is lock-free and can be done concurrently.
+ */
+public class LatencyHistogram {
+
+	//values below 2^SUB_BUCKET_BITS are recorded exactly, all others with a precision of 2^(SUB_BUCKET_BITS-1) steps per power of two
+	private static final int SUB_BUCKET_BITS = 8;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalSum = new AtomicLong();
+	private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong maxValue = new AtomicLong(0);
+
+	public void recordValue(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative values can not be recorded: " + value);
+		}
+		counts.incrementAndGet(indexOf(value));
+		totalCount.incrementAndGet();
+		totalSum.addAndGet(value);
+		minValue.accumulateAndGet(value, Math::min);
+		maxValue.accumulateAndGet(value, Math::max);
+	}
+
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	public long getMinValue() {
+		return totalCount.get() == 0 ? 0 : minValue.get();
+	}
+
+	public long getMaxValue() {
+		return maxValue.get();
+	}
+
+	public double getMean() {
+		long count = totalCount.get();
+		return count == 0 ? 0 : (double) totalSum.get() / count;
+	}
+
+	/**
+	 * returns the value at the given percentile (0-100), i.e. the highest value that is equivalent (within the precision of
+	 * this histogram) to the value below which the given percentage of recorded values fall.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = totalCount.get();
+		if (count == 0) {
+			return 0;
+		}
+		double requested = Math.min(Math.max(percentile, 0), 100);
+		long countAtPercentile = Math.max(1, (long) Math.ceil(requested / 100.0 * count));
+		long seen = 0;
+		for (int idx = 0; idx < BUCKET_COUNT; idx++) {
+			seen += counts.get(idx);
+			if (seen >= countAtPercentile) {
+				return Math.min(highestEquivalentValue(idx), getMaxValue());
+			}
+		}
+		return getMaxValue();
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		//shift, so that the value falls into the upper half of the sub buckets
+		int shift = (Long.SIZE - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+	}
+
+	static long lowestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+		long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		return subBucket << shift;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+		return lowestEquivalentValue(index) + (1L << shift) - 1;
+	}
+}
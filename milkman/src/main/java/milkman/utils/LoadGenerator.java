@@ -0,0 +1,164 @@
+package milkman.utils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import milkman.domain.RequestContainer;
+import milkman.domain.ResponseContainer;
+import milkman.domain.StatusInfoContainer;
+import milkman.ui.plugin.PluginRequestExecutor;
+import milkman.utils.AsyncResponseControl.AsyncControl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * executes a request repeatedly with a given concurrency and (optionally) a target rate and reports
+ * latency percentiles, throughput and errors to a {@link StatusInfoContainer} while running.
+ *
+ * If a target rate is given, every request has an intended start time according to the schedule and its latency
+ * is measured from that time instead of the actual start time. Thus, requests that are delayed because the
+ * target system stalls are accounted for with their full waiting time (no coordinated omission).
+ *
+ * Only successful requests are recorded in the latency histogram, failed requests are counted as errors,
+ * so fast failures (e.g. refused connections) do not improve the percentiles.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LoadGenerator {
+
+	private static final long REPORT_INTERVAL_MS = 500;
+	private static final AtomicInteger threadCounter = new AtomicInteger();
+
+	private final PluginRequestExecutor executor;
+	private final LoadProfile profile;
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	private final AtomicLong nextRequest = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+	private final Set<AsyncResponseControl> runningRequests = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * starts the load test in background threads and returns immediately.
+	 * The status is completed and the control is triggered as soon as the load test is done.
+	 */
+	public void start(RequestContainer request, StatusInfoContainer status, AsyncControl asyncControl) {
+		asyncControl.onCancellationRequested.add(this::cancel);
+
+		int concurrency = Math.max(1, profile.getConcurrency());
+		long startTime = System.nanoTime();
+		CountDownLatch workersDone = new CountDownLatch(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			newThread(() -> {
+				try {
+					runWorker(request, startTime);
+				} finally {
+					workersDone.countDown();
+				}
+			}).start();
+		}
+
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(this::newThread);
+		reporter.scheduleAtFixedRate(() -> report(status, startTime), REPORT_INTERVAL_MS, REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+		newThread(() -> {
+			try {
+				workersDone.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			reporter.shutdownNow();
+			report(status, startTime);
+			status.complete();
+			asyncControl.triggerRequestSucceeded();
+		}).start();
+	}
+
+	public void cancel() {
+		cancelled.set(true);
+		runningRequests.forEach(AsyncResponseControl::cancleRequest);
+	}
+
+	private void runWorker(RequestContainer request, long startTime) {
+		long intervalNanos = profile.getRequestsPerSecond() > 0 ? TimeUnit.SECONDS.toNanos(1) / profile.getRequestsPerSecond() : 0;
+		long requestNumber;
+		while (!cancelled.get() && (requestNumber = nextRequest.getAndIncrement()) < profile.getTotalRequests()) {
+			long intendedStart = startTime + requestNumber * intervalNanos;
+			long waitTime;
+			while ((waitTime = intendedStart - System.nanoTime()) > 0 && !cancelled.get()) {
+				LockSupport.parkNanos(waitTime);
+			}
+			if (cancelled.get()) {
+				return;
+			}
+
+			//without a target rate, there is no schedule, so the actual start is the intended start
+			long measuredFrom = intervalNanos > 0 ? intendedStart : System.nanoTime();
+			var requestControl = new AsyncResponseControl();
+			runningRequests.add(requestControl);
+			ResponseContainer response = null;
+			try {
+				response = executor.executeRequest(request, Optional.empty(), requestControl.getCancellationControl());
+				if (!cancelled.get()) {
+					histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - measuredFrom));
+				}
+			} catch (Exception e) {
+				if (!cancelled.get()) {
+					log.debug("Request of load test failed", e);
+					errors.incrementAndGet();
+				}
+			} finally {
+				runningRequests.remove(requestControl);
+				//responses are not displayed, so their resources (e.g. spilled bodies) are released right away
+				if (response != null) {
+					response.dispose();
+				}
+			}
+		}
+	}
+
+	private void report(StatusInfoContainer status, long startTime) {
+		long completed = histogram.getTotalCount() + errors.get();
+		double elapsedSeconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+		Map<String, String> result = new LinkedHashMap<>();
+		result.put("Requests", completed + "/" + profile.getTotalRequests());
+		result.put("Errors", "" + errors.get());
+		result.put("Throughput", String.format("%.1f req/s", elapsedSeconds > 0 ? completed / elapsedSeconds : 0));
+		result.put("p50", formatLatency(histogram.getValueAtPercentile(50)));
+		result.put("p90", formatLatency(histogram.getValueAtPercentile(90)));
+		result.put("p99", formatLatency(histogram.getValueAtPercentile(99)));
+		result.put("p99.9", formatLatency(histogram.getValueAtPercentile(99.9)));
+		result.put("Max", formatLatency(histogram.getMaxValue()));
+		status.add("Load Test", result);
+	}
+
+	private static String formatLatency(long micros) {
+		return String.format("%.2fms", micros / 1000.0);
+	}
+
+	private Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "load-generator-" + threadCounter.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Value
+	public static class LoadProfile {
+		int totalRequests;
+		int concurrency;
+		//0 means as fast as possible
+		int requestsPerSecond;
+	}
+}
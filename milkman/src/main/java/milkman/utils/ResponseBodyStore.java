@@ -0,0 +1,419 @@
+package milkman.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * stores a response body as it is received. The first bytes are kept in memory, everything above the
+ * threshold is spilled to a temporary file, which is memory-mapped for reading once the body is complete.
+ *
+ * Every subscriber of {@link #asFlux()} gets the whole body replayed from this store, independent of when it subscribes.
+ * Consumers that only need parts of the body can use {@link #read(long, int)} instead.
+ */
+@Slf4j
+public class ResponseBodyStore {
+
+	public static final int DEFAULT_MEMORY_THRESHOLD = 8 * 1024 * 1024;
+	public static final String DISCARDED_MESSAGE = "Response body was discarded";
+
+	private static final int REPLAY_CHUNK_SIZE = 64 * 1024;
+	private static final long MAPPED_SEGMENT_SIZE = 1L << 30;
+	private static final Cleaner cleaner = Cleaner.create();
+
+	private final int memoryThreshold;
+	private byte[] memory = new byte[0];
+	private int memorySize = 0;
+	private SpillFile spillFile;
+	private MappedByteBuffer[] mappedSegments;
+	private long size = 0;
+
+	private boolean completed = false;
+	private boolean disposed = false;
+	private Throwable error;
+
+	private final List<Replay> replays = new CopyOnWriteArrayList<>();
+
+	public ResponseBodyStore() {
+		this(DEFAULT_MEMORY_THRESHOLD);
+	}
+
+	public ResponseBodyStore(int memoryThreshold) {
+		this.memoryThreshold = Math.max(0, memoryThreshold);
+	}
+
+	public void append(byte[] chunk) {
+		synchronized (this) {
+			if (completed || chunk.length == 0) {
+				return;
+			}
+			int toMemory = spillFile == null ? Math.min(chunk.length, memoryThreshold - memorySize) : 0;
+			if (toMemory > 0) {
+				ensureMemoryCapacity(memorySize + toMemory);
+				System.arraycopy(chunk, 0, memory, memorySize, toMemory);
+				memorySize += toMemory;
+			}
+			if (toMemory < chunk.length) {
+				spill(chunk, toMemory, chunk.length - toMemory);
+			}
+			size += chunk.length;
+		}
+		replays.forEach(Replay::drain);
+	}
+
+	public void complete() {
+		synchronized (this) {
+			if (completed) {
+				return;
+			}
+			completed = true;
+			mapSpillFile();
+		}
+		replays.forEach(Replay::drain);
+	}
+
+	public void error(Throwable throwable) {
+		synchronized (this) {
+			if (completed) {
+				return;
+			}
+			completed = true;
+			error = throwable;
+		}
+		replays.forEach(Replay::drain);
+	}
+
+	public synchronized long size() {
+		return size;
+	}
+
+	public synchronized boolean isCompleted() {
+		return completed;
+	}
+
+	public synchronized boolean isSpilled() {
+		return spillFile != null;
+	}
+
+	/**
+	 * true, if the body was discarded via {@link #dispose()}. The body then reads as if it was empty.
+	 */
+	public synchronized boolean isDisposed() {
+		return disposed;
+	}
+
+	/**
+	 * reads up to length bytes starting at offset. Returns less bytes, if the body (received so far) is shorter.
+	 */
+	public synchronized byte[] read(long offset, int length) {
+		if (offset < 0 || length < 0) {
+			throw new IndexOutOfBoundsException("Invalid range " + offset + "+" + length);
+		}
+		if (disposed) {
+			return new byte[0];
+		}
+		int available = (int) Math.max(0, Math.min(length, size - offset));
+		byte[] result = new byte[available];
+		int written = 0;
+		if (offset < memorySize && available > 0) {
+			int fromMemory = (int) Math.min(available, memorySize - offset);
+			System.arraycopy(memory, (int) offset, result, 0, fromMemory);
+			written = fromMemory;
+		}
+		if (written < available) {
+			readSpilled(offset + written - memorySize, result, written, available - written);
+		}
+		return result;
+	}
+
+	/**
+	 * searches the body received so far for the given bytes, starting at the given offset.
+	 * Returns the offset of the first match or -1, if there is none.
+	 */
+	public long indexOf(byte[] pattern, long fromOffset) {
+		return indexOf(pattern, fromOffset, () -> false);
+	}
+
+	/**
+	 * like {@link #indexOf(byte[], long)}, but stops searching and returns -1 as soon as the given condition is met,
+	 * e.g. because the search was superseded by another one.
+	 */
+	public long indexOf(byte[] pattern, long fromOffset, BooleanSupplier cancelled) {
+		if (pattern.length == 0) {
+			return Math.min(Math.max(0, fromOffset), size());
+		}
+		long blockStart = Math.max(0, fromOffset);
+		while (true) {
+			if (cancelled.getAsBoolean()) {
+				return -1;
+			}
+			//blocks overlap, so that matches spanning two blocks are found as well
+			byte[] block = read(blockStart, REPLAY_CHUNK_SIZE + pattern.length - 1);
+			if (block.length < pattern.length) {
+				return -1;
+			}
+			outer:
+			for (int i = 0; i <= block.length - pattern.length; i++) {
+				for (int j = 0; j < pattern.length; j++) {
+					if (block[i + j] != pattern[j]) {
+						continue outer;
+					}
+				}
+				return blockStart + i;
+			}
+			blockStart += block.length - pattern.length + 1;
+		}
+	}
+
+	/**
+	 * writes the body received so far to the given stream in chunks, without materializing it as a whole.
+	 */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		if (isDisposed()) {
+			throw new IOException(DISCARDED_MESSAGE);
+		}
+		long position = 0;
+		byte[] chunk;
+		while ((chunk = read(position, REPLAY_CHUNK_SIZE)).length > 0) {
+			outputStream.write(chunk);
+			position += chunk.length;
+		}
+	}
+
+	/**
+	 * returns a stream over the body received so far
+	 */
+	public InputStream openStream() {
+		return new InputStream() {
+			private long position = 0;
+
+			@Override
+			public int read() {
+				byte[] next = ResponseBodyStore.this.read(position, 1);
+				if (next.length == 0) {
+					return -1;
+				}
+				position++;
+				return next[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				byte[] next = ResponseBodyStore.this.read(position, len);
+				if (next.length == 0) {
+					return len == 0 ? 0 : -1;
+				}
+				System.arraycopy(next, 0, b, off, next.length);
+				position += next.length;
+				return next.length;
+			}
+		};
+	}
+
+	/**
+	 * returns a flux that replays the whole body and then follows new chunks until the body is complete.
+	 * Bytes are only read from the store if requested by the subscriber.
+	 */
+	public Flux<byte[]> asFlux() {
+		return Flux.create(sink -> {
+			Replay replay = new Replay(sink);
+			replays.add(replay);
+			sink.onRequest(n -> replay.drain());
+			sink.onDispose(replay::cancel);
+			replay.drain();
+		});
+	}
+
+	/**
+	 * discards the body and releases the temporary file. Happens automatically as soon as this store is not referenced anymore.
+	 * Running and later subscriptions of {@link #asFlux()} fail afterwards.
+	 */
+	public void dispose() {
+		synchronized (this) {
+			if (disposed) {
+				return;
+			}
+			disposed = true;
+			completed = true;
+			error = new IllegalStateException(DISCARDED_MESSAGE);
+			memory = new byte[0];
+			mappedSegments = null;
+			if (spillFile != null) {
+				spillFile.run();
+			}
+		}
+		replays.forEach(Replay::drain);
+	}
+
+	private void ensureMemoryCapacity(int capacity) {
+		if (capacity > memory.length) {
+			int newCapacity = (int) Math.min(memoryThreshold, Math.max(capacity, memory.length * 2L));
+			byte[] newMemory = new byte[newCapacity];
+			System.arraycopy(memory, 0, newMemory, 0, memorySize);
+			memory = newMemory;
+		}
+	}
+
+	private void spill(byte[] chunk, int offset, int length) {
+		try {
+			if (spillFile == null) {
+				spillFile = SpillFile.create();
+				cleaner.register(this, spillFile);
+				log.debug("Response body exceeds {} bytes, spilling to {}", memoryThreshold, spillFile.path);
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(chunk, offset, length);
+			while (buffer.hasRemaining()) {
+				spillFile.channel.write(buffer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to buffer response body", e);
+		}
+	}
+
+	private void mapSpillFile() {
+		if (spillFile == null) {
+			return;
+		}
+		try {
+			long fileSize = size - memorySize;
+			int segments = (int) ((fileSize + MAPPED_SEGMENT_SIZE - 1) / MAPPED_SEGMENT_SIZE);
+			MappedByteBuffer[] mapped = new MappedByteBuffer[segments];
+			for (int i = 0; i < segments; i++) {
+				long position = i * MAPPED_SEGMENT_SIZE;
+				mapped[i] = spillFile.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_SEGMENT_SIZE, fileSize - position));
+			}
+			mappedSegments = mapped;
+		} catch (IOException e) {
+			//positional reads still work
+			log.warn("Failed to map response body file", e);
+		}
+	}
+
+	private void readSpilled(long filePosition, byte[] target, int offset, int length) {
+		if (mappedSegments != null) {
+			while (length > 0) {
+				MappedByteBuffer segment = mappedSegments[(int) (filePosition / MAPPED_SEGMENT_SIZE)];
+				int segmentOffset = (int) (filePosition % MAPPED_SEGMENT_SIZE);
+				int toRead = Math.min(length, segment.capacity() - segmentOffset);
+				segment.get(segmentOffset, target, offset, toRead);
+				filePosition += toRead;
+				offset += toRead;
+				length -= toRead;
+			}
+			return;
+		}
+
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(target, offset, length);
+			while (buffer.hasRemaining()) {
+				int read = spillFile.channel.read(buffer, filePosition);
+				if (read < 0) {
+					throw new IOException("Unexpected end of response body file");
+				}
+				filePosition += read;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read response body", e);
+		}
+	}
+
+
+	/**
+	 * a cursor of a single subscriber on this store
+	 */
+	private class Replay {
+		private final FluxSink<byte[]> sink;
+		private final AtomicInteger wip = new AtomicInteger();
+		private long position = 0;
+		private volatile boolean done = false;
+
+		Replay(FluxSink<byte[]> sink) {
+			this.sink = sink;
+		}
+
+		void cancel() {
+			done = true;
+			replays.remove(this);
+		}
+
+		void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			do {
+				while (!done) {
+					byte[] next = null;
+					boolean terminated;
+					Throwable failure;
+					synchronized (ResponseBodyStore.this) {
+						if (!disposed && position < size && sink.requestedFromDownstream() > 0) {
+							next = read(position, REPLAY_CHUNK_SIZE);
+						}
+						terminated = completed && (position >= size || disposed);
+						failure = error;
+					}
+
+					if (next != null) {
+						position += next.length;
+						sink.next(next);
+					} else if (terminated) {
+						cancel();
+						if (failure != null) {
+							sink.error(failure);
+						} else {
+							sink.complete();
+						}
+					} else {
+						//nothing requested or nothing received yet
+						break;
+					}
+				}
+			} while (wip.decrementAndGet() != 0);
+		}
+	}
+
+	/**
+	 * the temporary file, separate from the store, so it can be cleaned up once the store is unreachable
+	 */
+	private static class SpillFile implements Runnable {
+		private final Path path;
+		private final FileChannel channel;
+
+		private SpillFile(Path path, FileChannel channel) {
+			this.path = path;
+			this.channel = channel;
+		}
+
+		static SpillFile create() throws IOException {
+			Path path = Files.createTempFile("milkman-response", ".bin");
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			return new SpillFile(path, channel);
+		}
+
+		@Override
+		public void run() {
+			try {
+				channel.close();
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				log.warn("Failed to delete response body file {}", path, e);
+			}
+		}
+	}
+}
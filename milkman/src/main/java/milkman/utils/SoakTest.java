@@ -0,0 +1,354 @@
+package milkman.utils;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import milkman.domain.StatusInfoContainer;
+import milkman.ui.plugin.Templater;
+import milkman.utils.AsyncResponseControl.AsyncControl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * opens a number of concurrent connections (e.g. websockets) and replays a message script on each of them at a given
+ * rate for a given time. Connect latency, round-trip latency percentiles, dropped connections and throughput
+ * are reported to a {@link StatusInfoContainer} while running.
+ *
+ * Responses are matched to the sent messages via a {@link CorrelationExpression}. Without expression, every
+ * received message answers the oldest unanswered message of its connection.
+ */
+@Slf4j
+public class SoakTest {
+
+	private static final long REPORT_INTERVAL_MS = 500;
+	//time to wait for outstanding responses after the last message was sent
+	private static final long DRAIN_TIMEOUT_MS = 1000;
+	//unanswered messages that are tracked per connection, so a silent server does not fill up the memory
+	private static final int MAX_PENDING_MESSAGES = 10_000;
+	private static final AtomicInteger threadCounter = new AtomicInteger();
+
+	/**
+	 * opens connections of a specific protocol
+	 */
+	public interface Connector {
+		/**
+		 * opens a new connection, the future completes once the connection is established
+		 */
+		CompletableFuture<Connection> connect(ConnectionListener listener);
+	}
+
+	public interface Connection {
+		void send(String message);
+
+		void close();
+	}
+
+	public interface ConnectionListener {
+		void onMessage(String message);
+
+		/**
+		 * called if an established connection was closed, with the error if there was one
+		 */
+		void onClosed(Throwable error);
+	}
+
+	private final Connector connector;
+	private final SoakProfile profile;
+	private final List<String> script;
+	private final Templater templater;
+	private final CorrelationExpression correlation;
+
+	private final LatencyHistogram connectLatency = new LatencyHistogram();
+	private final LatencyHistogram roundTripLatency = new LatencyHistogram();
+	private final AtomicLong connectErrors = new AtomicLong();
+	private final AtomicLong droppedConnections = new AtomicLong();
+	private final AtomicLong sentMessages = new AtomicLong();
+	private final AtomicLong sendErrors = new AtomicLong();
+	private final AtomicLong receivedMessages = new AtomicLong();
+	private final AtomicLong unmatchedMessages = new AtomicLong();
+	private final AtomicBoolean stopped = new AtomicBoolean();
+	private final List<SoakConnection> connections = new CopyOnWriteArrayList<>();
+
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+			Math.min(4, Runtime.getRuntime().availableProcessors()), this::newThread);
+	private StatusInfoContainer status;
+	private AsyncControl asyncControl;
+	private long startTime;
+	private boolean completed = false;
+
+	public SoakTest(Connector connector, SoakProfile profile, List<String> script, Templater templater) {
+		if (profile.getMessagesPerSecond() > 0 && script.isEmpty()) {
+			throw new IllegalArgumentException("No messages to send, the message script is empty");
+		}
+		this.connector = connector;
+		this.profile = profile;
+		this.script = script;
+		this.templater = templater;
+		this.correlation = CorrelationExpression.parse(profile.getCorrelationExpression());
+	}
+
+	/**
+	 * splits a message script into messages. Messages are separated by empty lines.
+	 */
+	public static List<String> parseScript(String script) {
+		List<String> messages = new ArrayList<>();
+		if (script == null) {
+			return messages;
+		}
+		for (String message : script.split("\\r?\\n\\s*\\r?\\n")) {
+			if (!message.isBlank()) {
+				messages.add(message.trim());
+			}
+		}
+		return messages;
+	}
+
+	/**
+	 * opens the connections and starts sending in the background, returns immediately.
+	 * The status is completed and the control is triggered as soon as the soak test is done.
+	 */
+	public void start(StatusInfoContainer status, AsyncControl asyncControl) {
+		this.status = status;
+		this.asyncControl = asyncControl;
+		asyncControl.onCancellationRequested.add(this::stop);
+		startTime = System.nanoTime();
+
+		int connectionCount = Math.max(1, profile.getConnections());
+		for (int i = 0; i < connectionCount; i++) {
+			new SoakConnection(i, connectionCount).open();
+		}
+		scheduler.scheduleAtFixedRate(this::report, REPORT_INTERVAL_MS, REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		scheduler.schedule(this::finish, Math.max(1, profile.getDurationSeconds()), TimeUnit.SECONDS);
+	}
+
+	/**
+	 * stops sending and closes all connections
+	 */
+	public void stop() {
+		if (!stopped.compareAndSet(false, true)) {
+			return;
+		}
+		connections.forEach(SoakConnection::close);
+		scheduler.shutdownNow();
+		completeReport();
+		asyncControl.triggerRequestSucceeded();
+	}
+
+	private void finish() {
+		connections.forEach(SoakConnection::stopSending);
+		scheduler.schedule(this::stop, DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void completeReport() {
+		report();
+		completed = true;
+		status.complete();
+	}
+
+	//synchronized, so a report that is still running does not interfere with the final one
+	private synchronized void report() {
+		if (completed) {
+			return;
+		}
+		double elapsedSeconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+		long open = connections.stream().filter(SoakConnection::isOpen).count();
+		long unanswered = connections.stream().mapToLong(SoakConnection::pendingCount).sum();
+		Map<String, String> result = new LinkedHashMap<>();
+		result.put("Connections", open + " open, " + connectLatency.getTotalCount() + "/" + Math.max(1, profile.getConnections()) + " connected");
+		result.put("Connect errors", "" + connectErrors.get());
+		result.put("Dropped connections", "" + droppedConnections.get());
+		result.put("Connect p50", formatLatency(connectLatency.getValueAtPercentile(50)));
+		result.put("Connect p99", formatLatency(connectLatency.getValueAtPercentile(99)));
+		result.put("Sent", sentMessages.get() + (sendErrors.get() > 0 ? " (" + sendErrors.get() + " failed)" : ""));
+		result.put("Received", receivedMessages.get() + (unmatchedMessages.get() > 0 ? " (" + unmatchedMessages.get() + " unmatched)" : ""));
+		result.put("Unanswered", "" + unanswered);
+		result.put("Throughput", String.format("%.1f msgs/s sent, %.1f msgs/s received",
+				elapsedSeconds > 0 ? sentMessages.get() / elapsedSeconds : 0,
+				elapsedSeconds > 0 ? receivedMessages.get() / elapsedSeconds : 0));
+		result.put("Round trip p50", formatLatency(roundTripLatency.getValueAtPercentile(50)));
+		result.put("Round trip p90", formatLatency(roundTripLatency.getValueAtPercentile(90)));
+		result.put("Round trip p99", formatLatency(roundTripLatency.getValueAtPercentile(99)));
+		result.put("Round trip p99.9", formatLatency(roundTripLatency.getValueAtPercentile(99.9)));
+		result.put("Round trip max", formatLatency(roundTripLatency.getMaxValue()));
+		status.add("Soak Test", result);
+	}
+
+	private static String formatLatency(long micros) {
+		return String.format("%.2fms", micros / 1000.0);
+	}
+
+	private Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "soak-test-" + threadCounter.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * a single connection of the soak test with its position in the script and its unanswered messages
+	 */
+	private class SoakConnection implements ConnectionListener {
+		private final int index;
+		private final int connectionCount;
+		private final AtomicLong scriptPosition = new AtomicLong();
+		//send times of unanswered messages, by correlation id or in order of sending
+		private final Map<String, Long> pendingById = new ConcurrentHashMap<>();
+		private final Queue<Long> pendingInOrder = new ConcurrentLinkedQueue<>();
+		//size of the queue, which is expensive to count
+		private final AtomicInteger pendingInOrderCount = new AtomicInteger();
+
+		private volatile Connection connection;
+		private volatile ScheduledFuture<?> sender;
+		private volatile boolean open = false;
+
+		SoakConnection(int index, int connectionCount) {
+			this.index = index;
+			this.connectionCount = connectionCount;
+		}
+
+		void open() {
+			connections.add(this);
+			long connectStart = System.nanoTime();
+			CompletableFuture<Connection> connecting;
+			try {
+				connecting = connector.connect(this);
+			} catch (Exception e) {
+				connecting = CompletableFuture.failedFuture(e);
+			}
+			connecting.whenComplete((connection, error) -> {
+				if (error != null) {
+					log.debug("Connection of soak test failed", error);
+					connectErrors.incrementAndGet();
+					return;
+				}
+				this.connection = connection;
+				this.open = true;
+				connectLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - connectStart));
+				if (stopped.get()) {
+					close();
+				} else {
+					startSending();
+				}
+			});
+		}
+
+		private void startSending() {
+			if (profile.getMessagesPerSecond() <= 0) {
+				return;
+			}
+			long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.getMessagesPerSecond();
+			//connections are staggered, so they do not send all at the same time
+			long initialDelay = intervalNanos * index / connectionCount;
+			try {
+				sender = scheduler.scheduleAtFixedRate(this::sendNext, initialDelay, Math.max(1, intervalNanos), TimeUnit.NANOSECONDS);
+			} catch (Exception e) {
+				//the soak test was stopped in the meantime
+				log.debug("Failed to schedule messages of soak test", e);
+			}
+		}
+
+		private void sendNext() {
+			if (!open) {
+				return;
+			}
+			String message = templater.replaceTags(script.get((int) (scriptPosition.getAndIncrement() % script.size())));
+			long sendTime = System.nanoTime();
+			if (pendingCount() < MAX_PENDING_MESSAGES) {
+				if (correlation.isEmpty()) {
+					pendingInOrder.add(sendTime);
+					pendingInOrderCount.incrementAndGet();
+				} else {
+					correlation.extract(message).ifPresent(id -> pendingById.put(id, sendTime));
+				}
+			}
+			try {
+				connection.send(message);
+				sentMessages.incrementAndGet();
+			} catch (Exception e) {
+				log.debug("Failed to send message of soak test", e);
+				sendErrors.incrementAndGet();
+			}
+		}
+
+		@Override
+		public void onMessage(String message) {
+			long receiveTime = System.nanoTime();
+			receivedMessages.incrementAndGet();
+			Long sendTime = correlation.isEmpty()
+					? pollInOrder()
+					: correlation.extract(message).map(pendingById::remove).orElse(null);
+			if (sendTime == null) {
+				unmatchedMessages.incrementAndGet();
+			} else {
+				roundTripLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(receiveTime - sendTime));
+			}
+		}
+
+		private Long pollInOrder() {
+			Long sendTime = pendingInOrder.poll();
+			if (sendTime != null) {
+				pendingInOrderCount.decrementAndGet();
+			}
+			return sendTime;
+		}
+
+		@Override
+		public void onClosed(Throwable error) {
+			boolean wasOpen = open;
+			open = false;
+			stopSending();
+			if (wasOpen && !stopped.get()) {
+				log.debug("Connection of soak test dropped", error);
+				droppedConnections.incrementAndGet();
+			}
+		}
+
+		boolean isOpen() {
+			return open;
+		}
+
+		long pendingCount() {
+			return pendingById.size() + pendingInOrderCount.get();
+		}
+
+		void stopSending() {
+			if (sender != null) {
+				sender.cancel(false);
+			}
+		}
+
+		void close() {
+			stopSending();
+			open = false;
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (Exception e) {
+					log.debug("Failed to close connection of soak test", e);
+				}
+			}
+		}
+	}
+
+	@Value
+	public static class SoakProfile {
+		int connections;
+		//per connection, 0 only keeps the connections open
+		int messagesPerSecond;
+		int durationSeconds;
+		String correlationExpression;
+	}
+}
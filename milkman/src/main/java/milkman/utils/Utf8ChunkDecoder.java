@@ -0,0 +1,53 @@
+package milkman.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * decodes utf-8 text that is received in chunks. Characters that are split between two chunks
+ * are kept back until the next chunk arrives, instead of being decoded as invalid characters.
+ */
+public class Utf8ChunkDecoder {
+
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private byte[] pending = new byte[0];
+
+	public synchronized String decode(byte[] chunk) {
+		return decode(chunk, false);
+	}
+
+	/**
+	 * decodes remaining bytes of an incomplete character at the end of the input
+	 */
+	public synchronized String flush() {
+		return decode(new byte[0], true);
+	}
+
+	private String decode(byte[] chunk, boolean endOfInput) {
+		ByteBuffer in;
+		if (pending.length == 0) {
+			in = ByteBuffer.wrap(chunk);
+		} else {
+			in = ByteBuffer.allocate(pending.length + chunk.length);
+			in.put(pending).put(chunk).flip();
+		}
+
+		CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+		decoder.decode(in, out, endOfInput);
+		if (endOfInput) {
+			decoder.flush(out);
+			decoder.reset();
+		}
+
+		pending = new byte[in.remaining()];
+		in.get(pending);
+		out.flip();
+		return out.toString();
+	}
+}
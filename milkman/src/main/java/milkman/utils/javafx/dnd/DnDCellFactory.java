@@ -7,10 +7,12 @@ import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
 import javafx.scene.input.*;
 import javafx.util.Callback;
+import milkman.domain.Collection;
 import milkman.domain.Folder;
 import milkman.domain.RequestContainer;
 
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 import static milkman.utils.javafx.DndUtil.JAVA_FORMAT;
 import static milkman.utils.javafx.DndUtil.serialize;
@@ -20,8 +22,16 @@ public class DnDCellFactory implements Callback<TreeView<Node>, TreeCell<Node>>
     private TreeCell<Node> dropZone;
     private TreeItem<Node> draggedItem;
 
-    private final DndStrategy<RequestContainer> requestContainerDndStrategy = new RequestDndStrategy();
-    private final DndStrategy<Folder> folderDndStrategyDndStrategy = new FolderDndStrategy();
+    private final DndStrategy<RequestContainer> requestContainerDndStrategy;
+    private final DndStrategy<Folder> folderDndStrategyDndStrategy;
+
+    /**
+     * @param onRequestMoved notified for every request that is moved to another position, together with its new collection
+     */
+    public DnDCellFactory(BiConsumer<RequestContainer, Collection> onRequestMoved) {
+        requestContainerDndStrategy = new RequestDndStrategy(onRequestMoved);
+        folderDndStrategyDndStrategy = new FolderDndStrategy(onRequestMoved);
+    }
 
     @Override
     public TreeCell<Node> call(TreeView<Node> treeView) {
@@ -10,9 +10,17 @@ import milkman.domain.Folder;
 import milkman.domain.RequestContainer;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 public class FolderDndStrategy implements DndStrategy<Folder> {
+    //notified with each request of the folder and its new collection
+    private final BiConsumer<RequestContainer, Collection> onRequestMoved;
+
+    public FolderDndStrategy(BiConsumer<RequestContainer, Collection> onRequestMoved) {
+        this.onRequestMoved = onRequestMoved;
+    }
+
     @Override
     public void drop(TreeView<Node> treeView, TreeItem<Node> newParent, TreeItem<Node> draggedItem, Folder droppedObject) {
         moveFolderToNewParent(treeView, newParent, draggedItem, droppedObject);
@@ -28,8 +36,11 @@ public class FolderDndStrategy implements DndStrategy<Folder> {
         // remove from previous location
         var removedRequests = removeFromPreviousContainer(draggedFolder, draggedItem);
 
-        addToNewLocation(treeView, newParent, draggedFolder, draggedItem, removedRequests);
+        Collection newCollection = addToNewLocation(treeView, newParent, draggedFolder, draggedItem, removedRequests);
         treeView.getSelectionModel().select(draggedItem);
+        if (newCollection != null) {
+            removedRequests.forEach(request -> onRequestMoved.accept(request, newCollection));
+        }
     }
 
     private List<RequestContainer> removeFromPreviousContainer(Folder draggedFolder, TreeItem<Node> draggedItem) {
@@ -60,7 +71,7 @@ public class FolderDndStrategy implements DndStrategy<Folder> {
         return requestsToBeRemoved;
     }
 
-    private void addToNewLocation(TreeView<Node> treeView,
+    private Collection addToNewLocation(TreeView<Node> treeView,
                                   TreeItem<Node> dropTarget,
                                   Folder draggedFolder,
                                   TreeItem<Node> draggedItem,
@@ -73,6 +84,7 @@ public class FolderDndStrategy implements DndStrategy<Folder> {
             targetCollection.getRequests().addAll(folderOffset, requestsInFolder);
             getRootList(dropTarget.getChildren()).add(folderOffset, draggedItem);
             treeView.getSelectionModel().select(draggedItem);
+            return targetCollection;
         }
         else if (dropTarget.getValue().getUserData() instanceof Folder) {
             //dropping it onto folder makes it first request in folder
@@ -83,6 +95,7 @@ public class FolderDndStrategy implements DndStrategy<Folder> {
             targetFolder.getFolders().add(0, draggedFolder);
             getRootList(dropTarget.getChildren()).add(folderOffset, draggedItem);
             treeView.getSelectionModel().select(draggedItem);
+            return targetCollection;
         }
 //        else {
 //            // add to new location
@@ -102,6 +115,7 @@ public class FolderDndStrategy implements DndStrategy<Folder> {
 //                f.getRequests().add(indexInParent - folderOffset +1, draggedRequest.getId());
 //            }
 //        }
+        return null;
     }
 
     private Collection findCollectionInParents(TreeItem<Node> node) {
@@ -9,7 +9,16 @@ import milkman.domain.Collection;
 import milkman.domain.Folder;
 import milkman.domain.RequestContainer;
 
+import java.util.function.BiConsumer;
+
 public class RequestDndStrategy implements DndStrategy<RequestContainer> {
+    //notified with the moved request and its new collection
+    private final BiConsumer<RequestContainer, Collection> onRequestMoved;
+
+    public RequestDndStrategy(BiConsumer<RequestContainer, Collection> onRequestMoved) {
+        this.onRequestMoved = onRequestMoved;
+    }
+
     @Override
     public void drop(TreeView<Node> treeView,
                      TreeItem<Node> newParent,
@@ -32,8 +41,9 @@ public class RequestDndStrategy implements DndStrategy<RequestContainer> {
         // remove from previous location
         removeFromPreviousContainer(draggedRequest, draggedItem);
 
-        addToNewLocation(treeView, newParent, draggedRequest, draggedItem);
+        Collection newCollection = addToNewLocation(treeView, newParent, draggedRequest, draggedItem);
         treeView.getSelectionModel().select(draggedItem);
+        onRequestMoved.accept(draggedRequest, newCollection);
     }
 
     private void removeFromPreviousContainer(RequestContainer draggedRequest, TreeItem<Node> draggedItem) {
@@ -56,7 +66,7 @@ public class RequestDndStrategy implements DndStrategy<RequestContainer> {
 
     }
 
-    private void addToNewLocation(TreeView<Node> treeView,
+    private Collection addToNewLocation(TreeView<Node> treeView,
                                   TreeItem<Node> dropTarget,
                                   RequestContainer draggedRequest,
                                   TreeItem<Node> draggedItem) {
@@ -67,6 +77,7 @@ public class RequestDndStrategy implements DndStrategy<RequestContainer> {
             targetCollection.getRequests().add(folderOffset, draggedRequest);
             getRootList(dropTarget.getChildren()).add(folderOffset, draggedItem);
             treeView.getSelectionModel().select(draggedItem);
+            return targetCollection;
         } else if (dropTarget.getValue().getUserData() instanceof Folder) {
             //dropping it onto folder makes it first request in folder
             Folder f = (Folder) dropTarget.getValue().getUserData();
@@ -76,6 +87,7 @@ public class RequestDndStrategy implements DndStrategy<RequestContainer> {
             f.getRequests().add(0, draggedRequest.getId());
             getRootList(dropTarget.getChildren()).add(folderOffset, draggedItem);
             treeView.getSelectionModel().select(draggedItem);
+            return collection;
         }
         else {
             // add to new location
@@ -86,6 +98,7 @@ public class RequestDndStrategy implements DndStrategy<RequestContainer> {
             if (dropTarget.getParent().getValue().getUserData() instanceof Collection) {
                 Collection thisCollection = (Collection) dropTarget.getParent().getValue().getUserData();
                 thisCollection.getRequests().add(indexInParent +1, draggedRequest);
+                return thisCollection;
             } else if (dropTarget.getParent().getValue().getUserData() instanceof Folder) {
                 //dropped onto a request within a folder
                 Collection collection = findCollectionInParents(dropTarget);
@@ -93,7 +106,9 @@ public class RequestDndStrategy implements DndStrategy<RequestContainer> {
                 Folder f = (Folder) dropTarget.getParent().getValue().getUserData();
                 var folderOffset = f.getFolders().size();
                 f.getRequests().add(indexInParent - folderOffset +1, draggedRequest.getId());
+                return collection;
             }
+            return findCollectionInParents(dropTarget);
         }
     }
 
@@ -1,18 +1,18 @@
 package milkman.utils.json;
 
 import com.fasterxml.jackson.databind.util.StdConverter;
-import milkman.utils.BinaryUtil;
 import reactor.core.publisher.Flux;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 
 public class BlockingFluxByteToStringConverter extends StdConverter<Flux<byte[]>, String> {
 
 	@Override
 	public String convert(Flux<byte[]> value) {
-		return value.collectList()
-				.map(BinaryUtil::concat)
-				.map(bytes -> new String(bytes, StandardCharsets.UTF_8))
+		//write chunks directly into one buffer instead of keeping a list of all chunks and concatenating it afterwards
+		return value.collect(ByteArrayOutputStream::new, (out, bytes) -> out.write(bytes, 0, bytes.length))
+				.map(out -> out.toString(StandardCharsets.UTF_8))
 				.block();
 	}
 
@@ -0,0 +1,82 @@
+package milkman.ctrl;
+
+import milkman.domain.Environment;
+import milkman.domain.RequestContainer;
+import milkman.domain.RequestExecutionContext;
+import milkman.domain.ResponseContainer;
+import milkman.ui.plugin.RequestAspectEditor;
+import milkman.ui.plugin.RequestAspectsPlugin;
+import milkman.ui.plugin.ResponseAspectEditor;
+import milkman.ui.plugin.TemplateParameterResolverPlugin;
+import milkman.ui.plugin.UiPluginManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkspaceControllerTest {
+
+    @Test
+    void shouldUseVariablesSetByPreRequestHooks() {
+        var activeEnv = new Environment("active");
+        activeEnv.setOrAdd("token", "outdated");
+        var context = new RequestExecutionContext(Optional.of(activeEnv), List.of());
+        var sut = new WorkspaceController(null, null, null, null, null, null, null,
+                new HookPluginManager((request, ctx) -> ctx.getActiveEnvironment().get().setOrAdd("token", "fresh")));
+
+        var templater = sut.runPreRequestHooks(null, context);
+
+        assertThat(templater.replaceTags("Bearer {{token}}")).isEqualTo("Bearer fresh");
+    }
+
+    private interface PreRequestHook {
+        void beforeRequestExecution(RequestContainer request, RequestExecutionContext context);
+    }
+
+    /**
+     * provides a single aspect plugin running the given hook instead of loading plugins via SPI
+     */
+    private static class HookPluginManager extends UiPluginManager {
+        private final PreRequestHook hook;
+
+        HookPluginManager(PreRequestHook hook) {
+            super(null, null, null, null, null, null);
+            this.hook = hook;
+        }
+
+        @Override
+        public List<RequestAspectsPlugin> loadRequestAspectPlugins() {
+            return List.of(new RequestAspectsPlugin() {
+                @Override
+                public List<RequestAspectEditor> getRequestTabs() {
+                    return List.of();
+                }
+
+                @Override
+                public List<ResponseAspectEditor> getResponseTabs() {
+                    return List.of();
+                }
+
+                @Override
+                public void initializeRequestAspects(RequestContainer request) {
+                }
+
+                @Override
+                public void beforeRequestExecution(RequestContainer request, RequestExecutionContext context) {
+                    hook.beforeRequestExecution(request, context);
+                }
+
+                @Override
+                public void initializeResponseAspects(RequestContainer request, ResponseContainer response, RequestExecutionContext context) {
+                }
+            });
+        }
+
+        @Override
+        public List<TemplateParameterResolverPlugin> loadTemplaterPlugins() {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package milkman.domain;
+
+import milkman.ui.main.TestRequestContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestIndexTest {
+
+    @Test
+    void shouldFindRequestAndCollection() {
+        var request = new TestRequestContainer("req");
+        var collection = new Collection("c1", "collection", false, new LinkedList<>(List.of(request)), new LinkedList<>());
+        var index = new RequestIndex(() -> List.of(collection));
+
+        assertThat(index.findRequest(request.getId())).containsSame(request);
+        assertThat(index.findCollection(request.getId())).containsSame(collection);
+        assertThat(index.findRequest("unknown")).isEmpty();
+    }
+
+    @Test
+    void shouldFollowRegisteredChanges() {
+        var request = new TestRequestContainer("req");
+        var source = new Collection("c1", "source", false, new LinkedList<>(List.of(request)), new LinkedList<>());
+        var target = new Collection("c2", "target", false, new LinkedList<>(), new LinkedList<>());
+        var index = new RequestIndex(() -> List.of(source, target));
+        assertThat(index.findCollection(request.getId())).containsSame(source);
+
+        //moved, e.g. via drag and drop
+        source.getRequests().remove(request);
+        target.getRequests().add(request);
+        index.put(target, request);
+        assertThat(index.findCollection(request.getId())).containsSame(target);
+
+        //replaced, e.g. by saving the request
+        var replacement = new TestRequestContainer("replacement");
+        replacement.setId(request.getId());
+        target.getRequests().set(0, replacement);
+        index.put(target, replacement);
+        assertThat(index.findRequest(request.getId())).containsSame(replacement);
+
+        target.getRequests().clear();
+        index.remove(request.getId());
+        assertThat(index.findRequest(request.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldRebuildAfterInvalidation() {
+        var request = new TestRequestContainer("req");
+        List<Collection> collections = new LinkedList<>();
+        var index = new RequestIndex(() -> collections);
+        assertThat(index.findRequest(request.getId())).isEmpty();
+
+        //collections replaced as a whole, e.g. by synchronization
+        collections.add(new Collection("c1", "collection", false, new LinkedList<>(List.of(request)), new LinkedList<>()));
+        assertThat(index.findRequest(request.getId())).isEmpty();
+        index.invalidate();
+        assertThat(index.findRequest(request.getId())).containsSame(request);
+    }
+}
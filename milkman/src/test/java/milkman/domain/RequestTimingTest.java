@@ -0,0 +1,52 @@
+package milkman.domain;
+
+import milkman.domain.RequestTiming.Phase;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class RequestTimingTest {
+
+    @Test
+    void shouldCombineUnobservedPhases() {
+        var clock = new AtomicLong(1_000);
+        var timing = new RequestTiming(clock::get);
+
+        clock.addAndGet(2_000_000);
+        timing.phaseDone(Phase.DNS);
+        clock.addAndGet(5_000_000);
+        timing.phaseDone(Phase.REQUEST);
+        clock.addAndGet(10_000_000);
+        timing.phaseDone(Phase.WAITING);
+        timing.bytesReceived(2048);
+        clock.addAndGet(1_000_000_000);
+        timing.phaseDone(Phase.DOWNLOAD);
+
+        assertThat(timing.getPhaseNanos()).containsExactly(
+                entry("DNS", 2_000_000L),
+                entry("Connect + TLS + Request sent", 5_000_000L),
+                entry("Waiting (TTFB)", 10_000_000L),
+                entry("Download", 1_000_000_000L));
+        assertThat(timing.getTimeToFirstByteMs()).isEqualTo(17.0);
+        assertThat(timing.getTotalMs()).isEqualTo(1017.0);
+        assertThat(timing.getBytesPerSecond()).isEqualTo(2048.0);
+    }
+
+    @Test
+    void shouldOnlyReportObservedPhases() {
+        var clock = new AtomicLong(0);
+        var timing = new RequestTiming(clock::get);
+
+        clock.addAndGet(3_000_000);
+        timing.phaseDone(Phase.WAITING);
+        clock.addAndGet(1_000_000);
+        timing.phaseDone(Phase.WAITING);
+
+        assertThat(timing.toStatusInfo()).containsOnlyKeys("DNS + Connect + TLS + Request sent + Waiting (TTFB)", "Time to first byte");
+        assertThat(timing.getTotalMs()).isNull();
+        assertThat(timing.getBytesPerSecond()).isNull();
+    }
+}
@@ -0,0 +1,105 @@
+package milkman.domain.rowset;
+
+import milkman.domain.rowset.Column.Type;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowSetTest {
+
+    @Test
+    void shouldKeepValuesTyped() {
+        var rowSet = new RowSet(List.of("id", "name", "active"));
+        rowSet.addRow(1, "a", true);
+        rowSet.addRow(2, null, false);
+        rowSet.addRow(3, "a", null);
+
+        assertThat(rowSet.getColumn(0).getType()).isEqualTo(Type.INT);
+        assertThat(rowSet.getColumn(0).getInt(2)).isEqualTo(3);
+        assertThat(rowSet.getColumn(1).getType()).isEqualTo(Type.STRING);
+        assertThat(rowSet.getColumn(2).getType()).isEqualTo(Type.BOOLEAN);
+        assertThat(rowSet.getValue(1, 2)).isEqualTo(false);
+        assertThat(rowSet.asFormattedRows()).containsExactly(
+                List.of("1", "a", "true"),
+                List.of("2", "NULL", "false"),
+                List.of("3", "a", "NULL"));
+    }
+
+    @Test
+    void shouldWidenColumns() {
+        var rowSet = new RowSet(List.of("number", "mixed"));
+        rowSet.addRow(1, 1);
+        rowSet.addRow(Long.MAX_VALUE, "text");
+        rowSet.addRow(2, 2.5);
+
+        assertThat(rowSet.getColumn(0).getType()).isEqualTo(Type.LONG);
+        assertThat(rowSet.getColumn(0).getLong(1)).isEqualTo(Long.MAX_VALUE);
+        assertThat(rowSet.getColumn(0).getLong(2)).isEqualTo(2L);
+        assertThat(rowSet.getColumn(1).getType()).isEqualTo(Type.OBJECT);
+        assertThat(rowSet.getValue(0, 1)).isEqualTo(1);
+        assertThat(rowSet.getValue(1, 1)).isEqualTo("text");
+        assertThat(rowSet.getValue(2, 1)).isEqualTo(2.5);
+    }
+
+    @Test
+    void shouldPadColumnsAddedLater() {
+        var rowSet = new RowSet();
+        rowSet.ensureColumn("a");
+        rowSet.addRow("first");
+        int b = rowSet.ensureColumn("b");
+        rowSet.addRow("second", 42);
+
+        assertThat(b).isEqualTo(1);
+        assertThat(rowSet.ensureColumn("a")).isEqualTo(0);
+        assertThat(rowSet.getColumnNames()).containsExactly("a", "b");
+        assertThat(rowSet.getColumn(1).isNull(0)).isTrue();
+        assertThat(rowSet.getColumn(1).getInt(1)).isEqualTo(42);
+    }
+
+    @Test
+    void shouldGrowBeyondInitialCapacity() {
+        var rowSet = new RowSet(List.of("value"));
+        for (int i = 0; i < 1000; i++) {
+            rowSet.addRow(i % 3 == 0 ? null : "v" + (i % 10));
+        }
+
+        assertThat(rowSet.getRowCount()).isEqualTo(1000);
+        assertThat(rowSet.getColumn(0).getType()).isEqualTo(Type.STRING);
+        assertThat(rowSet.getFormattedValue(999, 0)).isEqualTo("NULL");
+        assertThat(rowSet.getFormattedValue(998, 0)).isEqualTo("v8");
+    }
+
+    @Test
+    void shouldNotifyListenersOncePerBatch() {
+        var rowSet = new RowSet(List.of("id"));
+        var notifications = new ArrayList<Integer>();
+        rowSet.onRowsAdded(notifications::add);
+
+        rowSet.addRows(List.of(new Object[]{1}, new Object[]{2}, new Object[]{3}));
+        rowSet.addRow(4);
+
+        assertThat(notifications).containsExactly(3, 4);
+        assertThat(rowSet.asFormattedRows()).hasSize(4);
+    }
+
+    @Test
+    void shouldStoreDriverSpecificObjectsAsStrings() {
+        var rowSet = new RowSet(List.of("udt", "list", "date"));
+        var udt = new Object() {
+            @Override
+            public String toString() {
+                return "{street:'main'}";
+            }
+        };
+        rowSet.addRow(udt, new ArrayList<>(List.of(1, 2)), LocalDate.of(2020, 1, 2));
+
+        assertThat(rowSet.getValue(0, 0)).isEqualTo("{street:'main'}");
+        assertThat(rowSet.getValue(0, 1)).isEqualTo("[1, 2]");
+        assertThat(rowSet.getValue(0, 2)).isEqualTo(LocalDate.of(2020, 1, 2));
+        assertThat(rowSet.getColumn(0).getType()).isEqualTo(Type.STRING);
+    }
+}
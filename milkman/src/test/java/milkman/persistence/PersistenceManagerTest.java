@@ -0,0 +1,248 @@
+package milkman.persistence;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import milkman.domain.Collection;
+import milkman.domain.Environment;
+import milkman.domain.Folder;
+import milkman.domain.RequestAspect;
+import milkman.domain.RequestContainer;
+import milkman.domain.Workspace;
+import milkman.ui.main.TestRequestContainer;
+import org.dizitart.no2.Nitrite;
+import org.dizitart.no2.mapper.JacksonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PersistenceManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PersistenceManager persistence;
+
+    @AfterEach
+    void closeDatabase() {
+        if (persistence != null) {
+            persistence.close();
+        }
+    }
+
+    @Test
+    void shouldMigrateWorkspaceStoredInOneDocument() {
+        var workspace = newWorkspace("old");
+        workspace.setId(42);
+        withRawDatabase(db -> db.getRepository(Workspace.class).insert(workspace));
+
+        var migrated = reopen().loadWorkspaceByName("old").get();
+        assertThat(requestNames(migrated)).containsExactly("first", "second", "third");
+
+        var reloaded = reopen().loadWorkspaceByName("old").get();
+        assertThat(requestNames(reloaded)).containsExactly("first", "second", "third");
+        assertThat(reloaded.getEnvironments()).extracting(Environment::getName).containsExactly("env");
+        persistence.close();
+        persistence = null;
+        withRawDatabase(db -> {
+            assertThat(db.getRepository(Workspace.class).find().firstOrDefault().getCollections()).isEmpty();
+            //three requests of collections and one open request
+            assertThat(db.getRepository(StoredRequest.class).find().size()).isEqualTo(4);
+            assertThat(db.getRepository(StoredCollection.class).find().size()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void shouldRoundTripWorkspaceStoredAsSeparateDocuments() {
+        var workspace = newWorkspace("ws");
+        var folder = new Folder("f1", "folder", new LinkedList<>(), new LinkedList<>(List.of(workspace.getCollections().get(0).getRequests().get(1).getId())));
+        workspace.getCollections().get(0).getFolders().add(folder);
+        reopen().persistWorkspace(workspace);
+
+        var loaded = reopen().loadWorkspaceByName("ws").get();
+        assertThat(loaded.getCollections()).extracting(Collection::getName).containsExactly("c1", "c2");
+        assertThat(requestNames(loaded)).containsExactly("first", "second", "third");
+        assertThat(loaded.getCollections().get(0).getFolders()).containsExactly(folder);
+        assertThat(loaded.getCollections().get(0).getRequests().get(0).getAspect(NoteAspect.class))
+                .map(NoteAspect::getNote)
+                .contains("note of first");
+        assertThat(loaded.getEnvironments().get(0).getEntries())
+                .extracting(Environment.EnvironmentEntry::getName, Environment.EnvironmentEntry::getValue)
+                .containsExactly(tuple("host", "localhost"));
+    }
+
+    @Test
+    void shouldPersistDocumentsChangedInPlace() {
+        reopen().persistWorkspace(newWorkspace("ws"));
+        var loaded = persistence.loadWorkspaceByName("ws").get();
+        var collection = loaded.getCollections().get(0);
+
+        collection.setName("renamed");
+        collection.getFolders().add(new Folder("f1", "folder", new LinkedList<>(), new LinkedList<>()));
+        var aspect = collection.getRequests().get(0).getAspect(NoteAspect.class).get();
+        aspect.setNote("changed");
+        aspect.setDirty(true);
+        loaded.getEnvironments().get(0).setOrAdd("host", "example.com");
+        persistence.persistWorkspace(loaded);
+
+        var reloaded = reopen().loadWorkspaceByName("ws").get();
+        var reloadedCollection = reloaded.getCollections().get(0);
+        assertThat(reloadedCollection.getName()).isEqualTo("renamed");
+        assertThat(reloadedCollection.getFolders()).extracting(Folder::getName).containsExactly("folder");
+        assertThat(reloadedCollection.getRequests().get(0).getAspect(NoteAspect.class).get().getNote()).isEqualTo("changed");
+        assertThat(reloaded.getEnvironments().get(0).getEntries().get(0).getValue()).isEqualTo("example.com");
+    }
+
+    @Test
+    void shouldOnlyWriteRequestsWithChangedRevision() {
+        reopen().persistWorkspace(newWorkspace("ws"));
+        var loaded = persistence.loadWorkspaceByName("ws").get();
+        var requests = loaded.getCollections().get(0).getRequests();
+        requests.get(0).setName("unmarked");
+        requests.get(1).setName("marked");
+        requests.get(1).markChanged();
+        persistence.persistWorkspace(loaded);
+
+        var reloaded = reopen().loadWorkspaceByName("ws").get();
+        assertThat(requestNames(reloaded)).containsExactly("first", "marked", "third");
+    }
+
+    @Test
+    void shouldWriteRequestsWithReplacedAspects() {
+        reopen().persistWorkspace(newWorkspace("ws"));
+        var loaded = persistence.loadWorkspaceByName("ws").get();
+        var request = loaded.getCollections().get(0).getRequests().get(0);
+        //the new aspect has the same revision as the replaced one
+        var replacement = new NoteAspect();
+        replacement.setNote("replaced");
+        request.setAspects(new LinkedList<>(List.of(replacement)));
+        persistence.persistWorkspace(loaded);
+
+        var reloaded = reopen().loadWorkspaceByName("ws").get();
+        assertThat(reloaded.getCollections().get(0).getRequests().get(0).getAspect(NoteAspect.class).get().getNote()).isEqualTo("replaced");
+    }
+
+    @Test
+    void shouldStoreOpenRequestsAsSeparateDocuments() {
+        var workspace = newWorkspace("ws");
+        var secondOpen = newRequest("second open");
+        workspace.getOpenRequests().add(secondOpen);
+        workspace.setActiveRequest(secondOpen);
+        reopen().persistWorkspace(workspace);
+
+        var loaded = reopen().loadWorkspaceByName("ws").get();
+        assertThat(loaded.getOpenRequests()).extracting(RequestContainer::getName).containsExactly("open", "second open");
+        assertThat(loaded.getActiveRequest()).isSameAs(loaded.getOpenRequests().get(1));
+
+        loaded.getOpenRequests().remove(0);
+        persistence.persistWorkspace(loaded);
+
+        var reloaded = reopen().loadWorkspaceByName("ws").get();
+        assertThat(reloaded.getOpenRequests()).extracting(RequestContainer::getName).containsExactly("second open");
+        persistence.close();
+        persistence = null;
+        withRawDatabase(db -> {
+            var workspaceDocument = db.getRepository(Workspace.class).find().firstOrDefault();
+            assertThat(workspaceDocument.getOpenRequests()).isEmpty();
+            assertThat(workspaceDocument.getActiveRequest()).isNull();
+            assertThat(db.getRepository(StoredRequest.class).find().size()).isEqualTo(4);
+        });
+    }
+
+    @Test
+    void shouldRemoveDeletedDocuments() {
+        reopen().persistWorkspace(newWorkspace("ws"));
+        var loaded = persistence.loadWorkspaceByName("ws").get();
+        loaded.getCollections().get(0).getRequests().remove(0);
+        loaded.getCollections().remove(1);
+        loaded.getEnvironments().clear();
+        persistence.persistWorkspace(loaded);
+
+        var reloaded = reopen().loadWorkspaceByName("ws").get();
+        assertThat(requestNames(reloaded)).containsExactly("second");
+        assertThat(reloaded.getEnvironments()).isEmpty();
+        persistence.close();
+        persistence = null;
+        withRawDatabase(db -> {
+            assertThat(db.getRepository(StoredRequest.class).find().size()).isEqualTo(2);
+            assertThat(db.getRepository(StoredCollection.class).find().size()).isEqualTo(1);
+            assertThat(db.getRepository(StoredEnvironment.class).find().size()).isEqualTo(0);
+        });
+    }
+
+    private PersistenceManager reopen() {
+        if (persistence != null) {
+            persistence.close();
+        }
+        persistence = new PersistenceManager();
+        persistence.init(databaseFile());
+        return persistence;
+    }
+
+    private void withRawDatabase(Consumer<Nitrite> action) {
+        var nitriteMapper = new JacksonMapper();
+        nitriteMapper.getObjectMapper().addHandler(new UnknownPluginHandler());
+        Nitrite db = Nitrite.builder()
+                .compressed()
+                .filePath(databaseFile())
+                .nitriteMapper(nitriteMapper)
+                .openOrCreate("milkman", "bringthemilk");
+        try {
+            action.accept(db);
+        } finally {
+            db.close();
+        }
+    }
+
+    private String databaseFile() {
+        return tempDir.resolve("database.db").toString();
+    }
+
+    private static Workspace newWorkspace(String name) {
+        List<RequestContainer> openRequests = new ArrayList<>();
+        var openRequest = newRequest("open");
+        openRequests.add(openRequest);
+        var workspace = new Workspace(0L, UUID.randomUUID().toString(), name, new LinkedList<>(), openRequests, openRequest);
+        workspace.getCollections().add(new Collection("c1", "c1", false, new LinkedList<>(List.of(newRequest("first"), newRequest("second"))), new LinkedList<>()));
+        workspace.getCollections().add(new Collection("c2", "c2", true, new LinkedList<>(List.of(newRequest("third"))), new LinkedList<>()));
+        var environment = new Environment("env");
+        environment.setOrAdd("host", "localhost");
+        workspace.getEnvironments().add(environment);
+        return workspace;
+    }
+
+    private static RequestContainer newRequest(String name) {
+        var request = new TestRequestContainer(name);
+        var aspect = new NoteAspect();
+        aspect.setNote("note of " + name);
+        request.addAspect(aspect);
+        return request;
+    }
+
+    private static List<String> requestNames(Workspace workspace) {
+        return workspace.getCollections().stream()
+                .flatMap(c -> c.getRequests().stream())
+                .map(RequestContainer::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class NoteAspect extends RequestAspect {
+        private String note;
+
+        public NoteAspect() {
+            super("note");
+        }
+    }
+}
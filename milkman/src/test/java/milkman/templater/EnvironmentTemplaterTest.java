@@ -20,4 +20,49 @@ class EnvironmentTemplaterTest {
         assertThat(result).isEqualTo("testValue$d2");
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldStopOnCyclicReferences() {
+        var testEnv = new Environment("test");
+        testEnv.setOrAdd("a", "x{{b}}");
+        testEnv.setOrAdd("b", "y{{a}}");
+        var templater = new EnvironmentTemplater(Optional.of(testEnv), List.of(), null);
+        var result = templater.replaceTags("{{a}}");
+        assertThat(result).isEqualTo("xy{{a}}");
+    }
+
+    @Test
+    void shouldPreferActiveEntriesAndResolveNestedTags() {
+        var activeEnv = new Environment("active");
+        activeEnv.setOrAdd("key", "active");
+        var globalEnv = new Environment("global");
+        globalEnv.setOrAdd("key", "global");
+        globalEnv.setOrAdd("other", "{{key}}");
+        var templater = new EnvironmentTemplater(Optional.of(activeEnv), List.of(globalEnv), null);
+        assertThat(templater.replaceTags("{\"a\": {{key}}, \"b\": {{ other }}}")).isEqualTo("{\"a\": active, \"b\": active}");
+        assertThat(templater.replaceTags("{{{key}}}")).isEqualTo("{active}");
+        assertThat(templater.replaceTags("{{unknown}} {{}}}")).isEqualTo("{{unknown}} {{}}}");
+    }
+
+    @Test
+    void shouldUseEnvironmentAsOfCreation() {
+        var testEnv = new Environment("test");
+        testEnv.setOrAdd("key", "before");
+        var templater = new EnvironmentTemplater(Optional.of(testEnv), List.of(), null);
+        testEnv.setOrAdd("key", "after");
+        assertThat(templater.replaceTags("{{key}}")).isEqualTo("before");
+    }
+
+    @Test
+    void shouldOnlyCacheSmallTemplates() {
+        var testEnv = new Environment("test");
+        testEnv.setOrAdd("key", "value");
+        var templater = new EnvironmentTemplater(Optional.of(testEnv), List.of(), null);
+        var small = "{{key}} small";
+        var large = "{{key}}" + "x".repeat(CompiledTemplate.MAX_CACHED_TEMPLATE_LENGTH);
+
+        assertThat(CompiledTemplate.of(small)).isSameAs(CompiledTemplate.of(small));
+        assertThat(CompiledTemplate.of(large)).isNotSameAs(CompiledTemplate.of(large));
+        assertThat(templater.replaceTags(large)).startsWith("valuexxx").hasSize(large.length() - 2);
+    }
+
+}
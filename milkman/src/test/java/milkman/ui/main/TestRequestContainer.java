@@ -6,6 +6,9 @@ import milkman.domain.RequestContainer;
 
 public class TestRequestContainer extends RequestContainer {
 
+	//used for deserialization
+	public TestRequestContainer() {
+	}
 	
 	public TestRequestContainer(String name) {
 		super(name);
@@ -0,0 +1,27 @@
+package milkman.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationExpressionTest {
+
+    @Test
+    void shouldExtractIdsViaDottedPathsAndPointers() {
+        String message = "{\"data\": {\"id\": 42, \"items\": [{\"ref\": \"a\"}]}}";
+
+        assertThat(CorrelationExpression.parse("$.data.id").extract(message)).contains("42");
+        assertThat(CorrelationExpression.parse("data.items[0].ref").extract(message)).contains("a");
+        assertThat(CorrelationExpression.parse("/data/id").extract(message)).contains("42");
+    }
+
+    @Test
+    void shouldNotExtractIdsFromMissingPathsOrNonJson() {
+        var expression = CorrelationExpression.parse("$.id");
+
+        assertThat(expression.extract("{\"other\": 1}")).isEmpty();
+        assertThat(expression.extract("{\"id\": null}")).isEmpty();
+        assertThat(expression.extract("plain text")).isEmpty();
+        assertThat(CorrelationExpression.parse(" ").isEmpty()).isTrue();
+    }
+}
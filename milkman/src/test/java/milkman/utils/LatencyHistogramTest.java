@@ -0,0 +1,36 @@
+package milkman.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldReportPercentilesWithinPrecision() {
+        var histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.recordValue(value);
+        }
+
+        assertThat(histogram.getTotalCount()).isEqualTo(100_000);
+        assertThat(histogram.getMinValue()).isEqualTo(1);
+        assertThat(histogram.getMaxValue()).isEqualTo(100_000);
+        assertThat(histogram.getMean()).isCloseTo(50_000.5, within(0.01));
+        assertThat(histogram.getValueAtPercentile(50)).isCloseTo(50_000, within(400L));
+        assertThat(histogram.getValueAtPercentile(99)).isCloseTo(99_000, within(800L));
+        assertThat(histogram.getValueAtPercentile(99.9)).isCloseTo(99_900, within(800L));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000);
+    }
+
+    @Test
+    void shouldMapValuesToBucketsContainingThem() {
+        for (long value : new long[]{0, 1, 255, 256, 257, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.lowestEquivalentValue(index)).isLessThanOrEqualTo(value);
+            assertThat(LatencyHistogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(value);
+        }
+        assertThat(new LatencyHistogram().getValueAtPercentile(50)).isEqualTo(0);
+    }
+}
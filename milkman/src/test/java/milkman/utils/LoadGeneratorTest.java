@@ -0,0 +1,75 @@
+package milkman.utils;
+
+import milkman.domain.Environment;
+import milkman.domain.RequestContainer;
+import milkman.domain.ResponseContainer;
+import milkman.domain.StatusInfoContainer;
+import milkman.ui.main.TestRequestContainer;
+import milkman.ui.plugin.PluginRequestExecutor;
+import milkman.utils.AsyncResponseControl.AsyncControl;
+import milkman.utils.LoadGenerator.LoadProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadGeneratorTest {
+
+    @Test
+    void shouldDisposeResponsesAndNotRecordFailedRequests() throws Exception {
+        var executor = new FailingEveryOtherExecutor();
+        var loadGenerator = new LoadGenerator(executor, new LoadProfile(10, 2, 0));
+        var status = new StatusInfoContainer();
+        var control = new AsyncResponseControl();
+
+        loadGenerator.start(new TestRequestContainer("request"), status, control.getCancellationControl());
+        control.onRequestSucceeded.get(10, TimeUnit.SECONDS);
+
+        Map<String, String> report = lastReport(status);
+        assertThat(report.get("Requests")).isEqualTo("10/10");
+        assertThat(report.get("Errors")).isEqualTo("5");
+        //failing requests are fast, successful ones take at least 20ms
+        assertThat(Double.parseDouble(report.get("p50").replace("ms", ""))).isGreaterThanOrEqualTo(20);
+        assertThat(executor.disposed).hasValue(5);
+    }
+
+    private static Map<String, String> lastReport(StatusInfoContainer status) {
+        List<Map<String, String>> reports = new ArrayList<>();
+        status.subscribe(entry -> reports.add(entry.getValueMap()));
+        return reports.get(reports.size() - 1);
+    }
+
+    private static class FailingEveryOtherExecutor implements PluginRequestExecutor {
+        private final AtomicInteger executions = new AtomicInteger();
+        private final AtomicInteger disposed = new AtomicInteger();
+
+        @Override
+        public Optional<RequestContainer> getDetails(String requestId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public ResponseContainer executeRequest(RequestContainer request, Optional<Environment> environmentOverride, AsyncControl asyncControl) {
+            if (executions.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("request failed");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ResponseContainer() {
+                @Override
+                public void dispose() {
+                    disposed.incrementAndGet();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package milkman.utils;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.BaseSubscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseBodyStoreTest {
+
+    @Test
+    void shouldSpillToDiskAndReadRanges() throws Exception {
+        var store = new ResponseBodyStore(4);
+        store.append(bytes("abc"));
+        store.append(bytes("defg"));
+        assertThat(store.isSpilled()).isTrue();
+        //reading while still receiving
+        assertThat(string(store.read(2, 4))).isEqualTo("cdef");
+
+        store.append(bytes("hij"));
+        store.complete();
+
+        assertThat(store.size()).isEqualTo(10);
+        assertThat(string(store.read(3, 100))).isEqualTo("defghij");
+        assertThat(store.read(10, 5)).isEmpty();
+
+        var out = new ByteArrayOutputStream();
+        store.writeTo(out);
+        assertThat(string(out.toByteArray())).isEqualTo("abcdefghij");
+        store.dispose();
+    }
+
+    @Test
+    void shouldReplayToLateSubscribers() {
+        var store = new ResponseBodyStore(4);
+        var early = new StringBuilder();
+        store.asFlux().subscribe(b -> early.append(string(b)));
+
+        store.append(bytes("abc"));
+        store.append(bytes("def"));
+
+        var late = new StringBuilder();
+        store.asFlux().subscribe(b -> late.append(string(b)));
+        store.append(bytes("g"));
+        store.complete();
+
+        assertThat(early.toString()).isEqualTo("abcdefg");
+        assertThat(late.toString()).isEqualTo("abcdefg");
+        assertThat(store.asFlux().reduce("", (s, b) -> s + string(b)).block()).isEqualTo("abcdefg");
+    }
+
+    @Test
+    void shouldOnlyEmitRequestedChunks() {
+        var store = new ResponseBodyStore(1024);
+        store.append(bytes("a"));
+        store.append(bytes("b"));
+
+        List<String> received = new LinkedList<>();
+        var subscriber = new BaseSubscriber<byte[]>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                //wait for explicit request
+            }
+
+            @Override
+            protected void hookOnNext(byte[] value) {
+                received.add(string(value));
+            }
+        };
+        store.asFlux().subscribe(subscriber);
+        assertThat(received).isEmpty();
+
+        subscriber.request(1);
+        assertThat(received).containsExactly("ab");
+
+        store.append(bytes("c"));
+        assertThat(received).containsExactly("ab");
+        subscriber.request(1);
+        assertThat(received).containsExactly("ab", "c");
+    }
+
+    @Test
+    void shouldFindPatternAcrossMemoryAndFile() {
+        var store = new ResponseBodyStore(4);
+        store.append(bytes("abcdefabcdef"));
+        store.complete();
+
+        assertThat(store.indexOf(bytes("def"), 0)).isEqualTo(3);
+        assertThat(store.indexOf(bytes("def"), 4)).isEqualTo(9);
+        assertThat(store.indexOf(bytes("xyz"), 0)).isEqualTo(-1);
+        assertThat(store.indexOf(bytes("def"), 0, () -> true)).isEqualTo(-1);
+        store.dispose();
+    }
+
+    @Test
+    void shouldReadAsDiscardedAfterDispose() {
+        var store = new ResponseBodyStore(4);
+        store.append(bytes("abcdefgh"));
+        var received = new StringBuilder();
+        var failure = new AtomicReference<Throwable>();
+        store.asFlux().subscribe(b -> received.append(string(b)), failure::set);
+
+        store.dispose();
+        store.append(bytes("ij"));
+
+        assertThat(store.isDisposed()).isTrue();
+        assertThat(store.read(0, 100)).isEmpty();
+        assertThat(store.indexOf(bytes("abc"), 0)).isEqualTo(-1);
+        assertThat(failure.get()).hasMessage(ResponseBodyStore.DISCARDED_MESSAGE);
+        assertThatThrownBy(() -> store.writeTo(new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessage(ResponseBodyStore.DISCARDED_MESSAGE);
+        assertThatThrownBy(() -> store.asFlux().blockLast())
+                .hasMessage(ResponseBodyStore.DISCARDED_MESSAGE);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
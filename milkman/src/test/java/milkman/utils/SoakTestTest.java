@@ -0,0 +1,68 @@
+package milkman.utils;
+
+import milkman.domain.StatusInfoContainer;
+import milkman.utils.SoakTest.Connection;
+import milkman.utils.SoakTest.ConnectionListener;
+import milkman.utils.SoakTest.SoakProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SoakTestTest {
+
+    @Test
+    void shouldSplitScriptAtEmptyLines() {
+        assertThat(SoakTest.parseScript("{\"id\": 1}\n\n{\n  \"id\": 2\n}\n \n\n")).containsExactly("{\"id\": 1}", "{\n  \"id\": 2\n}");
+    }
+
+    @Test
+    void shouldMatchEchoedMessagesOfAllConnections() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        SoakTest.Connector echo = listener -> CompletableFuture.completedFuture(new EchoConnection(listener));
+        var soakTest = new SoakTest(echo, new SoakProfile(3, 50, 1, "$.id"),
+                List.of("{\"id\": \"{{id}}\"}"), input -> input.replace("{{id}}", "" + counter.incrementAndGet()));
+        var status = new StatusInfoContainer();
+        var control = new AsyncResponseControl();
+
+        soakTest.start(status, control.getCancellationControl());
+        control.onRequestSucceeded.get(10, TimeUnit.SECONDS);
+
+        Map<String, String> report = lastReport(status);
+        assertThat(report.get("Connections")).isEqualTo("0 open, 3/3 connected");
+        assertThat(report.get("Dropped connections")).isEqualTo("0");
+        assertThat(report.get("Unanswered")).isEqualTo("0");
+        assertThat(report.get("Received")).isEqualTo(report.get("Sent"));
+        assertThat(Long.parseLong(report.get("Sent"))).isGreaterThan(0);
+    }
+
+    private static Map<String, String> lastReport(StatusInfoContainer status) {
+        List<Map<String, String>> reports = new ArrayList<>();
+        status.subscribe(entry -> reports.add(entry.getValueMap()));
+        return reports.get(reports.size() - 1);
+    }
+
+    private static class EchoConnection implements Connection {
+        private final ConnectionListener listener;
+
+        EchoConnection(ConnectionListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void send(String message) {
+            listener.onMessage(message);
+        }
+
+        @Override
+        public void close() {
+            listener.onClosed(null);
+        }
+    }
+}
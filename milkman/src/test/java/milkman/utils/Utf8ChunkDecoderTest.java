@@ -0,0 +1,30 @@
+package milkman.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Utf8ChunkDecoderTest {
+
+    @Test
+    void shouldKeepBackSplitCharacters() {
+        byte[] bytes = "a\u00e4\u20ac\ud83d\ude00b".getBytes(StandardCharsets.UTF_8);
+        var decoder = new Utf8ChunkDecoder();
+        var result = new StringBuilder();
+        for (int i = 0; i < bytes.length; i++) {
+            result.append(decoder.decode(Arrays.copyOfRange(bytes, i, i + 1)));
+        }
+        result.append(decoder.flush());
+        assertThat(result.toString()).isEqualTo("a\u00e4\u20ac\ud83d\ude00b");
+    }
+
+    @Test
+    void shouldReplaceIncompleteCharacterOnFlush() {
+        var decoder = new Utf8ChunkDecoder();
+        assertThat(decoder.decode(new byte[]{'a', (byte) 0xE2, (byte) 0x82})).isEqualTo("a");
+        assertThat(decoder.flush()).isEqualTo("\ufffd");
+    }
+}